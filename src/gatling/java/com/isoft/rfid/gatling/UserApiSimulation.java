@@ -0,0 +1,143 @@
+package com.isoft.rfid.gatling;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+import java.time.Duration;
+
+/**
+ * Load of the authentication, account, user administration and user search endpoints.
+ * <p>
+ * Two populations are injected: users logging in and reading their account, as at a shift change, and administrators
+ * browsing the users page by page and searching them. Both are configured with system properties, passed by the
+ * {@code gatling} Maven profile:
+ * <ul>
+ * <li>{@code gatling.baseUrl}: the URL of the application, {@code http://localhost:8080} by default.</li>
+ * <li>{@code gatling.username} and {@code gatling.password}: an administrator, {@code admin} by default.</li>
+ * <li>{@code gatling.loginUsers} and {@code gatling.browseUsers}: the number of users of each population.</li>
+ * <li>{@code gatling.injection}: {@code ramp} to start the users over {@code gatling.ramp} seconds, {@code constant} to
+ * start that many users per second for {@code gatling.duration} seconds, or {@code spike} to start them all at once.</li>
+ * <li>{@code gatling.pages}: the number of pages each administrator reads.</li>
+ * <li>{@code gatling.searchQuery}: the query of the searches.</li>
+ * <li>{@code gatling.maxFailedPercent}: the percentage of failed requests above which the simulation fails.</li>
+ * </ul>
+ */
+public class UserApiSimulation extends Simulation {
+
+    private static final String BASE_URL = System.getProperty("gatling.baseUrl", "http://localhost:8080");
+
+    private static final String USERNAME = System.getProperty("gatling.username", "admin");
+
+    private static final String PASSWORD = System.getProperty("gatling.password", "admin");
+
+    private static final int LOGIN_USERS = Integer.getInteger("gatling.loginUsers", 10);
+
+    private static final int BROWSE_USERS = Integer.getInteger("gatling.browseUsers", 10);
+
+    private static final String INJECTION = System.getProperty("gatling.injection", "ramp");
+
+    private static final Duration RAMP = Duration.ofSeconds(Integer.getInteger("gatling.ramp", 30));
+
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("gatling.duration", 60));
+
+    private static final int PAGES = Integer.getInteger("gatling.pages", 5);
+
+    private static final String SEARCH_QUERY = System.getProperty("gatling.searchQuery", "admin");
+
+    private static final double MAX_FAILED_PERCENT = Double.parseDouble(System.getProperty("gatling.maxFailedPercent", "1"));
+
+    private final HttpProtocolBuilder httpProtocol = http
+        .baseUrl(BASE_URL)
+        .acceptHeader("application/json")
+        .acceptEncodingHeader("gzip, deflate")
+        .userAgentHeader("gatling");
+
+    private final ChainBuilder authenticate = exec(session -> session.set("username", USERNAME).set("password", PASSWORD))
+        .exec(
+            http("Authenticate")
+                .post("/api/authenticate")
+                .body(StringBody("{\"username\":\"#{username}\",\"password\":\"#{password}\",\"rememberMe\":false}"))
+                .asJson()
+                .check(status().is(200))
+                .check(header("Authorization").saveAs("accessToken"))
+        );
+
+    private final ChainBuilder getAccount = exec(
+        http("Get account").get("/api/account").header("Authorization", "#{accessToken}").check(status().is(200))
+    );
+
+    private final ChainBuilder browseAdminUsers = repeat(PAGES, "page")
+        .on(
+            exec(
+                http("Get admin users page")
+                    .get("/api/admin/users")
+                    .queryParam("page", "#{page}")
+                    .queryParam("size", 20)
+                    .queryParam("sort", "id,asc")
+                    .header("Authorization", "#{accessToken}")
+                    .check(status().is(200))
+            )
+        );
+
+    private final ChainBuilder getPublicUsers = exec(
+        http("Get public users")
+            .get("/api/users")
+            .queryParam("page", 0)
+            .queryParam("size", 20)
+            .header("Authorization", "#{accessToken}")
+            .check(status().is(200))
+    );
+
+    private final ChainBuilder searchUsers = exec(session -> session.remove("cursor"))
+        .exec(
+            http("Search users")
+                .get("/api/_search/users/" + SEARCH_QUERY)
+                .header("Authorization", "#{accessToken}")
+                .check(status().is(200))
+                .check(header("X-Next-Cursor").optional().saveAs("cursor"))
+        )
+        .doIf("#{cursor.exists()}")
+        .then(
+            exec(
+                http("Search users next page")
+                    .get("/api/_search/users/" + SEARCH_QUERY)
+                    .queryParam("cursor", "#{cursor}")
+                    .header("Authorization", "#{accessToken}")
+                    .check(status().is(200))
+            )
+        );
+
+    private final ScenarioBuilder login = scenario("Login").exec(authenticate, getAccount);
+
+    private final ScenarioBuilder browse = scenario("Browse users").exec(authenticate, browseAdminUsers, getPublicUsers, searchUsers);
+
+    {
+        setUp(inject(login, LOGIN_USERS), inject(browse, BROWSE_USERS))
+            .protocols(httpProtocol)
+            .assertions(global().failedRequests().percent().lte(MAX_FAILED_PERCENT));
+    }
+
+    private static PopulationBuilder inject(ScenarioBuilder scenario, int users) {
+        OpenInjectionStep step;
+        switch (INJECTION) {
+            case "constant":
+                step = constantUsersPerSec(users).during(DURATION);
+                break;
+            case "spike":
+                step = atOnceUsers(users);
+                break;
+            case "ramp":
+                step = rampUsers(users).during(RAMP);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown injection profile " + INJECTION + ", expected ramp, constant or spike");
+        }
+        return scenario.injectOpen(step);
+    }
+}
@@ -0,0 +1,72 @@
+package com.isoft.rfid.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.isoft.rfid.service.dto.AdminUserDTO;
+import com.isoft.rfid.service.mapper.UserMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of serializing a page of {@link AdminUserDTO}s, as returned by {@code GET /api/admin/users}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminUserDTOSerializationBenchmark {
+
+    @Param({ "20", "1000" })
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter listWriter;
+
+    private List<AdminUserDTO> adminUserDTOs;
+
+    @Setup
+    public void setup() {
+        // As configured by JacksonConfiguration and spring.jackson in application.yml
+        objectMapper =
+            JsonMapper
+                .builder()
+                .addModule(new JavaTimeModule())
+                .addModule(new Jdk8Module())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, AdminUserDTO.class));
+        adminUserDTOs = new UserMapper().usersToAdminUserDTOs(BenchmarkUsers.create(size));
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(adminUserDTOs);
+    }
+
+    /**
+     * With a writer for the list type, resolved once, as a message converter could.
+     */
+    @Benchmark
+    public byte[] writeWithTypedWriter() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(adminUserDTOs);
+    }
+}
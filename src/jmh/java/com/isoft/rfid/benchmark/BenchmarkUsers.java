@@ -0,0 +1,59 @@
+package com.isoft.rfid.benchmark;
+
+import com.isoft.rfid.domain.Authority;
+import com.isoft.rfid.domain.User;
+import com.isoft.rfid.security.AuthoritiesConstants;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Users as loaded from the database, shared by the benchmarks.
+ */
+final class BenchmarkUsers {
+
+    private BenchmarkUsers() {}
+
+    /**
+     * @param count the number of users.
+     * @return users with all their fields set, every tenth of them an administrator.
+     */
+    static List<User> create(int count) {
+        Authority user = authority(AuthoritiesConstants.USER);
+        Authority admin = authority(AuthoritiesConstants.ADMIN);
+        Instant now = Instant.now();
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User u = new User();
+            u.setId((long) i + 1);
+            u.setLogin("user-" + i);
+            u.setPassword("$2a$10$" + "x".repeat(53));
+            u.setFirstName("First" + i);
+            u.setLastName("Last" + i);
+            u.setEmail("user-" + i + "@localhost");
+            u.setImageUrl("http://placehold.it/50x50");
+            u.setActivated(true);
+            u.setLangKey("en");
+            u.setCreatedBy("system");
+            u.setCreatedDate(now);
+            u.setLastModifiedBy("system");
+            u.setLastModifiedDate(now);
+            Set<Authority> authorities = new HashSet<>();
+            authorities.add(user);
+            if (i % 10 == 0) {
+                authorities.add(admin);
+            }
+            u.setAuthorities(authorities);
+            users.add(u);
+        }
+        return users;
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+}
@@ -0,0 +1,67 @@
+package com.isoft.rfid.benchmark;
+
+import com.isoft.rfid.config.ElasticsearchConfiguration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+/**
+ * Cost of the {@code Instant} and {@code ZonedDateTime} converters of {@link ElasticsearchConfiguration}, through a
+ * conversion service as Spring Data Elasticsearch uses them for each date field of each document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElasticsearchConversionsBenchmark {
+
+    private DefaultConversionService conversionService;
+
+    private Instant instant;
+
+    private ZonedDateTime zonedDateTime;
+
+    private String formatted;
+
+    @Setup
+    public void setup() {
+        conversionService = new DefaultConversionService();
+        new ElasticsearchConfiguration().elasticsearchCustomConversions().registerConvertersIn(conversionService);
+        instant = Instant.parse("2022-11-12T10:15:30.123456Z");
+        zonedDateTime = ZonedDateTime.parse("2022-11-12T11:15:30.123456+01:00[Europe/Paris]");
+        formatted = instant.toString();
+    }
+
+    @Benchmark
+    public String writeInstant() {
+        return conversionService.convert(instant, String.class);
+    }
+
+    @Benchmark
+    public Instant readInstant() {
+        return conversionService.convert(formatted, Instant.class);
+    }
+
+    @Benchmark
+    public String writeZonedDateTime() {
+        return conversionService.convert(zonedDateTime, String.class);
+    }
+
+    @Benchmark
+    public ZonedDateTime readZonedDateTime() {
+        return conversionService.convert(formatted, ZonedDateTime.class);
+    }
+}
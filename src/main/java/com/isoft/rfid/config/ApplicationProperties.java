@@ -1,6 +1,11 @@
 package com.isoft.rfid.config;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Rfid Revamp Elk.
@@ -10,7 +15,1154 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Ingestion ingestion = new Ingestion();
+
+    private final BulkIndexer bulkIndexer = new BulkIndexer();
+
+    private final RollingIndices rollingIndices = new RollingIndices();
+
+    private final ReaderServer readerServer = new ReaderServer();
+
+    private final Wal wal = new Wal();
+
+    private final Admission admission = new Admission();
+
+    private final Occupancy occupancy = new Occupancy();
+
+    private final LastSeen lastSeen = new LastSeen();
+
+    private final ReadPartitions readPartitions = new ReadPartitions();
+
+    private final LiveFeed liveFeed = new LiveFeed();
+
+    private final SearchOutbox searchOutbox = new SearchOutbox();
+
+    private final Reindex reindex = new Reindex();
+
+    private final Cache cache = new Cache();
+
+    private final CacheInvalidation cacheInvalidation = new CacheInvalidation();
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final Streaming streaming = new Streaming();
+
     // jhipster-needle-application-properties-property
+
+    public Ingestion getIngestion() {
+        return ingestion;
+    }
+
+    public BulkIndexer getBulkIndexer() {
+        return bulkIndexer;
+    }
+
+    public RollingIndices getRollingIndices() {
+        return rollingIndices;
+    }
+
+    public ReaderServer getReaderServer() {
+        return readerServer;
+    }
+
+    public Wal getWal() {
+        return wal;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public Occupancy getOccupancy() {
+        return occupancy;
+    }
+
+    public LastSeen getLastSeen() {
+        return lastSeen;
+    }
+
+    public ReadPartitions getReadPartitions() {
+        return readPartitions;
+    }
+
+    public LiveFeed getLiveFeed() {
+        return liveFeed;
+    }
+
+    public SearchOutbox getSearchOutbox() {
+        return searchOutbox;
+    }
+
+    public Reindex getReindex() {
+        return reindex;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public CacheInvalidation getCacheInvalidation() {
+        return cacheInvalidation;
+    }
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public Streaming getStreaming() {
+        return streaming;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Ingestion {
+
+        /**
+         * Maximum number of reads accepted in a single {@code POST /api/reads/batch} call.
+         */
+        private int maxBatchSize = 10000;
+
+        /**
+         * Number of rows sent to the database in a single JDBC batch.
+         */
+        private int jdbcBatchSize = 1000;
+
+        /**
+         * Number of slots of the ingestion ring buffer, must be a power of 2.
+         */
+        private int ringBufferSize = 65536;
+
+        /**
+         * Maximum number of reads written to PostgreSQL in a single transaction.
+         */
+        private int writerBatchSize = 5000;
+
+        /**
+         * Delay before a failed batch is written again, doubled after each consecutive failure.
+         */
+        private Duration writerInitialBackoff = Duration.ofMillis(100);
+
+        /**
+         * Maximum delay between two attempts to write a failed batch.
+         */
+        private Duration writerMaxBackoff = Duration.ofSeconds(10);
+
+        /**
+         * Minimum number of reads in a batch for it to be written with a binary {@code COPY} rather than JDBC batches, 0 to
+         * always use JDBC batches.
+         */
+        private int copyThreshold = 500;
+
+        /**
+         * Maximum number of reads sent to Elasticsearch in a single bulk request.
+         */
+        private int indexerBatchSize = 2000;
+
+        /**
+         * Repeated reads of the same tag by the same reader antenna within this window are dropped, 0 disables deduplication.
+         */
+        private Duration dedupWindow = Duration.ofSeconds(5);
+
+        /**
+         * Expected number of distinct (EPC, reader, antenna) keys seen within the deduplication window.
+         */
+        private int dedupExpectedKeys = 1 << 16;
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getJdbcBatchSize() {
+            return jdbcBatchSize;
+        }
+
+        public void setJdbcBatchSize(int jdbcBatchSize) {
+            this.jdbcBatchSize = jdbcBatchSize;
+        }
+
+        public int getRingBufferSize() {
+            return ringBufferSize;
+        }
+
+        public void setRingBufferSize(int ringBufferSize) {
+            this.ringBufferSize = ringBufferSize;
+        }
+
+        public int getWriterBatchSize() {
+            return writerBatchSize;
+        }
+
+        public void setWriterBatchSize(int writerBatchSize) {
+            this.writerBatchSize = writerBatchSize;
+        }
+
+        public int getCopyThreshold() {
+            return copyThreshold;
+        }
+
+        public void setCopyThreshold(int copyThreshold) {
+            this.copyThreshold = copyThreshold;
+        }
+
+        public int getIndexerBatchSize() {
+            return indexerBatchSize;
+        }
+
+        public void setIndexerBatchSize(int indexerBatchSize) {
+            this.indexerBatchSize = indexerBatchSize;
+        }
+
+        public Duration getDedupWindow() {
+            return dedupWindow;
+        }
+
+        public void setDedupWindow(Duration dedupWindow) {
+            this.dedupWindow = dedupWindow;
+        }
+
+        public int getDedupExpectedKeys() {
+            return dedupExpectedKeys;
+        }
+
+        public void setDedupExpectedKeys(int dedupExpectedKeys) {
+            this.dedupExpectedKeys = dedupExpectedKeys;
+        }
+
+        public Duration getWriterInitialBackoff() {
+            return writerInitialBackoff;
+        }
+
+        public void setWriterInitialBackoff(Duration writerInitialBackoff) {
+            this.writerInitialBackoff = writerInitialBackoff;
+        }
+
+        public Duration getWriterMaxBackoff() {
+            return writerMaxBackoff;
+        }
+
+        public void setWriterMaxBackoff(Duration writerMaxBackoff) {
+            this.writerMaxBackoff = writerMaxBackoff;
+        }
+    }
+
+    public static class BulkIndexer {
+
+        /**
+         * Number of buffered documents which triggers a bulk request.
+         */
+        private int bulkActions = 1000;
+
+        /**
+         * Size of the buffered documents which triggers a bulk request.
+         */
+        private DataSize bulkSize = DataSize.ofMegabytes(5);
+
+        /**
+         * Maximum time a document stays buffered before being sent.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Maximum number of buffered documents, callers block when it is reached.
+         */
+        private int queueCapacity = 100000;
+
+        /**
+         * Number of times a rejected document is sent again before being dropped.
+         */
+        private int maxRetries = 5;
+
+        /**
+         * Delay before the first retry, doubled on each consecutive failure.
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * Maximum delay between retries.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(10);
+
+        public int getBulkActions() {
+            return bulkActions;
+        }
+
+        public void setBulkActions(int bulkActions) {
+            this.bulkActions = bulkActions;
+        }
+
+        public DataSize getBulkSize() {
+            return bulkSize;
+        }
+
+        public void setBulkSize(DataSize bulkSize) {
+            this.bulkSize = bulkSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    public static class RollingIndices {
+
+        /**
+         * Time span of each index, {@code DAYS} or {@code HOURS}.
+         */
+        private ChronoUnit period = ChronoUnit.DAYS;
+
+        /**
+         * Number of primary shards of each index.
+         */
+        private int numberOfShards = 1;
+
+        /**
+         * Number of replicas of each index.
+         */
+        private int numberOfReplicas = 1;
+
+        /**
+         * How often newly indexed documents become searchable.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(30);
+
+        /**
+         * Indices whose period ended longer ago than this are deleted.
+         */
+        private Duration retention = Duration.ofDays(90);
+
+        public ChronoUnit getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(ChronoUnit period) {
+            this.period = period;
+        }
+
+        public int getNumberOfShards() {
+            return numberOfShards;
+        }
+
+        public void setNumberOfShards(int numberOfShards) {
+            this.numberOfShards = numberOfShards;
+        }
+
+        public int getNumberOfReplicas() {
+            return numberOfReplicas;
+        }
+
+        public void setNumberOfReplicas(int numberOfReplicas) {
+            this.numberOfReplicas = numberOfReplicas;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+    }
+
+    public static class ReaderServer {
+
+        /**
+         * Whether to listen for reader connections. Readers are not authenticated, so this must only be enabled on a
+         * trusted network.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Address to listen on, the loopback interface by default.
+         */
+        private String host = "127.0.0.1";
+
+        /**
+         * Port to listen on, 0 for any free port.
+         */
+        private int port = 5090;
+
+        /**
+         * Size of the receive buffer of each connection, which bounds the size of a frame.
+         */
+        private int bufferSize = 64 * 1024;
+
+        /**
+         * Maximum number of concurrent reader connections.
+         */
+        private int maxConnections = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+    }
+
+    public static class Wal {
+
+        /**
+         * Whether to write accepted reads to the write-ahead log, and acknowledge reader connections once they are durable.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the segment and offset files.
+         */
+        private String directory = "wal";
+
+        /**
+         * Size of a segment file.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+    }
+
+    public static class Admission {
+
+        /**
+         * Whether to shed ingestion requests when the pipeline falls behind.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Fraction of the ring buffer which may be used by unprocessed reads before requests are throttled.
+         */
+        private double maxQueueUtilization = 0.8;
+
+        /**
+         * Amount of write-ahead log not yet written to the database before requests are throttled.
+         */
+        private DataSize maxJournalLag = DataSize.ofMegabytes(256);
+
+        /**
+         * Mean time to acquire a database connection above which the database is considered saturated.
+         */
+        private Duration maxConnectionWait = Duration.ofMillis(500);
+
+        /**
+         * Bounds of the {@code Retry-After} returned to shed requests.
+         */
+        private Duration minRetryAfter = Duration.ofSeconds(1);
+
+        private Duration maxRetryAfter = Duration.ofSeconds(60);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getMaxQueueUtilization() {
+            return maxQueueUtilization;
+        }
+
+        public void setMaxQueueUtilization(double maxQueueUtilization) {
+            this.maxQueueUtilization = maxQueueUtilization;
+        }
+
+        public DataSize getMaxJournalLag() {
+            return maxJournalLag;
+        }
+
+        public void setMaxJournalLag(DataSize maxJournalLag) {
+            this.maxJournalLag = maxJournalLag;
+        }
+
+        public Duration getMaxConnectionWait() {
+            return maxConnectionWait;
+        }
+
+        public void setMaxConnectionWait(Duration maxConnectionWait) {
+            this.maxConnectionWait = maxConnectionWait;
+        }
+
+        public Duration getMinRetryAfter() {
+            return minRetryAfter;
+        }
+
+        public void setMinRetryAfter(Duration minRetryAfter) {
+            this.minRetryAfter = minRetryAfter;
+        }
+
+        public Duration getMaxRetryAfter() {
+            return maxRetryAfter;
+        }
+
+        public void setMaxRetryAfter(Duration maxRetryAfter) {
+            this.maxRetryAfter = maxRetryAfter;
+        }
+    }
+
+    public static class Occupancy {
+
+        /**
+         * A tag which was not read for this long has left its zone.
+         */
+        private Duration exitTimeout = Duration.ofMinutes(5);
+
+        /**
+         * How late a read may arrive, behind the latest read time, and still be counted in its window.
+         */
+        private Duration allowedLateness = Duration.ofMinutes(1);
+
+        /**
+         * How often the changed presences are written to the database.
+         */
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+
+        /**
+         * Expected number of tags present at the same time.
+         */
+        private int expectedTags = 1 << 16;
+
+        public Duration getExitTimeout() {
+            return exitTimeout;
+        }
+
+        public void setExitTimeout(Duration exitTimeout) {
+            this.exitTimeout = exitTimeout;
+        }
+
+        public Duration getAllowedLateness() {
+            return allowedLateness;
+        }
+
+        public void setAllowedLateness(Duration allowedLateness) {
+            this.allowedLateness = allowedLateness;
+        }
+
+        public Duration getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+
+        public int getExpectedTags() {
+            return expectedTags;
+        }
+
+        public void setExpectedTags(int expectedTags) {
+            this.expectedTags = expectedTags;
+        }
+    }
+
+    public static class LastSeen {
+
+        /**
+         * Maximum number of tags in the off-heap last-seen index, which takes 64 to 128 bytes of direct memory per tag,
+         * within {@code -XX:MaxDirectMemorySize}.
+         */
+        private int maxTags = 100000;
+
+        /**
+         * Snapshot file of the index, none if not set.
+         */
+        private String snapshotFile;
+
+        /**
+         * How often the index is written to its snapshot file.
+         */
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+
+        public int getMaxTags() {
+            return maxTags;
+        }
+
+        public void setMaxTags(int maxTags) {
+            this.maxTags = maxTags;
+        }
+
+        public String getSnapshotFile() {
+            return snapshotFile;
+        }
+
+        public void setSnapshotFile(String snapshotFile) {
+            this.snapshotFile = snapshotFile;
+        }
+
+        public Duration getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+    }
+
+    public static class ReadPartitions {
+
+        /**
+         * Number of daily partitions of the reads table created ahead of the current day.
+         */
+        private int precreatedDays = 3;
+
+        /**
+         * Partitions whose day ended longer ago than this are removed.
+         */
+        private Duration retention = Duration.ofDays(90);
+
+        /**
+         * Whether expired partitions are detached and kept as standalone tables, to be archived, rather than dropped.
+         */
+        private boolean detachExpired = false;
+
+        public int getPrecreatedDays() {
+            return precreatedDays;
+        }
+
+        public void setPrecreatedDays(int precreatedDays) {
+            this.precreatedDays = precreatedDays;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public boolean isDetachExpired() {
+            return detachExpired;
+        }
+
+        public void setDetachExpired(boolean detachExpired) {
+            this.detachExpired = detachExpired;
+        }
+    }
+
+    public static class LiveFeed {
+
+        /**
+         * Number of threads sending the tag movements to the subscribers.
+         */
+        private int threads = 2;
+
+        /**
+         * Maximum number of tags with a movement pending for a subscriber, beyond which the oldest ones are dropped.
+         */
+        private int maxPendingTags = 10000;
+
+        /**
+         * How often idle subscribers are sent a heartbeat.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+        /**
+         * Duration of a subscription, after which the client has to reconnect.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getMaxPendingTags() {
+            return maxPendingTags;
+        }
+
+        public void setMaxPendingTags(int maxPendingTags) {
+            this.maxPendingTags = maxPendingTags;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public static class SearchOutbox {
+
+        /**
+         * Maximum number of index writes relayed from the outbox in a single bulk request.
+         */
+        private int batchSize = 500;
+
+        /**
+         * How long the writes claimed by a relay are left to it, after which another relay sends them again, as when the
+         * instance stopped while sending them.
+         */
+        private Duration claimTimeout = Duration.ofMinutes(1);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getClaimTimeout() {
+            return claimTimeout;
+        }
+
+        public void setClaimTimeout(Duration claimTimeout) {
+            this.claimTimeout = claimTimeout;
+        }
+    }
+
+    public static class Reindex {
+
+        /**
+         * Number of id ranges read and indexed in parallel.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Number of entities read by a keyset query and sent in a single bulk request.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Number of primary shards of the rebuilt indices.
+         */
+        private int numberOfShards = 1;
+
+        /**
+         * Number of replicas of the rebuilt indices, added once they are loaded.
+         */
+        private int numberOfReplicas = 1;
+
+        /**
+         * Refresh interval of the rebuilt indices, set once they are loaded.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(1);
+
+        /**
+         * Maximum number of times documents rejected by an overloaded cluster are sent again before the rebuild fails.
+         */
+        private int maxRetries = 5;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getNumberOfShards() {
+            return numberOfShards;
+        }
+
+        public void setNumberOfShards(int numberOfShards) {
+            this.numberOfShards = numberOfShards;
+        }
+
+        public int getNumberOfReplicas() {
+            return numberOfReplicas;
+        }
+
+        public void setNumberOfReplicas(int numberOfReplicas) {
+            this.numberOfReplicas = numberOfReplicas;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Directory of the disk tiers, required if any cache has one.
+         */
+        private String diskDirectory;
+
+        /**
+         * Tiers and expiry of each cache, by cache name. Caches which are not listed only have a heap tier, sized and
+         * expired as configured by {@code jhipster.cache.ehcache}.
+         */
+        private final Map<String, Tiers> caches = new LinkedHashMap<>();
+
+        public String getDiskDirectory() {
+            return diskDirectory;
+        }
+
+        public void setDiskDirectory(String diskDirectory) {
+            this.diskDirectory = diskDirectory;
+        }
+
+        public Map<String, Tiers> getCaches() {
+            return caches;
+        }
+
+        public static class Tiers {
+
+            /**
+             * Number of entries on heap, {@code jhipster.cache.ehcache.max-entries} if not set.
+             */
+            private Long heapEntries;
+
+            /**
+             * Size of the off-heap tier, none if not set. Entries are serialized in this tier.
+             */
+            private DataSize offHeapSize;
+
+            /**
+             * Size of the disk tier, none if not set. It must be larger than the off-heap tier, and is cleared on restart.
+             */
+            private DataSize diskSize;
+
+            /**
+             * Time after which an entry expires once created or updated, {@code jhipster.cache.ehcache.time-to-live-seconds}
+             * if not set.
+             */
+            private Duration timeToLive;
+
+            /**
+             * Time after which an entry expires once read, if set. It replaces the time to live: an entry which is read
+             * expires this long after its last read, sooner or later than its time to live, until it is updated.
+             */
+            private Duration timeToIdle;
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public DataSize getOffHeapSize() {
+                return offHeapSize;
+            }
+
+            public void setOffHeapSize(DataSize offHeapSize) {
+                this.offHeapSize = offHeapSize;
+            }
+
+            public DataSize getDiskSize() {
+                return diskSize;
+            }
+
+            public void setDiskSize(DataSize diskSize) {
+                this.diskSize = diskSize;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getTimeToIdle() {
+                return timeToIdle;
+            }
+
+            public void setTimeToIdle(Duration timeToIdle) {
+                this.timeToIdle = timeToIdle;
+            }
+        }
+    }
+
+    public static class CacheInvalidation {
+
+        /**
+         * Whether cache evictions are sent to, and received from, the other instances sharing the database.
+         */
+        private boolean enabled = true;
+
+        /**
+         * PostgreSQL channel of the evictions.
+         */
+        private String channel = "cache_invalidation";
+
+        /**
+         * How long the listener waits for notifications before checking whether it must stop.
+         */
+        private Duration pollInterval = Duration.ofMillis(500);
+
+        /**
+         * Delay before the listener reconnects after losing its connection. All the caches are cleared on reconnection,
+         * as evictions may have been missed.
+         */
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        public void setReconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+        }
+    }
+
+    public static class TokenCache {
+
+        /**
+         * Maximum number of verified JWTs kept, each until it expires. {@code 0} verifies every token on every request.
+         */
+        private int maxEntries = 10_000;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * BCrypt cost of new password hashes. Passwords hashed with another cost are hashed again on login.
+         */
+        private int strength = 10;
+
+        /**
+         * Number of threads hashing passwords, {@code 0} for the number of processors.
+         */
+        private int threads = 0;
+
+        /**
+         * Maximum number of hashes waiting for a thread, beyond which requests are rejected.
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * {@code Retry-After} returned to rejected requests.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getStrength() {
+            return strength;
+        }
+
+        public void setStrength(int strength) {
+            this.strength = strength;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    public static class Streaming {
+
+        /**
+         * Number of rows fetched from the database at a time by streamed responses.
+         */
+        private int fetchSize = 500;
+
+        /**
+         * How long a streamed response may take to be written, instead of the async request timeout of the container.
+         */
+        private Duration requestTimeout = Duration.ofMinutes(10);
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public Duration getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
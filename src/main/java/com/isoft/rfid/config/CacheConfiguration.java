@@ -1,9 +1,18 @@
 package com.isoft.rfid.config;
 
+import java.io.File;
 import java.time.Duration;
+import javax.cache.Caching;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
@@ -19,20 +28,38 @@ import tech.jhipster.config.cache.PrefixedKeyGenerator;
 @EnableCaching
 public class CacheConfiguration {
 
+    private static final ApplicationProperties.Cache.Tiers HEAP_ONLY = new ApplicationProperties.Cache.Tiers();
+
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+    private final ApplicationProperties.Cache cacheProperties;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cacheProperties = applicationProperties.getCache();
+    }
 
-        jcacheConfiguration =
-            Eh107Configuration.fromEhcacheCacheConfiguration(
-                CacheConfigurationBuilder
-                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                    .build()
-            );
+    /**
+     * The cache manager, created here rather than by Spring Boot so that it has a persistence directory when caches
+     * have a disk tier. The {@link JCacheManagerCustomizer}s are applied as Spring Boot would.
+     */
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        DefaultConfiguration configuration;
+        if (cacheProperties.getDiskDirectory() == null) {
+            configuration = new DefaultConfiguration(provider.getDefaultClassLoader());
+        } else {
+            configuration =
+                new DefaultConfiguration(
+                    provider.getDefaultClassLoader(),
+                    new DefaultPersistenceConfiguration(new File(cacheProperties.getDiskDirectory()))
+                );
+        }
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), configuration);
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
     }
 
     @Bean
@@ -57,8 +84,41 @@ public class CacheConfiguration {
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, jcacheConfiguration(cacheName));
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(String cacheName) {
+        ApplicationProperties.Cache.Tiers tiers = cacheProperties.getCaches().getOrDefault(cacheName, HEAP_ONLY);
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.heap(
+            tiers.getHeapEntries() == null ? ehcache.getMaxEntries() : tiers.getHeapEntries()
+        );
+        if (tiers.getOffHeapSize() != null) {
+            resourcePools = resourcePools.offheap(tiers.getOffHeapSize().toKilobytes(), MemoryUnit.KB);
+        }
+        if (tiers.getDiskSize() != null) {
+            if (cacheProperties.getDiskDirectory() == null) {
+                throw new IllegalStateException("Cache " + cacheName + " has a disk tier, application.cache.disk-directory must be set");
+            }
+            resourcePools = resourcePools.disk(tiers.getDiskSize().toKilobytes(), MemoryUnit.KB, false);
+        }
+        Duration timeToLive = tiers.getTimeToLive() == null
+            ? Duration.ofSeconds(ehcache.getTimeToLiveSeconds())
+            : tiers.getTimeToLive();
+        // Ehcache does not give the age of an entry to its expiry policy: reads cannot be capped by the time to live, and
+        // replace it instead
+        ExpiryPolicy<Object, Object> expiry = tiers.getTimeToIdle() == null
+            ? ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive)
+            : ExpiryPolicyBuilder.expiry().create(timeToLive).update(timeToLive).access(tiers.getTimeToIdle()).build();
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+            .newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+            .withExpiry(expiry);
+        if (tiers.getOffHeapSize() != null || tiers.getDiskSize() != null) {
+            // Entries are serialized beyond the heap: keys and values are Serializable, as the Hibernate cache entries
+            builder = builder.withKeySerializer((Class) PlainJavaSerializer.class).withValueSerializer((Class) PlainJavaSerializer.class);
         }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(builder.build());
     }
 
     @Autowired(required = false)
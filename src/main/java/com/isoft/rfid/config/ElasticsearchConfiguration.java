@@ -1,5 +1,6 @@
 package com.isoft.rfid.config;
 
+import com.isoft.rfid.domain.Epc;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -26,7 +27,9 @@ public class ElasticsearchConfiguration extends ElasticsearchConfigurationSuppor
                 new InstantWritingConverter(),
                 new InstantReadingConverter(),
                 new LocalDateWritingConverter(),
-                new LocalDateReadingConverter()
+                new LocalDateReadingConverter(),
+                new EpcWritingConverter(),
+                new EpcReadingConverter()
             )
         );
     }
@@ -102,4 +105,28 @@ public class ElasticsearchConfiguration extends ElasticsearchConfigurationSuppor
             return LocalDate.parse(source);
         }
     }
+
+    @WritingConverter
+    static class EpcWritingConverter implements Converter<Epc, String> {
+
+        @Override
+        public String convert(Epc source) {
+            if (source == null) {
+                return null;
+            }
+            return source.toString();
+        }
+    }
+
+    @ReadingConverter
+    static class EpcReadingConverter implements Converter<String, Epc> {
+
+        @Override
+        public Epc convert(String source) {
+            if (source == null) {
+                return null;
+            }
+            return Epc.parse(source);
+        }
+    }
 }
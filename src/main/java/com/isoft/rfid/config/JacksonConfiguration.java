@@ -1,8 +1,19 @@
 package com.isoft.rfid.config;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
 import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.isoft.rfid.domain.Epc;
+import java.io.IOException;
+import java.nio.CharBuffer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.zalando.problem.jackson.ProblemModule;
@@ -48,4 +59,53 @@ public class JacksonConfiguration {
     public ConstraintViolationProblemModule constraintViolationProblemModule() {
         return new ConstraintViolationProblemModule();
     }
+
+    /*
+     * Support for the binary EPC value type, as hex strings.
+     */
+    @Bean
+    public SimpleModule epcModule() {
+        SimpleModule module = new SimpleModule("EpcModule");
+        module.addSerializer(Epc.class, new EpcSerializer());
+        module.addDeserializer(Epc.class, new EpcDeserializer());
+        return module;
+    }
+
+    static class EpcSerializer extends StdScalarSerializer<Epc> {
+
+        private static final long serialVersionUID = 1L;
+
+        EpcSerializer() {
+            super(Epc.class);
+        }
+
+        @Override
+        public void serialize(Epc value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            char[] chars = new char[2 * Epc.MAX_LENGTH];
+            gen.writeString(chars, 0, value.toHex(chars, 0));
+        }
+    }
+
+    static class EpcDeserializer extends StdScalarDeserializer<Epc> {
+
+        private static final long serialVersionUID = 1L;
+
+        EpcDeserializer() {
+            super(Epc.class);
+        }
+
+        @Override
+        public Epc deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.hasToken(JsonToken.VALUE_STRING)) {
+                return (Epc) ctxt.handleUnexpectedToken(Epc.class, p);
+            }
+            // Parse the parser's own buffer, without materializing a String
+            CharBuffer digits = CharBuffer.wrap(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            try {
+                return Epc.parse(digits);
+            } catch (IllegalArgumentException e) {
+                return (Epc) ctxt.handleWeirdStringValue(Epc.class, digits.toString(), e.getMessage());
+            }
+        }
+    }
 }
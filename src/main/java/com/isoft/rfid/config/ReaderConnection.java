@@ -0,0 +1,271 @@
+package com.isoft.rfid.config;
+
+import static com.isoft.rfid.config.ReaderProtocol.*;
+
+import com.isoft.rfid.service.ingest.ReadEvent;
+import com.isoft.rfid.service.ingest.ReadPipeline;
+import com.isoft.rfid.service.ingest.ReadSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * State of a reader connection, only accessed by the {@link ReaderServer} selector thread.
+ * <p>
+ * Frames are decoded in place from a direct receive buffer, and each {@code READS} frame is published to the pipeline
+ * at once. When the ring buffer is full, or the reader does not read its acknowledgements, the connection is paused:
+ * the frame stays in the buffer and the socket is not read until it can be published, so TCP flow control slows the
+ * reader down.
+ * <p>
+ * A frame is only acknowledged once the pipeline reports its reads as durable, so acknowledgements wait in a small queue
+ * of published frames; a connection with a full queue is paused as well.
+ */
+final class ReaderConnection implements ReadSource {
+
+    private static final int MAX_READER_ID_LENGTH = 50;
+
+    private static final int MAX_PENDING_ACKS = 64;
+
+    private final SocketChannel channel;
+
+    private final SelectionKey key;
+
+    private final ByteBuffer in;
+
+    private final ByteBuffer out;
+
+    private final long[] pendingSequences = new long[MAX_PENDING_ACKS];
+
+    private final int[] pendingCounts = new int[MAX_PENDING_ACKS];
+
+    private int pendingHead;
+
+    private int pendingAcks;
+
+    private String readerId;
+
+    private String zone;
+
+    private boolean paused;
+
+    ReaderConnection(SocketChannel channel, SelectionKey key, int bufferSize) {
+        this.channel = channel;
+        this.key = key;
+        this.in = ByteBuffer.allocateDirect(bufferSize);
+        this.out = ByteBuffer.allocateDirect(MAX_PENDING_ACKS * ACK_FRAME_SIZE);
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    boolean hasPendingAcks() {
+        return pendingAcks > 0;
+    }
+
+    /**
+     * Read what the socket has available, then process it.
+     *
+     * @return {@code false} if the reader closed the connection.
+     */
+    boolean read(ReadPipeline readPipeline) throws IOException {
+        int count = channel.read(in);
+        process(readPipeline);
+        return count >= 0;
+    }
+
+    /**
+     * Decode and publish the buffered frames, then send the acknowledgements.
+     */
+    void process(ReadPipeline readPipeline) throws IOException {
+        in.flip();
+        try {
+            paused = false;
+            while (!paused && in.remaining() >= LENGTH_FIELD_SIZE) {
+                int length = in.getInt(in.position());
+                if (length < 1 || length > in.capacity() - LENGTH_FIELD_SIZE) {
+                    throw new ProtocolException("Invalid frame length " + length);
+                }
+                if (in.remaining() < LENGTH_FIELD_SIZE + length) {
+                    break;
+                }
+                paused = !processFrame(readPipeline, in.position() + LENGTH_FIELD_SIZE, length);
+            }
+        } finally {
+            in.compact();
+        }
+        acknowledge(readPipeline.getDurableSequence());
+    }
+
+    /**
+     * @return {@code false} if the frame could not be processed yet.
+     */
+    private boolean processFrame(ReadPipeline readPipeline, int start, int length) {
+        int end = start + length;
+        byte type = in.get(start);
+        if (type == HELLO) {
+            in.position(start + 1);
+            readerId = readAscii(end);
+            zone = readAscii(end);
+            if (readerId.isEmpty() || readerId.length() > MAX_READER_ID_LENGTH || in.position() != end) {
+                throw new ProtocolException("Invalid HELLO frame");
+            }
+            if (zone.isEmpty()) {
+                zone = null;
+            }
+            return true;
+        }
+        if (type != READS) {
+            throw new ProtocolException("Unknown frame type " + type);
+        }
+        if (readerId == null) {
+            throw new ProtocolException("READS frame before HELLO");
+        }
+        if (pendingAcks == MAX_PENDING_ACKS) {
+            return false;
+        }
+        int count = checkReads(start + 1, end);
+        in.position(start + 3);
+        long sequence = readPipeline.tryPublish(count, this);
+        if (sequence < 0) {
+            in.position(start - LENGTH_FIELD_SIZE);
+            return false;
+        }
+        int tail = (pendingHead + pendingAcks) % MAX_PENDING_ACKS;
+        pendingSequences[tail] = sequence;
+        pendingCounts[tail] = count;
+        pendingAcks++;
+        return true;
+    }
+
+    /**
+     * Queue the acknowledgements of the frames whose reads are durable, then send them.
+     *
+     * @param durableSequence the sequence up to which the pipeline reads are durable.
+     */
+    void acknowledge(long durableSequence) throws IOException {
+        while (pendingAcks > 0 && pendingSequences[pendingHead] <= durableSequence && out.remaining() >= ACK_FRAME_SIZE) {
+            out.putInt(ACK_FRAME_SIZE - LENGTH_FIELD_SIZE).put(ACK).putInt(pendingCounts[pendingHead]);
+            pendingHead = (pendingHead + 1) % MAX_PENDING_ACKS;
+            pendingAcks--;
+        }
+        flush();
+    }
+
+    /**
+     * Check the structure of a {@code READS} body before publishing anything, as claimed slots must all be filled.
+     *
+     * @return the number of reads.
+     */
+    private int checkReads(int start, int end) {
+        if (end - start < 2) {
+            throw new ProtocolException("Truncated READS frame");
+        }
+        int count = in.getShort(start) & 0xFFFF;
+        if (count > MAX_READS_PER_FRAME) {
+            throw new ProtocolException("Too many reads in frame: " + count);
+        }
+        int position = start + 2;
+        for (int i = 0; i < count && position < end; i++) {
+            int epcLength = in.get(position) & 0xFF;
+            if (epcLength > MAX_EPC_LENGTH) {
+                throw new ProtocolException("Invalid EPC length " + epcLength);
+            }
+            position += READ_HEADER_SIZE + epcLength;
+        }
+        if (position != end) {
+            throw new ProtocolException("READS frame length does not match its " + count + " reads");
+        }
+        return count;
+    }
+
+    private String readAscii(int end) {
+        if (in.position() >= end) {
+            throw new ProtocolException("Truncated HELLO frame");
+        }
+        int length = in.get() & 0xFF;
+        if (in.position() + length > end) {
+            throw new ProtocolException("Truncated HELLO frame");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void next(ReadEvent event) {
+        int epcLength = in.get() & 0xFF;
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < epcLength; i++) {
+            hi = (hi << 8) | (lo >>> 56);
+            lo = (lo << 8) | (in.get() & 0xFF);
+        }
+        int antenna = in.get() & 0xFF;
+        short rssi = in.getShort();
+        long readTime = in.getLong();
+        event.set(
+            hi,
+            lo,
+            epcLength,
+            readerId,
+            antenna == NO_ANTENNA ? ReadEvent.NO_VALUE : antenna,
+            rssi == NO_RSSI ? ReadEvent.NO_VALUE : rssi,
+            zone,
+            readTime
+        );
+    }
+
+    /**
+     * Write the pending acknowledgements, as far as the socket accepts them.
+     */
+    void flush() throws IOException {
+        out.flip();
+        try {
+            channel.write(out);
+        } finally {
+            out.compact();
+        }
+        updateInterest();
+    }
+
+    private void updateInterest() {
+        int ops = 0;
+        if (!paused) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (out.position() > 0) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReaderConnection{readerId='" + readerId + "', remote=" + channel.socket().getRemoteSocketAddress() + "}";
+    }
+
+    static final class ProtocolException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ProtocolException(String message) {
+            super(message);
+        }
+    }
+}
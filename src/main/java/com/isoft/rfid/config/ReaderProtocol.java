@@ -0,0 +1,44 @@
+package com.isoft.rfid.config;
+
+/**
+ * Binary frame format of the reader connections, see {@link ReaderServer}.
+ * <p>
+ * All integers are big-endian. Each frame is an {@code int32} length, counting the bytes which follow it, a type byte
+ * and a body:
+ * <ul>
+ *     <li>{@link #HELLO}, sent once by the reader when it connects: {@code uint8} length and ASCII bytes of the reader
+ *     id, then {@code uint8} length and ASCII bytes of the zone (possibly empty).</li>
+ *     <li>{@link #READS}: {@code uint16} count, then for each read: {@code uint8} EPC length in bytes, EPC bytes,
+ *     {@code uint8} antenna ({@link #NO_ANTENNA} if unknown), {@code int16} RSSI ({@link #NO_RSSI} if unknown) and
+ *     {@code int64} read time in epoch milliseconds.</li>
+ *     <li>{@link #ACK}, sent by the server once the reads of a {@code READS} frame were accepted, and written to the
+ *     write-ahead log if it is enabled: {@code int32} count.</li>
+ * </ul>
+ */
+final class ReaderProtocol {
+
+    static final byte HELLO = 1;
+
+    static final byte READS = 2;
+
+    static final byte ACK = 3;
+
+    static final int LENGTH_FIELD_SIZE = 4;
+
+    static final int ACK_FRAME_SIZE = LENGTH_FIELD_SIZE + 1 + 4;
+
+    static final int MAX_READS_PER_FRAME = 1024;
+
+    static final int MAX_EPC_LENGTH = 16;
+
+    /**
+     * Size of a read without its EPC bytes.
+     */
+    static final int READ_HEADER_SIZE = 1 + 1 + 2 + 8;
+
+    static final int NO_ANTENNA = 0xFF;
+
+    static final short NO_RSSI = Short.MIN_VALUE;
+
+    private ReaderProtocol() {}
+}
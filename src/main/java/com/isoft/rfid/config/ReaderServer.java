@@ -0,0 +1,210 @@
+package com.isoft.rfid.config;
+
+import com.isoft.rfid.service.ingest.ReadPipeline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Non-blocking TCP listener for fixed readers, which keep a connection open and stream their reads in the binary
+ * format described by {@link ReaderProtocol}.
+ * <p>
+ * A single selector thread accepts the connections and decodes their frames into the {@link ReadPipeline}. It never
+ * blocks on the pipeline: paused connections are retried, and pending acknowledgements checked against the durable
+ * sequence of the pipeline, every {@value #POLL_MILLIS} ms.
+ */
+public class ReaderServer implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(ReaderServer.class);
+
+    private static final long POLL_MILLIS = 1;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final ReadPipeline readPipeline;
+
+    private final ApplicationProperties.ReaderServer properties;
+
+    private final List<ReaderConnection> connections = new ArrayList<>();
+
+    private volatile int connectionCount;
+
+    private Selector selector;
+
+    private ServerSocketChannel serverChannel;
+
+    private Thread thread;
+
+    private volatile boolean running;
+
+    public ReaderServer(ReadPipeline readPipeline, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.readPipeline = readPipeline;
+        this.properties = applicationProperties.getReaderServer();
+        Gauge
+            .builder("ingestion.reader.connections", this, server -> server.connectionCount)
+            .description("Number of open reader connections.")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(new InetSocketAddress(properties.getHost(), properties.getPort()));
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not listen for readers on port " + properties.getPort(), e);
+        }
+        running = true;
+        thread = new Thread(this::run, "rfid-revamp-elk-reader-server");
+        thread.start();
+        log.info("Listening for readers on {}", serverChannel.socket().getLocalSocketAddress());
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void run() {
+        boolean waiting = false;
+        while (running) {
+            try {
+                if (waiting) {
+                    selector.select(POLL_MILLIS);
+                } else {
+                    selector.select();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        handle((ReaderConnection) key.attachment(), key);
+                    }
+                }
+                waiting = false;
+                for (ReaderConnection connection : new ArrayList<>(connections)) {
+                    if (connection.isPaused() || connection.hasPendingAcks()) {
+                        waiting |= poll(connection);
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Reader server failure", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (connections.size() >= properties.getMaxConnections()) {
+            log.warn("Refusing reader connection from {}: too many connections", channel.getRemoteAddress());
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        ReaderConnection connection = new ReaderConnection(channel, key, properties.getBufferSize());
+        key.attach(connection);
+        connections.add(connection);
+        connectionCount = connections.size();
+        log.debug("Accepted reader connection from {}", channel.getRemoteAddress());
+    }
+
+    private void handle(ReaderConnection connection, SelectionKey key) {
+        try {
+            if (key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable() && !connection.read(readPipeline)) {
+                log.debug("Reader closed {}", connection);
+                close(connection);
+            }
+        } catch (ReaderConnection.ProtocolException e) {
+            log.warn("Closing {}: {}", connection, e.getMessage());
+            close(connection);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Closing {}", connection, e);
+            close(connection);
+        }
+    }
+
+    /**
+     * Retry a paused connection, or send its acknowledgements which became durable.
+     *
+     * @return {@code true} if the connection still waits for the pipeline.
+     */
+    private boolean poll(ReaderConnection connection) {
+        try {
+            if (connection.isPaused()) {
+                connection.process(readPipeline);
+            } else {
+                connection.acknowledge(readPipeline.getDurableSequence());
+            }
+            return connection.isPaused() || connection.hasPendingAcks();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Closing {}", connection, e);
+            close(connection);
+            return false;
+        }
+    }
+
+    private void close(ReaderConnection connection) {
+        connection.close();
+        connections.remove(connection);
+        connectionCount = connections.size();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ReaderConnection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+        connectionCount = 0;
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Could not close the reader server", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,17 @@
+package com.isoft.rfid.config;
+
+import com.isoft.rfid.service.ingest.ReadPipeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "application.reader-server", name = "enabled", havingValue = "true")
+public class ReaderServerConfiguration {
+
+    @Bean
+    public ReaderServer readerServer(ReadPipeline readPipeline, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        return new ReaderServer(readPipeline, applicationProperties, meterRegistry);
+    }
+}
@@ -0,0 +1,191 @@
+package com.isoft.rfid.domain;
+
+import java.io.Serializable;
+
+/**
+ * An Electronic Product Code, stored as a primitive-backed binary value instead of a hex {@code String}.
+ * <p>
+ * EPCs are 96 to 128 bits long, i.e. 12 to 16 bytes. The bytes are held big-endian and right-aligned in two longs:
+ * {@code lo} holds the last 8 bytes and {@code hi} the preceding ones. The length is kept, so that a 96-bit EPC never
+ * equals a zero-padded 128-bit one.
+ */
+public final class Epc implements Serializable, Comparable<Epc> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MIN_LENGTH = 12;
+
+    public static final int MAX_LENGTH = 16;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final long hi;
+
+    private final long lo;
+
+    private final int length;
+
+    public Epc(long hi, long lo, int length) {
+        if (!isValidLength(length)) {
+            throw new IllegalArgumentException("An EPC must be " + MIN_LENGTH + " to " + MAX_LENGTH + " bytes long, not " + length);
+        }
+        if (length < MAX_LENGTH && (hi >>> ((length - 8) * 8)) != 0) {
+            throw new IllegalArgumentException("The value does not fit in " + length + " bytes");
+        }
+        this.hi = hi;
+        this.lo = lo;
+        this.length = length;
+    }
+
+    public static boolean isValidLength(int length) {
+        return length >= MIN_LENGTH && length <= MAX_LENGTH;
+    }
+
+    /**
+     * Parse an EPC from its hex representation, case-insensitively.
+     *
+     * @param hex the hex digits, 24 to 32 of them and an even number.
+     * @return the EPC.
+     * @throws IllegalArgumentException if {@code hex} is not a valid EPC.
+     */
+    public static Epc parse(CharSequence hex) {
+        int digits = hex.length();
+        if (digits % 2 != 0 || !isValidLength(digits / 2)) {
+            throw new IllegalArgumentException("An EPC must be an even number of 24 to 32 hex digits");
+        }
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = hexDigit(hex.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("An EPC must only contain hex digits");
+            }
+            hi = (hi << 4) | (lo >>> 60);
+            lo = (lo << 4) | digit;
+        }
+        return new Epc(hi, lo, digits / 2);
+    }
+
+    /**
+     * Unlike {@link Character#digit(char, int)}, only accepts ASCII digits, not the other Unicode ones.
+     *
+     * @param c the character.
+     * @return the value of the hex digit, or {@code -1} if it is not one.
+     */
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * @param bytes the big-endian bytes of the EPC.
+     * @return the EPC.
+     */
+    public static Epc fromBytes(byte[] bytes) {
+        if (!isValidLength(bytes.length)) {
+            throw new IllegalArgumentException("An EPC must be " + MIN_LENGTH + " to " + MAX_LENGTH + " bytes long");
+        }
+        long hi = 0;
+        long lo = 0;
+        for (byte b : bytes) {
+            hi = (hi << 8) | (lo >>> 56);
+            lo = (lo << 8) | (b & 0xFF);
+        }
+        return new Epc(hi, lo, bytes.length);
+    }
+
+    public long getHi() {
+        return hi;
+    }
+
+    public long getLo() {
+        return lo;
+    }
+
+    /**
+     * @return the length of the EPC, in bytes.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the big-endian bytes of the EPC.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) byteAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Write the upper-case hex digits of the EPC.
+     *
+     * @param dest the destination, with at least {@code 2 * getLength()} chars from {@code offset}.
+     * @param offset the index of the first digit in {@code dest}.
+     * @return the number of written chars.
+     */
+    public int toHex(char[] dest, int offset) {
+        for (int i = 0; i < length; i++) {
+            int b = byteAt(i);
+            dest[offset + 2 * i] = HEX_DIGITS[b >>> 4];
+            dest[offset + 2 * i + 1] = HEX_DIGITS[b & 0xF];
+        }
+        return 2 * length;
+    }
+
+    private int byteAt(int index) {
+        int shift = (length - 1 - index) * 8;
+        long word = shift >= 64 ? hi >>> (shift - 64) : lo >>> shift;
+        return (int) (word & 0xFF);
+    }
+
+    @Override
+    public int compareTo(Epc other) {
+        int result = Integer.compare(length, other.length);
+        if (result == 0) {
+            result = Long.compareUnsigned(hi, other.hi);
+        }
+        if (result == 0) {
+            result = Long.compareUnsigned(lo, other.lo);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Epc)) {
+            return false;
+        }
+        Epc other = (Epc) o;
+        return hi == other.hi && lo == other.lo && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(hi) + Long.hashCode(lo)) + length;
+    }
+
+    /**
+     * @return the upper-case hex representation of the EPC.
+     */
+    @Override
+    public String toString() {
+        char[] chars = new char[2 * length];
+        toHex(chars, 0);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,21 @@
+package com.isoft.rfid.domain;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores an {@link Epc} as its raw bytes.
+ */
+@Converter
+public class EpcAttributeConverter implements AttributeConverter<Epc, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(Epc attribute) {
+        return attribute == null ? null : attribute.toBytes();
+    }
+
+    @Override
+    public Epc convertToEntityAttribute(byte[] dbData) {
+        return dbData == null ? null : Epc.fromBytes(dbData);
+    }
+}
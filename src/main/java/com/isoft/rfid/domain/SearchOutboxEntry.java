@@ -0,0 +1,85 @@
+package com.isoft.rfid.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A write to a search index, recorded in the {@code search_outbox} table in the transaction of the change it reflects.
+ * <p>
+ * The source is the serialized document to index, or {@code null} to delete the document.
+ */
+public final class SearchOutboxEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long id;
+
+    private final String indexName;
+
+    private final String documentId;
+
+    private final String source;
+
+    private final Instant createdDate;
+
+    public SearchOutboxEntry(long id, String indexName, String documentId, String source, Instant createdDate) {
+        this.id = id;
+        this.indexName = Objects.requireNonNull(indexName);
+        this.documentId = Objects.requireNonNull(documentId);
+        this.source = source;
+        this.createdDate = Objects.requireNonNull(createdDate);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public boolean isDelete() {
+        return source == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchOutboxEntry)) {
+            return false;
+        }
+        return id == ((SearchOutboxEntry) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchOutboxEntry{" +
+            "id=" + id +
+            ", indexName='" + indexName + "'" +
+            ", documentId='" + documentId + "'" +
+            ", delete=" + isDelete() +
+            ", createdDate='" + createdDate + "'" +
+            "}";
+    }
+}
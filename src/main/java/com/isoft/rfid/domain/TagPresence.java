@@ -0,0 +1,74 @@
+package com.isoft.rfid.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Presence of a tag in a zone: since when it is there, and when it was last read there.
+ * <p>
+ * Presences are aggregated in memory from the read stream, and snapshotted to the {@code tag_presence} table.
+ */
+public final class TagPresence implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Epc epc;
+
+    private final String zone;
+
+    private final Instant enteredAt;
+
+    private final Instant lastSeen;
+
+    public TagPresence(Epc epc, String zone, Instant enteredAt, Instant lastSeen) {
+        this.epc = Objects.requireNonNull(epc);
+        this.zone = Objects.requireNonNull(zone);
+        this.enteredAt = Objects.requireNonNull(enteredAt);
+        this.lastSeen = Objects.requireNonNull(lastSeen);
+    }
+
+    public Epc getEpc() {
+        return epc;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public Instant getEnteredAt() {
+        return enteredAt;
+    }
+
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagPresence)) {
+            return false;
+        }
+        TagPresence other = (TagPresence) o;
+        return epc.equals(other.epc) && zone.equals(other.zone) && enteredAt.equals(other.enteredAt) && lastSeen.equals(other.lastSeen);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(epc, zone, enteredAt, lastSeen);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagPresence{" +
+            "epc=" + epc +
+            ", zone='" + zone + "'" +
+            ", enteredAt='" + enteredAt + "'" +
+            ", lastSeen='" + lastSeen + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,136 @@
+package com.isoft.rfid.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * A single observation of an RFID tag by a reader antenna.
+ */
+@Entity
+@Table(name = "tag_read")
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "tagread", createIndex = false)
+public class TagRead extends AbstractAuditingEntity<Long> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @NotNull
+    @Convert(converter = EpcAttributeConverter.class)
+    @Column(name = "epc", length = Epc.MAX_LENGTH, nullable = false)
+    @org.springframework.data.elasticsearch.annotations.Field(type = FieldType.Keyword)
+    private Epc epc;
+
+    @NotNull
+    @Size(max = 50)
+    @Column(name = "reader_id", length = 50, nullable = false)
+    private String readerId;
+
+    @Column(name = "antenna")
+    private Integer antenna;
+
+    @Column(name = "rssi")
+    private Integer rssi;
+
+    @Size(max = 50)
+    @Column(name = "zone", length = 50)
+    private String zone;
+
+    @NotNull
+    @Column(name = "read_time", nullable = false)
+    private Instant readTime;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Epc getEpc() {
+        return epc;
+    }
+
+    public void setEpc(Epc epc) {
+        this.epc = epc;
+    }
+
+    public String getReaderId() {
+        return readerId;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public Integer getAntenna() {
+        return antenna;
+    }
+
+    public void setAntenna(Integer antenna) {
+        this.antenna = antenna;
+    }
+
+    public Integer getRssi() {
+        return rssi;
+    }
+
+    public void setRssi(Integer rssi) {
+        this.rssi = rssi;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public Instant getReadTime() {
+        return readTime;
+    }
+
+    public void setReadTime(Instant readTime) {
+        this.readTime = readTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagRead)) {
+            return false;
+        }
+        return id != null && id.equals(((TagRead) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagRead{" +
+            "id=" + id +
+            ", epc='" + epc + '\'' +
+            ", readerId='" + readerId + '\'' +
+            ", antenna=" + antenna +
+            ", rssi=" + rssi +
+            ", zone='" + zone + '\'' +
+            ", readTime='" + readTime + '\'' +
+            "}";
+    }
+}
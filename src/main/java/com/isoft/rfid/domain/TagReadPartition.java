@@ -0,0 +1,94 @@
+package com.isoft.rfid.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Partition of the {@code tag_read} table, which holds the reads with a read time in {@code [from, to)}.
+ * <p>
+ * Bounds are {@code null} when unbounded, and both are {@code null} for the default partition, which holds the reads
+ * outside of all the other partitions.
+ */
+public final class TagReadPartition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private final Instant from;
+
+    private final Instant to;
+
+    private final boolean defaultPartition;
+
+    public TagReadPartition(String name, Instant from, Instant to, boolean defaultPartition) {
+        this.name = Objects.requireNonNull(name);
+        this.from = from;
+        this.to = to;
+        this.defaultPartition = defaultPartition;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public boolean isDefaultPartition() {
+        return defaultPartition;
+    }
+
+    /**
+     * @return whether the partition holds reads with a read time in {@code [start, end)}.
+     */
+    public boolean overlaps(Instant start, Instant end) {
+        return !defaultPartition && (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+    }
+
+    /**
+     * @return whether all the reads of the partition have a read time before the given instant.
+     */
+    public boolean endsBefore(Instant instant) {
+        return !defaultPartition && to != null && !to.isAfter(instant);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagReadPartition)) {
+            return false;
+        }
+        TagReadPartition other = (TagReadPartition) o;
+        return (
+            name.equals(other.name) &&
+            Objects.equals(from, other.from) &&
+            Objects.equals(to, other.to) &&
+            defaultPartition == other.defaultPartition
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, from, to, defaultPartition);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagReadPartition{" +
+            "name='" + name + "'" +
+            ", from='" + from + "'" +
+            ", to='" + to + "'" +
+            ", defaultPartition=" + defaultPartition +
+            "}";
+    }
+}
@@ -0,0 +1,108 @@
+package com.isoft.rfid.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+@Service
+public class IngestionMetersService {
+
+    public static final String PUBLISHED_READS_METER_NAME = "ingestion.reads.published";
+    public static final String PUBLISHED_READS_METER_DESCRIPTION = "Indicates how many reads were handed over to the ingestion pipeline.";
+
+    public static final String REJECTED_READS_METER_NAME = "ingestion.reads.rejected";
+    public static final String REJECTED_READS_METER_DESCRIPTION = "Indicates how many reads were rejected by the validation stage.";
+
+    public static final String LATE_READS_METER_NAME = "ingestion.reads.late";
+    public static final String LATE_READS_METER_DESCRIPTION =
+        "Indicates how many reads arrived too late to be counted by the zone occupancy aggregation.";
+
+    public static final String DEDUPLICATION_METER_NAME = "ingestion.deduplication";
+    public static final String DEDUPLICATION_METER_DESCRIPTION =
+        "Indicates how many reads were dropped as duplicates (hit) or passed on (miss) by the deduplication stage.";
+    public static final String DEDUPLICATION_METER_RESULT_DIMENSION = "result";
+
+    public static final String ADMISSION_METER_NAME = "ingestion.admission";
+    public static final String ADMISSION_METER_DESCRIPTION =
+        "Indicates how many ingestion requests were admitted, or shed because of the given reason.";
+    public static final String ADMISSION_METER_RESULT_DIMENSION = "result";
+    public static final String ADMISSION_METER_REASON_DIMENSION = "reason";
+
+    public static final String READS_METER_BASE_UNIT = "reads";
+    public static final String REQUESTS_METER_BASE_UNIT = "requests";
+
+    private final MeterRegistry registry;
+
+    private final Counter publishedCounter;
+    private final Counter rejectedCounter;
+    private final Counter lateCounter;
+    private final Counter duplicateHitCounter;
+    private final Counter duplicateMissCounter;
+    private final Counter admittedCounter;
+
+    public IngestionMetersService(MeterRegistry registry) {
+        this.registry = registry;
+        this.publishedCounter =
+            Counter
+                .builder(PUBLISHED_READS_METER_NAME)
+                .baseUnit(READS_METER_BASE_UNIT)
+                .description(PUBLISHED_READS_METER_DESCRIPTION)
+                .register(registry);
+        this.rejectedCounter =
+            Counter
+                .builder(REJECTED_READS_METER_NAME)
+                .baseUnit(READS_METER_BASE_UNIT)
+                .description(REJECTED_READS_METER_DESCRIPTION)
+                .register(registry);
+        this.lateCounter =
+            Counter.builder(LATE_READS_METER_NAME).baseUnit(READS_METER_BASE_UNIT).description(LATE_READS_METER_DESCRIPTION).register(registry);
+        this.duplicateHitCounter = deduplicationCounterForResultBuilder("hit").register(registry);
+        this.duplicateMissCounter = deduplicationCounterForResultBuilder("miss").register(registry);
+        this.admittedCounter = admissionCounterBuilder("admitted", "none").register(registry);
+    }
+
+    private Counter.Builder deduplicationCounterForResultBuilder(String result) {
+        return Counter
+            .builder(DEDUPLICATION_METER_NAME)
+            .baseUnit(READS_METER_BASE_UNIT)
+            .description(DEDUPLICATION_METER_DESCRIPTION)
+            .tag(DEDUPLICATION_METER_RESULT_DIMENSION, result);
+    }
+
+    private Counter.Builder admissionCounterBuilder(String result, String reason) {
+        return Counter
+            .builder(ADMISSION_METER_NAME)
+            .baseUnit(REQUESTS_METER_BASE_UNIT)
+            .description(ADMISSION_METER_DESCRIPTION)
+            .tag(ADMISSION_METER_RESULT_DIMENSION, result)
+            .tag(ADMISSION_METER_REASON_DIMENSION, reason);
+    }
+
+    public void trackReadsPublished(int count) {
+        this.publishedCounter.increment(count);
+    }
+
+    public void trackReadRejected() {
+        this.rejectedCounter.increment();
+    }
+
+    public void trackReadLate() {
+        this.lateCounter.increment();
+    }
+
+    public void trackDuplicateHit() {
+        this.duplicateHitCounter.increment();
+    }
+
+    public void trackDuplicateMiss() {
+        this.duplicateMissCounter.increment();
+    }
+
+    public void trackRequestAdmitted() {
+        this.admittedCounter.increment();
+    }
+
+    public void trackRequestShed(String reason) {
+        admissionCounterBuilder("shed", reason).register(registry).increment();
+    }
+}
@@ -0,0 +1,159 @@
+package com.isoft.rfid.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Streams rows to PostgreSQL with {@code COPY ... FROM STDIN (FORMAT binary)}, through the driver's copy API.
+ * <p>
+ * Rows are encoded into a buffer, which is sent to the server each time it is full: the rows are parsed once by the
+ * server, without statements, parameters or a persistence context. Repository fragments describe how to encode their
+ * entities with an {@link Encoder}, the column types must match the table: {@code bigint}, {@code integer},
+ * {@code bytea}, {@code varchar} and {@code timestamp} (without time zone, in UTC) are supported.
+ */
+final class BinaryCopyWriter {
+
+    private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Timestamps are sent as microseconds since 2000-01-01T00:00:00.
+     */
+    private static final Instant POSTGRES_EPOCH = Instant.parse("2000-01-01T00:00:00Z");
+
+    private final CopyIn copyIn;
+
+    private final ByteBuffer buffer;
+
+    BinaryCopyWriter(CopyIn copyIn, int bufferSize) {
+        this.copyIn = copyIn;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        buffer.put(SIGNATURE).putInt(0).putInt(0);
+    }
+
+    /**
+     * Copy rows into a table, on the connection of the current transaction.
+     *
+     * @param jdbcTemplate the template of the PostgreSQL data source.
+     * @param table the table name.
+     * @param columns the column names, in the order the encoder writes them.
+     * @param rows the rows to copy.
+     * @param encoder writes the fields of a row.
+     * @return the number of copied rows.
+     */
+    static <T> long copy(JdbcTemplate jdbcTemplate, String table, String columns, Collection<T> rows, Encoder<T> encoder) {
+        String sql = "copy " + table + " (" + columns + ") from stdin (format binary)";
+        int fieldCount = columns.split(",").length;
+        Long count = jdbcTemplate.execute(
+            (ConnectionCallback<Long>) connection -> {
+                CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+                try {
+                    BinaryCopyWriter writer = new BinaryCopyWriter(copyIn, BUFFER_SIZE);
+                    for (T row : rows) {
+                        writer.startRow(fieldCount);
+                        encoder.encode(row, writer);
+                    }
+                    return writer.finish();
+                } finally {
+                    if (copyIn.isActive()) {
+                        copyIn.cancelCopy();
+                    }
+                }
+            }
+        );
+        return count == null ? 0 : count;
+    }
+
+    void startRow(int fieldCount) throws SQLException {
+        ensureRemaining(2);
+        buffer.putShort((short) fieldCount);
+    }
+
+    void writeLong(long value) throws SQLException {
+        ensureRemaining(12);
+        buffer.putInt(8).putLong(value);
+    }
+
+    void writeInteger(Integer value) throws SQLException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        ensureRemaining(8);
+        buffer.putInt(4).putInt(value);
+    }
+
+    void writeText(String value) throws SQLException {
+        writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void writeBytes(byte[] value) throws SQLException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        ensureRemaining(4);
+        buffer.putInt(value.length);
+        if (value.length > buffer.remaining()) {
+            flush();
+            copyIn.writeToCopy(value, 0, value.length);
+        } else {
+            buffer.put(value);
+        }
+    }
+
+    void writeTimestamp(Instant value) throws SQLException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value));
+    }
+
+    void writeNull() throws SQLException {
+        ensureRemaining(4);
+        buffer.putInt(-1);
+    }
+
+    /**
+     * Write the trailer and complete the copy.
+     *
+     * @return the number of rows copied by the server.
+     */
+    long finish() throws SQLException {
+        ensureRemaining(2);
+        buffer.putShort((short) -1);
+        flush();
+        return copyIn.endCopy();
+    }
+
+    private void ensureRemaining(int size) throws SQLException {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.position() > 0) {
+            copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes the fields of a row, in the order of the copied columns.
+     */
+    @FunctionalInterface
+    interface Encoder<T> {
+        void encode(T row, BinaryCopyWriter writer) throws SQLException;
+    }
+}
@@ -0,0 +1,32 @@
+package com.isoft.rfid.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A page of results, read with keyset queries or search_after, with the opaque cursor of the next page.
+ *
+ * @param <T> the type of the results.
+ */
+public final class CursorPage<T> {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = List.copyOf(content);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the cursor of the next page, or empty if this is the last page.
+     */
+    public Optional<String> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
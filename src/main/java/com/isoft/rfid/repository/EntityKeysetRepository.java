@@ -0,0 +1,220 @@
+package com.isoft.rfid.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads any entity with a {@code Long id} in batches ordered by id, with keyset queries: each batch starts after the
+ * last id of the previous one, so that reading deep into a table costs the same as reading its first rows. Pages for
+ * clients are read the same way, ordered by a property then by id, without an offset or a count.
+ * <p>
+ * Each batch is read in its own transaction and mapped before the transaction ends, so that lazy associations can be
+ * loaded and the persistence context never holds more than a batch.
+ */
+@Repository
+public class EntityKeysetRepository {
+
+    private static final String ID = "id";
+
+    private final EntityManager entityManager;
+
+    public EntityKeysetRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param type the entity class.
+     * @return the smallest id, or empty if there are no entities.
+     */
+    @Transactional(readOnly = true)
+    public OptionalLong findMinId(Class<?> type) {
+        return toOptional(entityManager.createQuery("select min(e.id) from " + entityName(type) + " e", Long.class).getSingleResult());
+    }
+
+    /**
+     * @param type the entity class.
+     * @return the largest id, or empty if there are no entities.
+     */
+    @Transactional(readOnly = true)
+    public OptionalLong findMaxId(Class<?> type) {
+        return toOptional(entityManager.createQuery("select max(e.id) from " + entityName(type) + " e", Long.class).getSingleResult());
+    }
+
+    /**
+     * Read a batch of entities with an id in {@code (after, to]}, ordered by id.
+     *
+     * @param type the entity class.
+     * @param after the id after which the batch starts, exclusive.
+     * @param to the id at which the range ends, inclusive.
+     * @param limit the maximum number of entities.
+     * @param mapper maps the entities, within the transaction.
+     * @return the mapped entities, in id order.
+     */
+    @Transactional(readOnly = true)
+    public <T, R> List<R> findBatch(Class<T> type, long after, long to, int limit, Function<? super T, R> mapper) {
+        List<T> entities = entityManager
+            .createQuery("select e from " + entityName(type) + " e where e.id > :after and e.id <= :to order by e.id", type)
+            .setParameter("after", after)
+            .setParameter("to", to)
+            .setMaxResults(limit)
+            .getResultList();
+        return map(entities, mapper);
+    }
+
+    /**
+     * Read a batch of audited entities last modified at or after an instant, ordered by id.
+     *
+     * @param type the entity class, a {@link com.isoft.rfid.domain.AbstractAuditingEntity}.
+     * @param since the instant.
+     * @param after the id after which the batch starts, exclusive.
+     * @param limit the maximum number of entities.
+     * @param mapper maps the entities, within the transaction.
+     * @return the mapped entities, in id order.
+     */
+    @Transactional(readOnly = true)
+    public <T, R> List<R> findModifiedBatch(Class<T> type, Instant since, long after, int limit, Function<? super T, R> mapper) {
+        List<T> entities = entityManager
+            .createQuery(
+                "select e from " + entityName(type) + " e where e.lastModifiedDate >= :since and e.id > :after order by e.id",
+                type
+            )
+            .setParameter("since", since)
+            .setParameter("after", after)
+            .setMaxResults(limit)
+            .getResultList();
+        return map(entities, mapper);
+    }
+
+    /**
+     * Read a page of entities ordered by a property, then by id in the same direction. The page starts after the sort
+     * value and the id of the last entity of the previous page, carried by the cursor. Nulls are last in ascending
+     * order and first in descending order, as sorted by PostgreSQL.
+     *
+     * @param type the entity class.
+     * @param filter the entities to read, or {@code null} for all of them.
+     * @param order the sort, or {@code null} to sort by id.
+     * @param cursor the cursor of the page, or {@code null} for the first page.
+     * @param size the maximum number of entities.
+     * @param mapper maps the entities, within the transaction.
+     * @return the mapped entities, with the cursor of the next page if there are more.
+     * @throws IllegalArgumentException if the cursor is invalid, or was returned for another sort.
+     */
+    @Transactional(readOnly = true)
+    public <T, R> CursorPage<R> findPage(
+        Class<T> type,
+        Specification<T> filter,
+        Sort.Order order,
+        String cursor,
+        int size,
+        Function<? super T, R> mapper
+    ) {
+        String property = order == null ? ID : order.getProperty();
+        boolean descending = order != null && order.isDescending();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (cursor != null) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            if (!position.isFor(property, descending)) {
+                throw new IllegalArgumentException("The page cursor is for another sort");
+            }
+            Class<?> valueType = entityManager.getMetamodel().entity(type).getAttribute(property).getJavaType();
+            predicates.add(after(cb, root, property, descending, position.getValue(valueType), position.getId()));
+        }
+        query.select(root).where(predicates.toArray(new Predicate[0]));
+        if (ID.equals(property)) {
+            query.orderBy(descending ? cb.desc(root.get(ID)) : cb.asc(root.get(ID)));
+        } else {
+            query.orderBy(
+                descending ? cb.desc(root.get(property)) : cb.asc(root.get(property)),
+                descending ? cb.desc(root.get(ID)) : cb.asc(root.get(ID))
+            );
+        }
+        List<T> entities = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        if (entities.size() <= size) {
+            return new CursorPage<>(map(entities, mapper), null);
+        }
+        entities = entities.subList(0, size);
+        BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(entities.get(size - 1));
+        String nextCursor = KeysetCursor.encode(property, descending, last.getPropertyValue(property), (Long) last.getPropertyValue(ID));
+        return new CursorPage<>(map(entities, mapper), nextCursor);
+    }
+
+    /**
+     * @param type the entity class.
+     * @param filter the entities to count, or {@code null} for all of them.
+     * @return the number of entities.
+     */
+    @Transactional(readOnly = true)
+    public <T> long count(Class<T> type, Specification<T> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * @return the predicate of the entities after the given sort value and id.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static <T> Predicate after(CriteriaBuilder cb, Root<T> root, String property, boolean descending, Comparable value, long id) {
+        Path<Long> idPath = root.get(ID);
+        Predicate idAfter = descending ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id);
+        if (ID.equals(property)) {
+            return idAfter;
+        }
+        Path<Comparable> path = root.get(property);
+        if (value == null) {
+            Predicate nullAfter = cb.and(cb.isNull(path), idAfter);
+            return descending ? cb.or(nullAfter, cb.isNotNull(path)) : nullAfter;
+        }
+        Predicate valueAfter = descending ? cb.lessThan(path, value) : cb.greaterThan(path, value);
+        Predicate sameValueAfter = cb.and(cb.equal(path, value), idAfter);
+        return descending ? cb.or(valueAfter, sameValueAfter) : cb.or(valueAfter, sameValueAfter, cb.isNull(path));
+    }
+
+    private String entityName(Class<?> type) {
+        return entityManager.getMetamodel().entity(type).getName();
+    }
+
+    private static <T, R> List<R> map(List<T> entities, Function<? super T, R> mapper) {
+        List<R> mapped = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            mapped.add(mapper.apply(entity));
+        }
+        return mapped;
+    }
+
+    private static OptionalLong toOptional(Long value) {
+        return value == null ? OptionalLong.empty() : OptionalLong.of(value);
+    }
+}
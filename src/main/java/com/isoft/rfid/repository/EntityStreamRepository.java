@@ -0,0 +1,115 @@
+package com.isoft.rfid.repository;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads all the entities of a query as a stream, for responses too large to be held in memory, such as exports.
+ * <p>
+ * Rows are fetched from the database a few hundred at a time, through a server side cursor. The associations the mapper
+ * needs are loaded for each of these chunks with a single query, then each entity is mapped and detached: the persistence
+ * context does not grow with the number of rows.
+ */
+@Repository
+public class EntityStreamRepository {
+
+    private final EntityManager entityManager;
+
+    private final int fetchSize;
+
+    public EntityStreamRepository(EntityManager entityManager, ApplicationProperties applicationProperties) {
+        this.entityManager = entityManager;
+        this.fetchSize = applicationProperties.getStreaming().getFetchSize();
+    }
+
+    /**
+     * Map each entity and hand it over to an action, in order. This must be called within a transaction, which the
+     * cursor needs to stay open, and which lazy associations are loaded in by the mapper.
+     *
+     * @param type the entity class.
+     * @param filter the entities to read, or {@code null} for all of them.
+     * @param sort the order of the entities.
+     * @param fetches the associations to load for the mapper, by attribute name.
+     * @param mapper maps the entities, within the transaction.
+     * @param action receives the mapped entities, one at a time.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public <T, R> void forEach(
+        Class<T> type,
+        Specification<T> filter,
+        Sort sort,
+        Collection<String> fetches,
+        Function<? super T, R> mapper,
+        Consumer<? super R> action
+    ) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        query.select(root).where(predicates.toArray(new Predicate[0])).orderBy(QueryUtils.toOrders(sort, root, cb));
+        try (
+            Stream<T> entities = entityManager
+                .createQuery(query)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()
+        ) {
+            List<T> chunk = new ArrayList<>(fetchSize);
+            for (Iterator<T> iterator = entities.iterator(); iterator.hasNext();) {
+                chunk.add(iterator.next());
+                if (chunk.size() == fetchSize || !iterator.hasNext()) {
+                    fetch(type, chunk, fetches);
+                    for (T entity : chunk) {
+                        R mapped = mapper.apply(entity);
+                        entityManager.detach(entity);
+                        action.accept(mapped);
+                    }
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Load associations of managed entities with a single query, rather than one query per entity, as batch fetching
+     * would only load them for the entities still in the persistence context.
+     */
+    private <T> void fetch(Class<T> type, List<T> entities, Collection<String> fetches) {
+        if (fetches.isEmpty()) {
+            return;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        for (String attribute : fetches) {
+            root.fetch(attribute, JoinType.LEFT);
+        }
+        query.select(root).distinct(true).where(root.in(entities));
+        entityManager.createQuery(query).setHint(QueryHints.HINT_READONLY, true).getResultList();
+    }
+}
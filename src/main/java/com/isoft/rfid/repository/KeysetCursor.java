@@ -0,0 +1,128 @@
+package com.isoft.rfid.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * The position of a keyset page: the sort of the pages, with the sort value and the id of the last entity of the
+ * previous page, encoded as an opaque and URL safe cursor.
+ */
+final class KeysetCursor {
+
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
+
+    private final String property;
+
+    private final boolean descending;
+
+    private final JsonNode value;
+
+    private final long id;
+
+    private KeysetCursor(String property, boolean descending, JsonNode value, long id) {
+        this.property = property;
+        this.descending = descending;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * @param property the sort property.
+     * @param descending whether the sort is descending.
+     * @param value the sort value of the last entity of the page, may be {@code null}.
+     * @param id the id of the last entity of the page.
+     * @return the cursor of the next page.
+     */
+    static String encode(String property, boolean descending, Object value, long id) {
+        ObjectNode node = CURSOR_MAPPER.createObjectNode();
+        node.put("sort", property);
+        node.put("desc", descending);
+        ArrayNode after = node.putArray("after");
+        if (value instanceof Instant || value instanceof LocalDate) {
+            after.add(value.toString());
+        } else {
+            after.addPOJO(value);
+        }
+        after.add(id);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(CURSOR_MAPPER.writeValueAsBytes(node));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode a page cursor", e);
+        }
+    }
+
+    /**
+     * @param cursor the cursor.
+     * @return the position.
+     * @throws IllegalArgumentException if the cursor is invalid.
+     */
+    static KeysetCursor decode(String cursor) {
+        JsonNode node;
+        try {
+            node = CURSOR_MAPPER.readTree(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+        if (
+            node == null ||
+            !node.path("sort").isTextual() ||
+            !node.path("desc").isBoolean() ||
+            node.path("after").size() != 2 ||
+            !node.path("after").get(1).canConvertToLong()
+        ) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        JsonNode after = node.get("after");
+        return new KeysetCursor(node.get("sort").asText(), node.get("desc").asBoolean(), after.get(0), after.get(1).asLong());
+    }
+
+    /**
+     * @param property the sort property of the requested page.
+     * @param descending whether the sort of the requested page is descending.
+     * @return whether this cursor was returned for the same sort.
+     */
+    boolean isFor(String property, boolean descending) {
+        return this.property.equals(property) && this.descending == descending;
+    }
+
+    /**
+     * @param type the type of the sort property.
+     * @return the sort value of the last entity of the previous page, or {@code null}.
+     * @throws IllegalArgumentException if the value is not of that type.
+     */
+    Comparable<?> getValue(Class<?> type) {
+        if (value.isNull()) {
+            return null;
+        }
+        try {
+            if (type == String.class && value.isTextual()) {
+                return value.asText();
+            } else if ((type == Boolean.class || type == boolean.class) && value.isBoolean()) {
+                return value.asBoolean();
+            } else if ((type == Long.class || type == long.class) && value.canConvertToLong()) {
+                return value.asLong();
+            } else if ((type == Integer.class || type == int.class) && value.canConvertToInt()) {
+                return value.asInt();
+            } else if (type == Instant.class && value.isTextual()) {
+                return Instant.parse(value.asText());
+            } else if (type == LocalDate.class && value.isTextual()) {
+                return LocalDate.parse(value.asText());
+            }
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+        throw new IllegalArgumentException("Invalid page cursor");
+    }
+
+    long getId() {
+        return id;
+    }
+}
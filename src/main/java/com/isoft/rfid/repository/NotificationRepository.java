@@ -0,0 +1,35 @@
+package com.isoft.rfid.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * JDBC repository for PostgreSQL notifications, sent with {@code pg_notify} to the sessions listening on a channel.
+ */
+@Repository
+public class NotificationRepository {
+
+    /**
+     * Maximum size of a payload, in bytes.
+     */
+    public static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Send a notification, delivered when the current transaction commits and dropped if it rolls back. Identical
+     * notifications of a transaction are delivered once.
+     *
+     * @param channel the channel.
+     * @param payload the payload, at most {@link #MAX_PAYLOAD_BYTES} bytes in UTF-8.
+     */
+    @Transactional
+    public void send(String channel, String payload) {
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, channel, payload);
+    }
+}
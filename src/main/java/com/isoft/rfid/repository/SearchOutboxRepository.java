@@ -0,0 +1,155 @@
+package com.isoft.rfid.repository;
+
+import com.isoft.rfid.domain.SearchOutboxEntry;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * JDBC repository for the {@link SearchOutboxEntry}s, appended by the services and drained by a single relay.
+ * <p>
+ * The relay claims a batch of writes for a while in a short transaction, sends them, then removes the ones it sent in
+ * another: no transaction, nor connection, is held while they are sent. Writes are claimed by id, which is the order
+ * they were appended in, but not always the order they were committed in: a write committed after the writes with
+ * greater ids were claimed is relayed after them.
+ */
+@Repository
+public class SearchOutboxRepository {
+
+    /**
+     * Key of the transaction-level advisory lock which makes claims exclusive across instances.
+     */
+    private static final long RELAY_LOCK_KEY = 0x5345_4152_4348_4F42L;
+
+    private static final String INSERT_SQL =
+        "insert into search_outbox (index_name, document_id, source, created_date) values (?, ?, ?, ?)";
+
+    private static final String CLAIMED_SQL = "select exists (select 1 from search_outbox where claimed_until > ?)";
+
+    private static final String CLAIM_SQL =
+        "update search_outbox set claimed_until = ? where id in (select id from search_outbox order by id limit ?) " +
+        "returning id, index_name, document_id, source, created_date";
+
+    private static final String DELETE_SQL = "delete from search_outbox where id = any(?)";
+
+    private static final String RELEASE_SQL = "update search_outbox set claimed_until = null where id = any(?)";
+
+    private static final String COUNT_SQL = "select count(*) from search_outbox";
+
+    private static final String OLDEST_SQL = "select created_date from search_outbox order by id limit 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SearchOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Append a write, in the transaction of the change it reflects.
+     *
+     * @param indexName the index.
+     * @param documentId the id of the document.
+     * @param source the document to index, or {@code null} to delete it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String indexName, String documentId, String source) {
+        jdbcTemplate.update(INSERT_SQL, indexName, documentId, source, toUtc(Instant.now()));
+    }
+
+    /**
+     * Claim the oldest writes, unless another relay holds claimed writes, until they are completed or the claim times
+     * out.
+     *
+     * @param limit the maximum number of writes.
+     * @param timeout how long the writes are claimed for.
+     * @return the claimed writes, by id, or an empty list if another relay holds claimed writes.
+     */
+    @Transactional
+    public List<SearchOutboxEntry> claim(int limit, Duration timeout) {
+        Boolean locked = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return Collections.emptyList();
+        }
+        Instant now = Instant.now();
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(CLAIMED_SQL, Boolean.class, toUtc(now)))) {
+            return Collections.emptyList();
+        }
+        List<SearchOutboxEntry> entries = jdbcTemplate.query(
+            CLAIM_SQL,
+            (ResultSet rs, int rowNum) -> toEntry(rs),
+            toUtc(now.plus(timeout)),
+            limit
+        );
+        entries.sort(Comparator.comparingLong(SearchOutboxEntry::getId));
+        return entries;
+    }
+
+    /**
+     * Remove the relayed writes of a claim, and release the others so that they are claimed again.
+     *
+     * @param claimed the writes returned by {@link #claim}.
+     * @param relayed the number of leading writes which were relayed.
+     */
+    @Transactional
+    public void complete(List<SearchOutboxEntry> claimed, int relayed) {
+        if (relayed > 0) {
+            updateAll(DELETE_SQL, claimed.subList(0, relayed));
+        }
+        if (relayed < claimed.size()) {
+            updateAll(RELEASE_SQL, claimed.subList(relayed, claimed.size()));
+        }
+    }
+
+    private void updateAll(String sql, List<SearchOutboxEntry> entries) {
+        Long[] ids = entries.stream().map(SearchOutboxEntry::getId).toArray(Long[]::new);
+        jdbcTemplate.update(sql, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+
+    /**
+     * @return the number of writes not relayed yet.
+     */
+    @Transactional(readOnly = true)
+    public long count() {
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return the creation date of the oldest write, or empty if there are none.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Instant> findOldestCreatedDate() {
+        return jdbcTemplate
+            .query(OLDEST_SQL, (ResultSet rs, int rowNum) -> rs.getObject(1, LocalDateTime.class).toInstant(ZoneOffset.UTC))
+            .stream()
+            .findFirst();
+    }
+
+    private static SearchOutboxEntry toEntry(ResultSet rs) throws SQLException {
+        return new SearchOutboxEntry(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getObject(5, LocalDateTime.class).toInstant(ZoneOffset.UTC)
+        );
+    }
+
+    /**
+     * Timestamps are stored without time zone, in UTC, as configured by {@code hibernate.jdbc.time_zone}.
+     */
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
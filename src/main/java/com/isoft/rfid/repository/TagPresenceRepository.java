@@ -0,0 +1,87 @@
+package com.isoft.rfid.repository;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagPresence;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * JDBC repository for the {@link TagPresence} snapshots, which are written in bulk and never queried one by one.
+ */
+@Repository
+public class TagPresenceRepository {
+
+    private static final String SELECT_SQL = "select epc, zone, entered_at, last_seen from tag_presence";
+
+    private static final String UPSERT_SQL =
+        "insert into tag_presence (epc, zone, entered_at, last_seen) values (?, ?, ?, ?)" +
+        " on conflict (epc) do update set zone = excluded.zone, entered_at = excluded.entered_at, last_seen = excluded.last_seen";
+
+    private static final String DELETE_SQL = "delete from tag_presence where epc = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int jdbcBatchSize;
+
+    public TagPresenceRepository(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcBatchSize = applicationProperties.getIngestion().getJdbcBatchSize();
+    }
+
+    /**
+     * Stream all the presences.
+     *
+     * @param consumer called for each presence.
+     */
+    @Transactional(readOnly = true)
+    public void findAll(Consumer<TagPresence> consumer) {
+        jdbcTemplate.query(SELECT_SQL, (ResultSet rs) -> consumer.accept(toPresence(rs)));
+    }
+
+    /**
+     * Apply the changes since the last snapshot in one transaction.
+     *
+     * @param removed the EPCs of the tags which left their zone.
+     * @param saved the presences which changed.
+     */
+    @Transactional
+    public void update(Collection<Epc> removed, Collection<TagPresence> saved) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, removed, jdbcBatchSize, (ps, epc) -> ps.setBytes(1, epc.toBytes()));
+        jdbcTemplate.batchUpdate(
+            UPSERT_SQL,
+            saved,
+            jdbcBatchSize,
+            (ps, presence) -> {
+                ps.setBytes(1, presence.getEpc().toBytes());
+                ps.setString(2, presence.getZone());
+                ps.setObject(3, toUtc(presence.getEnteredAt()));
+                ps.setObject(4, toUtc(presence.getLastSeen()));
+            }
+        );
+    }
+
+    private static TagPresence toPresence(ResultSet rs) throws SQLException {
+        return new TagPresence(
+            Epc.fromBytes(rs.getBytes(1)),
+            rs.getString(2),
+            rs.getObject(3, LocalDateTime.class).toInstant(ZoneOffset.UTC),
+            rs.getObject(4, LocalDateTime.class).toInstant(ZoneOffset.UTC)
+        );
+    }
+
+    /**
+     * Timestamps are stored without time zone, in UTC, as configured by {@code hibernate.jdbc.time_zone}.
+     */
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
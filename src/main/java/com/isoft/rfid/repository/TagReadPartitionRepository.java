@@ -0,0 +1,139 @@
+package com.isoft.rfid.repository;
+
+import com.isoft.rfid.domain.TagReadPartition;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * JDBC repository for the {@link TagReadPartition}s of the {@code tag_read} table, read from the PostgreSQL catalog.
+ */
+@Repository
+public class TagReadPartitionRepository {
+
+    /**
+     * Partition of the reads outside of all the other partitions, created with the partitioned table.
+     */
+    public static final String DEFAULT_PARTITION = "tag_read_default";
+
+    private static final String SELECT_SQL =
+        "select c.relname, pg_get_expr(c.relpartbound, c.oid) from pg_inherits i join pg_class c on c.oid = i.inhrelid" +
+        " where i.inhparent = 'tag_read'::regclass order by c.relname";
+
+    private static final Pattern RANGE_BOUND = Pattern.compile("FOR VALUES FROM \\((.+)\\) TO \\((.+)\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TagReadPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return all the partitions, by name.
+     */
+    @Transactional(readOnly = true)
+    public List<TagReadPartition> findAll() {
+        return jdbcTemplate.query(SELECT_SQL, (ResultSet rs, int rowNum) -> toPartition(rs));
+    }
+
+    /**
+     * Create a partition, moving the reads of its range out of the default partition.
+     * <p>
+     * The partition is created as a standalone table and attached once filled, which scans the default partition but
+     * does not lock the other ones.
+     *
+     * @param name the table name of the partition.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @return the number of reads moved from the default partition.
+     */
+    @Transactional
+    public int create(String name, Instant from, Instant to) {
+        String table = quote(name);
+        jdbcTemplate.execute("create table " + table + " (like tag_read including defaults)");
+        int moved = jdbcTemplate.update(
+            "with moved as (delete from " +
+            DEFAULT_PARTITION +
+            " where read_time >= ? and read_time < ? returning *) insert into " +
+            table +
+            " select * from moved",
+            toUtc(from),
+            toUtc(to)
+        );
+        jdbcTemplate.execute(
+            "alter table tag_read attach partition " + table + " for values from ('" + toUtc(from) + "') to ('" + toUtc(to) + "')"
+        );
+        return moved;
+    }
+
+    /**
+     * Detach a partition, which is kept as a standalone table.
+     *
+     * @param name the table name of the partition.
+     */
+    @Transactional
+    public void detach(String name) {
+        jdbcTemplate.execute("alter table tag_read detach partition " + quote(name));
+    }
+
+    /**
+     * Drop a partition and all its reads.
+     *
+     * @param name the table name of the partition.
+     */
+    @Transactional
+    public void drop(String name) {
+        jdbcTemplate.execute("drop table " + quote(name));
+    }
+
+    /**
+     * Delete the reads of the default partition before an instant.
+     *
+     * @param before the read time before which reads are deleted.
+     * @return the number of deleted reads.
+     */
+    @Transactional
+    public int deleteFromDefault(Instant before) {
+        return jdbcTemplate.update("delete from " + DEFAULT_PARTITION + " where read_time < ?", toUtc(before));
+    }
+
+    private static TagReadPartition toPartition(ResultSet rs) throws SQLException {
+        String name = rs.getString(1);
+        String bound = rs.getString(2);
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.matches()) {
+            return new TagReadPartition(name, null, null, true);
+        }
+        return new TagReadPartition(name, toInstant(matcher.group(1)), toInstant(matcher.group(2)), false);
+    }
+
+    /**
+     * @param bound a range bound, such as {@code '2022-11-10 00:00:00'}, {@code MINVALUE} or {@code MAXVALUE}.
+     * @return the bound, or {@code null} if unbounded.
+     */
+    private static Instant toInstant(String bound) {
+        if (!bound.startsWith("'")) {
+            return null;
+        }
+        return LocalDateTime.parse(bound.substring(1, bound.length() - 1).replace(' ', 'T')).toInstant(ZoneOffset.UTC);
+    }
+
+    private static String quote(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Timestamps are stored without time zone, in UTC, as configured by {@code hibernate.jdbc.time_zone}.
+     */
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,163 @@
+package com.isoft.rfid.repository;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagRead;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link TagRead} entity.
+ */
+@Repository
+public interface TagReadRepository extends JpaRepository<TagRead, Long>, TagReadRepositoryInternal {
+    Optional<TagRead> findFirstByEpcAndReadTimeAndReaderIdOrderByIdAsc(Epc epc, Instant readTime, String readerId);
+}
+
+interface TagReadRepositoryInternal {
+    /**
+     * Insert all the given reads using JDBC batches, bypassing the persistence context.
+     * <p>
+     * Identifiers are allocated from the shared {@code sequence_generator} and set on the given entities.
+     *
+     * @param reads the reads to insert.
+     * @return the number of inserted rows.
+     */
+    int insertAll(List<TagRead> reads);
+
+    /**
+     * Insert all the given reads with a binary {@code COPY}, bypassing the persistence context. Faster than
+     * {@link #insertAll} for large batches, as rows are streamed without statements or parameters.
+     * <p>
+     * Identifiers are allocated from the shared {@code sequence_generator} and set on the given entities.
+     *
+     * @param reads the reads to insert.
+     * @return the number of inserted rows.
+     */
+    int copyAll(List<TagRead> reads);
+}
+
+class TagReadRepositoryInternalImpl implements TagReadRepositoryInternal {
+
+    /**
+     * Must match the {@code incrementBy} of {@code sequence_generator} and the default allocation size of
+     * {@link javax.persistence.SequenceGenerator}, so that ids allocated here never collide with Hibernate's pooled optimizer.
+     */
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private static final String NEXT_SEQUENCE_VALUES_SQL = "select nextval('sequence_generator') from generate_series(1, ?)";
+
+    private static final String COLUMNS =
+        "id, epc, reader_id, antenna, rssi, zone, read_time, created_by, created_date, last_modified_by, last_modified_date";
+
+    private static final String INSERT_SQL = "insert into tag_read (" + COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AuditorAware<String> auditorAware;
+
+    private final int jdbcBatchSize;
+
+    TagReadRepositoryInternalImpl(JdbcTemplate jdbcTemplate, AuditorAware<String> auditorAware, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorAware = auditorAware;
+        this.jdbcBatchSize = applicationProperties.getIngestion().getJdbcBatchSize();
+    }
+
+    @Override
+    public int insertAll(List<TagRead> reads) {
+        if (reads.isEmpty()) {
+            return 0;
+        }
+        prepare(reads);
+        jdbcTemplate.batchUpdate(INSERT_SQL, reads, jdbcBatchSize, TagReadRepositoryInternalImpl::setValues);
+        return reads.size();
+    }
+
+    @Override
+    public int copyAll(List<TagRead> reads) {
+        if (reads.isEmpty()) {
+            return 0;
+        }
+        prepare(reads);
+        return (int) BinaryCopyWriter.copy(jdbcTemplate, "tag_read", COLUMNS, reads, TagReadRepositoryInternalImpl::encode);
+    }
+
+    private void prepare(List<TagRead> reads) {
+        assignIds(reads);
+        String auditor = auditorAware.getCurrentAuditor().orElseThrow();
+        Instant now = Instant.now();
+        for (TagRead read : reads) {
+            read.setCreatedBy(auditor);
+            read.setCreatedDate(now);
+            read.setLastModifiedBy(auditor);
+            read.setLastModifiedDate(now);
+        }
+    }
+
+    private void assignIds(List<TagRead> reads) {
+        int blocks = (reads.size() + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+        List<Long> hiValues = jdbcTemplate.queryForList(NEXT_SEQUENCE_VALUES_SQL, Long.class, blocks);
+        Iterator<TagRead> it = reads.iterator();
+        for (long hi : hiValues) {
+            // Same range as Hibernate's pooled optimizer: (hi - increment, hi]
+            for (long id = hi - SEQUENCE_INCREMENT + 1; id <= hi && it.hasNext(); id++) {
+                it.next().setId(id);
+            }
+        }
+    }
+
+    private static void setValues(PreparedStatement ps, TagRead read) throws SQLException {
+        ps.setLong(1, read.getId());
+        ps.setBytes(2, read.getEpc().toBytes());
+        ps.setString(3, read.getReaderId());
+        setNullableInt(ps, 4, read.getAntenna());
+        setNullableInt(ps, 5, read.getRssi());
+        ps.setString(6, read.getZone());
+        ps.setObject(7, toUtc(read.getReadTime()));
+        ps.setString(8, read.getCreatedBy());
+        ps.setObject(9, toUtc(read.getCreatedDate()));
+        ps.setString(10, read.getLastModifiedBy());
+        ps.setObject(11, toUtc(read.getLastModifiedDate()));
+    }
+
+    private static void encode(TagRead read, BinaryCopyWriter writer) throws SQLException {
+        writer.writeLong(read.getId());
+        writer.writeBytes(read.getEpc().toBytes());
+        writer.writeText(read.getReaderId());
+        writer.writeInteger(read.getAntenna());
+        writer.writeInteger(read.getRssi());
+        writer.writeText(read.getZone());
+        writer.writeTimestamp(read.getReadTime());
+        writer.writeText(read.getCreatedBy());
+        writer.writeTimestamp(read.getCreatedDate());
+        writer.writeText(read.getLastModifiedBy());
+        writer.writeTimestamp(read.getLastModifiedDate());
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    /**
+     * Timestamps are stored without time zone, in UTC, as configured by {@code hibernate.jdbc.time_zone}.
+     */
+    private static LocalDateTime toUtc(Instant instant) {
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
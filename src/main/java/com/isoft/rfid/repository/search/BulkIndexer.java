@@ -0,0 +1,424 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Buffers Elasticsearch writes and sends them as bulk requests from a background thread.
+ * <p>
+ * Documents are serialized when enqueued, so later changes to the entity are not picked up. Writes are coalesced per
+ * index and id: only the latest one is sent. The buffer is flushed when it reaches {@code bulk-actions} documents or
+ * {@code bulk-size} bytes, or {@code flush-interval} after the previous flush. Items rejected by an overloaded cluster
+ * (and whole requests which failed) are sent again with an exponential backoff, unless a newer write of the same
+ * document was enqueued in the meantime. Callers only block when {@code queue-capacity} documents are buffered.
+ */
+@Component
+public class BulkIndexer implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(BulkIndexer.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private final int bulkActions;
+
+    private final long bulkSizeInBytes;
+
+    private final long flushIntervalNanos;
+
+    private final int queueCapacity;
+
+    private final int maxRetries;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition flushRequested = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final LinkedHashMap<String, Operation> pending = new LinkedHashMap<>();
+
+    private long pendingBytes;
+
+    private volatile int queueDepth;
+
+    private final Timer flushTimer;
+
+    private final Counter indexedCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    public BulkIndexer(ElasticsearchRestTemplate elasticsearchTemplate, ApplicationProperties applicationProperties, MeterRegistry registry) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        ApplicationProperties.BulkIndexer properties = applicationProperties.getBulkIndexer();
+        this.bulkActions = properties.getBulkActions();
+        this.bulkSizeInBytes = properties.getBulkSize().toBytes();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.queueCapacity = properties.getQueueCapacity();
+        this.maxRetries = properties.getMaxRetries();
+        this.initialBackoffMillis = properties.getInitialBackoff().toMillis();
+        this.maxBackoffMillis = properties.getMaxBackoff().toMillis();
+
+        Gauge
+            .builder("search.bulk.queue.depth", this, indexer -> indexer.queueDepth)
+            .description("Number of documents waiting to be sent to Elasticsearch.")
+            .baseUnit("documents")
+            .register(registry);
+        this.flushTimer =
+            Timer.builder("search.bulk.flush").description("Duration of the bulk requests sent to Elasticsearch.").register(registry);
+        this.indexedCounter = documentCounter(registry, "indexed");
+        this.retriedCounter = documentCounter(registry, "retried");
+        this.failedCounter = documentCounter(registry, "failed");
+    }
+
+    private static Counter documentCounter(MeterRegistry registry, String result) {
+        return Counter
+            .builder("search.bulk.documents")
+            .description("Indicates how many documents were indexed, retried or dropped by the bulk indexer.")
+            .baseUnit("documents")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    /**
+     * Enqueue the indexing of a document.
+     *
+     * @param document an entity mapped with {@link org.springframework.data.elasticsearch.annotations.Document}, with an id.
+     */
+    public void index(Object document) {
+        enqueue(toIndexOperation(document));
+    }
+
+    /**
+     * Enqueue the indexing of several documents.
+     *
+     * @param documents entities mapped with {@link org.springframework.data.elasticsearch.annotations.Document}, with an id.
+     */
+    public void indexAll(Collection<?> documents) {
+        List<Operation> operations = new ArrayList<>(documents.size());
+        for (Object document : documents) {
+            operations.add(toIndexOperation(document));
+        }
+        enqueue(operations);
+    }
+
+    /**
+     * Enqueue the deletion of a document.
+     *
+     * @param type the class of the document.
+     * @param id the id of the document.
+     */
+    public void delete(Class<?> type, Object id) {
+        String indexName = elasticsearchTemplate.getIndexCoordinatesFor(type).getIndexName();
+        enqueue(List.of(new Operation(indexName, elasticsearchTemplate.getElasticsearchConverter().convertId(id), null)));
+    }
+
+    private Operation toIndexOperation(Object document) {
+        ElasticsearchPersistentEntity<?> entity = elasticsearchTemplate
+            .getElasticsearchConverter()
+            .getMappingContext()
+            .getRequiredPersistentEntity(document.getClass());
+        Object id = entity.getIdentifierAccessor(document).getRequiredIdentifier();
+        String source = elasticsearchTemplate.getElasticsearchConverter().mapObject(document).toJson();
+        return new Operation(entity.getIndexCoordinates().getIndexName(), elasticsearchTemplate.getElasticsearchConverter().convertId(id), source);
+    }
+
+    private void enqueue(Operation operation) {
+        enqueue(List.of(operation));
+    }
+
+    private void enqueue(List<Operation> operations) {
+        lock.lock();
+        try {
+            boolean wasEmpty = pending.isEmpty();
+            for (Operation operation : operations) {
+                while (running && pending.size() >= queueCapacity) {
+                    notFull.awaitUninterruptibly();
+                }
+                add(operation);
+            }
+            // The flusher waits without timeout while the buffer is empty
+            if (wasEmpty || pending.size() >= bulkActions || pendingBytes >= bulkSizeInBytes) {
+                flushRequested.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the lock held. Replaces any buffered write of the same document.
+     */
+    private void add(Operation operation) {
+        Operation previous = pending.put(operation.key(), operation);
+        pendingBytes += operation.size() - (previous == null ? 0 : previous.size());
+        queueDepth = pending.size();
+    }
+
+    private void run() {
+        long lastFlush = System.nanoTime();
+        int consecutiveFailures = 0;
+        while (true) {
+            List<Operation> batch;
+            lock.lock();
+            try {
+                while (running && !isFlushDue(lastFlush)) {
+                    if (pending.isEmpty()) {
+                        flushRequested.awaitUninterruptibly();
+                    } else {
+                        flushRequested.awaitNanos(lastFlush + flushIntervalNanos - System.nanoTime());
+                    }
+                }
+                if (!running && pending.isEmpty()) {
+                    return;
+                }
+                batch = takeBatch();
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            lastFlush = System.nanoTime();
+            List<Operation> rejected = send(batch);
+            if (rejected.isEmpty()) {
+                consecutiveFailures = 0;
+            } else {
+                retry(rejected);
+                consecutiveFailures++;
+                if (running && !backoff(consecutiveFailures)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private boolean isFlushDue(long lastFlush) {
+        return (
+            pending.size() >= bulkActions ||
+            pendingBytes >= bulkSizeInBytes ||
+            (!pending.isEmpty() && System.nanoTime() - lastFlush >= flushIntervalNanos)
+        );
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private List<Operation> takeBatch() {
+        List<Operation> batch = new ArrayList<>(Math.min(pending.size(), bulkActions));
+        long bytes = 0;
+        Iterator<Operation> it = pending.values().iterator();
+        while (it.hasNext() && batch.size() < bulkActions && (batch.isEmpty() || bytes < bulkSizeInBytes)) {
+            Operation operation = it.next();
+            it.remove();
+            batch.add(operation);
+            bytes += operation.size();
+        }
+        pendingBytes -= bytes;
+        queueDepth = pending.size();
+        return batch;
+    }
+
+    /**
+     * @return the operations which must be retried.
+     */
+    private List<Operation> send(List<Operation> batch) {
+        BulkRequest request = new BulkRequest();
+        request.setRefreshPolicy(toRefreshPolicy(elasticsearchTemplate.getRefreshPolicy()));
+        for (Operation operation : batch) {
+            request.add(operation.toRequest());
+        }
+        BulkResponse response;
+        long start = System.nanoTime();
+        try {
+            response = bulk(request);
+        } catch (RuntimeException | IOException e) {
+            log.warn("Bulk request of {} documents failed: {}", batch.size(), e.getMessage());
+            return batch;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        List<Operation> rejected = new ArrayList<>();
+        int indexed = 0;
+        for (BulkItemResponse item : response.getItems()) {
+            Operation operation = batch.get(item.getItemId());
+            if (!item.isFailed()) {
+                indexed++;
+            } else if (item.status() == RestStatus.TOO_MANY_REQUESTS || item.status() == RestStatus.SERVICE_UNAVAILABLE) {
+                rejected.add(operation);
+            } else {
+                log.error("Could not index document {}: {}", operation.key(), item.getFailureMessage());
+                failedCounter.increment();
+            }
+        }
+        indexedCounter.increment(indexed);
+        return rejected;
+    }
+
+    BulkResponse bulk(BulkRequest request) throws IOException {
+        return elasticsearchTemplate.execute(client -> client.bulk(request, RequestOptions.DEFAULT));
+    }
+
+    private void retry(List<Operation> rejected) {
+        lock.lock();
+        try {
+            for (Operation operation : rejected) {
+                if (++operation.attempts > maxRetries) {
+                    log.error("Dropping document {} after {} attempts", operation.key(), operation.attempts);
+                    failedCounter.increment();
+                } else if (!pending.containsKey(operation.key())) {
+                    // Otherwise a newer write of the document is already buffered
+                    add(operation);
+                    retriedCounter.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code false} if the thread was interrupted.
+     */
+    private boolean backoff(int consecutiveFailures) {
+        long delay = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(consecutiveFailures - 1, 20));
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static WriteRequest.RefreshPolicy toRefreshPolicy(RefreshPolicy refreshPolicy) {
+        if (refreshPolicy == null) {
+            return WriteRequest.RefreshPolicy.NONE;
+        }
+        switch (refreshPolicy) {
+            case IMMEDIATE:
+                return WriteRequest.RefreshPolicy.IMMEDIATE;
+            case WAIT_UNTIL:
+                return WriteRequest.RefreshPolicy.WAIT_UNTIL;
+            default:
+                return WriteRequest.RefreshPolicy.NONE;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "rfid-revamp-elk-bulk-indexer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        log.debug("Flushing the bulk indexer");
+        lock.lock();
+        try {
+            running = false;
+            flushRequested.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.warn("The bulk indexer could not be flushed in {} ms, {} documents are lost", SHUTDOWN_TIMEOUT_MILLIS, queueDepth);
+            flusher.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class Operation {
+
+        private final String index;
+
+        private final String id;
+
+        /**
+         * The JSON document, {@code null} for a deletion.
+         */
+        private final String source;
+
+        private final String key;
+
+        private int attempts;
+
+        Operation(String index, String id, String source) {
+            this.index = index;
+            this.id = id;
+            this.source = source;
+            this.key = index + '/' + id;
+        }
+
+        String key() {
+            return key;
+        }
+
+        long size() {
+            return source == null ? id.length() : source.length();
+        }
+
+        DocWriteRequest<?> toRequest() {
+            if (source == null) {
+                return new DeleteRequest(index, id);
+            }
+            return new IndexRequest(index).id(id).source(source, XContentType.JSON);
+        }
+    }
+}
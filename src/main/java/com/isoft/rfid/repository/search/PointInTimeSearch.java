@@ -0,0 +1,175 @@
+package com.isoft.rfid.repository.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.isoft.rfid.repository.CursorPage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.document.DocumentAdapters;
+
+/**
+ * Pages through search results with a point in time and {@code search_after}, for the search repository fragments.
+ * <p>
+ * The first page opens a point in time on the indices of the type, so that all the pages see the same snapshot of the
+ * data, and each following page resumes after the sort values of the last hit. The point in time and the sort values
+ * are returned to the client as an opaque cursor: pages cost the same however deep they are, only one page is ever in
+ * memory, and results are not limited by {@code index.max_result_window}. Hits are sorted by score, then by the
+ * {@code _shard_doc} tiebreaker of the point in time.
+ * <p>
+ * The point in time is closed with the last page, or expires when the client stops after {@link #KEEP_ALIVE}.
+ */
+final class PointInTimeSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(PointInTimeSearch.class);
+
+    static final TimeValue KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
+
+    private PointInTimeSearch() {}
+
+    /**
+     * Get a page of the documents of a type matching a query.
+     *
+     * @param elasticsearchTemplate the template.
+     * @param type the document type.
+     * @param query the query.
+     * @param cursor the cursor of the page, or {@code null} for the first page.
+     * @param size the maximum number of results.
+     * @return the page.
+     * @throws IllegalArgumentException if the cursor is invalid or expired.
+     */
+    static <T> CursorPage<T> search(
+        ElasticsearchRestTemplate elasticsearchTemplate,
+        Class<T> type,
+        QueryBuilder query,
+        String cursor,
+        int size
+    ) {
+        String pointInTimeId;
+        Object[] searchAfter = null;
+        if (cursor == null) {
+            String[] indices = elasticsearchTemplate.getIndexCoordinatesFor(type).getIndexNames();
+            OpenPointInTimeRequest request = new OpenPointInTimeRequest(indices).keepAlive(KEEP_ALIVE);
+            pointInTimeId =
+                elasticsearchTemplate.execute(client -> client.openPointInTime(request, RequestOptions.DEFAULT)).getPointInTimeId();
+        } else {
+            JsonNode decoded = decode(cursor);
+            pointInTimeId = decoded.get("pit").asText();
+            searchAfter = toSortValues(decoded.get("after"));
+        }
+
+        // One more hit than requested tells whether there is a next page
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(query)
+            .size(size + 1)
+            .sort(SortBuilders.scoreSort())
+            .sort(SortBuilders.fieldSort("_shard_doc").order(SortOrder.ASC))
+            .trackTotalHits(false)
+            .pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(KEEP_ALIVE));
+        if (searchAfter != null) {
+            source.searchAfter(searchAfter);
+        }
+        SearchResponse response = elasticsearchTemplate.execute(client -> {
+            try {
+                return client.search(new SearchRequest().source(source), RequestOptions.DEFAULT);
+            } catch (ElasticsearchStatusException e) {
+                if (e.status() == RestStatus.NOT_FOUND) {
+                    return null;
+                }
+                throw e;
+            }
+        });
+        if (response == null) {
+            throw new IllegalArgumentException("The search cursor expired");
+        }
+
+        SearchHit[] hits = response.getHits().getHits();
+        List<T> content = new ArrayList<>(Math.min(hits.length, size));
+        for (int i = 0; i < Math.min(hits.length, size); i++) {
+            content.add(elasticsearchTemplate.getElasticsearchConverter().read(type, DocumentAdapters.from(hits[i])));
+        }
+        String nextPointInTimeId = response.pointInTimeId() == null ? pointInTimeId : response.pointInTimeId();
+        if (hits.length <= size) {
+            close(elasticsearchTemplate, nextPointInTimeId);
+            return new CursorPage<>(content, null);
+        }
+        return new CursorPage<>(content, encode(nextPointInTimeId, hits[size - 1].getSortValues()));
+    }
+
+    private static void close(ElasticsearchRestTemplate elasticsearchTemplate, String pointInTimeId) {
+        try {
+            ClosePointInTimeRequest request = new ClosePointInTimeRequest(pointInTimeId);
+            elasticsearchTemplate.execute(client -> client.closePointInTime(request, RequestOptions.DEFAULT));
+        } catch (RuntimeException e) {
+            log.debug("Could not close a point in time, it will expire: {}", e.getMessage());
+        }
+    }
+
+    static String encode(String pointInTimeId, Object[] sortValues) {
+        ObjectNode node = CURSOR_MAPPER.createObjectNode();
+        node.put("pit", pointInTimeId);
+        ArrayNode after = node.putArray("after");
+        for (Object value : sortValues) {
+            after.addPOJO(value);
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(CURSOR_MAPPER.writeValueAsBytes(node));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode a search cursor", e);
+        }
+    }
+
+    static JsonNode decode(String cursor) {
+        try {
+            JsonNode node = CURSOR_MAPPER.readTree(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (node == null || !node.path("pit").isTextual() || !node.path("after").isArray()) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            return node;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+
+    static Object[] toSortValues(JsonNode after) {
+        Object[] values = new Object[after.size()];
+        for (int i = 0; i < values.length; i++) {
+            JsonNode value = after.get(i);
+            if (value.isIntegralNumber()) {
+                values[i] = value.longValue();
+            } else if (value.isNumber()) {
+                values[i] = value.doubleValue();
+            } else if (value.isBoolean()) {
+                values[i] = value.booleanValue();
+            } else if (value.isNull()) {
+                values[i] = null;
+            } else {
+                values[i] = value.asText();
+            }
+        }
+        return values;
+    }
+}
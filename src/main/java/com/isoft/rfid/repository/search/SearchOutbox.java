@@ -0,0 +1,54 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.repository.SearchOutboxRepository;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records Elasticsearch writes in the transaction of the changes they reflect, to be sent by the {@link SearchOutboxRelay}.
+ * <p>
+ * Unlike the {@link BulkIndexer}, a write is only recorded if the transaction commits, and it is not lost if the
+ * application stops before it is sent: the index eventually reflects exactly the committed changes. Documents are
+ * serialized when recorded, so later changes to the entity are not picked up.
+ */
+@Component
+public class SearchOutbox {
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    public SearchOutbox(ElasticsearchRestTemplate elasticsearchTemplate, SearchOutboxRepository searchOutboxRepository) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.searchOutboxRepository = searchOutboxRepository;
+    }
+
+    /**
+     * Record the indexing of a document, in the current transaction.
+     *
+     * @param document an entity mapped with {@link org.springframework.data.elasticsearch.annotations.Document}, with an id.
+     */
+    public void index(Object document) {
+        ElasticsearchConverter converter = elasticsearchTemplate.getElasticsearchConverter();
+        ElasticsearchPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(document.getClass());
+        Object id = entity.getIdentifierAccessor(document).getRequiredIdentifier();
+        searchOutboxRepository.append(
+            entity.getIndexCoordinates().getIndexName(),
+            converter.convertId(id),
+            converter.mapObject(document).toJson()
+        );
+    }
+
+    /**
+     * Record the deletion of a document, in the current transaction.
+     *
+     * @param type the class of the document.
+     * @param id the id of the document.
+     */
+    public void delete(Class<?> type, Object id) {
+        String indexName = elasticsearchTemplate.getIndexCoordinatesFor(type).getIndexName();
+        searchOutboxRepository.append(indexName, elasticsearchTemplate.getElasticsearchConverter().convertId(id), null);
+    }
+}
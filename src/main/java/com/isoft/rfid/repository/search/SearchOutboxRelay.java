@@ -0,0 +1,181 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.SearchOutboxEntry;
+import com.isoft.rfid.repository.SearchOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends the writes recorded by the {@link SearchOutbox} to Elasticsearch, by id, as bulk requests.
+ * <p>
+ * A batch of the oldest writes is claimed, so that only one instance relays at a time, then sent, then the applied
+ * writes are removed: see {@link SearchOutboxRepository} for the order they are sent in. The relay stops at the first
+ * write rejected by an overloaded or unavailable cluster and retries it on the next tick, so that it does not overtake
+ * the later writes of the same document. Writes which can never be applied, such as documents the mapping rejects, are
+ * logged and dropped. Delivery is at least once: a write is sent again if its removal fails after the bulk request, once
+ * its claim times out.
+ */
+@Component
+public class SearchOutboxRelay {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxRelay.class);
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final int batchSize;
+
+    private final Duration claimTimeout;
+
+    private final Clock clock;
+
+    private final Counter relayedCounter;
+
+    private final Counter failedCounter;
+
+    private volatile long size;
+
+    private volatile Instant oldest;
+
+    @Autowired
+    public SearchOutboxRelay(
+        ElasticsearchRestTemplate elasticsearchTemplate,
+        SearchOutboxRepository searchOutboxRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this(elasticsearchTemplate, searchOutboxRepository, applicationProperties, registry, Clock.systemUTC());
+    }
+
+    SearchOutboxRelay(
+        ElasticsearchRestTemplate elasticsearchTemplate,
+        SearchOutboxRepository searchOutboxRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry,
+        Clock clock
+    ) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.batchSize = applicationProperties.getSearchOutbox().getBatchSize();
+        this.claimTimeout = applicationProperties.getSearchOutbox().getClaimTimeout();
+        this.clock = clock;
+        Gauge
+            .builder("search.outbox.size", this, relay -> relay.size)
+            .description("Number of writes in the search outbox, waiting to be sent to Elasticsearch.")
+            .baseUnit("documents")
+            .register(registry);
+        Gauge
+            .builder("search.outbox.lag", this, SearchOutboxRelay::lagSeconds)
+            .description("Age of the oldest write in the search outbox.")
+            .baseUnit("seconds")
+            .register(registry);
+        this.relayedCounter = documentCounter(registry, "relayed");
+        this.failedCounter = documentCounter(registry, "failed");
+    }
+
+    private static Counter documentCounter(MeterRegistry registry, String result) {
+        return Counter
+            .builder("search.outbox.documents")
+            .description("Indicates how many writes of the search outbox were applied or dropped.")
+            .baseUnit("documents")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private double lagSeconds() {
+        Instant instant = oldest;
+        return instant == null ? 0 : Math.max(0, clock.millis() - instant.toEpochMilli()) / 1000.0;
+    }
+
+    /**
+     * Relay the writes of the outbox, until it is empty or a batch could not be fully applied.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void tick() {
+        try {
+            int relayed;
+            do {
+                List<SearchOutboxEntry> entries = searchOutboxRepository.claim(batchSize, claimTimeout);
+                if (entries.isEmpty()) {
+                    break;
+                }
+                relayed = send(entries);
+                searchOutboxRepository.complete(entries, relayed);
+            } while (relayed == batchSize);
+            size = searchOutboxRepository.count();
+            oldest = searchOutboxRepository.findOldestCreatedDate().orElse(null);
+        } catch (RuntimeException e) {
+            log.warn("Could not relay the search outbox: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of leading entries which were applied or dropped, and can be removed from the outbox.
+     */
+    private int send(List<SearchOutboxEntry> entries) {
+        BulkRequest request = new BulkRequest();
+        for (SearchOutboxEntry entry : entries) {
+            request.add(toRequest(entry));
+        }
+        BulkResponse response;
+        try {
+            response = bulk(request);
+        } catch (RuntimeException | IOException e) {
+            log.warn("Bulk request of {} outbox writes failed: {}", entries.size(), e.getMessage());
+            return 0;
+        }
+        int done = 0;
+        for (BulkItemResponse item : response.getItems()) {
+            SearchOutboxEntry entry = entries.get(item.getItemId());
+            if (!item.isFailed() || (entry.isDelete() && item.status() == RestStatus.NOT_FOUND)) {
+                relayedCounter.increment();
+            } else if (isRetryable(item.status())) {
+                log.debug("Outbox write {} was rejected, retrying: {}", entry, item.getFailureMessage());
+                break;
+            } else {
+                log.error("Could not apply outbox write {}: {}", entry, item.getFailureMessage());
+                failedCounter.increment();
+            }
+            done++;
+        }
+        return done;
+    }
+
+    private static boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status.getStatus() >= 500;
+    }
+
+    BulkResponse bulk(BulkRequest request) throws IOException {
+        return elasticsearchTemplate.execute(client -> client.bulk(request, RequestOptions.DEFAULT));
+    }
+
+    private static DocWriteRequest<?> toRequest(SearchOutboxEntry entry) {
+        if (entry.isDelete()) {
+            return new DeleteRequest(entry.getIndexName(), entry.getDocumentId());
+        }
+        return new IndexRequest(entry.getIndexName()).id(entry.getDocumentId()).source(entry.getSource(), XContentType.JSON);
+    }
+}
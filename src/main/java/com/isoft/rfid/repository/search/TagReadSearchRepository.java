@@ -0,0 +1,57 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.domain.TagRead;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+/**
+ * Spring Data Elasticsearch repository for the {@link TagRead} entity.
+ * <p>
+ * Tag reads are stored in rolling indices, and the {@code tagread} index of the entity is the write alias of the
+ * current period only: the inherited methods only see the reads indexed during that period. Searches must go through
+ * {@link TagReadSearchRepositoryInternal#search(QueryBuilder, IndexCoordinates, Pageable)}, with the indices given by
+ * {@link com.isoft.rfid.service.RollingIndexService}.
+ */
+public interface TagReadSearchRepository extends ElasticsearchRepository<TagRead, Long>, TagReadSearchRepositoryInternal {}
+
+interface TagReadSearchRepositoryInternal {
+    /**
+     * Search the reads of the given indices.
+     *
+     * @param query the query.
+     * @param indices the indices or aliases to search.
+     * @param pageable the pagination information.
+     * @return the page of reads.
+     */
+    Page<TagRead> search(QueryBuilder query, IndexCoordinates indices, Pageable pageable);
+}
+
+class TagReadSearchRepositoryInternalImpl implements TagReadSearchRepositoryInternal {
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    TagReadSearchRepositoryInternalImpl(ElasticsearchRestTemplate elasticsearchTemplate) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+    }
+
+    @Override
+    public Page<TagRead> search(QueryBuilder query, IndexCoordinates indices, Pageable pageable) {
+        SearchHits<TagRead> hits = elasticsearchTemplate.search(
+            new NativeSearchQueryBuilder().withQuery(query).withPageable(pageable).build(),
+            TagRead.class,
+            indices
+        );
+        List<TagRead> content = hits.getSearchHits().stream().map(SearchHit::getContent).collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, hits.getTotalHits());
+    }
+}
@@ -3,10 +3,8 @@ package com.isoft.rfid.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.isoft.rfid.domain.User;
-import java.util.stream.Stream;
+import com.isoft.rfid.repository.CursorPage;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
 /**
@@ -15,7 +13,16 @@ import org.springframework.data.elasticsearch.repository.ElasticsearchRepository
 public interface UserSearchRepository extends ElasticsearchRepository<User, Long>, UserSearchRepositoryInternal {}
 
 interface UserSearchRepositoryInternal {
-    Stream<User> search(String query);
+    /**
+     * Search the users page by page.
+     *
+     * @param query the query string.
+     * @param cursor the cursor of the page, as returned with the previous page, or {@code null} for the first page.
+     * @param size the maximum number of users in the page.
+     * @return the page of users.
+     * @throws IllegalArgumentException if the cursor is invalid or expired.
+     */
+    CursorPage<User> search(String query, String cursor, int size);
 }
 
 class UserSearchRepositoryInternalImpl implements UserSearchRepositoryInternal {
@@ -27,8 +34,7 @@ class UserSearchRepositoryInternalImpl implements UserSearchRepositoryInternal {
     }
 
     @Override
-    public Stream<User> search(String query) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        return elasticsearchTemplate.search(nativeSearchQuery, User.class).map(SearchHit::getContent).stream();
+    public CursorPage<User> search(String query, String cursor, int size) {
+        return PointInTimeSearch.search(elasticsearchTemplate, User.class, queryStringQuery(query), cursor, size);
     }
 }
@@ -0,0 +1,25 @@
+package com.isoft.rfid.security;
+
+import java.time.Duration;
+
+/**
+ * Thrown by the {@link PooledPasswordEncoder} when too many passwords are waiting to be hashed.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(Duration retryAfter) {
+        super("Too many passwords are being hashed");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return how long the client should wait before sending the request again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,162 @@
+package com.isoft.rfid.security;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt password encoder which hashes on a dedicated pool, sized to the number of processors by default.
+ * <p>
+ * Each hash takes tens of milliseconds of CPU: a login storm would otherwise take all the CPUs and servlet threads,
+ * starving every other endpoint. The callers still wait for their hash, but at most as many hashes run as there are
+ * threads in the pool, and once its bounded queue is full, further hashes are rejected at once with a
+ * {@link PasswordHashingRejectedException}, answered with a {@code 503}.
+ * <p>
+ * Hashes of another cost than the configured one are to be upgraded, which Spring Security does on login.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder delegate;
+
+    private final int strength;
+
+    private final Duration retryAfter;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Timer queueWaitTimer;
+
+    private final Counter rejectedCounter;
+
+    public PooledPasswordEncoder(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(
+            applicationProperties,
+            meterRegistry,
+            new BCryptPasswordEncoder(applicationProperties.getPasswordHashing().getStrength())
+        );
+    }
+
+    PooledPasswordEncoder(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, PasswordEncoder delegate) {
+        ApplicationProperties.PasswordHashing passwordHashing = applicationProperties.getPasswordHashing();
+        this.delegate = delegate;
+        this.strength = passwordHashing.getStrength();
+        this.retryAfter = passwordHashing.getRetryAfter();
+        int threads = passwordHashing.getThreads() > 0 ? passwordHashing.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor =
+            new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordHashing.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rfid-revamp-elk-password-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.queueWaitTimer =
+            Timer
+                .builder("security.password.queue-wait")
+                .description("Time spent by password hashes waiting for a thread.")
+                .register(meterRegistry);
+        this.rejectedCounter =
+            Counter
+                .builder("security.password.rejected")
+                .description("Number of password hashes rejected because too many were waiting for a thread.")
+                .baseUnit("hashes")
+                .register(meterRegistry);
+        Gauge
+            .builder("security.password.queue", executor, pool -> pool.getQueue().size())
+            .description("Number of password hashes waiting for a thread.")
+            .baseUnit("hashes")
+            .register(meterRegistry);
+    }
+
+    private static Timer hashTimer(MeterRegistry registry, String operation) {
+        return Timer
+            .builder("security.password.hash")
+            .description("Time spent hashing passwords, to encode them or to check them.")
+            .tag("operation", operation)
+            .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * @return whether the password was hashed with another cost than the configured one, higher or lower.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T hash(Timer timer, Callable<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result =
+                executor.submit(() -> {
+                    queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                    return timer.recordCallable(hashing);
+                });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException(retryAfter);
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not hash a password", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
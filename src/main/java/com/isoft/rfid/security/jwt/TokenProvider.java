@@ -1,16 +1,24 @@
 package com.isoft.rfid.security.jwt;
 
+import com.isoft.rfid.config.ApplicationProperties;
 import com.isoft.rfid.management.SecurityMetersService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,6 +28,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import tech.jhipster.config.JHipsterProperties;
 
+/**
+ * Creates JWTs, and authenticates them.
+ * <p>
+ * Verified tokens are cached until they expire, keyed by their SHA-256 digest, so that each token is only parsed and
+ * verified once, however many requests it authenticates. The cache is bounded: once full, the expired entries are
+ * removed, and if it is still full, it is cleared.
+ */
 @Component
 public class TokenProvider {
 
@@ -39,7 +54,29 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final ConcurrentMap<ByteBuffer, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    private final int maxVerifiedTokens;
+
+    private final ConcurrentMap<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    private final Clock clock;
+
+    @Autowired
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        SecurityMetersService securityMetersService
+    ) {
+        this(jHipsterProperties, applicationProperties, securityMetersService, Clock.systemUTC());
+    }
+
+    TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        SecurityMetersService securityMetersService,
+        Clock clock
+    ) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -54,18 +91,20 @@ public class TokenProvider {
             keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         }
         key = Keys.hmacShaKeyFor(keyBytes);
-        jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        jwtParser = Jwts.parserBuilder().setSigningKey(key).setClock(() -> new Date(clock.millis())).build();
         this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInMillisecondsForRememberMe =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.maxVerifiedTokens = applicationProperties.getTokenCache().getMaxEntries();
+        this.clock = clock;
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
         String authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
 
-        long now = (new Date()).getTime();
+        long now = clock.millis();
         Date validity;
         if (rememberMe) {
             validity = new Date(now + this.tokenValidityInMillisecondsForRememberMe);
@@ -84,23 +123,64 @@ public class TokenProvider {
 
     public Authentication getAuthentication(String token) {
         Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return new VerifiedToken(claims).toAuthentication(token);
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    public boolean validateToken(String authToken) {
+        return parse(authToken) != null;
+    }
 
-        User principal = new User(claims.getSubject(), "", authorities);
+    /**
+     * Validate a token and get its authentication, parsing and verifying it only if it is not cached yet.
+     *
+     * @param authToken the token.
+     * @return the authentication, or empty if the token is not valid.
+     */
+    public Optional<Authentication> authenticate(String authToken) {
+        ByteBuffer digest = digest(authToken);
+        VerifiedToken verified = verifiedTokens.get(digest);
+        if (verified != null && clock.millis() >= verified.expiresAt) {
+            verifiedTokens.remove(digest, verified);
+            verified = null;
+        }
+        if (verified == null) {
+            Claims claims = parse(authToken);
+            if (claims == null) {
+                return Optional.empty();
+            }
+            verified = new VerifiedToken(claims);
+            if (verified.expiresAt != Long.MAX_VALUE && maxVerifiedTokens > 0) {
+                cache(digest, verified);
+            }
+        }
+        return Optional.of(verified.toAuthentication(authToken));
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    private void cache(ByteBuffer digest, VerifiedToken verified) {
+        if (verifiedTokens.size() >= maxVerifiedTokens) {
+            long now = clock.millis();
+            verifiedTokens.values().removeIf(entry -> now >= entry.expiresAt);
+            if (verifiedTokens.size() >= maxVerifiedTokens) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(digest, verified);
     }
 
-    public boolean validateToken(String authToken) {
+    private static ByteBuffer digest(String token) {
         try {
-            jwtParser.parseClaimsJws(authToken);
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 
-            return true;
+    /**
+     * @return the verified claims of the token, or {@code null} if it is not valid.
+     */
+    private Claims parse(String authToken) {
+        try {
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +201,36 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * The principal and authorities of a verified token, with its expiry.
+     */
+    private final class VerifiedToken {
+
+        private final User principal;
+
+        private final List<GrantedAuthority> grantedAuthorities;
+
+        private final long expiresAt;
+
+        private VerifiedToken(Claims claims) {
+            this.grantedAuthorities =
+                Arrays
+                    .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
+                    .filter(auth -> !auth.trim().isEmpty())
+                    .map(auth -> authorities.computeIfAbsent(auth, SimpleGrantedAuthority::new))
+                    .collect(Collectors.toUnmodifiableList());
+            this.principal = new User(claims.getSubject(), "", grantedAuthorities);
+            this.expiresAt = claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime();
+        }
+
+        /**
+         * A new authentication each time, as it is mutable.
+         */
+        private Authentication toAuthentication(String token) {
+            return new UsernamePasswordAuthenticationToken(principal, token, grantedAuthorities);
+        }
     }
 }
@@ -0,0 +1,317 @@
+package com.isoft.rfid.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts cache entries on all the instances sharing the database, so that caches can keep entries for long.
+ * <p>
+ * Evictions are applied to the local caches at once, and sent to the other instances with a PostgreSQL notification.
+ * Within a transaction, they are collected and de-duplicated, sent as a single notification just before the commit
+ * (so that they are only delivered if it commits) and applied locally again once committed. Each instance listens on
+ * a dedicated connection, and clears all its caches when it reconnects, as notifications may have been missed.
+ * <p>
+ * Only the entries of Spring caches with {@link String} keys, such as the users by login or email, can be evicted.
+ */
+@Service
+public class CacheInvalidationService implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private static final ObjectMapper PAYLOAD_MAPPER = new ObjectMapper();
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+    private final CacheManager cacheManager;
+
+    private final NotificationRepository notificationRepository;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final boolean enabled;
+
+    private final String channel;
+
+    private final long pollIntervalMillis;
+
+    private final long reconnectDelayMillis;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter sentCounter;
+
+    private final Counter receivedCounter;
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    public CacheInvalidationService(
+        CacheManager cacheManager,
+        NotificationRepository notificationRepository,
+        DataSourceProperties dataSourceProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.cacheManager = cacheManager;
+        this.notificationRepository = notificationRepository;
+        this.dataSourceProperties = dataSourceProperties;
+        ApplicationProperties.CacheInvalidation properties = applicationProperties.getCacheInvalidation();
+        this.enabled = properties.isEnabled();
+        this.channel = properties.getChannel();
+        this.pollIntervalMillis = properties.getPollInterval().toMillis();
+        this.reconnectDelayMillis = properties.getReconnectDelay().toMillis();
+        this.sentCounter = evictionCounter(meterRegistry, "sent");
+        this.receivedCounter = evictionCounter(meterRegistry, "received");
+    }
+
+    private static Counter evictionCounter(MeterRegistry registry, String direction) {
+        return Counter
+            .builder("cache.invalidations")
+            .description("Number of cache evictions sent to, or received from, the other instances.")
+            .baseUnit("evictions")
+            .tag("direction", direction)
+            .register(registry);
+    }
+
+    /**
+     * Evict an entry of a cache on all the instances.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the entry.
+     */
+    public void evict(String cacheName, String key) {
+        evictLocally(cacheName, key);
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<String, Set<String>> evictions = new LinkedHashMap<>();
+            evictions.computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).add(key);
+            publish(evictions);
+            return;
+        }
+        Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+        if (batch == null) {
+            batch = new Batch();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(batch);
+        }
+        batch.evictions.computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).add(key);
+    }
+
+    private void evictLocally(String cacheName, String key) {
+        Objects.requireNonNull(cacheManager.getCache(cacheName)).evict(key);
+    }
+
+    /**
+     * Send evictions, split into several notifications if they do not fit in one.
+     */
+    private void publish(Map<String, Set<String>> evictions) {
+        List<String[]> entries = new ArrayList<>();
+        evictions.forEach((cacheName, keys) -> keys.forEach(key -> entries.add(new String[] { cacheName, key })));
+        publish(entries);
+    }
+
+    private void publish(List<String[]> entries) {
+        String payload = toPayload(entries);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > NotificationRepository.MAX_PAYLOAD_BYTES && entries.size() > 1) {
+            publish(entries.subList(0, entries.size() / 2));
+            publish(entries.subList(entries.size() / 2, entries.size()));
+            return;
+        }
+        notificationRepository.send(channel, payload);
+        sentCounter.increment(entries.size());
+    }
+
+    private String toPayload(List<String[]> entries) {
+        Map<String, List<String>> evictions = new LinkedHashMap<>();
+        for (String[] entry : entries) {
+            evictions.computeIfAbsent(entry[0], name -> new ArrayList<>()).add(entry[1]);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("node", nodeId);
+        payload.put("evictions", evictions);
+        try {
+            return PAYLOAD_MAPPER.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cache evictions", e);
+        }
+    }
+
+    /**
+     * Apply the evictions of a notification, unless this instance sent it.
+     *
+     * @param payload the payload of the notification.
+     */
+    void handle(String payload) {
+        Payload received;
+        try {
+            received = PAYLOAD_MAPPER.readValue(payload, Payload.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring invalid cache invalidation: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(received.node) || received.evictions == null) {
+            return;
+        }
+        received.evictions.forEach((cacheName, keys) -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                keys.forEach(cache::evict);
+                receivedCounter.increment(keys.size());
+            }
+        });
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = openConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + quote(channel));
+                }
+                if (reconnecting) {
+                    cacheManager.getCacheNames().forEach(name -> Objects.requireNonNull(cacheManager.getCache(name)).clear());
+                    log.info("Listening for cache invalidations again, cleared all the caches");
+                }
+                reconnecting = true;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollIntervalMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Lost the connection listening for cache invalidations, reconnecting: {}", e.getMessage());
+                    if (!sleep(reconnectDelayMillis)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A connection outside of the pool, as it is held for as long as the application runs, in auto-commit mode so
+     * that {@code LISTEN} takes effect at once.
+     */
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(
+            dataSourceProperties.determineUrl(),
+            dataSourceProperties.determineUsername(),
+            dataSourceProperties.determinePassword()
+        );
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    private static String quote(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (enabled) {
+            listener = new Thread(this::listen, "rfid-revamp-elk-cache-invalidation");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            try {
+                listener.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The evictions of a transaction, de-duplicated.
+     */
+    private final class Batch implements TransactionSynchronization {
+
+        private final Map<String, Set<String>> evictions = new LinkedHashMap<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            publish(evictions);
+        }
+
+        /**
+         * Entries read by concurrent transactions before the commit may have been cached again.
+         */
+        @Override
+        public void afterCommit() {
+            evictions.forEach((cacheName, keys) -> keys.forEach(key -> evictLocally(cacheName, key)));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationService.this);
+        }
+    }
+
+    /**
+     * The payload of a notification.
+     */
+    private static final class Payload {
+
+        public String node;
+
+        public Map<String, List<String>> evictions;
+    }
+}
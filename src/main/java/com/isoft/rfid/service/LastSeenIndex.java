@@ -0,0 +1,439 @@
+package com.isoft.rfid.service;
+
+import com.carrotsearch.hppc.BitMixer;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Last read of each tag, in an open-addressing hash table stored off-heap.
+ * <p>
+ * The table is a fixed number of {@value #STRIDE}-byte slots in direct buffers of up to {@value #CHUNK_SLOTS} slots,
+ * probed linearly from a 64-bit hash of the EPC: it holds tens of millions of tags without any object for the garbage
+ * collector to scan. A buffer is only allocated once a tag is written to one of its slots, but as tags are spread evenly
+ * over the table, all of them are soon allocated: the table takes {@value #STRIDE} bytes of direct memory per slot.
+ * Reader ids and zones are interned into small on-heap dictionaries. Entries are never removed, and once the table
+ * holds its maximum number of tags, new tags are not indexed.
+ * <p>
+ * Slot layout: EPC high and low words, read time, antenna, RSSI, reader id, zone id (or {@code -1}), EPC length (or
+ * {@code 0} for an empty slot).
+ * <p>
+ * The table is written to and read from a snapshot file through memory mappings, slots being copied as they are, and
+ * the buffers which were never allocated being left out.
+ * <p>
+ * Not thread-safe: {@link TagLocationService} guards it. As the table never moves, reads racing with a write only see
+ * inconsistent values, never fail on the table itself.
+ */
+final class LastSeenIndex {
+
+    static final int STRIDE = 48;
+
+    static final int CHUNK_SLOTS = 1 << 20;
+
+    static final int SLICE_SLOTS = 1 << 14;
+
+    private static final int MAGIC = 0x4C534958;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 28;
+
+    private static final int HI = 0;
+
+    private static final int LO = 8;
+
+    private static final int READ_TIME = 16;
+
+    private static final int ANTENNA = 24;
+
+    private static final int RSSI = 28;
+
+    private static final int READER = 32;
+
+    private static final int ZONE = 36;
+
+    private static final int LENGTH = 40;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final int maxTags;
+
+    private final int chunkShift;
+
+    private final int chunkSize;
+
+    private final int sliceShift;
+
+    private final int sliceSize;
+
+    /**
+     * The slices of {@value #SLICE_SLOTS} slots written to since the last snapshot.
+     */
+    private final BitSet dirtySlices;
+
+    private final ByteBuffer[] chunks;
+
+    private final ObjectIntHashMap<String> readerIds = new ObjectIntHashMap<>();
+
+    private String[] readers = new String[16];
+
+    private final ObjectIntHashMap<String> zoneIds = new ObjectIntHashMap<>();
+
+    private String[] zones = new String[16];
+
+    private int size;
+
+    /**
+     * @param maxTags the maximum number of tags, the table is sized for a load factor of 3/4.
+     */
+    LastSeenIndex(int maxTags) {
+        this.maxTags = maxTags;
+        this.capacity = Integer.highestOneBit(Math.max((int) Math.min((long) maxTags * 4 / 3, 1 << 30), 2) - 1) << 1;
+        this.mask = capacity - 1;
+        int chunkSlots = Math.min(capacity, CHUNK_SLOTS);
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSlots);
+        this.chunkSize = chunkSlots * STRIDE;
+        this.chunks = new ByteBuffer[capacity / chunkSlots];
+        int sliceSlots = Math.min(chunkSlots, SLICE_SLOTS);
+        this.sliceShift = Integer.numberOfTrailingZeros(sliceSlots);
+        this.sliceSize = sliceSlots * STRIDE;
+        this.dirtySlices = new BitSet(capacity / sliceSlots);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= maxTags;
+    }
+
+    /**
+     * Record a read, unless the tag was already read later.
+     *
+     * @return {@code false} if the read was ignored, or if the tag is new and the table is full.
+     */
+    boolean record(long hi, long lo, int length, String readerId, int antenna, int rssi, String zone, long readTime) {
+        long slot = find(hi, lo, length);
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        if (chunk == null || chunk.get(offset + LENGTH) == 0) {
+            if (isFull()) {
+                return false;
+            }
+            if (chunk == null) {
+                chunk = ByteBuffer.allocateDirect(chunkSize);
+                chunks[(int) (slot >>> chunkShift)] = chunk;
+            }
+            chunk.putLong(offset + HI, hi);
+            chunk.putLong(offset + LO, lo);
+            size++;
+        } else if (readTime < chunk.getLong(offset + READ_TIME)) {
+            return false;
+        }
+        chunk.putLong(offset + READ_TIME, readTime);
+        chunk.putInt(offset + ANTENNA, antenna);
+        chunk.putInt(offset + RSSI, rssi);
+        chunk.putInt(offset + READER, readerId(readerId));
+        chunk.putInt(offset + ZONE, zone == null ? -1 : zoneId(zone));
+        chunk.put(offset + LENGTH, (byte) length);
+        dirtySlices.set((int) (slot >>> sliceShift));
+        return true;
+    }
+
+    /**
+     * @return the last read of the tag, or {@code null} if it was never read.
+     */
+    TagLocationDTO get(Epc epc) {
+        long slot = find(epc.getHi(), epc.getLo(), epc.getLength());
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        if (chunk == null || chunk.get(offset + LENGTH) == 0) {
+            return null;
+        }
+        int zoneId = chunk.getInt(offset + ZONE);
+        return new TagLocationDTO(
+            epc,
+            readers[chunk.getInt(offset + READER)],
+            toInteger(chunk.getInt(offset + ANTENNA)),
+            toInteger(chunk.getInt(offset + RSSI)),
+            zoneId < 0 ? null : zones[zoneId],
+            Instant.ofEpochMilli(chunk.getLong(offset + READ_TIME))
+        );
+    }
+
+    /**
+     * @return the slot of the tag, or the empty slot where it would be inserted.
+     */
+    private long find(long hi, long lo, int length) {
+        long slot = BitMixer.mix64(hi ^ BitMixer.mix64(lo + length)) & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            ByteBuffer chunk = chunk(slot);
+            if (chunk == null) {
+                return slot;
+            }
+            int offset = offset(slot);
+            int slotLength = chunk.get(offset + LENGTH);
+            if (
+                slotLength == 0 ||
+                (slotLength == length && chunk.getLong(offset + LO) == lo && chunk.getLong(offset + HI) == hi)
+            ) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Only reachable by a reader racing with writes
+        return slot;
+    }
+
+    /**
+     * @return the buffer of the slot, or {@code null} if none of its slots was written to yet.
+     */
+    private ByteBuffer chunk(long slot) {
+        return chunks[(int) (slot >>> chunkShift)];
+    }
+
+    private int offset(long slot) {
+        return (int) (slot & ((1 << chunkShift) - 1)) * STRIDE;
+    }
+
+    private int readerId(String readerId) {
+        int index = readerIds.indexOf(readerId);
+        if (readerIds.indexExists(index)) {
+            return readerIds.indexGet(index);
+        }
+        int id = readerIds.size();
+        readers = append(readers, id, readerId);
+        readerIds.indexInsert(index, readerId, id);
+        return id;
+    }
+
+    private int zoneId(String zone) {
+        int index = zoneIds.indexOf(zone);
+        if (zoneIds.indexExists(index)) {
+            return zoneIds.indexGet(index);
+        }
+        int id = zoneIds.size();
+        zones = append(zones, id, zone);
+        zoneIds.indexInsert(index, zone, id);
+        return id;
+    }
+
+    private static String[] append(String[] names, int id, String name) {
+        String[] result = id == names.length ? Arrays.copyOf(names, id * 2) : names;
+        result[id] = name;
+        return result;
+    }
+
+    private static Integer toInteger(int value) {
+        return value == Integer.MIN_VALUE ? null : value;
+    }
+
+    /**
+     * Write the table to a snapshot file: a header, whether each slot chunk is allocated, the slot chunks, then the
+     * dictionaries. The chunks which are not allocated are left as holes of the file.
+     * <p>
+     * The slots are copied {@value #SLICE_SLOTS} at a time, each slice under its own read lock, so that writes wait for
+     * one slice at most, and the file is only forced once the lock is released. The snapshot is not a point in time:
+     * tags first read while it is taken may be left out, the slots they were written to being already copied, and are
+     * still counted in its size. The dictionaries are copied last, so they hold every name of the copied slots.
+     * <p>
+     * An incremental snapshot only copies the slices written to since the last snapshot, into the file of that snapshot.
+     * Its header is cleared first, and written last, so that a snapshot interrupted halfway is not loaded.
+     *
+     * @param channel an empty file, or the file of the last snapshot if incremental, opened for reading and writing.
+     * @param lock the lock guarding the table.
+     * @param incremental whether to only copy the slices written to since the last snapshot.
+     * @return the number of slices copied.
+     */
+    int writeTo(FileChannel channel, StampedLock lock, boolean incremental) throws IOException {
+        if (incremental) {
+            writeFully(channel, ByteBuffer.allocate(Integer.BYTES), 0);
+            channel.force(false);
+        }
+        List<MappedByteBuffer> mappings = new ArrayList<>();
+        ByteBuffer allocated = ByteBuffer.allocate(chunks.length);
+        long position = HEADER_SIZE + chunks.length;
+        int copied = 0;
+        for (int i = 0; i < chunks.length; i++, position += chunkSize) {
+            ByteBuffer chunk = allocatedChunk(i, lock);
+            allocated.put((byte) (chunk == null ? 0 : 1));
+            if (chunk == null) {
+                continue;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, position, chunkSize);
+            int firstSlice = i * (chunkSize / sliceSize);
+            boolean written = false;
+            for (int from = 0, slice = firstSlice; from < chunkSize; from += sliceSize, slice++) {
+                long stamp = lock.readLock();
+                try {
+                    if (incremental && !dirtySlices.get(slice)) {
+                        continue;
+                    }
+                    dirtySlices.clear(slice);
+                    mapped.position(from);
+                    mapped.put(chunk.limit(from + sliceSize).position(from));
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+                written = true;
+                copied++;
+            }
+            if (written) {
+                mappings.add(mapped);
+            }
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ByteBuffer dictionaries;
+        long stamp = lock.readLock();
+        try {
+            header.putInt(MAGIC).putInt(VERSION).putInt(STRIDE).putInt(capacity).putInt(size);
+            header.putInt(readerIds.size()).putInt(zoneIds.size()).flip();
+            dictionaries = encode(readers, readerIds.size(), zones, zoneIds.size());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        writeFully(channel, allocated.flip(), HEADER_SIZE);
+        writeFully(channel, dictionaries, position);
+        for (MappedByteBuffer mapped : mappings) {
+            mapped.force();
+        }
+        channel.force(true);
+        writeFully(channel, header, 0);
+        channel.force(false);
+        return copied;
+    }
+
+    /**
+     * @return a view of the chunk, or {@code null} if it is not allocated.
+     */
+    private ByteBuffer allocatedChunk(int index, StampedLock lock) {
+        long stamp = lock.readLock();
+        try {
+            return chunks[index] == null ? null : chunks[index].duplicate().clear();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Load a snapshot written by {@link #writeTo} into this empty table, which may have another capacity.
+     *
+     * @param channel the snapshot file, opened for reading.
+     * @throws IOException if the file is not a valid snapshot.
+     */
+    void readFrom(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != STRIDE) {
+            throw new IOException("Not a last-seen index snapshot");
+        }
+        int snapshotCapacity = header.getInt();
+        int snapshotSize = header.getInt();
+        int readerCount = header.getInt();
+        int zoneCount = header.getInt();
+        long slotsSize = (long) snapshotCapacity * STRIDE;
+        int snapshotChunkSize = (int) Math.min(slotsSize, (long) CHUNK_SLOTS * STRIDE);
+        ByteBuffer allocated = ByteBuffer.allocate((int) (slotsSize / snapshotChunkSize));
+        readFully(channel, allocated, HEADER_SIZE);
+        long slotsPosition = HEADER_SIZE + allocated.capacity();
+        long dictionariesPosition = slotsPosition + slotsSize;
+        // Empty dictionaries after unallocated chunks are past the end of the file
+        ByteBuffer dictionaries = dictionariesPosition < channel.size()
+            ? channel.map(FileChannel.MapMode.READ_ONLY, dictionariesPosition, channel.size() - dictionariesPosition)
+            : ByteBuffer.allocate(0);
+        for (String readerId : decode(dictionaries, readerCount)) {
+            readerId(readerId);
+        }
+        for (String zone : decode(dictionaries, zoneCount)) {
+            zoneId(zone);
+        }
+        for (int chunk = 0; chunk < allocated.capacity(); chunk++) {
+            if (allocated.get(chunk) == 0) {
+                continue;
+            }
+            long position = slotsPosition + (long) chunk * snapshotChunkSize;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, snapshotChunkSize);
+            if (snapshotCapacity == capacity) {
+                chunks[chunk] = ByteBuffer.allocateDirect(chunkSize);
+                chunks[chunk].put(mapped);
+                size = snapshotSize;
+            } else {
+                for (int offset = 0; offset < snapshotChunkSize && !isFull(); offset += STRIDE) {
+                    int length = mapped.get(offset + LENGTH);
+                    if (length != 0) {
+                        int zoneId = mapped.getInt(offset + ZONE);
+                        record(
+                            mapped.getLong(offset + HI),
+                            mapped.getLong(offset + LO),
+                            length,
+                            readers[mapped.getInt(offset + READER)],
+                            mapped.getInt(offset + ANTENNA),
+                            mapped.getInt(offset + RSSI),
+                            zoneId < 0 ? null : zones[zoneId],
+                            mapped.getLong(offset + READ_TIME)
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer encode(String[] readers, int readerCount, String[] zones, int zoneCount) {
+        byte[][] encoded = new byte[readerCount + zoneCount][];
+        int length = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (i < readerCount ? readers[i] : zones[i - readerCount]).getBytes(StandardCharsets.UTF_8);
+            length += 2 + encoded[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] name : encoded) {
+            buffer.putShort((short) name.length).put(name);
+        }
+        return buffer.flip();
+    }
+
+    private static String[] decode(ByteBuffer buffer, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new IOException("Truncated last-seen index snapshot");
+            }
+            position += count;
+        }
+    }
+}
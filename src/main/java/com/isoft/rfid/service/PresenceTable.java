@@ -0,0 +1,236 @@
+package com.isoft.rfid.service;
+
+import com.carrotsearch.hppc.BitMixer;
+import com.carrotsearch.hppc.IntArrayDeque;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagPresence;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Presence of each tag in a zone, and the number of tags present in each zone, kept in primitive arrays.
+ * <p>
+ * Each present tag has a slot in parallel arrays, found from a 64-bit hash of its EPC in an open-addressing primitive
+ * map; freed slots are reused. Two EPCs sharing the same hash would share a slot, which is negligible at 64 bits. Zone
+ * names are interned to an id, which indexes the occupancy counts. Slots changed since the last {@link #drain} are
+ * tracked, so that snapshots only write what changed.
+ * <p>
+ * Not thread-safe: {@link ZoneOccupancyService} guards it.
+ */
+final class PresenceTable {
+
+    private final LongIntHashMap slots;
+
+    private final IntArrayDeque freeSlots = new IntArrayDeque();
+
+    private final ObjectIntHashMap<String> zoneIds = new ObjectIntHashMap<>();
+
+    private String[] zoneNames = new String[16];
+
+    private int[] occupancy = new int[16];
+
+    private long[] epcHi;
+
+    private long[] epcLo;
+
+    private byte[] epcLength;
+
+    private int[] zone;
+
+    private long[] enteredAt;
+
+    private long[] lastSeen;
+
+    private int slotCount;
+
+    private final BitSet dirty = new BitSet();
+
+    private final List<Epc> removed = new ArrayList<>();
+
+    PresenceTable(int expectedTags) {
+        this.slots = new LongIntHashMap(expectedTags);
+        int capacity = Math.max(expectedTags, 16);
+        this.epcHi = new long[capacity];
+        this.epcLo = new long[capacity];
+        this.epcLength = new byte[capacity];
+        this.zone = new int[capacity];
+        this.enteredAt = new long[capacity];
+        this.lastSeen = new long[capacity];
+    }
+
+    /**
+     * Record a read of a tag in a zone. A read older than the last one of the tag is ignored. A read in another zone
+     * moves the tag, and so does a read in the same zone after the exit timeout: its dwell starts again.
+     *
+     * @return {@code false} if the read was ignored.
+     */
+    boolean record(long hi, long lo, int length, String zoneName, long readTime, long exitTimeoutMillis) {
+        long key = key(hi, lo, length);
+        int index = slots.indexOf(key);
+        int zoneId = zoneId(zoneName);
+        if (!slots.indexExists(index)) {
+            int slot = allocate();
+            slots.indexInsert(index, key, slot);
+            epcHi[slot] = hi;
+            epcLo[slot] = lo;
+            epcLength[slot] = (byte) length;
+            enter(slot, zoneId, readTime);
+            return true;
+        }
+        int slot = slots.indexGet(index);
+        if (readTime < lastSeen[slot]) {
+            return false;
+        }
+        if (zone[slot] != zoneId || readTime - lastSeen[slot] >= exitTimeoutMillis) {
+            occupancy[zone[slot]]--;
+            enter(slot, zoneId, readTime);
+        } else {
+            lastSeen[slot] = readTime;
+            dirty.set(slot);
+        }
+        return true;
+    }
+
+    private void enter(int slot, int zoneId, long readTime) {
+        zone[slot] = zoneId;
+        enteredAt[slot] = readTime;
+        lastSeen[slot] = readTime;
+        occupancy[zoneId]++;
+        dirty.set(slot);
+    }
+
+    /**
+     * Remove the tags last seen before the given time: they left their zone.
+     *
+     * @return the number of removed tags.
+     */
+    int expire(long before) {
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (epcLength[slot] != 0 && lastSeen[slot] < before) {
+                slots.remove(key(epcHi[slot], epcLo[slot], epcLength[slot]));
+                occupancy[zone[slot]]--;
+                removed.add(new Epc(epcHi[slot], epcLo[slot], epcLength[slot]));
+                epcLength[slot] = 0;
+                dirty.clear(slot);
+                freeSlots.addLast(slot);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    TagPresence find(Epc epc) {
+        int index = slots.indexOf(key(epc.getHi(), epc.getLo(), epc.getLength()));
+        return slots.indexExists(index) ? toPresence(slots.indexGet(index)) : null;
+    }
+
+    int getOccupancy(String zoneName) {
+        int index = zoneIds.indexOf(zoneName);
+        return zoneIds.indexExists(index) ? occupancy[zoneIds.indexGet(index)] : 0;
+    }
+
+    /**
+     * @return the number of tags present in each zone which had tags, by zone name.
+     */
+    Map<String, Integer> getOccupancies() {
+        Map<String, Integer> occupancies = new LinkedHashMap<>();
+        for (int id = 0; id < zoneIds.size(); id++) {
+            occupancies.put(zoneNames[id], occupancy[id]);
+        }
+        return occupancies;
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    /**
+     * Hand over the changes since the last call, and forget them.
+     *
+     * @param removedEpcs receives the EPCs of the tags which left their zone.
+     * @param changed receives the presences which changed.
+     */
+    void drain(List<Epc> removedEpcs, List<TagPresence> changed) {
+        removedEpcs.addAll(removed);
+        removed.clear();
+        for (int slot = dirty.nextSetBit(0); slot >= 0; slot = dirty.nextSetBit(slot + 1)) {
+            changed.add(toPresence(slot));
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Give back changes which could not be saved, so that they are part of the next {@link #drain}.
+     */
+    void undrain(List<Epc> removedEpcs) {
+        removed.addAll(0, removedEpcs);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (epcLength[slot] != 0) {
+                dirty.set(slot);
+            }
+        }
+    }
+
+    /**
+     * Load a presence from a snapshot, without marking it as changed.
+     */
+    void load(TagPresence presence) {
+        Epc epc = presence.getEpc();
+        record(epc.getHi(), epc.getLo(), epc.getLength(), presence.getZone(), presence.getEnteredAt().toEpochMilli(), Long.MAX_VALUE);
+        int slot = slots.get(key(epc.getHi(), epc.getLo(), epc.getLength()));
+        lastSeen[slot] = presence.getLastSeen().toEpochMilli();
+        dirty.clear(slot);
+    }
+
+    private TagPresence toPresence(int slot) {
+        return new TagPresence(
+            new Epc(epcHi[slot], epcLo[slot], epcLength[slot]),
+            zoneNames[zone[slot]],
+            Instant.ofEpochMilli(enteredAt[slot]),
+            Instant.ofEpochMilli(lastSeen[slot])
+        );
+    }
+
+    private int allocate() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.removeFirst();
+        }
+        if (slotCount == epcHi.length) {
+            int capacity = slotCount * 2;
+            epcHi = Arrays.copyOf(epcHi, capacity);
+            epcLo = Arrays.copyOf(epcLo, capacity);
+            epcLength = Arrays.copyOf(epcLength, capacity);
+            zone = Arrays.copyOf(zone, capacity);
+            enteredAt = Arrays.copyOf(enteredAt, capacity);
+            lastSeen = Arrays.copyOf(lastSeen, capacity);
+        }
+        return slotCount++;
+    }
+
+    private int zoneId(String zoneName) {
+        int index = zoneIds.indexOf(zoneName);
+        if (zoneIds.indexExists(index)) {
+            return zoneIds.indexGet(index);
+        }
+        int id = zoneIds.size();
+        if (id == zoneNames.length) {
+            zoneNames = Arrays.copyOf(zoneNames, id * 2);
+            occupancy = Arrays.copyOf(occupancy, id * 2);
+        }
+        zoneNames[id] = zoneName;
+        zoneIds.indexInsert(index, zoneName, id);
+        return id;
+    }
+
+    private static long key(long hi, long lo, int length) {
+        return BitMixer.mix64(hi ^ BitMixer.mix64(lo + length));
+    }
+}
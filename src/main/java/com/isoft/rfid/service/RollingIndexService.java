@@ -0,0 +1,274 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.PutTemplateRequest;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Manages the time-based indices of high-volume documents, such as {@link TagRead}.
+ * <p>
+ * A document mapped to index {@code name} is stored in one index per period, named {@code name-yyyy.MM.dd} (or
+ * {@code name-yyyy.MM.dd.HH} for hourly periods) in UTC. The {@code name} alias points at the index of the current
+ * period only and is where documents are written; the {@code name-read} alias spans all the retained indices. Indices
+ * are created from the {@code name} template, which sets their shards, refresh interval, mapping and read alias.
+ * <p>
+ * The write alias is moved when a period starts, and indices older than the retention are deleted. Documents are routed
+ * by indexing time: a document is in the index of its period or of a later one.
+ */
+@Service
+public class RollingIndexService implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(RollingIndexService.class);
+
+    /**
+     * Document types stored in rolling indices. Their {@code @Document} must not create the index.
+     */
+    private static final List<Class<?>> ROLLING_TYPES = List.of(TagRead.class);
+
+    private static final String READ_ALIAS_SUFFIX = "-read";
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private final ApplicationProperties.RollingIndices properties;
+
+    private final Clock clock;
+
+    private final DateTimeFormatter formatter;
+
+    /**
+     * Write alias, the current write index of each type. Only accessed by {@link #maintain()}.
+     */
+    private final Map<String, String> writeIndices = new LinkedHashMap<>();
+
+    /**
+     * Write alias, the existing indices of each type, as of the last maintenance.
+     */
+    private final Map<String, Set<String>> existingIndices = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    @Autowired
+    public RollingIndexService(ElasticsearchRestTemplate elasticsearchTemplate, ApplicationProperties applicationProperties) {
+        this(elasticsearchTemplate, applicationProperties, Clock.systemUTC());
+    }
+
+    RollingIndexService(ElasticsearchRestTemplate elasticsearchTemplate, ApplicationProperties applicationProperties, Clock clock) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.properties = applicationProperties.getRollingIndices();
+        this.clock = clock;
+        if (properties.getPeriod() == ChronoUnit.DAYS) {
+            this.formatter = DateTimeFormatter.ofPattern("yyyy.MM.dd").withZone(ZoneOffset.UTC);
+        } else if (properties.getPeriod() == ChronoUnit.HOURS) {
+            this.formatter = DateTimeFormatter.ofPattern("yyyy.MM.dd.HH").withZone(ZoneOffset.UTC);
+        } else {
+            throw new IllegalArgumentException("Rolling indices must be daily or hourly, not " + properties.getPeriod());
+        }
+    }
+
+    /**
+     * Create the templates and the indices of the current period, before anything is indexed.
+     */
+    @Override
+    public void start() {
+        for (Class<?> type : ROLLING_TYPES) {
+            putTemplate(type);
+        }
+        maintain();
+        running = true;
+    }
+
+    /**
+     * Move the write aliases when a period starts, create the indices of the next period ahead of time, and delete
+     * the expired ones.
+     * <p>
+     * This is scheduled every minute, and does nothing more than listing the indices within a period.
+     */
+    @Scheduled(cron = "0 * * * * ?")
+    public synchronized void maintain() {
+        Instant now = clock.instant();
+        for (Class<?> type : ROLLING_TYPES) {
+            String writeAlias = writeAlias(type);
+            try {
+                Set<String> indices = listIndices(writeAlias);
+                String current = indexName(writeAlias, now);
+                if (!current.equals(writeIndices.get(writeAlias))) {
+                    createIndex(current, indices);
+                    createIndex(indexName(writeAlias, now.plus(1, properties.getPeriod())), indices);
+                    moveWriteAlias(writeAlias, current);
+                    deleteExpiredIndices(writeAlias, indices, now);
+                    writeIndices.put(writeAlias, current);
+                }
+                existingIndices.put(writeAlias, Set.copyOf(indices));
+            } catch (RuntimeException e) {
+                log.error("Could not maintain the rolling indices of {}", writeAlias, e);
+            }
+        }
+    }
+
+    private void putTemplate(Class<?> type) {
+        String writeAlias = writeAlias(type);
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("index.number_of_shards", properties.getNumberOfShards());
+        settings.put("index.number_of_replicas", properties.getNumberOfReplicas());
+        settings.put("index.refresh_interval", properties.getRefreshInterval().toMillis() + "ms");
+        PutTemplateRequest request = PutTemplateRequest
+            .builder(writeAlias, writeAlias + "-*")
+            .withSettings(settings)
+            .withMappings(elasticsearchTemplate.indexOps(type).createMapping(type))
+            .withAliasActions(
+                new AliasActions(new AliasAction.Add(AliasActionParameters.builderForTemplate().withAliases(readAlias(writeAlias)).build()))
+            )
+            .build();
+        elasticsearchTemplate.indexOps(IndexCoordinates.of(writeAlias)).putTemplate(request);
+        log.debug("Put the index template of {}", writeAlias);
+    }
+
+    private Set<String> listIndices(String writeAlias) {
+        // Every index created from the template is in the read alias
+        IndexOperations indexOperations = elasticsearchTemplate.indexOps(IndexCoordinates.of(writeAlias + "-*"));
+        return new TreeSet<>(indexOperations.getAliases(readAlias(writeAlias)).keySet());
+    }
+
+    private void createIndex(String index, Set<String> indices) {
+        if (indices.contains(index)) {
+            return;
+        }
+        IndexOperations indexOperations = elasticsearchTemplate.indexOps(IndexCoordinates.of(index));
+        if (!indexOperations.exists()) {
+            indexOperations.create();
+            log.info("Created index {}", index);
+        }
+        indices.add(index);
+    }
+
+    private void moveWriteAlias(String writeAlias, String index) {
+        IndexOperations indexOperations = elasticsearchTemplate.indexOps(IndexCoordinates.of(writeAlias + "-*"));
+        AliasActions actions = new AliasActions(
+            new AliasAction.Add(AliasActionParameters.builder().withIndices(index).withAliases(writeAlias).withIsWriteIndex(true).build())
+        );
+        for (String previous : indexOperations.getAliases(writeAlias).keySet()) {
+            if (!previous.equals(index)) {
+                actions.add(new AliasAction.Remove(AliasActionParameters.builder().withIndices(previous).withAliases(writeAlias).build()));
+            }
+        }
+        // All the actions are applied atomically
+        indexOperations.alias(actions);
+        log.info("Moved write alias {} to {}", writeAlias, index);
+    }
+
+    private void deleteExpiredIndices(String writeAlias, Set<String> indices, Instant now) {
+        Instant expiry = now.minus(properties.getRetention());
+        for (String index : new ArrayList<>(indices)) {
+            Optional<Instant> start = periodStart(writeAlias, index);
+            if (start.isPresent() && start.get().plus(1, properties.getPeriod()).isBefore(expiry)) {
+                elasticsearchTemplate.indexOps(IndexCoordinates.of(index)).delete();
+                indices.remove(index);
+                log.info("Deleted expired index {}", index);
+            }
+        }
+    }
+
+    /**
+     * Get the indices to search for documents of a type within a time range.
+     * <p>
+     * As documents are routed by indexing time, the index of the period following {@code to} is included, for the
+     * documents indexed late. The indices are picked among the existing ones, so the work does not depend on the length
+     * of the range.
+     *
+     * @param type the document type.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, inclusive.
+     * @return the existing indices covering the range, or empty if there are none.
+     * @throws IllegalArgumentException if the range is longer than the retention, or ends too far in the future.
+     */
+    public Optional<IndexCoordinates> searchCoordinates(Class<?> type, Instant from, Instant to) {
+        Instant last;
+        try {
+            last = to.plus(1, properties.getPeriod());
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IllegalArgumentException("The range of a search cannot end at " + to);
+        }
+        if (Duration.between(from, to).compareTo(properties.getRetention()) > 0) {
+            throw new IllegalArgumentException("The range of a search cannot be longer than the retention of " + properties.getRetention());
+        }
+        Instant first = from.truncatedTo(properties.getPeriod());
+        String writeAlias = writeAlias(type);
+        String[] names = existingIndices
+            .getOrDefault(writeAlias, Set.of())
+            .stream()
+            .filter(index -> periodStart(writeAlias, index).filter(start -> !start.isBefore(first) && !start.isAfter(last)).isPresent())
+            .sorted()
+            .toArray(String[]::new);
+        return names.length == 0 ? Optional.empty() : Optional.of(IndexCoordinates.of(names));
+    }
+
+    String indexName(String writeAlias, Instant instant) {
+        return writeAlias + '-' + formatter.format(instant);
+    }
+
+    Optional<Instant> periodStart(String writeAlias, String index) {
+        String suffix = index.substring(writeAlias.length() + 1);
+        try {
+            String pattern = properties.getPeriod() == ChronoUnit.DAYS ? suffix + ".00" : suffix;
+            return Optional.of(
+                DateTimeFormatter.ofPattern("yyyy.MM.dd.HH").withZone(ZoneOffset.UTC).parse(pattern, Instant::from)
+            );
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private String writeAlias(Class<?> type) {
+        return elasticsearchTemplate.getIndexCoordinatesFor(type).getIndexName();
+    }
+
+    private static String readAlias(String writeAlias) {
+        return writeAlias + READ_ALIAS_SUFFIX;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before the components which index documents.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
@@ -0,0 +1,453 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.User;
+import com.isoft.rfid.repository.EntityKeysetRepository;
+import com.isoft.rfid.service.dto.ReindexStatusDTO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebuilds the search index of an entity from PostgreSQL, without replaying its writes.
+ * <p>
+ * The index {@code name} of an entity becomes an alias: each rebuild loads a new index, named
+ * {@code name-yyyyMMddHHmmss} in UTC, and then moves the alias to it atomically, so that searches and writes switch
+ * from the previous index to the complete new one at once. The new index has no replicas and no refresh while it is
+ * loaded, and gets them once loaded.
+ * <p>
+ * The id space is split into ranges, read with keyset queries and indexed with bulk requests by a fork-join pool of
+ * {@code parallelism} threads. The entities modified while the index was loaded are indexed again once the alias is
+ * moved; entities deleted meanwhile may remain in the new index.
+ */
+@Service
+public class SearchReindexService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    /**
+     * Document types rebuilt from their entity. Types in rolling indices, such as {@link com.isoft.rfid.domain.TagRead},
+     * are routed by indexing time and cannot be rebuilt into a single index.
+     */
+    private static final List<Class<?>> REINDEXED_TYPES = List.of(User.class);
+
+    private static final DateTimeFormatter INDEX_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    /**
+     * Entities modified this long before the rebuild started are indexed again too, for the transactions which were
+     * not committed yet when their range was read.
+     */
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(1);
+
+    /**
+     * Each thread of the pool gets this many ranges on average, so that a sparse range does not leave threads idle.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private final EntityKeysetRepository entityKeysetRepository;
+
+    private final ApplicationProperties.Reindex properties;
+
+    private final Clock clock;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SearchReindexService(
+        ElasticsearchRestTemplate elasticsearchTemplate,
+        EntityKeysetRepository entityKeysetRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this(elasticsearchTemplate, entityKeysetRepository, applicationProperties, Clock.systemUTC());
+    }
+
+    SearchReindexService(
+        ElasticsearchRestTemplate elasticsearchTemplate,
+        EntityKeysetRepository entityKeysetRepository,
+        ApplicationProperties applicationProperties,
+        Clock clock
+    ) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.entityKeysetRepository = entityKeysetRepository;
+        this.properties = applicationProperties.getReindex();
+        this.clock = clock;
+    }
+
+    /**
+     * Start rebuilding a search index in the background.
+     *
+     * @param indexName the name of the index, the alias once rebuilt.
+     * @return the status of the rebuild.
+     * @throws IllegalArgumentException if no entity is indexed in that index.
+     * @throws IllegalStateException if the index is already being rebuilt.
+     */
+    public ReindexStatusDTO reindex(String indexName) {
+        Class<?> type = findType(indexName).orElseThrow(() -> new IllegalArgumentException("No entity is indexed in " + indexName));
+        Instant now = clock.instant();
+        Job job = new Job(indexName, indexName + '-' + INDEX_SUFFIX.format(now), now);
+        Job current = jobs.compute(indexName, (name, previous) ->
+            previous != null && previous.state == ReindexStatusDTO.State.RUNNING ? previous : job
+        );
+        if (current != job) {
+            throw new IllegalStateException("The index " + indexName + " is already being rebuilt");
+        }
+        Thread thread = new Thread(() -> run(type, job), "rfid-revamp-elk-reindex-" + indexName);
+        thread.setDaemon(true);
+        thread.start();
+        return job.toDTO();
+    }
+
+    /**
+     * @param indexName the name of the index.
+     * @return the status of the last rebuild of the index, or empty if it was never rebuilt since startup.
+     */
+    public Optional<ReindexStatusDTO> getStatus(String indexName) {
+        return Optional.ofNullable(jobs.get(indexName)).map(Job::toDTO);
+    }
+
+    /**
+     * @return the names of the indices which can be rebuilt.
+     */
+    public List<String> getIndexNames() {
+        List<String> names = new ArrayList<>(REINDEXED_TYPES.size());
+        for (Class<?> type : REINDEXED_TYPES) {
+            names.add(indexName(type));
+        }
+        return names;
+    }
+
+    private void run(Class<?> type, Job job) {
+        log.info("Rebuilding index {} into {}", job.indexName, job.targetIndex);
+        try {
+            rebuild(type, job);
+            job.finish(ReindexStatusDTO.State.COMPLETED, clock.instant(), null);
+            log.info("Rebuilt index {} with {} documents", job.indexName, job.documents.get());
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild index {}", job.indexName, e);
+            job.finish(ReindexStatusDTO.State.FAILED, clock.instant(), e.getMessage());
+            deleteQuietly(job);
+        }
+    }
+
+    private void rebuild(Class<?> type, Job job) {
+        createIndex(type, job.targetIndex);
+        OptionalLong minId = entityKeysetRepository.findMinId(type);
+        OptionalLong maxId = entityKeysetRepository.findMaxId(type);
+        if (minId.isPresent() && maxId.isPresent()) {
+            long after = minId.getAsLong() - 1;
+            long to = maxId.getAsLong();
+            long rangeWidth = Math.max(properties.getBatchSize(), (to - after) / ((long) properties.getParallelism() * RANGES_PER_THREAD));
+            ForkJoinPool pool = new ForkJoinPool(properties.getParallelism());
+            try {
+                pool.invoke(new RangeTask(type, job, after, to, rangeWidth));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        restoreSettings(job.targetIndex);
+        elasticsearchTemplate.indexOps(IndexCoordinates.of(job.targetIndex)).refresh();
+        List<String> previous = moveAlias(job.indexName, job.targetIndex);
+        catchUp(type, job);
+        for (String index : previous) {
+            elasticsearchTemplate.indexOps(IndexCoordinates.of(index)).delete();
+            log.info("Deleted previous index {}", index);
+        }
+    }
+
+    private void createIndex(Class<?> type, String index) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("index.number_of_shards", properties.getNumberOfShards());
+        settings.put("index.number_of_replicas", 0);
+        settings.put("index.refresh_interval", "-1");
+        Document mapping = elasticsearchTemplate.indexOps(type).createMapping(type);
+        elasticsearchTemplate.indexOps(IndexCoordinates.of(index)).create(settings, mapping);
+    }
+
+    private void restoreSettings(String index) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("index.number_of_replicas", properties.getNumberOfReplicas());
+        settings.put("index.refresh_interval", properties.getRefreshInterval().toMillis() + "ms");
+        elasticsearchTemplate.execute(client ->
+            client.indices().putSettings(new UpdateSettingsRequest(index).settings(settings), RequestOptions.DEFAULT)
+        );
+    }
+
+    /**
+     * Point the alias at the new index only, replacing the index of the same name created before the first rebuild.
+     *
+     * @return the indices the alias pointed at, to be deleted.
+     */
+    private List<String> moveAlias(String alias, String index) {
+        IndexOperations indexOperations = elasticsearchTemplate.indexOps(IndexCoordinates.of(alias + "-*"));
+        AliasActions actions = new AliasActions(
+            new AliasAction.Add(AliasActionParameters.builder().withIndices(index).withAliases(alias).build())
+        );
+        List<String> previous = new ArrayList<>();
+        Set<String> aliased = indexOperations.getAliases(alias).keySet();
+        if (aliased.isEmpty()) {
+            if (elasticsearchTemplate.indexOps(IndexCoordinates.of(alias)).exists()) {
+                actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(alias).build()));
+            }
+        } else {
+            for (String name : aliased) {
+                actions.add(new AliasAction.Remove(AliasActionParameters.builder().withIndices(name).withAliases(alias).build()));
+                previous.add(name);
+            }
+        }
+        // All the actions are applied atomically
+        indexOperations.alias(actions);
+        log.info("Moved alias {} to {}", alias, index);
+        return previous;
+    }
+
+    /**
+     * Index again, through the alias, the entities modified while the new index was loaded.
+     */
+    private void catchUp(Class<?> type, Job job) {
+        Instant since = job.startedAt.minus(CATCH_UP_MARGIN);
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<Source> batch = entityKeysetRepository.findModifiedBatch(
+                type,
+                since,
+                after,
+                properties.getBatchSize(),
+                entity -> toSource(entity, job.indexName)
+            );
+            if (batch.isEmpty()) {
+                return;
+            }
+            send(batch, job);
+            after = batch.get(batch.size() - 1).id;
+        }
+    }
+
+    private void indexRange(Class<?> type, Job job, long after, long to) {
+        long cursor = after;
+        while (true) {
+            List<Source> batch = entityKeysetRepository.findBatch(
+                type,
+                cursor,
+                to,
+                properties.getBatchSize(),
+                entity -> toSource(entity, job.targetIndex)
+            );
+            if (batch.isEmpty()) {
+                return;
+            }
+            send(batch, job);
+            if (batch.size() < properties.getBatchSize()) {
+                return;
+            }
+            cursor = batch.get(batch.size() - 1).id;
+        }
+    }
+
+    private Source toSource(Object document, String index) {
+        ElasticsearchConverter converter = elasticsearchTemplate.getElasticsearchConverter();
+        ElasticsearchPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(document.getClass());
+        Object id = entity.getIdentifierAccessor(document).getRequiredIdentifier();
+        IndexRequest request = new IndexRequest(index)
+            .id(converter.convertId(id))
+            .source(converter.mapObject(document).toJson(), XContentType.JSON);
+        return new Source(((Number) id).longValue(), request);
+    }
+
+    /**
+     * Send a batch, sending the documents rejected by an overloaded cluster again with an exponential backoff.
+     */
+    private void send(List<Source> batch, Job job) {
+        List<IndexRequest> requests = new ArrayList<>(batch.size());
+        for (Source source : batch) {
+            requests.add(source.request);
+        }
+        for (int attempt = 0;; attempt++) {
+            BulkRequest bulkRequest = new BulkRequest();
+            requests.forEach(bulkRequest::add);
+            BulkResponse response;
+            try {
+                response = bulk(bulkRequest);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            List<IndexRequest> rejected = new ArrayList<>();
+            for (BulkItemResponse item : response.getItems()) {
+                if (!item.isFailed()) {
+                    continue;
+                }
+                if (item.status() != RestStatus.TOO_MANY_REQUESTS && item.status() != RestStatus.SERVICE_UNAVAILABLE) {
+                    throw new IllegalStateException("Could not index document " + item.getId() + ": " + item.getFailureMessage());
+                }
+                rejected.add(requests.get(item.getItemId()));
+            }
+            job.documents.addAndGet(requests.size() - rejected.size());
+            if (rejected.isEmpty()) {
+                return;
+            }
+            if (attempt >= properties.getMaxRetries()) {
+                throw new IllegalStateException(rejected.size() + " documents were still rejected after " + (attempt + 1) + " attempts");
+            }
+            backoff(attempt);
+            requests = rejected;
+        }
+    }
+
+    BulkResponse bulk(BulkRequest request) throws IOException {
+        return elasticsearchTemplate.execute(client -> client.bulk(request, RequestOptions.DEFAULT));
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(INITIAL_BACKOFF_MILLIS << Math.min(attempt, 10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding the index", e);
+        }
+    }
+
+    private void deleteQuietly(Job job) {
+        try {
+            IndexOperations indexOperations = elasticsearchTemplate.indexOps(IndexCoordinates.of(job.targetIndex));
+            if (indexOperations.exists() && indexOperations.getAliases(job.indexName).isEmpty()) {
+                indexOperations.delete();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not delete index {} of the failed rebuild: {}", job.targetIndex, e.getMessage());
+        }
+    }
+
+    private Optional<Class<?>> findType(String indexName) {
+        return REINDEXED_TYPES.stream().filter(type -> indexName(type).equals(indexName)).findFirst();
+    }
+
+    private String indexName(Class<?> type) {
+        return elasticsearchTemplate.getIndexCoordinatesFor(type).getIndexName();
+    }
+
+    /**
+     * Indexes the ids in {@code (after, to]}, split in halves until they are at most {@code rangeWidth} wide.
+     */
+    private final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Class<?> type;
+
+        private final Job job;
+
+        private final long after;
+
+        private final long to;
+
+        private final long rangeWidth;
+
+        private RangeTask(Class<?> type, Job job, long after, long to, long rangeWidth) {
+            this.type = type;
+            this.job = job;
+            this.after = after;
+            this.to = to;
+            this.rangeWidth = rangeWidth;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - after > rangeWidth) {
+                long middle = after + (to - after) / 2;
+                invokeAll(new RangeTask(type, job, after, middle, rangeWidth), new RangeTask(type, job, middle, to, rangeWidth));
+            } else {
+                indexRange(type, job, after, to);
+            }
+        }
+    }
+
+    /**
+     * An entity read from the database, and the request indexing it.
+     */
+    private static final class Source {
+
+        private final long id;
+
+        private final IndexRequest request;
+
+        private Source(long id, IndexRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+    }
+
+    /**
+     * A rebuild of an index, updated by the threads loading it.
+     */
+    private static final class Job {
+
+        private final String indexName;
+
+        private final String targetIndex;
+
+        private final Instant startedAt;
+
+        private final AtomicLong documents = new AtomicLong();
+
+        private volatile ReindexStatusDTO.State state = ReindexStatusDTO.State.RUNNING;
+
+        private volatile Instant finishedAt;
+
+        private volatile String error;
+
+        private Job(String indexName, String targetIndex, Instant startedAt) {
+            this.indexName = indexName;
+            this.targetIndex = targetIndex;
+            this.startedAt = startedAt;
+        }
+
+        private void finish(ReindexStatusDTO.State state, Instant finishedAt, String error) {
+            this.finishedAt = finishedAt;
+            this.error = error;
+            this.state = state;
+        }
+
+        private ReindexStatusDTO toDTO() {
+            return new ReindexStatusDTO(indexName, targetIndex, state, documents.get(), startedAt, finishedAt, error);
+        }
+    }
+}
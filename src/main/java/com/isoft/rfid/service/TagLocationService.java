@@ -0,0 +1,231 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers "where is tag X" from the last read of each tag, kept in an off-heap {@link LastSeenIndex}.
+ * <p>
+ * The index is updated by the ingestion pipeline under a write lock, and looked up with optimistic reads, which only
+ * take the lock when they raced with a write. It is written to its snapshot file every snapshot interval and on
+ * shutdown, and loaded back on startup, so that a restart does not have to scan the reads table.
+ */
+@Service
+public class TagLocationService implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(TagLocationService.class);
+
+    private final Path snapshotFile;
+
+    private final long snapshotIntervalMillis;
+
+    private final Clock clock;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final LastSeenIndex index;
+
+    /**
+     * Whether the index was full when a new tag was read, so that it is only logged once.
+     */
+    private boolean full;
+
+    private long lastSnapshotAt;
+
+    /**
+     * Whether the snapshot file holds the index as of its last snapshot, so that only the slots written to since then
+     * need to be copied to it.
+     */
+    private boolean snapshotted;
+
+    private volatile boolean running;
+
+    @Autowired
+    public TagLocationService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(applicationProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    TagLocationService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, Clock clock) {
+        ApplicationProperties.LastSeen lastSeen = applicationProperties.getLastSeen();
+        this.snapshotFile = lastSeen.getSnapshotFile() == null ? null : Paths.get(lastSeen.getSnapshotFile());
+        this.snapshotIntervalMillis = lastSeen.getSnapshotInterval().toMillis();
+        this.clock = clock;
+        this.index = new LastSeenIndex(lastSeen.getMaxTags());
+        Gauge
+            .builder("ingestion.locations.tags", this, TagLocationService::getIndexedTags)
+            .description("Number of tags in the last-seen index.")
+            .baseUnit("tags")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record a read as the last location of its tag, unless the tag was already read later.
+     *
+     * @param epcHi the high bits of the EPC.
+     * @param epcLo the low bits of the EPC.
+     * @param epcLength the length of the EPC, in bytes.
+     * @param readerId the reader.
+     * @param antenna the antenna, or {@link Integer#MIN_VALUE} if unknown.
+     * @param rssi the RSSI, or {@link Integer#MIN_VALUE} if unknown.
+     * @param zone the zone of the reader, or {@code null}.
+     * @param readTime the read time, in epoch milliseconds.
+     */
+    public void record(long epcHi, long epcLo, int epcLength, String readerId, int antenna, int rssi, String zone, long readTime) {
+        long stamp = lock.writeLock();
+        try {
+            if (!index.record(epcHi, epcLo, epcLength, readerId, antenna, rssi, zone, readTime) && index.isFull() && !full) {
+                full = true;
+                log.warn("The last-seen index is full with {} tags, new tags are not indexed", index.size());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the last location of a tag.
+     *
+     * @param epc the EPC of the tag.
+     * @return the last read of the tag, or empty if it was never read.
+     */
+    public Optional<TagLocationDTO> findLocation(Epc epc) {
+        long stamp = lock.tryOptimisticRead();
+        TagLocationDTO location = null;
+        try {
+            location = index.get(epc);
+        } catch (RuntimeException e) {
+            if (lock.validate(stamp)) {
+                throw e;
+            }
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                location = index.get(epc);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Optional.ofNullable(location);
+    }
+
+    private int getIndexedTags() {
+        long stamp = lock.readLock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Write the index to its snapshot file every snapshot interval.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void tick() {
+        long now = clock.millis();
+        if (running && now - lastSnapshotAt >= snapshotIntervalMillis) {
+            snapshot();
+            lastSnapshotAt = now;
+        }
+    }
+
+    /**
+     * Copy the slots written to since the last snapshot to the snapshot file. The first snapshot, and the one after a
+     * failed snapshot, write the whole index to a temporary file instead, then move it over the snapshot file. Writes to
+     * the index only wait while a slice of its slots is copied, never while the file is forced to disk.
+     */
+    synchronized void snapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        if (snapshotted) {
+            try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                int slices = index.writeTo(channel, lock, true);
+                log.debug("Saved {} slices of the last-seen index to {}", slices, snapshotFile);
+            } catch (IOException | RuntimeException e) {
+                snapshotted = false;
+                log.warn("Could not save the last-seen index to {}", snapshotFile, e);
+            }
+            return;
+        }
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            Path directory = snapshotFile.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            try (
+                FileChannel channel = FileChannel.open(
+                    temporaryFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+                )
+            ) {
+                index.writeTo(channel, lock, false);
+            }
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotted = true;
+            log.debug("Saved the last-seen index to {}", snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not save the last-seen index to {}", snapshotFile, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (snapshotFile != null && Files.exists(snapshotFile)) {
+            long stamp = lock.writeLock();
+            try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+                index.readFrom(channel);
+                log.info("Loaded the last-seen index of {} tags from {}", index.size(), snapshotFile);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not load the last-seen index from {}", snapshotFile, e);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        lastSnapshotAt = clock.millis();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        snapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start before the ingestion pipeline, and stop after it: the reads it drains are part of the last snapshot.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
@@ -0,0 +1,389 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams the movements of tags, their accepted reads, to Server-Sent Events subscribers such as dashboards.
+ * <p>
+ * The ingestion pipeline only puts each read in the pending updates of the subscribers, keyed by tag, and never waits
+ * for a client. The updates are sent by a small dedicated executor, with at most one task per subscriber: while a slow
+ * client is being written to, the newer reads of a tag replace its pending update, and once a subscriber has the
+ * maximum number of tags pending, the oldest one is dropped. A client which falls behind gets the latest location of
+ * each tag, never an unbounded backlog.
+ * <p>
+ * Idle subscribers are sent a comment every heartbeat interval, which keeps proxies from closing the connection and
+ * detects the clients which went away. A subscriber which has been blocked in a write for longer than the heartbeat
+ * interval is unsubscribed and its sending thread interrupted, so that stalled clients cannot hold all the threads of
+ * the executor.
+ */
+@Service
+public class TagMovementFeedService implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(TagMovementFeedService.class);
+
+    static final String EVENT_NAME = "movement";
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final Executor executor;
+
+    private final int maxPendingTags;
+
+    private final long timeoutMillis;
+
+    private final long heartbeatIntervalMillis;
+
+    private final Clock clock;
+
+    private final Counter coalesced;
+
+    private final Counter dropped;
+
+    private long lastHeartbeatAt;
+
+    private volatile boolean running;
+
+    @Autowired
+    public TagMovementFeedService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(applicationProperties, meterRegistry, createExecutor(applicationProperties.getLiveFeed().getThreads()), Clock.systemUTC());
+    }
+
+    TagMovementFeedService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, Executor executor, Clock clock) {
+        ApplicationProperties.LiveFeed liveFeed = applicationProperties.getLiveFeed();
+        this.executor = executor;
+        this.maxPendingTags = liveFeed.getMaxPendingTags();
+        this.timeoutMillis = liveFeed.getTimeout().toMillis();
+        this.heartbeatIntervalMillis = liveFeed.getHeartbeatInterval().toMillis();
+        this.clock = clock;
+        Gauge
+            .builder("feed.subscribers", subscribers, List::size)
+            .description("Number of clients subscribed to the live feed of tag movements.")
+            .baseUnit("clients")
+            .register(meterRegistry);
+        this.coalesced =
+            Counter
+                .builder("feed.updates.coalesced")
+                .description("Number of tag movements replaced by a newer one of the same tag before being sent to a client.")
+                .baseUnit("updates")
+                .register(meterRegistry);
+        this.dropped =
+            Counter
+                .builder("feed.updates.dropped")
+                .description("Number of tag movements dropped because a client had too many tags pending.")
+                .baseUnit("updates")
+                .register(meterRegistry);
+    }
+
+    private static ThreadPoolTaskExecutor createExecutor(int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("rfid-revamp-elk-feed-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Subscribe to the movements of the tags, of all zones or of a single one.
+     *
+     * @param zone the zone, or {@code null} for all the zones.
+     * @return the emitter of the events, completed when the subscription times out.
+     */
+    public SseEmitter subscribe(String zone) {
+        return subscribe(zone, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String zone, SseEmitter emitter) {
+        if (!running) {
+            throw new IllegalStateException("The live feed is not running");
+        }
+        Subscriber subscriber = new Subscriber(emitter, zone);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        log.debug("Subscribed to the live feed of zone {}, {} subscribers", zone, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * @return whether there is any subscriber, so that the pipeline only creates updates when needed.
+     */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Publish the movement of a tag to the subscribers, without blocking.
+     *
+     * @param epcHi the high bits of the EPC.
+     * @param epcLo the low bits of the EPC.
+     * @param epcLength the length of the EPC, in bytes.
+     * @param readerId the reader.
+     * @param antenna the antenna, or {@link Integer#MIN_VALUE} if unknown.
+     * @param rssi the RSSI, or {@link Integer#MIN_VALUE} if unknown.
+     * @param zone the zone of the reader, or {@code null}.
+     * @param readTime the read time, in epoch milliseconds.
+     */
+    public void publish(long epcHi, long epcLo, int epcLength, String readerId, int antenna, int rssi, String zone, long readTime) {
+        TagLocationDTO movement = null;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.zone == null || subscriber.zone.equals(zone)) {
+                if (movement == null) {
+                    movement =
+                        new TagLocationDTO(
+                            new Epc(epcHi, epcLo, epcLength),
+                            readerId,
+                            toInteger(antenna),
+                            toInteger(rssi),
+                            zone,
+                            Instant.ofEpochMilli(readTime)
+                        );
+                }
+                subscriber.offer(movement);
+            }
+        }
+    }
+
+    private static Integer toInteger(int value) {
+        return value == Integer.MIN_VALUE ? null : value;
+    }
+
+    /**
+     * Send a heartbeat to the subscribers every heartbeat interval, and unsubscribe the stalled ones.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void tick() {
+        long now = clock.millis();
+        if (running) {
+            subscribers.forEach(subscriber -> subscriber.closeIfStalled(now));
+        }
+        if (running && now - lastHeartbeatAt >= heartbeatIntervalMillis) {
+            subscribers.forEach(Subscriber::heartbeat);
+            lastHeartbeatAt = now;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (executor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) executor).initialize();
+        }
+        lastHeartbeatAt = clock.millis();
+        running = true;
+    }
+
+    /**
+     * Complete all the subscriptions, so that clients reconnect to another instance.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+            subscriber.close();
+        }
+        if (executor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) executor).shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start before the ingestion pipeline, and stop after it.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+
+    /**
+     * A client, with its pending updates, at most one per tag.
+     */
+    private final class Subscriber {
+
+        private static final long NOT_WRITING = Long.MIN_VALUE;
+
+        private final SseEmitter emitter;
+
+        private final String zone;
+
+        /**
+         * Pending updates by tag, in the order they were first published, guarded by {@code this}.
+         */
+        private Map<Epc, TagLocationDTO> pending = new LinkedHashMap<>();
+
+        /**
+         * Whether a task is sending the pending updates, guarded by {@code this}.
+         */
+        private boolean sending;
+
+        /**
+         * Whether a heartbeat is due, guarded by {@code this}.
+         */
+        private boolean heartbeatDue;
+
+        /**
+         * The thread of the task sending the pending updates, guarded by {@code this}.
+         */
+        private Thread sender;
+
+        /**
+         * When the write in progress started, or {@link #NOT_WRITING} if there is none.
+         */
+        private volatile long writeStartedAt = NOT_WRITING;
+
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, String zone) {
+            this.emitter = emitter;
+            this.zone = zone;
+        }
+
+        private void offer(TagLocationDTO movement) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.put(movement.getEpc(), movement) != null) {
+                    coalesced.increment();
+                } else if (pending.size() > maxPendingTags) {
+                    Iterator<TagLocationDTO> oldest = pending.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped.increment();
+                }
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            schedule();
+        }
+
+        private void heartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+                if (closed || sending) {
+                    return;
+                }
+                sending = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        /**
+         * Send the pending updates until there are none left. Updates published meanwhile are sent by the same task.
+         */
+        private void send() {
+            while (true) {
+                Map<Epc, TagLocationDTO> updates;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (closed || (pending.isEmpty() && !heartbeatDue)) {
+                        sending = false;
+                        sender = null;
+                        if (closed) {
+                            // Clear the interruption of a stalled write, so that the thread can be reused
+                            Thread.interrupted();
+                        }
+                        return;
+                    }
+                    updates = pending;
+                    pending = new LinkedHashMap<>();
+                    heartbeat = heartbeatDue;
+                    heartbeatDue = false;
+                    sender = Thread.currentThread();
+                }
+                try {
+                    for (TagLocationDTO update : updates.values()) {
+                        write(SseEmitter.event().name(EVENT_NAME).data(update, MediaType.APPLICATION_JSON));
+                    }
+                    if (updates.isEmpty() && heartbeat) {
+                        write(SseEmitter.event().comment("heartbeat"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Could not send to a subscriber of the live feed, unsubscribing it: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                    close();
+                }
+            }
+        }
+
+        private void write(SseEmitter.SseEventBuilder event) throws IOException {
+            writeStartedAt = clock.millis();
+            try {
+                emitter.send(event);
+            } finally {
+                writeStartedAt = NOT_WRITING;
+            }
+        }
+
+        /**
+         * Unsubscribe if a write has been in progress for longer than the heartbeat interval, interrupting it.
+         *
+         * @param now the current time, in epoch milliseconds.
+         */
+        private void closeIfStalled(long now) {
+            long startedAt = writeStartedAt;
+            if (startedAt == NOT_WRITING || now - startedAt < heartbeatIntervalMillis) {
+                return;
+            }
+            synchronized (this) {
+                if (closed || sender == null) {
+                    return;
+                }
+                closed = true;
+                sender.interrupt();
+            }
+            log.debug("A subscriber of the live feed has been stalled for {} ms, unsubscribing it", now - startedAt);
+            close();
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            if (subscribers.remove(this)) {
+                log.debug("Unsubscribed from the live feed, {} subscribers", subscribers.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagReadPartition;
+import com.isoft.rfid.repository.TagReadPartitionRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Manages the daily partitions of the {@code tag_read} table, named {@code tag_read_yyyyMMdd} in UTC.
+ * <p>
+ * The partitions of the next days are created ahead of time, so that reads rarely fall into the default partition.
+ * Expired partitions are dropped, or detached to be archived: retention is a catalog operation on whole days of reads,
+ * instead of deletes followed by vacuums, and queries on a time range only scan the partitions of that range.
+ */
+@Service
+public class TagReadPartitionService implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(TagReadPartitionService.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private final TagReadPartitionRepository tagReadPartitionRepository;
+
+    private final int precreatedDays;
+
+    private final Duration retention;
+
+    private final boolean detachExpired;
+
+    private final Clock clock;
+
+    private volatile boolean running;
+
+    @Autowired
+    public TagReadPartitionService(TagReadPartitionRepository tagReadPartitionRepository, ApplicationProperties applicationProperties) {
+        this(tagReadPartitionRepository, applicationProperties, Clock.systemUTC());
+    }
+
+    TagReadPartitionService(
+        TagReadPartitionRepository tagReadPartitionRepository,
+        ApplicationProperties applicationProperties,
+        Clock clock
+    ) {
+        this.tagReadPartitionRepository = tagReadPartitionRepository;
+        ApplicationProperties.ReadPartitions readPartitions = applicationProperties.getReadPartitions();
+        this.precreatedDays = readPartitions.getPrecreatedDays();
+        this.retention = readPartitions.getRetention();
+        this.detachExpired = readPartitions.isDetachExpired();
+        this.clock = clock;
+    }
+
+    /**
+     * Create the partitions of the current and next days, and remove the expired ones.
+     * <p>
+     * This is scheduled every hour, so that a failure is retried long before the next day starts.
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public synchronized void maintain() {
+        Instant now = clock.instant();
+        try {
+            List<TagReadPartition> partitions = tagReadPartitionRepository.findAll();
+            Instant today = now.truncatedTo(ChronoUnit.DAYS);
+            for (int day = 0; day <= precreatedDays; day++) {
+                Instant from = today.plus(day, ChronoUnit.DAYS);
+                Instant to = from.plus(1, ChronoUnit.DAYS);
+                if (partitions.stream().noneMatch(partition -> partition.overlaps(from, to))) {
+                    createPartition(from, to);
+                }
+            }
+            Instant expiry = now.minus(retention);
+            for (TagReadPartition partition : partitions) {
+                if (partition.endsBefore(expiry)) {
+                    removePartition(partition);
+                }
+            }
+            int deleted = tagReadPartitionRepository.deleteFromDefault(expiry);
+            if (deleted > 0) {
+                log.info("Deleted {} expired reads from the default partition", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not maintain the partitions of the reads table", e);
+        }
+    }
+
+    private void createPartition(Instant from, Instant to) {
+        String name = "tag_read_" + PARTITION_SUFFIX.format(from);
+        int moved = tagReadPartitionRepository.create(name, from, to);
+        if (moved > 0) {
+            log.warn("Created partition {}, moving {} reads from the default partition", name, moved);
+        } else {
+            log.info("Created partition {}", name);
+        }
+    }
+
+    private void removePartition(TagReadPartition partition) {
+        if (detachExpired) {
+            tagReadPartitionRepository.detach(partition.getName());
+            log.info("Detached expired partition {}", partition.getName());
+        } else {
+            tagReadPartitionRepository.drop(partition.getName());
+            log.info("Dropped expired partition {}", partition.getName());
+        }
+    }
+
+    /**
+     * Create the partitions of the current and next days before anything is written.
+     */
+    @Override
+    public void start() {
+        maintain();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before the ingestion pipeline.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
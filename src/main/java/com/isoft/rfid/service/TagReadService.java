@@ -0,0 +1,109 @@
+package com.isoft.rfid.service;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.TagReadRepository;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import com.isoft.rfid.service.dto.TagReadDTO;
+import com.isoft.rfid.service.mapper.TagReadMapper;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service Implementation for managing {@link TagRead}.
+ */
+@Service
+@Transactional
+public class TagReadService {
+
+    private final Logger log = LoggerFactory.getLogger(TagReadService.class);
+
+    private final TagReadRepository tagReadRepository;
+
+    private final TagReadSearchRepository tagReadSearchRepository;
+
+    private final RollingIndexService rollingIndexService;
+
+    private final TagReadMapper tagReadMapper;
+
+    private final int copyThreshold;
+
+    public TagReadService(
+        TagReadRepository tagReadRepository,
+        TagReadSearchRepository tagReadSearchRepository,
+        RollingIndexService rollingIndexService,
+        TagReadMapper tagReadMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.tagReadRepository = tagReadRepository;
+        this.tagReadSearchRepository = tagReadSearchRepository;
+        this.rollingIndexService = rollingIndexService;
+        this.tagReadMapper = tagReadMapper;
+        this.copyThreshold = applicationProperties.getIngestion().getCopyThreshold();
+    }
+
+    /**
+     * Save a batch of tagReads, using a binary {@code COPY} for large batches and JDBC batch inserts otherwise.
+     *
+     * @param tagReads the reads to save, their ids are set once saved.
+     * @return the number of persisted reads.
+     */
+    public int saveAll(List<TagRead> tagReads) {
+        log.debug("Request to save a batch of {} TagReads", tagReads.size());
+        if (copyThreshold > 0 && tagReads.size() >= copyThreshold) {
+            return tagReadRepository.copyAll(tagReads);
+        }
+        return tagReadRepository.insertAll(tagReads);
+    }
+
+    /**
+     * Get the persisted copy of a read.
+     *
+     * @param tagRead the read, without id.
+     * @return the first persisted read with the same EPC, read time and reader.
+     */
+    @Transactional(readOnly = true)
+    public Optional<TagRead> findPersisted(TagRead tagRead) {
+        log.debug("Request to get the persisted copy of {}", tagRead);
+        return tagReadRepository.findFirstByEpcAndReadTimeAndReaderIdOrderByIdAsc(
+            tagRead.getEpc(),
+            tagRead.getReadTime(),
+            tagRead.getReaderId()
+        );
+    }
+
+    /**
+     * Search for the tagReads corresponding to the query, read within a time range.
+     * <p>
+     * Only the rolling indices of the periods covering the range are searched.
+     *
+     * @param query the query of the search.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, inclusive.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<TagReadDTO> search(String query, Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to search for a page of TagReads for query {} from {} to {}", query, from, to);
+        Optional<IndexCoordinates> indices = rollingIndexService.searchCoordinates(TagRead.class, from, to);
+        if (indices.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        BoolQueryBuilder search = boolQuery()
+            .must(queryStringQuery(query))
+            .filter(rangeQuery("readTime").gte(from.toString()).lte(to.toString()));
+        return tagReadSearchRepository.search(search, indices.get(), pageable).map(tagReadMapper::toDto);
+    }
+}
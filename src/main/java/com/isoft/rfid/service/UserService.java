@@ -4,8 +4,11 @@ import com.isoft.rfid.config.Constants;
 import com.isoft.rfid.domain.Authority;
 import com.isoft.rfid.domain.User;
 import com.isoft.rfid.repository.AuthorityRepository;
+import com.isoft.rfid.repository.CursorPage;
+import com.isoft.rfid.repository.EntityKeysetRepository;
+import com.isoft.rfid.repository.EntityStreamRepository;
 import com.isoft.rfid.repository.UserRepository;
-import com.isoft.rfid.repository.search.UserSearchRepository;
+import com.isoft.rfid.repository.search.SearchOutbox;
 import com.isoft.rfid.security.AuthoritiesConstants;
 import com.isoft.rfid.security.SecurityUtils;
 import com.isoft.rfid.service.dto.AdminUserDTO;
@@ -13,13 +16,17 @@ import com.isoft.rfid.service.dto.UserDTO;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,32 +37,42 @@ import tech.jhipster.security.RandomUtil;
  */
 @Service
 @Transactional
-public class UserService {
+public class UserService implements UserDetailsPasswordService {
 
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
+    private static final Specification<User> ACTIVATED = (root, query, cb) -> cb.isTrue(root.get("activated"));
+
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchOutbox searchOutbox;
 
     private final AuthorityRepository authorityRepository;
 
-    private final CacheManager cacheManager;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final EntityKeysetRepository entityKeysetRepository;
+
+    private final EntityStreamRepository entityStreamRepository;
 
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
-        UserSearchRepository userSearchRepository,
+        SearchOutbox searchOutbox,
         AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        CacheInvalidationService cacheInvalidationService,
+        EntityKeysetRepository entityKeysetRepository,
+        EntityStreamRepository entityStreamRepository
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.userSearchRepository = userSearchRepository;
+        this.searchOutbox = searchOutbox;
         this.authorityRepository = authorityRepository;
-        this.cacheManager = cacheManager;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.entityKeysetRepository = entityKeysetRepository;
+        this.entityStreamRepository = entityStreamRepository;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -66,7 +83,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
-                userSearchRepository.save(user);
+                searchOutbox.index(user);
                 this.clearUserCaches(user);
                 log.debug("Activated user: {}", user);
                 return user;
@@ -136,7 +153,7 @@ public class UserService {
         authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
-        userSearchRepository.save(newUser);
+        searchOutbox.index(newUser);
         this.clearUserCaches(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
@@ -182,7 +199,7 @@ public class UserService {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
-        userSearchRepository.save(user);
+        searchOutbox.index(user);
         this.clearUserCaches(user);
         log.debug("Created Information for User: {}", user);
         return user;
@@ -219,7 +236,7 @@ public class UserService {
                     .filter(Optional::isPresent)
                     .map(Optional::get)
                     .forEach(managedAuthorities::add);
-                userSearchRepository.save(user);
+                searchOutbox.index(user);
                 this.clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
                 return user;
@@ -232,7 +249,7 @@ public class UserService {
             .findOneByLogin(login)
             .ifPresent(user -> {
                 userRepository.delete(user);
-                userSearchRepository.delete(user);
+                searchOutbox.delete(User.class, user.getId());
                 this.clearUserCaches(user);
                 log.debug("Deleted User: {}", user);
             });
@@ -259,7 +276,7 @@ public class UserService {
                 }
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
-                userSearchRepository.save(user);
+                searchOutbox.index(user);
                 this.clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
             });
@@ -282,16 +299,93 @@ public class UserService {
             });
     }
 
+    /**
+     * Replace the password hash of a user who just logged in, when it was hashed with another cost than the configured
+     * one. Called by Spring Security on login.
+     *
+     * @param user the user who logged in.
+     * @param newPassword the password, hashed with the configured cost.
+     * @return the user, with the new password hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository
+            .findOneByLogin(user.getUsername())
+            .ifPresent(existingUser -> {
+                existingUser.setPassword(newPassword);
+                this.clearUserCaches(existingUser);
+                log.debug("Upgraded password hash for User: {}", existingUser);
+            });
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
+
     @Transactional(readOnly = true)
     public Page<AdminUserDTO> getAllManagedUsers(Pageable pageable) {
         return userRepository.findAll(pageable).map(AdminUserDTO::new);
     }
 
+    /**
+     * Get a page of users with a keyset query, which costs the same however deep the page is.
+     *
+     * @param order the sort, or {@code null} to sort by id.
+     * @param cursor the cursor of the page, or {@code null} for the first page.
+     * @param size the maximum number of users.
+     * @return the page, with the cursor of the next one.
+     * @throws IllegalArgumentException if the cursor is invalid, or was returned for another sort.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AdminUserDTO> getAllManagedUsers(Sort.Order order, String cursor, int size) {
+        return entityKeysetRepository.findPage(User.class, null, order, cursor, size, AdminUserDTO::new);
+    }
+
+    /**
+     * Hand all the users over to an action one at a time, as they are read, so that they can be written out without
+     * being held in memory.
+     *
+     * @param sort the order of the users, by id if unsorted.
+     * @param action receives the users, within the transaction.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllManagedUsers(Sort sort, Consumer<? super AdminUserDTO> action) {
+        entityStreamRepository.forEach(
+            User.class,
+            null,
+            sort.isSorted() ? sort : Sort.by("id"),
+            Collections.singleton("authorities"),
+            AdminUserDTO::new,
+            action
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public long countManagedUsers() {
+        return userRepository.count();
+    }
+
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllPublicUsers(Pageable pageable) {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
     }
 
+    /**
+     * Get a page of activated users with a keyset query, which costs the same however deep the page is.
+     *
+     * @param order the sort, or {@code null} to sort by id.
+     * @param cursor the cursor of the page, or {@code null} for the first page.
+     * @param size the maximum number of users.
+     * @return the page, with the cursor of the next one.
+     * @throws IllegalArgumentException if the cursor is invalid, or was returned for another sort.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserDTO> getAllPublicUsers(Sort.Order order, String cursor, int size) {
+        return entityKeysetRepository.findPage(User.class, ACTIVATED, order, cursor, size, UserDTO::new);
+    }
+
+    @Transactional(readOnly = true)
+    public long countPublicUsers() {
+        return entityKeysetRepository.count(User.class, ACTIVATED);
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
         return userRepository.findOneWithAuthoritiesByLogin(login);
@@ -314,7 +408,7 @@ public class UserService {
             .forEach(user -> {
                 log.debug("Deleting not activated user {}", user.getLogin());
                 userRepository.delete(user);
-                userSearchRepository.delete(user);
+                searchOutbox.delete(User.class, user.getId());
                 this.clearUserCaches(user);
             });
     }
@@ -329,9 +423,9 @@ public class UserService {
     }
 
     private void clearUserCaches(User user) {
-        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin());
         if (user.getEmail() != null) {
-            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+            cacheInvalidationService.evict(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail());
         }
     }
 }
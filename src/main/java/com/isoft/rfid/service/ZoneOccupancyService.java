@@ -0,0 +1,286 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagPresence;
+import com.isoft.rfid.management.IngestionMetersService;
+import com.isoft.rfid.repository.TagPresenceRepository;
+import com.isoft.rfid.service.dto.TagPresenceDTO;
+import com.isoft.rfid.service.dto.ZoneOccupancyDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Aggregates the read stream into the presence of each tag in a zone, its dwell time, and the occupancy of each zone.
+ * <p>
+ * Presences are session windows in event time: a tag enters a zone with its first read there, and leaves it once it
+ * was not read for the exit timeout, or when it is read in another zone. Time advances with the watermark, the latest
+ * read time (bounded by the clock) minus the allowed lateness; while no reads arrive, it advances with the clock. Reads
+ * behind the watermark are dropped, and tags last seen an exit timeout before it are removed.
+ * <p>
+ * The state is a {@link PresenceTable}, updated by the ingestion pipeline and read by the REST API under a lock, so
+ * that queries are constant-time lookups. Changed presences are written to the database every snapshot interval, and
+ * loaded back on startup.
+ */
+@Service
+public class ZoneOccupancyService implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(ZoneOccupancyService.class);
+
+    private final TagPresenceRepository tagPresenceRepository;
+
+    private final IngestionMetersService ingestionMetersService;
+
+    private final Clock clock;
+
+    private final long exitTimeoutMillis;
+
+    private final long allowedLatenessMillis;
+
+    private final long snapshotIntervalMillis;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final PresenceTable table;
+
+    /**
+     * Latest read time, bounded by the clock, guarded by {@link #lock}.
+     */
+    private long maxReadTime = Long.MIN_VALUE;
+
+    /**
+     * Clock time of the latest read, guarded by {@link #lock}.
+     */
+    private long lastReadAt;
+
+    /**
+     * Clock time of the last snapshot, only accessed by {@link #tick()} and the lifecycle.
+     */
+    private long lastSnapshotAt;
+
+    private volatile boolean running;
+
+    @Autowired
+    public ZoneOccupancyService(
+        TagPresenceRepository tagPresenceRepository,
+        IngestionMetersService ingestionMetersService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this(tagPresenceRepository, ingestionMetersService, applicationProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    ZoneOccupancyService(
+        TagPresenceRepository tagPresenceRepository,
+        IngestionMetersService ingestionMetersService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        Clock clock
+    ) {
+        this.tagPresenceRepository = tagPresenceRepository;
+        this.ingestionMetersService = ingestionMetersService;
+        this.clock = clock;
+        ApplicationProperties.Occupancy occupancy = applicationProperties.getOccupancy();
+        this.exitTimeoutMillis = occupancy.getExitTimeout().toMillis();
+        this.allowedLatenessMillis = occupancy.getAllowedLateness().toMillis();
+        this.snapshotIntervalMillis = occupancy.getSnapshotInterval().toMillis();
+        this.table = new PresenceTable(occupancy.getExpectedTags());
+        Gauge
+            .builder("ingestion.occupancy.tags", this, ZoneOccupancyService::getPresentTags)
+            .description("Number of tags present in a zone.")
+            .baseUnit("tags")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record a read of a tag in a zone.
+     *
+     * @param epcHi the high bits of the EPC.
+     * @param epcLo the low bits of the EPC.
+     * @param epcLength the length of the EPC, in bytes.
+     * @param zone the zone of the reader.
+     * @param readTime the read time, in epoch milliseconds.
+     */
+    public void record(long epcHi, long epcLo, int epcLength, String zone, long readTime) {
+        long now = clock.millis();
+        long stamp = lock.writeLock();
+        try {
+            if (readTime < watermark(now)) {
+                ingestionMetersService.trackReadLate();
+                return;
+            }
+            maxReadTime = Math.max(maxReadTime, Math.min(readTime, now));
+            lastReadAt = now;
+            table.record(epcHi, epcLo, epcLength, zone, readTime, exitTimeoutMillis);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private long watermark(long now) {
+        long watermark = maxReadTime == Long.MIN_VALUE ? Long.MIN_VALUE : maxReadTime - allowedLatenessMillis;
+        if (now - lastReadAt >= allowedLatenessMillis) {
+            watermark = Math.max(watermark, now - allowedLatenessMillis);
+        }
+        return watermark;
+    }
+
+    /**
+     * Remove the tags which left their zone, and write the changes to the database every snapshot interval.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void tick() {
+        if (!running) {
+            return;
+        }
+        long now = clock.millis();
+        long stamp = lock.writeLock();
+        try {
+            long watermark = watermark(now);
+            if (watermark != Long.MIN_VALUE) {
+                table.expire(watermark - exitTimeoutMillis);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (now - lastSnapshotAt >= snapshotIntervalMillis) {
+            snapshot();
+            lastSnapshotAt = now;
+        }
+    }
+
+    /**
+     * Write the presences changed since the last snapshot to the database. Synchronized, so that snapshots are written
+     * in order.
+     */
+    synchronized void snapshot() {
+        List<Epc> removed = new ArrayList<>();
+        List<TagPresence> changed = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            table.drain(removed, changed);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (removed.isEmpty() && changed.isEmpty()) {
+            return;
+        }
+        try {
+            tagPresenceRepository.update(removed, changed);
+            log.debug("Saved {} presences and removed {}", changed.size(), removed.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not save the zone occupancy, retrying with the next snapshot", e);
+            stamp = lock.writeLock();
+            try {
+                table.undrain(removed);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Get the presence of a tag in its zone.
+     *
+     * @param epc the EPC of the tag.
+     * @return the presence, or empty if the tag is not in any zone.
+     */
+    public Optional<TagPresenceDTO> findPresence(Epc epc) {
+        long stamp = lock.readLock();
+        try {
+            return Optional.ofNullable(table.find(epc)).map(TagPresenceDTO::new);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get the number of tags present in a zone.
+     *
+     * @param zone the zone.
+     * @return the occupancy, 0 for an unknown zone.
+     */
+    public ZoneOccupancyDTO getOccupancy(String zone) {
+        long stamp = lock.readLock();
+        try {
+            return new ZoneOccupancyDTO(zone, table.getOccupancy(zone));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get the number of tags present in each zone.
+     *
+     * @return the occupancies, of all the zones which had tags.
+     */
+    public List<ZoneOccupancyDTO> getOccupancies() {
+        Map<String, Integer> occupancies;
+        long stamp = lock.readLock();
+        try {
+            occupancies = table.getOccupancies();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        List<ZoneOccupancyDTO> result = new ArrayList<>(occupancies.size());
+        occupancies.forEach((zone, count) -> result.add(new ZoneOccupancyDTO(zone, count)));
+        return result;
+    }
+
+    private int getPresentTags() {
+        long stamp = lock.readLock();
+        try {
+            return table.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void start() {
+        long stamp = lock.writeLock();
+        try {
+            tagPresenceRepository.findAll(presence -> {
+                table.load(presence);
+                maxReadTime = Math.max(maxReadTime, presence.getLastSeen().toEpochMilli());
+            });
+            lastReadAt = clock.millis();
+            log.info("Loaded the presence of {} tags", table.size());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        lastSnapshotAt = clock.millis();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        snapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start before the ingestion pipeline, and stop after it: the reads it drains are part of the last snapshot.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
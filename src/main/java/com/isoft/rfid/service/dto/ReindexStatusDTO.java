@@ -0,0 +1,143 @@
+package com.isoft.rfid.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A DTO for the progress of the rebuild of a search index.
+ */
+public class ReindexStatusDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private String indexName;
+
+    private String targetIndex;
+
+    private State state;
+
+    private long documents;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private String error;
+
+    public ReindexStatusDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ReindexStatusDTO(
+        String indexName,
+        String targetIndex,
+        State state,
+        long documents,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+    ) {
+        this.indexName = indexName;
+        this.targetIndex = targetIndex;
+        this.state = state;
+        this.documents = documents;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+
+    public void setTargetIndex(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(long documents) {
+        this.documents = documents;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ReindexStatusDTO)) {
+            return false;
+        }
+
+        ReindexStatusDTO reindexStatusDTO = (ReindexStatusDTO) o;
+        return Objects.equals(this.targetIndex, reindexStatusDTO.targetIndex) && this.state == reindexStatusDTO.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.targetIndex, this.state);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ReindexStatusDTO{" +
+            "indexName='" + getIndexName() + "'" +
+            ", targetIndex='" + getTargetIndex() + "'" +
+            ", state='" + getState() + "'" +
+            ", documents=" + getDocuments() +
+            ", startedAt='" + getStartedAt() + "'" +
+            ", finishedAt='" + getFinishedAt() + "'" +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
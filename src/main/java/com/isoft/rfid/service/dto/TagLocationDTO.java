@@ -0,0 +1,118 @@
+package com.isoft.rfid.service.dto;
+
+import com.isoft.rfid.domain.Epc;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A DTO for the last known location of a tag: its last read.
+ */
+public class TagLocationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Epc epc;
+
+    private String readerId;
+
+    private Integer antenna;
+
+    private Integer rssi;
+
+    private String zone;
+
+    private Instant lastSeen;
+
+    public TagLocationDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TagLocationDTO(Epc epc, String readerId, Integer antenna, Integer rssi, String zone, Instant lastSeen) {
+        this.epc = epc;
+        this.readerId = readerId;
+        this.antenna = antenna;
+        this.rssi = rssi;
+        this.zone = zone;
+        this.lastSeen = lastSeen;
+    }
+
+    public Epc getEpc() {
+        return epc;
+    }
+
+    public void setEpc(Epc epc) {
+        this.epc = epc;
+    }
+
+    public String getReaderId() {
+        return readerId;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public Integer getAntenna() {
+        return antenna;
+    }
+
+    public void setAntenna(Integer antenna) {
+        this.antenna = antenna;
+    }
+
+    public Integer getRssi() {
+        return rssi;
+    }
+
+    public void setRssi(Integer rssi) {
+        this.rssi = rssi;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(Instant lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagLocationDTO)) {
+            return false;
+        }
+
+        TagLocationDTO tagLocationDTO = (TagLocationDTO) o;
+        return Objects.equals(this.epc, tagLocationDTO.epc) && Objects.equals(this.lastSeen, tagLocationDTO.lastSeen);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.epc, this.lastSeen);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagLocationDTO{" +
+            "epc='" + getEpc() + "'" +
+            ", readerId='" + getReaderId() + "'" +
+            ", antenna=" + getAntenna() +
+            ", rssi=" + getRssi() +
+            ", zone='" + getZone() + "'" +
+            ", lastSeen='" + getLastSeen() + "'" +
+            "}";
+    }
+}
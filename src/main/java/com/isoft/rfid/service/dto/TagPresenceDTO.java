@@ -0,0 +1,107 @@
+package com.isoft.rfid.service.dto;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagPresence;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link TagPresence} of a tag, with its dwell time in its zone.
+ */
+public class TagPresenceDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Epc epc;
+
+    private String zone;
+
+    private Instant enteredAt;
+
+    private Instant lastSeen;
+
+    private Long dwellSeconds;
+
+    public TagPresenceDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TagPresenceDTO(TagPresence presence) {
+        this.epc = presence.getEpc();
+        this.zone = presence.getZone();
+        this.enteredAt = presence.getEnteredAt();
+        this.lastSeen = presence.getLastSeen();
+        this.dwellSeconds = (presence.getLastSeen().toEpochMilli() - presence.getEnteredAt().toEpochMilli()) / 1000;
+    }
+
+    public Epc getEpc() {
+        return epc;
+    }
+
+    public void setEpc(Epc epc) {
+        this.epc = epc;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public Instant getEnteredAt() {
+        return enteredAt;
+    }
+
+    public void setEnteredAt(Instant enteredAt) {
+        this.enteredAt = enteredAt;
+    }
+
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(Instant lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public Long getDwellSeconds() {
+        return dwellSeconds;
+    }
+
+    public void setDwellSeconds(Long dwellSeconds) {
+        this.dwellSeconds = dwellSeconds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagPresenceDTO)) {
+            return false;
+        }
+
+        TagPresenceDTO tagPresenceDTO = (TagPresenceDTO) o;
+        return Objects.equals(this.epc, tagPresenceDTO.epc) && Objects.equals(this.enteredAt, tagPresenceDTO.enteredAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.epc, this.enteredAt);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagPresenceDTO{" +
+            "epc='" + getEpc() + "'" +
+            ", zone='" + getZone() + "'" +
+            ", enteredAt='" + getEnteredAt() + "'" +
+            ", lastSeen='" + getLastSeen() + "'" +
+            ", dwellSeconds=" + getDwellSeconds() +
+            "}";
+    }
+}
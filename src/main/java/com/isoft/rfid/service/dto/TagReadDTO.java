@@ -0,0 +1,127 @@
+package com.isoft.rfid.service.dto;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagRead;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import javax.validation.constraints.*;
+
+/**
+ * A DTO for the {@link TagRead} entity.
+ */
+public class TagReadDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    @NotNull
+    private Epc epc;
+
+    @NotBlank
+    @Size(max = 50)
+    private String readerId;
+
+    @Min(0)
+    private Integer antenna;
+
+    private Integer rssi;
+
+    @Size(max = 50)
+    private String zone;
+
+    @NotNull
+    private Instant readTime;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Epc getEpc() {
+        return epc;
+    }
+
+    public void setEpc(Epc epc) {
+        this.epc = epc;
+    }
+
+    public String getReaderId() {
+        return readerId;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public Integer getAntenna() {
+        return antenna;
+    }
+
+    public void setAntenna(Integer antenna) {
+        this.antenna = antenna;
+    }
+
+    public Integer getRssi() {
+        return rssi;
+    }
+
+    public void setRssi(Integer rssi) {
+        this.rssi = rssi;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public Instant getReadTime() {
+        return readTime;
+    }
+
+    public void setReadTime(Instant readTime) {
+        this.readTime = readTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagReadDTO)) {
+            return false;
+        }
+
+        TagReadDTO tagReadDTO = (TagReadDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, tagReadDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagReadDTO{" +
+            "id=" + getId() +
+            ", epc='" + getEpc() + "'" +
+            ", readerId='" + getReaderId() + "'" +
+            ", antenna=" + getAntenna() +
+            ", rssi=" + getRssi() +
+            ", zone='" + getZone() + "'" +
+            ", readTime='" + getReadTime() + "'" +
+            "}";
+    }
+}
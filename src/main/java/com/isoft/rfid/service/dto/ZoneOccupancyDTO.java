@@ -0,0 +1,68 @@
+package com.isoft.rfid.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the number of tags present in a zone.
+ */
+public class ZoneOccupancyDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String zone;
+
+    private int count;
+
+    public ZoneOccupancyDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ZoneOccupancyDTO(String zone, int count) {
+        this.zone = zone;
+        this.count = count;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ZoneOccupancyDTO)) {
+            return false;
+        }
+
+        ZoneOccupancyDTO zoneOccupancyDTO = (ZoneOccupancyDTO) o;
+        return Objects.equals(this.zone, zoneOccupancyDTO.zone) && this.count == zoneOccupancyDTO.count;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.zone, this.count);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ZoneOccupancyDTO{" +
+            "zone='" + getZone() + "'" +
+            ", count=" + getCount() +
+            "}";
+    }
+}
@@ -0,0 +1,229 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.management.IngestionMetersService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Decides whether the ingestion endpoints accept a batch of reads, so that an overload is pushed back to the readers,
+ * which buffer locally, instead of filling the heap with blocked requests.
+ * <p>
+ * Requests are shed when:
+ * <ul>
+ *     <li>the reads would take the ring buffer above its maximum utilization;</li>
+ *     <li>the writer is too far behind in the write-ahead log, e.g. because its batches fail;</li>
+ *     <li>the mean time to acquire a database connection, from the {@code hikaricp.connections.acquire} timer, is too
+ *     long;</li>
+ *     <li>the pipeline is not running.</li>
+ * </ul>
+ * The {@code Retry-After} is the time needed to drain the backlog at the throughput measured since the last sample,
+ * within the configured bounds. Signals are sampled at most every {@value #SAMPLE_INTERVAL_MILLIS} ms by the calling
+ * threads, and decisions are counted by the {@code ingestion.admission} meter.
+ */
+@Service
+public class AdmissionController {
+
+    /**
+     * Why a request was shed, and whether clients should retry on another node ({@code unavailable}) or slow down.
+     */
+    public enum Reason {
+        QUEUE("queue", false, "the ingestion queue is full"),
+        JOURNAL("journal", false, "the database writer is behind the write-ahead log"),
+        DATABASE("database", true, "the database connection pool is saturated"),
+        STOPPED("stopped", true, "the ingestion pipeline is not running");
+
+        private final String tag;
+
+        private final boolean unavailable;
+
+        private final String description;
+
+        Reason(String tag, boolean unavailable, String description) {
+            this.tag = tag;
+            this.unavailable = unavailable;
+            this.description = description;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public boolean isUnavailable() {
+            return unavailable;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private static final String CONNECTION_ACQUIRE_METER_NAME = "hikaricp.connections.acquire";
+
+    /**
+     * Weight of the last sample in the throughput averages.
+     */
+    private static final double SMOOTHING = 0.5;
+
+    private final ReadPipeline readPipeline;
+
+    private final ApplicationProperties.Admission properties;
+
+    private final IngestionMetersService ingestionMetersService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Clock clock;
+
+    private final long maxQueued;
+
+    private volatile long lastSample;
+
+    private long lastProcessedSequence;
+
+    private long lastWriterOffset;
+
+    private long lastAcquireCount;
+
+    private double lastAcquireNanos;
+
+    /**
+     * Reads and journal bytes processed per second.
+     */
+    private volatile double readRate;
+
+    private volatile double journalRate;
+
+    private volatile Reason sampledReason;
+
+    private volatile long retryAfterSeconds;
+
+    @Autowired
+    public AdmissionController(
+        ReadPipeline readPipeline,
+        ApplicationProperties applicationProperties,
+        IngestionMetersService ingestionMetersService,
+        MeterRegistry meterRegistry
+    ) {
+        this(readPipeline, applicationProperties, ingestionMetersService, meterRegistry, Clock.systemUTC());
+    }
+
+    AdmissionController(
+        ReadPipeline readPipeline,
+        ApplicationProperties applicationProperties,
+        IngestionMetersService ingestionMetersService,
+        MeterRegistry meterRegistry,
+        Clock clock
+    ) {
+        this.readPipeline = readPipeline;
+        this.properties = applicationProperties.getAdmission();
+        this.ingestionMetersService = ingestionMetersService;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.maxQueued = (long) (readPipeline.getBufferSize() * properties.getMaxQueueUtilization());
+        this.lastSample = clock.millis() - SAMPLE_INTERVAL_MILLIS;
+        Gauge
+            .builder("ingestion.admission.retry-after", this, controller -> controller.retryAfterSeconds)
+            .description("Retry-After last returned to shed ingestion requests.")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Admit a batch of reads, or shed it.
+     *
+     * @param count the number of reads in the batch.
+     * @throws IngestionOverloadedException if the batch must be sent again later.
+     */
+    public void admit(int count) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!readPipeline.isRunning()) {
+            shed(Reason.STOPPED, properties.getMinRetryAfter().getSeconds());
+        }
+        sampleIfDue();
+        long backlog = readPipeline.getBacklog();
+        Reason reason = sampledReason;
+        if (reason == null && backlog + count > maxQueued) {
+            reason = Reason.QUEUE;
+        }
+        if (reason != null) {
+            shed(reason, retryAfter(reason == Reason.JOURNAL ? readPipeline.getJournalLag() / journalRate : backlog / readRate));
+        }
+        ingestionMetersService.trackRequestAdmitted();
+    }
+
+    private void shed(Reason reason, long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        ingestionMetersService.trackRequestShed(reason.getTag());
+        throw new IngestionOverloadedException(reason, Duration.ofSeconds(retryAfterSeconds));
+    }
+
+    private long retryAfter(double drainSeconds) {
+        long min = properties.getMinRetryAfter().getSeconds();
+        long max = properties.getMaxRetryAfter().getSeconds();
+        if (Double.isNaN(drainSeconds) || drainSeconds >= max) {
+            return max;
+        }
+        return Math.max(min, (long) Math.ceil(drainSeconds));
+    }
+
+    private void sampleIfDue() {
+        if (clock.millis() - lastSample >= SAMPLE_INTERVAL_MILLIS) {
+            synchronized (this) {
+                long now = clock.millis();
+                if (now - lastSample >= SAMPLE_INTERVAL_MILLIS) {
+                    sample(now);
+                }
+            }
+        }
+    }
+
+    private void sample(long now) {
+        double elapsedSeconds = (now - lastSample) / 1000.0;
+        long processedSequence = readPipeline.getProcessedSequence();
+        long writerOffset = readPipeline.getJournalWriterOffset();
+        readRate = smooth(readRate, (processedSequence - lastProcessedSequence) / elapsedSeconds);
+        journalRate = smooth(journalRate, (writerOffset - lastWriterOffset) / elapsedSeconds);
+        lastProcessedSequence = processedSequence;
+        lastWriterOffset = writerOffset;
+        lastSample = now;
+
+        Reason reason = null;
+        if (readPipeline.getJournalLag() > properties.getMaxJournalLag().toBytes()) {
+            reason = Reason.JOURNAL;
+        } else if (sampleConnectionWait() > properties.getMaxConnectionWait().toNanos()) {
+            reason = Reason.DATABASE;
+        }
+        sampledReason = reason;
+    }
+
+    private static double smooth(double average, double sample) {
+        return average == 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * average;
+    }
+
+    /**
+     * @return the mean time to acquire a connection since the last sample, in nanoseconds.
+     */
+    private double sampleConnectionWait() {
+        long count = 0;
+        double nanos = 0;
+        for (Timer timer : meterRegistry.find(CONNECTION_ACQUIRE_METER_NAME).timers()) {
+            count += timer.count();
+            nanos += timer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        double wait = count > lastAcquireCount ? (nanos - lastAcquireNanos) / (count - lastAcquireCount) : 0;
+        lastAcquireCount = count;
+        lastAcquireNanos = nanos;
+        return wait;
+    }
+}
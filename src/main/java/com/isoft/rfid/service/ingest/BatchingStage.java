@@ -0,0 +1,58 @@
+package com.isoft.rfid.service.ingest;
+
+import com.lmax.disruptor.EventHandler;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for pipeline stages which process valid reads in batches.
+ * <p>
+ * A batch is flushed when it is full, or when the stage has caught up with the producers. Slots are only referenced
+ * until the end of the current Disruptor batch, before the stage sequence moves past them.
+ */
+abstract class BatchingStage implements EventHandler<ReadEvent> {
+
+    private final Logger log = LoggerFactory.getLogger(BatchingStage.class);
+
+    private final String name;
+
+    private final int batchSize;
+
+    private final List<ReadEvent> batch;
+
+    BatchingStage(String name, int batchSize) {
+        this.name = name;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    @Override
+    public void onEvent(ReadEvent event, long sequence, boolean endOfBatch) {
+        if (accept(event)) {
+            batch.add(event);
+        }
+        if (batch.size() >= batchSize || (endOfBatch && !batch.isEmpty())) {
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                log.error("Stage {} failed to flush {} reads", name, batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * @param event the current slot.
+     * @return {@code true} if the slot must be part of the next batch.
+     */
+    protected abstract boolean accept(ReadEvent event);
+
+    protected abstract void flush(List<ReadEvent> batch);
+}
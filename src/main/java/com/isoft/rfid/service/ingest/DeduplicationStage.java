@@ -0,0 +1,100 @@
+package com.isoft.rfid.service.ingest;
+
+import com.carrotsearch.hppc.LongLongHashMap;
+import com.isoft.rfid.management.IngestionMetersService;
+import com.lmax.disruptor.EventHandler;
+import java.time.Duration;
+
+/**
+ * Drops repeated reads of the same tag by the same reader antenna within a time window.
+ * <p>
+ * A read is passed on if no read of its (EPC, reader, antenna) key was passed on during the window before it, so a tag
+ * staying in front of an antenna is reported once per window. Keys are 64-bit hashes stored in an open-addressing
+ * primitive map, along with the read time last passed on: nothing is allocated per read. Two keys sharing the same
+ * hash would be deduplicated together, which is negligible at 64 bits.
+ * <p>
+ * The map is only accessed by the stage thread. Entries older than the window are purged once per window. Reads
+ * replayed from the {@link ReadJournal} were already passed on before a restart, so they are not checked.
+ */
+class DeduplicationStage implements EventHandler<ReadEvent> {
+
+    static final String NAME = "deduplication";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long MIN_PURGE_INTERVAL_MILLIS = 1000;
+
+    private final IngestionMetersService ingestionMetersService;
+
+    private final long windowMillis;
+
+    private final long purgeIntervalMillis;
+
+    private final LongLongHashMap lastPassed;
+
+    private long lastPurge;
+
+    DeduplicationStage(IngestionMetersService ingestionMetersService, Duration window, int expectedKeys) {
+        this.ingestionMetersService = ingestionMetersService;
+        this.windowMillis = window.toMillis();
+        this.purgeIntervalMillis = Math.max(windowMillis, MIN_PURGE_INTERVAL_MILLIS);
+        this.lastPassed = new LongLongHashMap(expectedKeys);
+        this.lastPurge = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onEvent(ReadEvent event, long sequence, boolean endOfBatch) {
+        if (!event.isValid() || event.isReplayed() || windowMillis <= 0) {
+            return;
+        }
+        if (isDuplicate(key(event.getEpcHi(), event.getEpcLo(), event.getEpcLength(), event.getReaderId(), event.getAntenna()), event.getReadTime())) {
+            event.markDuplicate();
+            ingestionMetersService.trackDuplicateHit();
+        } else {
+            ingestionMetersService.trackDuplicateMiss();
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastPurge >= purgeIntervalMillis) {
+            purge(now);
+        }
+    }
+
+    boolean isDuplicate(long key, long readTime) {
+        int index = lastPassed.indexOf(key);
+        if (lastPassed.indexExists(index)) {
+            if (readTime - lastPassed.indexGet(index) < windowMillis) {
+                return true;
+            }
+            lastPassed.indexReplace(index, readTime);
+        } else {
+            lastPassed.indexInsert(index, key, readTime);
+        }
+        return false;
+    }
+
+    void purge(long now) {
+        long expiry = now - windowMillis;
+        lastPassed.removeAll((key, readTime) -> readTime < expiry);
+        lastPurge = now;
+    }
+
+    int size() {
+        return lastPassed.size();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the key, fed with the EPC words rather than its digits.
+     */
+    static long key(long epcHi, long epcLo, int epcLength, String readerId, int antenna) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = (hash ^ epcHi) * FNV_PRIME;
+        hash = (hash ^ epcLo) * FNV_PRIME;
+        hash = (hash ^ epcLength) * FNV_PRIME;
+        for (int i = 0; i < readerId.length(); i++) {
+            hash = (hash ^ readerId.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ antenna) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,36 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.service.TagMovementFeedService;
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * Publishes the accepted reads to the live feed of the {@link TagMovementFeedService}, alongside persistence.
+ * <p>
+ * Nothing is created while there are no subscribers, and publishing never waits for a client.
+ */
+class FeedStage implements EventHandler<ReadEvent> {
+
+    static final String NAME = "feed";
+
+    private final TagMovementFeedService tagMovementFeedService;
+
+    FeedStage(TagMovementFeedService tagMovementFeedService) {
+        this.tagMovementFeedService = tagMovementFeedService;
+    }
+
+    @Override
+    public void onEvent(ReadEvent event, long sequence, boolean endOfBatch) {
+        if (event.isAccepted() && tagMovementFeedService.hasSubscribers()) {
+            tagMovementFeedService.publish(
+                event.getEpcHi(),
+                event.getEpcLo(),
+                event.getEpcLength(),
+                event.getReaderId(),
+                event.getAntenna(),
+                event.getRssi(),
+                event.getZone(),
+                event.getReadTime()
+            );
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.BulkIndexer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands the reads persisted by the {@link PersistenceStage} over to the {@link BulkIndexer}, so that the pipeline does
+ * not wait for Elasticsearch unless its buffer is full.
+ * <p>
+ * With a {@link ReadJournal}, the journal offset of each handed over batch is committed.
+ */
+class IndexingStage extends BatchingStage {
+
+    static final String NAME = "indexer";
+
+    private final BulkIndexer bulkIndexer;
+
+    private final ReadJournal journal;
+
+    IndexingStage(BulkIndexer bulkIndexer, ReadJournal journal, int batchSize) {
+        super(NAME, batchSize);
+        this.bulkIndexer = bulkIndexer;
+        this.journal = journal;
+    }
+
+    @Override
+    protected boolean accept(ReadEvent event) {
+        return event.getTagRead() != null;
+    }
+
+    @Override
+    protected void flush(List<ReadEvent> batch) {
+        List<TagRead> tagReads = new ArrayList<>(batch.size());
+        for (ReadEvent event : batch) {
+            tagReads.add(event.getTagRead());
+        }
+        bulkIndexer.indexAll(tagReads);
+        if (journal != null) {
+            journal.commitOffset(ReadJournal.INDEXER, batch.get(batch.size() - 1).getJournalOffset());
+        }
+    }
+}
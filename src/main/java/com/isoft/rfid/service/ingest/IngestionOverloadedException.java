@@ -0,0 +1,32 @@
+package com.isoft.rfid.service.ingest;
+
+import java.time.Duration;
+
+/**
+ * Thrown by the {@link AdmissionController} when a request must be shed.
+ */
+public class IngestionOverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AdmissionController.Reason reason;
+
+    private final Duration retryAfter;
+
+    public IngestionOverloadedException(AdmissionController.Reason reason, Duration retryAfter) {
+        super("Ingestion is overloaded: " + reason.getDescription());
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public AdmissionController.Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return how long the client should wait before sending the request again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,30 @@
+package com.isoft.rfid.service.ingest;
+
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * Appends the accepted reads to the {@link ReadJournal}, and forces them to disk at the end of each Disruptor batch.
+ * <p>
+ * The stage sequence only moves past a batch once it was forced, so it is the sequence up to which reads are durable.
+ * Replayed reads are already in the journal.
+ */
+class JournalStage implements EventHandler<ReadEvent> {
+
+    static final String NAME = "journal";
+
+    private final ReadJournal journal;
+
+    JournalStage(ReadJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void onEvent(ReadEvent event, long sequence, boolean endOfBatch) {
+        if (event.isAccepted() && !event.isReplayed()) {
+            event.setJournalOffset(journal.append(event));
+        }
+        if (endOfBatch) {
+            journal.commit();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.service.TagLocationService;
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * Records every valid read as the last location of its tag in the {@link TagLocationService}.
+ * <p>
+ * It runs right after validation, alongside deduplication: a duplicate read still moves the last-seen time forward.
+ */
+class LocationStage implements EventHandler<ReadEvent> {
+
+    static final String NAME = "location";
+
+    private final TagLocationService tagLocationService;
+
+    LocationStage(TagLocationService tagLocationService) {
+        this.tagLocationService = tagLocationService;
+    }
+
+    @Override
+    public void onEvent(ReadEvent event, long sequence, boolean endOfBatch) {
+        if (event.isValid()) {
+            tagLocationService.record(
+                event.getEpcHi(),
+                event.getEpcLo(),
+                event.getEpcLength(),
+                event.getReaderId(),
+                event.getAntenna(),
+                event.getRssi(),
+                event.getZone(),
+                event.getReadTime()
+            );
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.service.ZoneOccupancyService;
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * Feeds the accepted reads of zoned readers to the {@link ZoneOccupancyService}, alongside persistence.
+ * <p>
+ * Replayed reads are recorded again: the occupancy snapshot may predate them, and a read older than the last one of its
+ * tag is ignored anyway.
+ */
+class OccupancyStage implements EventHandler<ReadEvent> {
+
+    static final String NAME = "occupancy";
+
+    private final ZoneOccupancyService zoneOccupancyService;
+
+    OccupancyStage(ZoneOccupancyService zoneOccupancyService) {
+        this.zoneOccupancyService = zoneOccupancyService;
+    }
+
+    @Override
+    public void onEvent(ReadEvent event, long sequence, boolean endOfBatch) {
+        if (event.isAccepted() && event.getZone() != null) {
+            zoneOccupancyService.record(event.getEpcHi(), event.getEpcLo(), event.getEpcLength(), event.getZone(), event.getReadTime());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.TagReadService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes accepted reads to PostgreSQL, one transaction per batch.
+ * <p>
+ * A failed batch is written again with an exponential backoff until it succeeds, holding back the pipeline meanwhile,
+ * so that the reads behind it wait in the ring buffer and new requests are shed by the {@link AdmissionController}.
+ * <p>
+ * With a {@link ReadJournal}, the journal offset of each written batch is committed, so reads are replayed from there
+ * on startup. If the pipeline stops while a batch is failing, the offset stays before it until the next startup: reads
+ * are written at least once.
+ */
+class PersistenceStage extends BatchingStage {
+
+    static final String NAME = "writer";
+
+    private final Logger log = LoggerFactory.getLogger(PersistenceStage.class);
+
+    private final TagReadService tagReadService;
+
+    private final ReadJournal journal;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final CountDownLatch stopping = new CountDownLatch(1);
+
+    private boolean stalled;
+
+    PersistenceStage(TagReadService tagReadService, ReadJournal journal, int batchSize, Duration initialBackoff, Duration maxBackoff) {
+        super(NAME, batchSize);
+        this.tagReadService = tagReadService;
+        this.journal = journal;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    /**
+     * Stop writing failed batches again, so that the pipeline can be drained.
+     */
+    void stopRetrying() {
+        stopping.countDown();
+    }
+
+    @Override
+    protected boolean accept(ReadEvent event) {
+        return event.isAccepted();
+    }
+
+    @Override
+    protected void flush(List<ReadEvent> batch) {
+        List<TagRead> tagReads = write(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setTagRead(tagReads.get(i));
+        }
+        if (journal != null && !stalled) {
+            journal.commitOffset(ReadJournal.WRITER, batch.get(batch.size() - 1).getJournalOffset());
+        }
+    }
+
+    private List<TagRead> write(List<ReadEvent> batch) {
+        for (int failures = 1;; failures++) {
+            // Fresh entities for each attempt, as a failed one may have assigned ids
+            List<TagRead> tagReads = new ArrayList<>(batch.size());
+            for (ReadEvent event : batch) {
+                tagReads.add(event.toTagRead());
+            }
+            try {
+                tagReadService.saveAll(tagReads);
+                if (failures > 1) {
+                    log.info("Wrote {} reads after {} failed attempts", batch.size(), failures - 1);
+                }
+                return tagReads;
+            } catch (RuntimeException e) {
+                if (failures == 1) {
+                    log.warn("Failed to write {} reads, writing them again", batch.size(), e);
+                } else {
+                    log.warn("Failed to write {} reads again, attempt {}: {}", batch.size(), failures, e.toString());
+                }
+                if (!backoff(failures)) {
+                    if (journal != null && !stalled) {
+                        stalled = true;
+                        log.warn(
+                            "Reads from offset {} of the write-ahead log will be written again on startup",
+                            journal.getCommittedOffset(ReadJournal.WRITER)
+                        );
+                    }
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the pipeline is stopping.
+     */
+    private boolean backoff(int failures) {
+        long delay = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(failures - 1, 20));
+        try {
+            return !stopping.await(delay, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
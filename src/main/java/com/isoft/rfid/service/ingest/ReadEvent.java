@@ -0,0 +1,204 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagRead;
+import com.lmax.disruptor.EventFactory;
+import java.time.Instant;
+
+/**
+ * A pre-allocated slot of the ingestion ring buffer.
+ * <p>
+ * Slots are reused for every lap of the ring, so they only hold primitives and references to shared immutable values.
+ * Stages must copy what they need before their sequence moves past the slot.
+ */
+public final class ReadEvent {
+
+    public static final EventFactory<ReadEvent> FACTORY = ReadEvent::new;
+
+    /**
+     * Marker for an absent {@code antenna} or {@code rssi}.
+     */
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+
+    /**
+     * Marker for a read which is not in the {@link ReadJournal}.
+     */
+    static final long NO_OFFSET = -1;
+
+    private long epcHi;
+
+    private long epcLo;
+
+    private int epcLength;
+
+    private String readerId;
+
+    private int antenna;
+
+    private int rssi;
+
+    private String zone;
+
+    private long readTime;
+
+    private boolean valid;
+
+    private boolean duplicate;
+
+    private boolean replayed;
+
+    private long journalOffset;
+
+    private TagRead tagRead;
+
+    public void set(Epc epc, String readerId, int antenna, int rssi, String zone, long readTime) {
+        if (epc == null) {
+            set(0, 0, 0, readerId, antenna, rssi, zone, readTime);
+        } else {
+            set(epc.getHi(), epc.getLo(), epc.getLength(), readerId, antenna, rssi, zone, readTime);
+        }
+    }
+
+    /**
+     * Set the slot from an EPC given as its two words (see {@link Epc}), so that binary channels do not allocate.
+     * <p>
+     * An {@code epcLength} of {@code 0} stands for a missing EPC.
+     */
+    public void set(long epcHi, long epcLo, int epcLength, String readerId, int antenna, int rssi, String zone, long readTime) {
+        this.tagRead = null;
+        this.epcHi = epcHi;
+        this.epcLo = epcLo;
+        this.epcLength = epcLength;
+        this.readerId = readerId;
+        this.antenna = antenna;
+        this.rssi = rssi;
+        this.zone = zone;
+        this.readTime = readTime;
+        this.valid = true;
+        this.duplicate = false;
+        this.replayed = false;
+        this.journalOffset = NO_OFFSET;
+    }
+
+    public long getEpcHi() {
+        return epcHi;
+    }
+
+    public long getEpcLo() {
+        return epcLo;
+    }
+
+    /**
+     * @return the length of the EPC in bytes, {@code 0} if it is missing.
+     */
+    public int getEpcLength() {
+        return epcLength;
+    }
+
+    public String getReaderId() {
+        return readerId;
+    }
+
+    public int getAntenna() {
+        return antenna;
+    }
+
+    public int getRssi() {
+        return rssi;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public long getReadTime() {
+        return readTime;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    void reject() {
+        this.valid = false;
+    }
+
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+
+    void markDuplicate() {
+        this.duplicate = true;
+    }
+
+    /**
+     * @return {@code true} if the read was replayed from the {@link ReadJournal} on startup, so it was already accepted.
+     */
+    public boolean isReplayed() {
+        return replayed;
+    }
+
+    void replay(long journalOffset) {
+        this.replayed = true;
+        this.journalOffset = journalOffset;
+    }
+
+    /**
+     * @return the offset of the read in the {@link ReadJournal}, or {@link #NO_OFFSET}.
+     */
+    long getJournalOffset() {
+        return journalOffset;
+    }
+
+    void setJournalOffset(long journalOffset) {
+        this.journalOffset = journalOffset;
+    }
+
+    /**
+     * @return {@code true} if the read is valid and not a duplicate, so it must be persisted.
+     */
+    public boolean isAccepted() {
+        return valid && !duplicate;
+    }
+
+    /**
+     * @return the entity persisted for this read, or {@code null} if it has not been (successfully) written yet.
+     */
+    public TagRead getTagRead() {
+        return tagRead;
+    }
+
+    void setTagRead(TagRead tagRead) {
+        this.tagRead = tagRead;
+    }
+
+    TagRead toTagRead() {
+        TagRead tagRead = new TagRead();
+        tagRead.setEpc(new Epc(epcHi, epcLo, epcLength));
+        tagRead.setReaderId(readerId);
+        tagRead.setAntenna(antenna == NO_VALUE ? null : antenna);
+        tagRead.setRssi(rssi == NO_VALUE ? null : rssi);
+        tagRead.setZone(zone);
+        tagRead.setReadTime(Instant.ofEpochMilli(readTime));
+        return tagRead;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ReadEvent{" +
+            "epcHi=" + Long.toHexString(epcHi) +
+            ", epcLo=" + Long.toHexString(epcLo) +
+            ", epcLength=" + epcLength +
+            ", readerId='" + readerId + '\'' +
+            ", antenna=" + antenna +
+            ", rssi=" + rssi +
+            ", zone='" + zone + '\'' +
+            ", readTime=" + readTime +
+            ", valid=" + valid +
+            ", duplicate=" + duplicate +
+            ", replayed=" + replayed +
+            ", journalOffset=" + journalOffset +
+            "}";
+    }
+}
@@ -0,0 +1,400 @@
+package com.isoft.rfid.service.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only write-ahead log of the accepted reads, stored in memory-mapped segment files.
+ * <p>
+ * Records are appended by the {@link JournalStage} thread only, and forced to disk once per Disruptor batch: a single
+ * {@code msync} covers every read which arrived meanwhile (group commit). Each record is framed by the length and the
+ * CRC32 of its body, so a torn write at the end of the log is detected, and discarded, when the journal is opened.
+ * <p>
+ * Offsets are positions in the logical log, and segment files are named after the offset of their first byte. The
+ * offset of a record is the offset right after it, so that a consumer committing it resumes at the next record.
+ * Consumers commit their offset in a small memory-mapped file of their own, and segments are deleted once every
+ * consumer is past them.
+ */
+class ReadJournal {
+
+    static final String WRITER = PersistenceStage.NAME;
+
+    static final String INDEXER = IndexingStage.NAME;
+
+    /**
+     * Length and CRC32 of the body.
+     */
+    private static final int HEADER_SIZE = 4 + 4;
+
+    private static final int MAX_STRING_LENGTH = 0xFE;
+
+    private static final int NULL_STRING = 0xFF;
+
+    static final int MAX_RECORD_SIZE = HEADER_SIZE + 8 + 8 + 1 + 4 + 4 + 8 + 2 * (1 + 2 * MAX_STRING_LENGTH);
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final String OFFSET_SUFFIX = ".offset";
+
+    private final Logger log = LoggerFactory.getLogger(ReadJournal.class);
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    private final Map<String, ConsumerOffset> offsets = new HashMap<>();
+
+    private final CRC32 crc = new CRC32();
+
+    private MappedByteBuffer segment;
+
+    private ByteBuffer crcView;
+
+    private long segmentBase;
+
+    private boolean dirty;
+
+    private volatile long durableOffset;
+
+    ReadJournal(Path directory, long segmentSize) {
+        if (segmentSize < 2 * MAX_RECORD_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid write-ahead log segment size " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize;
+    }
+
+    /**
+     * Map the last segment and the consumer offsets, truncating a torn record at the end of the log.
+     */
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        for (String consumer : new String[] { WRITER, INDEXER }) {
+            offsets.put(consumer, new ConsumerOffset(directory.resolve(consumer + OFFSET_SUFFIX)));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        }
+        if (segments.isEmpty()) {
+            roll(Math.max(getCommittedOffset(WRITER), getCommittedOffset(INDEXER)));
+        } else {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            segment = map(last.getValue(), FileChannel.MapMode.READ_WRITE);
+            segmentBase = last.getKey();
+            crcView = segment.duplicate();
+            recover();
+            deleteConsumedSegments();
+        }
+        durableOffset = getOffset();
+        log.info("Opened the write-ahead log in {} at offset {}", directory, getOffset());
+    }
+
+    private void recover() {
+        int position = 0;
+        int size;
+        while ((size = recordSize(segment, crcView, crc, position)) > 0) {
+            position += size;
+        }
+        boolean torn = false;
+        for (int i = position; i < segment.limit(); i++) {
+            if (segment.get(i) != 0) {
+                segment.put(i, (byte) 0);
+                torn = true;
+            }
+        }
+        if (torn) {
+            log.warn("Discarded a torn record at offset {} of the write-ahead log", segmentBase + position);
+            segment.force();
+        }
+        segment.position(position);
+    }
+
+    /**
+     * @return the offset after the last appended record.
+     */
+    long getOffset() {
+        return segmentBase + segment.position();
+    }
+
+    /**
+     * Append a record, which is only durable once {@link #commit()} returns.
+     *
+     * @return the offset of the record.
+     */
+    long append(ReadEvent event) {
+        if (segment.remaining() < MAX_RECORD_SIZE + HEADER_SIZE) {
+            roll(getOffset());
+        }
+        int start = segment.position();
+        segment.position(start + HEADER_SIZE);
+        segment.putLong(event.getEpcHi()).putLong(event.getEpcLo()).put((byte) event.getEpcLength());
+        segment.putInt(event.getAntenna()).putInt(event.getRssi()).putLong(event.getReadTime());
+        putString(event.getReaderId());
+        putString(event.getZone());
+        int end = segment.position();
+        crcView.clear().limit(end).position(start + HEADER_SIZE);
+        crc.reset();
+        crc.update(crcView);
+        segment.putInt(start, end - start - HEADER_SIZE).putInt(start + 4, (int) crc.getValue());
+        dirty = true;
+        return segmentBase + end;
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            segment.put((byte) NULL_STRING);
+            return;
+        }
+        if (value.length() > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("Value too long for the write-ahead log: " + value.length());
+        }
+        segment.put((byte) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            segment.putChar(value.charAt(i));
+        }
+    }
+
+    /**
+     * Force the records appended since the last commit to disk.
+     */
+    void commit() {
+        if (dirty) {
+            segment.force();
+            dirty = false;
+            durableOffset = getOffset();
+        }
+    }
+
+    /**
+     * @return the offset after the last committed record, safe to read from any thread.
+     */
+    long getDurableOffset() {
+        return durableOffset;
+    }
+
+    private void roll(long base) {
+        if (segment != null) {
+            commit();
+        }
+        Path file = directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+        try {
+            segment = map(file, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the write-ahead log segment " + file, e);
+        }
+        segmentBase = base;
+        crcView = segment.duplicate();
+        segments.put(base, file);
+        deleteConsumedSegments();
+    }
+
+    private MappedByteBuffer map(Path file, FileChannel.MapMode mode) throws IOException {
+        if (mode == FileChannel.MapMode.READ_ONLY) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(mode, 0, channel.size());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Existing segments keep their size if it was reconfigured since
+            return channel.map(mode, 0, channel.size() > 0 ? channel.size() : segmentSize);
+        }
+    }
+
+    private void deleteConsumedSegments() {
+        long consumed = Math.min(getCommittedOffset(WRITER), getCommittedOffset(INDEXER));
+        Map.Entry<Long, Path> first = segments.firstEntry();
+        while (first != null && first.getKey() != segmentBase) {
+            Long next = segments.higherKey(first.getKey());
+            if (next == null || next > consumed) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(first.getValue());
+                log.debug("Deleted the consumed write-ahead log segment {}", first.getValue());
+            } catch (IOException e) {
+                log.warn("Could not delete the write-ahead log segment {}", first.getValue(), e);
+                return;
+            }
+            segments.remove(first.getKey());
+            first = segments.firstEntry();
+        }
+    }
+
+    long getCommittedOffset(String consumer) {
+        return offsets.get(consumer).value;
+    }
+
+    /**
+     * Durably record that a consumer processed every record up to the given offset.
+     * <p>
+     * Each consumer must only commit from a single thread.
+     */
+    void commitOffset(String consumer, long offset) {
+        offsets.get(consumer).commit(offset);
+    }
+
+    /**
+     * @param from the offset to read from.
+     * @return a cursor over the records after {@code from}, which must not be used concurrently with {@link #append}.
+     */
+    Cursor cursor(long from) {
+        return new Cursor(from);
+    }
+
+    void close() {
+        if (segment != null) {
+            commit();
+        }
+    }
+
+    /**
+     * @return the size of the valid record at {@code position}, or {@code -1} if there is none.
+     */
+    private static int recordSize(ByteBuffer buffer, ByteBuffer view, CRC32 crc, int position) {
+        if (position > buffer.limit() - HEADER_SIZE) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.limit() - position - HEADER_SIZE) {
+            return -1;
+        }
+        view.clear().limit(position + HEADER_SIZE + length).position(position + HEADER_SIZE);
+        crc.reset();
+        crc.update(view);
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            return -1;
+        }
+        return HEADER_SIZE + length;
+    }
+
+    /**
+     * Reads the records in order, starting from an offset, through read-only mappings of the segments.
+     */
+    final class Cursor {
+
+        private final CRC32 cursorCrc = new CRC32();
+
+        private long base;
+
+        private ByteBuffer buffer;
+
+        private ByteBuffer view;
+
+        private int position;
+
+        private int size;
+
+        private Cursor(long from) {
+            Map.Entry<Long, Path> entry = segments.floorEntry(from);
+            if (entry == null) {
+                entry = segments.firstEntry();
+            }
+            if (entry != null) {
+                load(entry);
+                position = (int) Math.min(Math.max(from - base, 0), buffer.limit());
+            }
+        }
+
+        private void load(Map.Entry<Long, Path> entry) {
+            try {
+                buffer = map(entry.getValue(), FileChannel.MapMode.READ_ONLY);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the write-ahead log segment " + entry.getValue(), e);
+            }
+            view = buffer.duplicate();
+            base = entry.getKey();
+            position = 0;
+        }
+
+        boolean hasNext() {
+            while (buffer != null) {
+                size = recordSize(buffer, view, cursorCrc, position);
+                if (size > 0) {
+                    return true;
+                }
+                Map.Entry<Long, Path> next = segments.higherEntry(base);
+                if (next == null) {
+                    return false;
+                }
+                load(next);
+            }
+            return false;
+        }
+
+        /**
+         * Fill a slot with the next record, marking it as replayed. Must follow a call to {@link #hasNext()}.
+         *
+         * @return the offset of the record.
+         */
+        long next(ReadEvent event) {
+            int start = position + HEADER_SIZE;
+            long epcHi = buffer.getLong(start);
+            long epcLo = buffer.getLong(start + 8);
+            int epcLength = buffer.get(start + 16) & 0xFF;
+            int antenna = buffer.getInt(start + 17);
+            int rssi = buffer.getInt(start + 21);
+            long readTime = buffer.getLong(start + 25);
+            view.clear().position(start + 33);
+            String readerId = getString(view);
+            String zone = getString(view);
+            position += size;
+            long offset = base + position;
+            event.set(epcHi, epcLo, epcLength, readerId, antenna, rssi, zone, readTime);
+            event.replay(offset);
+            return offset;
+        }
+
+        private String getString(ByteBuffer source) {
+            int length = source.get() & 0xFF;
+            if (length == NULL_STRING) {
+                return null;
+            }
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = source.getChar();
+            }
+            return new String(chars);
+        }
+    }
+
+    private static final class ConsumerOffset {
+
+        private final MappedByteBuffer buffer;
+
+        private volatile long value;
+
+        ConsumerOffset(Path file) throws IOException {
+            try (
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            ) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+            }
+            value = buffer.getLong(0);
+        }
+
+        void commit(long offset) {
+            buffer.putLong(0, offset);
+            buffer.force();
+            value = offset;
+        }
+    }
+}
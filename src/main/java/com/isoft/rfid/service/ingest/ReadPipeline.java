@@ -0,0 +1,399 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.management.IngestionMetersService;
+import com.isoft.rfid.repository.search.BulkIndexer;
+import com.isoft.rfid.service.TagLocationService;
+import com.isoft.rfid.service.TagMovementFeedService;
+import com.isoft.rfid.service.TagReadService;
+import com.isoft.rfid.service.ZoneOccupancyService;
+import com.isoft.rfid.service.dto.TagReadDTO;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands tag reads from the ingestion endpoints over to persistence through a pre-allocated ring buffer.
+ * <p>
+ * The stages run on their own threads, in order: validation, deduplication, then the write-ahead log if it is enabled,
+ * then the PostgreSQL writer, then the hand-off to the Elasticsearch bulk indexer. Each stage batches on its own
+ * cadence, and its lag behind the producers is exposed as the {@code ingestion.pipeline.lag} gauge. The reads passed on
+ * by deduplication also feed the {@link ZoneOccupancyService} and the live {@link TagMovementFeedService}, in parallel
+ * with the writer, and all the valid reads feed the {@link TagLocationService}, in parallel with deduplication.
+ * <p>
+ * The writer retries failed batches until they succeed, or until the pipeline stops. With the write-ahead log, the
+ * writer and the indexer commit their own offset in the {@link ReadJournal}. On startup, the reads the writer had not
+ * committed are replayed through the ring buffer, and the ones which were written but not handed over to the indexer
+ * are indexed again from the database.
+ */
+@Service
+public class ReadPipeline implements SmartLifecycle {
+
+    private final Logger log = LoggerFactory.getLogger(ReadPipeline.class);
+
+    private static final int MAX_CLAIM = 1024;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Disruptor<ReadEvent> disruptor;
+
+    private final RingBuffer<ReadEvent> ringBuffer;
+
+    private final int maxClaim;
+
+    private final IngestionMetersService ingestionMetersService;
+
+    private final TagReadService tagReadService;
+
+    private final BulkIndexer bulkIndexer;
+
+    private final ReadJournal journal;
+
+    private final JournalStage journalStage;
+
+    private final PersistenceStage writer;
+
+    private final IndexingStage indexer;
+
+    private final int indexerBatchSize;
+
+    private volatile boolean running;
+
+    public ReadPipeline(
+        ApplicationProperties applicationProperties,
+        TagReadService tagReadService,
+        BulkIndexer bulkIndexer,
+        ZoneOccupancyService zoneOccupancyService,
+        TagLocationService tagLocationService,
+        TagMovementFeedService tagMovementFeedService,
+        IngestionMetersService ingestionMetersService,
+        MeterRegistry meterRegistry
+    ) {
+        this.ingestionMetersService = ingestionMetersService;
+        this.tagReadService = tagReadService;
+        this.bulkIndexer = bulkIndexer;
+        ApplicationProperties.Ingestion ingestion = applicationProperties.getIngestion();
+        this.indexerBatchSize = ingestion.getIndexerBatchSize();
+        ApplicationProperties.Wal wal = applicationProperties.getWal();
+        this.journal = wal.isEnabled() ? new ReadJournal(Paths.get(wal.getDirectory()), wal.getSegmentSize().toBytes()) : null;
+        this.disruptor =
+            new Disruptor<>(
+                ReadEvent.FACTORY,
+                ingestion.getRingBufferSize(),
+                new CustomizableThreadFactory("rfid-revamp-elk-ingest-"),
+                ProducerType.MULTI,
+                new BlockingWaitStrategy()
+            );
+        this.disruptor.setDefaultExceptionHandler(new LoggingExceptionHandler());
+
+        ValidationStage validation = new ValidationStage(ingestionMetersService);
+        DeduplicationStage deduplication = new DeduplicationStage(
+            ingestionMetersService,
+            ingestion.getDedupWindow(),
+            ingestion.getDedupExpectedKeys()
+        );
+        this.writer =
+            new PersistenceStage(
+                tagReadService,
+                journal,
+                ingestion.getWriterBatchSize(),
+                ingestion.getWriterInitialBackoff(),
+                ingestion.getWriterMaxBackoff()
+            );
+        this.indexer = new IndexingStage(bulkIndexer, journal, ingestion.getIndexerBatchSize());
+        OccupancyStage occupancy = new OccupancyStage(zoneOccupancyService);
+        LocationStage location = new LocationStage(tagLocationService);
+        FeedStage feed = new FeedStage(tagMovementFeedService);
+        if (journal == null) {
+            this.journalStage = null;
+            this.disruptor.handleEventsWith(validation).then(deduplication).then(writer).then(indexer);
+        } else {
+            this.journalStage = new JournalStage(journal);
+            this.disruptor.handleEventsWith(validation).then(deduplication).then(journalStage).then(writer).then(indexer);
+        }
+        this.disruptor.after(deduplication).handleEventsWith(occupancy, feed);
+        this.disruptor.after(validation).handleEventsWith(location);
+
+        this.ringBuffer = disruptor.getRingBuffer();
+        this.maxClaim = Math.min(MAX_CLAIM, ringBuffer.getBufferSize());
+
+        registerLagGauge(meterRegistry, ValidationStage.NAME, validation);
+        registerLagGauge(meterRegistry, DeduplicationStage.NAME, deduplication);
+        if (journalStage != null) {
+            registerLagGauge(meterRegistry, JournalStage.NAME, journalStage);
+        }
+        registerLagGauge(meterRegistry, PersistenceStage.NAME, writer);
+        registerLagGauge(meterRegistry, IndexingStage.NAME, indexer);
+        registerLagGauge(meterRegistry, OccupancyStage.NAME, occupancy);
+        registerLagGauge(meterRegistry, LocationStage.NAME, location);
+        registerLagGauge(meterRegistry, FeedStage.NAME, feed);
+        Gauge
+            .builder("ingestion.pipeline.remaining-capacity", ringBuffer, RingBuffer::remainingCapacity)
+            .description("Number of free slots in the ingestion ring buffer.")
+            .baseUnit("reads")
+            .register(meterRegistry);
+    }
+
+    private void registerLagGauge(MeterRegistry meterRegistry, String stage, EventHandler<ReadEvent> handler) {
+        Gauge
+            .builder("ingestion.pipeline.lag", this, pipeline -> pipeline.getLag(handler))
+            .description("Number of published reads not yet processed by a stage of the ingestion pipeline.")
+            .baseUnit("reads")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+
+    private long getLag(EventHandler<ReadEvent> handler) {
+        return ringBuffer.getCursor() - disruptor.getSequenceValueFor(handler);
+    }
+
+    /**
+     * Publish the given reads to the ring buffer, blocking while it is full.
+     *
+     * @param reads the reads to publish.
+     */
+    public void publish(List<TagReadDTO> reads) {
+        if (!running) {
+            throw new IllegalStateException("The ingestion pipeline is not running");
+        }
+        int next = 0;
+        while (next < reads.size()) {
+            int count = Math.min(reads.size() - next, maxClaim);
+            long hi = ringBuffer.next(count);
+            long lo = hi - count + 1;
+            long sequence = lo;
+            try {
+                for (; sequence <= hi; sequence++) {
+                    translate(reads.get(next++), ringBuffer.get(sequence));
+                }
+            } finally {
+                clear(sequence, hi);
+                ringBuffer.publish(lo, hi);
+            }
+        }
+        ingestionMetersService.trackReadsPublished(reads.size());
+    }
+
+    /**
+     * Publish reads to the ring buffer if it has room for all of them, without blocking.
+     *
+     * @param count the number of reads, at most the size of the ring buffer.
+     * @param source fills a slot for each read, in order.
+     * @return the sequence of the last read, to compare with {@link #getDurableSequence()}, or {@code -1} if the ring
+     * buffer is full, in which case nothing was read from {@code source}.
+     */
+    public long tryPublish(int count, ReadSource source) {
+        if (!running) {
+            throw new IllegalStateException("The ingestion pipeline is not running");
+        }
+        if (count == 0) {
+            return ringBuffer.getCursor();
+        }
+        long hi;
+        try {
+            hi = ringBuffer.tryNext(count);
+        } catch (InsufficientCapacityException e) {
+            return -1;
+        }
+        long lo = hi - count + 1;
+        long sequence = lo;
+        try {
+            for (; sequence <= hi; sequence++) {
+                source.next(ringBuffer.get(sequence));
+            }
+        } finally {
+            clear(sequence, hi);
+            ringBuffer.publish(lo, hi);
+        }
+        ingestionMetersService.trackReadsPublished(count);
+        return hi;
+    }
+
+    /**
+     * @return the number of slots of the ring buffer.
+     */
+    public int getBufferSize() {
+        return ringBuffer.getBufferSize();
+    }
+
+    /**
+     * @return the number of published reads which are not fully processed yet.
+     */
+    public long getBacklog() {
+        return ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
+    }
+
+    /**
+     * @return the sequence up to which published reads went through every stage.
+     */
+    public long getProcessedSequence() {
+        return disruptor.getSequenceValueFor(indexer);
+    }
+
+    /**
+     * @return the number of bytes of the write-ahead log which the writer did not commit yet, {@code 0} without it.
+     */
+    public long getJournalLag() {
+        return journal == null ? 0 : Math.max(0, journal.getDurableOffset() - journal.getCommittedOffset(ReadJournal.WRITER));
+    }
+
+    /**
+     * @return the offset of the write-ahead log committed by the writer, {@code 0} without it.
+     */
+    public long getJournalWriterOffset() {
+        return journal == null ? 0 : journal.getCommittedOffset(ReadJournal.WRITER);
+    }
+
+    /**
+     * @return the sequence up to which published reads are durable: written to the write-ahead log if it is enabled,
+     * only published otherwise.
+     */
+    public long getDurableSequence() {
+        return journalStage == null ? ringBuffer.getCursor() : disruptor.getSequenceValueFor(journalStage);
+    }
+
+    /**
+     * Claimed slots must be published, even if they could not be filled: clear them so that the validation stage
+     * rejects them, rather than the stale reads of a previous lap of the ring buffer being processed again.
+     */
+    private void clear(long from, long to) {
+        for (long sequence = from; sequence <= to; sequence++) {
+            ringBuffer.get(sequence).set(0, 0, 0, null, ReadEvent.NO_VALUE, ReadEvent.NO_VALUE, null, 0);
+        }
+    }
+
+    private static void translate(TagReadDTO read, ReadEvent event) {
+        event.set(
+            read.getEpc(),
+            read.getReaderId(),
+            read.getAntenna() == null ? ReadEvent.NO_VALUE : read.getAntenna(),
+            read.getRssi() == null ? ReadEvent.NO_VALUE : read.getRssi(),
+            read.getZone(),
+            read.getReadTime() == null ? 0 : read.getReadTime().toEpochMilli()
+        );
+    }
+
+    @Override
+    public void start() {
+        log.debug("Starting the ingestion pipeline with {} slots", ringBuffer.getBufferSize());
+        if (journal != null) {
+            try {
+                journal.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open the write-ahead log", e);
+            }
+            reindex(journal.getCommittedOffset(ReadJournal.INDEXER), journal.getCommittedOffset(ReadJournal.WRITER));
+        }
+        disruptor.start();
+        if (journal != null) {
+            replay(journal.getCommittedOffset(ReadJournal.WRITER));
+        }
+        running = true;
+    }
+
+    /**
+     * Index again the reads which were written to the database, but not handed over to the indexer before a restart.
+     */
+    private void reindex(long from, long to) {
+        if (from >= to) {
+            return;
+        }
+        ReadJournal.Cursor cursor = journal.cursor(from);
+        ReadEvent event = ReadEvent.FACTORY.newInstance();
+        List<TagRead> tagReads = new ArrayList<>(indexerBatchSize);
+        int count = 0;
+        while (cursor.hasNext() && cursor.next(event) <= to) {
+            tagReadService.findPersisted(event.toTagRead()).ifPresent(tagReads::add);
+            if (tagReads.size() >= indexerBatchSize) {
+                bulkIndexer.indexAll(tagReads);
+                count += tagReads.size();
+                tagReads.clear();
+            }
+        }
+        bulkIndexer.indexAll(tagReads);
+        count += tagReads.size();
+        journal.commitOffset(ReadJournal.INDEXER, to);
+        log.info("Indexed {} reads again from the write-ahead log", count);
+    }
+
+    /**
+     * Publish the reads which were not written to the database before a restart, once the stages are running.
+     */
+    private void replay(long from) {
+        ReadJournal.Cursor cursor = journal.cursor(from);
+        int count = 0;
+        while (cursor.hasNext()) {
+            long sequence = ringBuffer.next();
+            try {
+                cursor.next(ringBuffer.get(sequence));
+            } finally {
+                ringBuffer.publish(sequence);
+            }
+            count++;
+        }
+        if (count > 0) {
+            log.info("Replayed {} reads from the write-ahead log", count);
+        }
+    }
+
+    @Override
+    public void stop() {
+        log.debug("Draining the ingestion pipeline");
+        running = false;
+        // Batches still failing are left in the write-ahead log, for the next startup
+        writer.stopRetrying();
+        try {
+            disruptor.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("The ingestion pipeline could not be drained in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+            disruptor.halt();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class LoggingExceptionHandler implements ExceptionHandler<ReadEvent> {
+
+        private final Logger log = LoggerFactory.getLogger(LoggingExceptionHandler.class);
+
+        @Override
+        public void handleEventException(Throwable ex, long sequence, ReadEvent event) {
+            log.error("Ingestion stage failed to process {} at sequence {}", event, sequence, ex);
+        }
+
+        @Override
+        public void handleOnStartException(Throwable ex) {
+            log.error("Ingestion stage failed to start", ex);
+        }
+
+        @Override
+        public void handleOnShutdownException(Throwable ex) {
+            log.error("Ingestion stage failed to shut down", ex);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.isoft.rfid.service.ingest;
+
+/**
+ * A channel which decodes its reads straight into ring buffer slots, without intermediate objects.
+ *
+ * @see ReadPipeline#tryPublish(int, ReadSource)
+ */
+@FunctionalInterface
+public interface ReadSource {
+    /**
+     * Fill a slot with the next read, using one of the {@code ReadEvent.set} methods.
+     *
+     * @param event the slot to fill.
+     */
+    void next(ReadEvent event);
+}
@@ -0,0 +1,57 @@
+package com.isoft.rfid.service.ingest;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.management.IngestionMetersService;
+import com.lmax.disruptor.EventHandler;
+import java.time.Duration;
+
+/**
+ * First stage of the pipeline: rejects reads which cannot be persisted.
+ * <p>
+ * The REST layer already validates its DTOs, but other ingestion channels feed the ring buffer directly, so the checks
+ * are done here without allocating (EPCs are checked as their binary words, no intermediate objects).
+ */
+class ValidationStage implements EventHandler<ReadEvent> {
+
+    static final String NAME = "validation";
+
+    private static final int MAX_READER_ID_LENGTH = 50;
+
+    private static final int MAX_ZONE_LENGTH = 50;
+
+    private static final long MAX_CLOCK_SKEW_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private final IngestionMetersService ingestionMetersService;
+
+    ValidationStage(IngestionMetersService ingestionMetersService) {
+        this.ingestionMetersService = ingestionMetersService;
+    }
+
+    @Override
+    public void onEvent(ReadEvent event, long sequence, boolean endOfBatch) {
+        if (!isValid(event, System.currentTimeMillis())) {
+            event.reject();
+            ingestionMetersService.trackReadRejected();
+        }
+    }
+
+    static boolean isValid(ReadEvent event, long now) {
+        return (
+            Epc.isValidLength(event.getEpcLength()) &&
+            fits(event.getEpcHi(), event.getEpcLength()) &&
+            event.getReaderId() != null &&
+            !event.getReaderId().isEmpty() &&
+            event.getReaderId().length() <= MAX_READER_ID_LENGTH &&
+            (event.getZone() == null || event.getZone().length() <= MAX_ZONE_LENGTH) &&
+            event.getReadTime() > 0 &&
+            event.getReadTime() <= now + MAX_CLOCK_SKEW_MILLIS
+        );
+    }
+
+    /**
+     * Binary channels may write the EPC words directly: the bytes above its length must be zero.
+     */
+    private static boolean fits(long epcHi, int epcLength) {
+        return epcLength == Epc.MAX_LENGTH || (epcHi >>> ((epcLength - 8) * 8)) == 0;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-process pipeline moving tag reads from the ingestion endpoints to persistence.
+ */
+package com.isoft.rfid.service.ingest;
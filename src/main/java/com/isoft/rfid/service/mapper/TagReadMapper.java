@@ -0,0 +1,11 @@
+package com.isoft.rfid.service.mapper;
+
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.dto.TagReadDTO;
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link TagRead} and its DTO {@link TagReadDTO}.
+ */
+@Mapper(componentModel = "spring")
+public interface TagReadMapper extends EntityMapper<TagReadDTO, TagRead> {}
@@ -2,13 +2,16 @@ package com.isoft.rfid.web.rest;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
+import com.isoft.rfid.domain.User;
+import com.isoft.rfid.repository.CursorPage;
 import com.isoft.rfid.repository.search.UserSearchRepository;
 import com.isoft.rfid.service.UserService;
 import com.isoft.rfid.service.dto.UserDTO;
+import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
+import com.isoft.rfid.web.rest.util.CursorPaginationUtil;
 import java.util.*;
 import java.util.Collections;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -29,6 +32,13 @@ public class PublicUserResource {
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
 
+    /**
+     * Header of the cursor of the next page of search results.
+     */
+    public static final String NEXT_CURSOR_HEADER = CursorPaginationUtil.NEXT_CURSOR_HEADER;
+
+    private static final int MAX_SEARCH_PAGE_SIZE = 1000;
+
     private final Logger log = LoggerFactory.getLogger(PublicUserResource.class);
 
     private final UserService userService;
@@ -41,16 +51,41 @@ public class PublicUserResource {
 
     /**
      * {@code GET /users} : get all users with only the public informations - calling this are allowed for anyone.
+     * <p>
+     * With a {@code cursor} parameter, empty for the first page, the pages are read with keyset queries, sorted by at
+     * most one property, and the total count is only returned if requested.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     * @param cursor the cursor of the page, to paginate with keyset queries.
+     * @param count whether to return the total count of keyset pages.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users, or with status
+     * {@code 400 (Bad Request)} if the cursor is invalid.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllPublicUsers(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<List<UserDTO>> getAllPublicUsers(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "false") boolean count
+    ) {
         log.debug("REST request to get all public User names");
         if (!onlyContainsAllowedProperties(pageable)) {
             return ResponseEntity.badRequest().build();
         }
+        if (cursor != null) {
+            CursorPage<UserDTO> page;
+            try {
+                Sort.Order order = CursorPaginationUtil.getKeysetOrder(pageable);
+                page = userService.getAllPublicUsers(order, CursorPaginationUtil.getCursor(cursor), pageable.getPageSize());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException(e.getMessage(), "userManagement", "invalidcursor");
+            }
+            HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page,
+                count ? userService.countPublicUsers() : null
+            );
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
 
         final Page<UserDTO> page = userService.getAllPublicUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -71,13 +106,37 @@ public class PublicUserResource {
     }
 
     /**
-     * {@code SEARCH /_search/users/:query} : search for the User corresponding to the query.
+     * {@code SEARCH /_search/users/:query} : search for the User corresponding to the query, page by page.
+     * <p>
+     * The cursor of the next page is returned in the {@code X-Next-Cursor} header, and in a {@code next} link.
      *
      * @param query the query to search.
-     * @return the result of the search.
+     * @param cursor the cursor of the page, none for the first page.
+     * @param size the maximum number of users in the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and a page of the result of the search in body, or with status
+     * {@code 400 (Bad Request)} if the cursor is invalid or expired.
      */
     @GetMapping("/_search/users/{query}")
-    public List<UserDTO> search(@PathVariable String query) {
-        return StreamSupport.stream(userSearchRepository.search(query).spliterator(), false).map(UserDTO::new).collect(Collectors.toList());
+    public ResponseEntity<List<UserDTO>> search(
+        @PathVariable String query,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to search a page of Users for query {}", query);
+        CursorPage<User> page;
+        try {
+            page = userSearchRepository.search(query, cursor, Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), "userManagement", "invalidcursor");
+        }
+        HttpHeaders headers = new HttpHeaders();
+        page
+            .getNextCursor()
+            .ifPresent(next -> {
+                headers.add(NEXT_CURSOR_HEADER, next);
+                String link = ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("cursor", next).toUriString();
+                headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+            });
+        return new ResponseEntity<>(page.getContent().stream().map(UserDTO::new).collect(Collectors.toList()), headers, HttpStatus.OK);
     }
 }
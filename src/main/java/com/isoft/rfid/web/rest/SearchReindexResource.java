@@ -0,0 +1,77 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.security.AuthoritiesConstants;
+import com.isoft.rfid.service.SearchReindexService;
+import com.isoft.rfid.service.dto.ReindexStatusDTO;
+import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for rebuilding the search indices from the database.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class SearchReindexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private static final String ENTITY_NAME = "searchIndex";
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * {@code GET  /search/indices} : get the indices which can be rebuilt.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the index names in body.
+     */
+    @GetMapping("/search/indices")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public List<String> getIndexNames() {
+        return searchReindexService.getIndexNames();
+    }
+
+    /**
+     * {@code POST  /search/indices/:indexName/reindex} : start rebuilding an index from the database.
+     *
+     * @param indexName the name of the index.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the status of the rebuild in body, or with
+     * status {@code 400 (Bad Request)} if the index is unknown or already being rebuilt.
+     */
+    @PostMapping("/search/indices/{indexName}/reindex")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<ReindexStatusDTO> reindex(@PathVariable String indexName) {
+        log.debug("REST request to rebuild index : {}", indexName);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(searchReindexService.reindex(indexName));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "unknownindex");
+        } catch (IllegalStateException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "reindexrunning");
+        }
+    }
+
+    /**
+     * {@code GET  /search/indices/:indexName/reindex} : get the status of the last rebuild of an index.
+     *
+     * @param indexName the name of the index.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the status in body, or with status
+     * {@code 404 (Not Found)} if the index was not rebuilt since startup.
+     */
+    @GetMapping("/search/indices/{indexName}/reindex")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<ReindexStatusDTO> getReindexStatus(@PathVariable String indexName) {
+        log.debug("REST request to get the rebuild status of index : {}", indexName);
+        return ResponseUtil.wrapOrNotFound(searchReindexService.getStatus(indexName));
+    }
+}
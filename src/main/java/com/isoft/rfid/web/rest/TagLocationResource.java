@@ -0,0 +1,48 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.TagLocationService;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for the last known location of tags.
+ */
+@RestController
+@RequestMapping("/api")
+public class TagLocationResource {
+
+    private final Logger log = LoggerFactory.getLogger(TagLocationResource.class);
+
+    private static final String ENTITY_NAME = "tagLocation";
+
+    private final TagLocationService tagLocationService;
+
+    public TagLocationResource(TagLocationService tagLocationService) {
+        this.tagLocationService = tagLocationService;
+    }
+
+    /**
+     * {@code GET  /tags/:epc/location} : get where a tag was last read.
+     *
+     * @param epc the EPC of the tag, in hex.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the last read in body, or with status {@code 404 (Not Found)}
+     * if the tag was never read, or with status {@code 400 (Bad Request)} if the EPC is invalid.
+     */
+    @GetMapping("/tags/{epc}/location")
+    public ResponseEntity<TagLocationDTO> getLocation(@PathVariable String epc) {
+        log.debug("REST request to get the location of tag : {}", epc);
+        Epc parsed;
+        try {
+            parsed = Epc.parse(epc);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidepc");
+        }
+        return ResponseUtil.wrapOrNotFound(tagLocationService.findLocation(parsed));
+    }
+}
@@ -0,0 +1,39 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.service.TagMovementFeedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller for the live feed of tag movements.
+ */
+@RestController
+@RequestMapping("/api")
+public class TagMovementResource {
+
+    private final Logger log = LoggerFactory.getLogger(TagMovementResource.class);
+
+    private final TagMovementFeedService tagMovementFeedService;
+
+    public TagMovementResource(TagMovementFeedService tagMovementFeedService) {
+        this.tagMovementFeedService = tagMovementFeedService;
+    }
+
+    /**
+     * {@code GET  /tags/movements} : stream the movements of the tags as Server-Sent Events.
+     * <p>
+     * Each accepted read is sent as a {@code movement} event, with the new location of its tag. A client which falls
+     * behind only gets the latest movement of each tag.
+     *
+     * @param zone the zone to follow, all the zones if not set.
+     * @return the event stream, which ends when the subscription times out: clients are expected to reconnect.
+     */
+    @GetMapping(path = "/tags/movements", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMovements(@RequestParam(required = false) String zone) {
+        log.debug("REST request to stream the movements of tags in zone : {}", zone);
+        return tagMovementFeedService.subscribe(zone);
+    }
+}
@@ -0,0 +1,112 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.service.TagReadService;
+import com.isoft.rfid.service.dto.TagReadDTO;
+import com.isoft.rfid.service.ingest.AdmissionController;
+import com.isoft.rfid.service.ingest.ReadPipeline;
+import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
+import java.time.Instant;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for ingesting and searching {@link com.isoft.rfid.domain.TagRead}s.
+ */
+@RestController
+@RequestMapping("/api")
+@Validated
+public class TagReadResource {
+
+    private final Logger log = LoggerFactory.getLogger(TagReadResource.class);
+
+    private static final String ENTITY_NAME = "tagRead";
+
+    private final ReadPipeline readPipeline;
+
+    private final TagReadService tagReadService;
+
+    private final AdmissionController admissionController;
+
+    private final int maxBatchSize;
+
+    public TagReadResource(
+        ReadPipeline readPipeline,
+        TagReadService tagReadService,
+        AdmissionController admissionController,
+        ApplicationProperties applicationProperties
+    ) {
+        this.readPipeline = readPipeline;
+        this.tagReadService = tagReadService;
+        this.admissionController = admissionController;
+        this.maxBatchSize = applicationProperties.getIngestion().getMaxBatchSize();
+    }
+
+    /**
+     * {@code POST  /reads/batch} : Ingest a batch of tag reads.
+     * <p>
+     * The reads are handed over to the ingestion pipeline, and persisted asynchronously. When the pipeline falls behind,
+     * the batch is shed and must be sent again after the {@code Retry-After} delay.
+     *
+     * @param tagReadDTOs the reads to ingest.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}, or with status {@code 400 (Bad Request)} if the batch is too large,
+     * or with status {@code 429 (Too Many Requests)} or {@code 503 (Service Unavailable)} if it was shed.
+     */
+    @PostMapping("/reads/batch")
+    public ResponseEntity<Void> createTagReadBatch(@RequestBody @NotEmpty List<@Valid TagReadDTO> tagReadDTOs) {
+        log.debug("REST request to save a batch of {} TagReads", tagReadDTOs.size());
+        if (tagReadDTOs.size() > maxBatchSize) {
+            throw new BadRequestAlertException("A batch cannot contain more than " + maxBatchSize + " reads", ENTITY_NAME, "batchtoolarge");
+        }
+        if (tagReadDTOs.stream().anyMatch(tagReadDTO -> tagReadDTO.getId() != null)) {
+            throw new BadRequestAlertException("A new tagRead cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        admissionController.admit(tagReadDTOs.size());
+        readPipeline.publish(tagReadDTOs);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * {@code SEARCH  /_search/reads?query=:query&from=:from&to=:to} : search for the tag reads corresponding to the
+     * query, read within a time range.
+     * <p>
+     * Only the rolling indices of the periods covering the range are searched.
+     *
+     * @param query the query of the tagRead search.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, inclusive.
+     * @param pageable the pagination information.
+     * @return the result of the search, or with status {@code 400 (Bad Request)} if the range ends before it starts.
+     */
+    @GetMapping("/_search/reads")
+    public ResponseEntity<List<TagReadDTO>> searchTagReads(
+        @RequestParam String query,
+        @RequestParam Instant from,
+        @RequestParam Instant to,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search for a page of TagReads for query {} from {} to {}", query, from, to);
+        if (to.isBefore(from)) {
+            throw new BadRequestAlertException("The range of a search cannot end before it starts", ENTITY_NAME, "invalidrange");
+        }
+        Page<TagReadDTO> page;
+        try {
+            page = tagReadService.search(query, from, to, pageable);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidrange");
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+}
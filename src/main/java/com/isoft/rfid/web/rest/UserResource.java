@@ -2,8 +2,11 @@ package com.isoft.rfid.web.rest;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoft.rfid.config.ApplicationProperties;
 import com.isoft.rfid.config.Constants;
 import com.isoft.rfid.domain.User;
+import com.isoft.rfid.repository.CursorPage;
 import com.isoft.rfid.repository.UserRepository;
 import com.isoft.rfid.security.AuthoritiesConstants;
 import com.isoft.rfid.service.MailService;
@@ -12,8 +15,11 @@ import com.isoft.rfid.service.dto.AdminUserDTO;
 import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
 import com.isoft.rfid.web.rest.errors.EmailAlreadyUsedException;
 import com.isoft.rfid.web.rest.errors.LoginAlreadyUsedException;
+import com.isoft.rfid.web.rest.util.CursorPaginationUtil;
+import com.isoft.rfid.web.rest.util.JsonStreamingUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.*;
 import java.util.Collections;
 import java.util.stream.Collectors;
@@ -31,6 +37,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -91,10 +98,22 @@ public class UserResource {
 
     private final MailService mailService;
 
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService) {
+    private final ObjectMapper objectMapper;
+
+    private final Duration streamingTimeout;
+
+    public UserResource(
+        UserService userService,
+        UserRepository userRepository,
+        MailService mailService,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.mailService = mailService;
+        this.objectMapper = objectMapper;
+        this.streamingTimeout = applicationProperties.getStreaming().getRequestTimeout();
     }
 
     /**
@@ -161,25 +180,76 @@ public class UserResource {
 
     /**
      * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
+     * <p>
+     * With a {@code cursor} parameter, empty for the first page, the pages are read with keyset queries, sorted by at
+     * most one property, and the total count is only returned if requested.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     * @param cursor the cursor of the page, to paginate with keyset queries.
+     * @param count whether to return the total count of keyset pages.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users, or with status
+     * {@code 400 (Bad Request)} if the cursor is invalid.
      */
     @GetMapping("/users")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
-    public ResponseEntity<List<AdminUserDTO>> getAllUsers(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<List<AdminUserDTO>> getAllUsers(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "false") boolean count
+    ) {
         log.debug("REST request to get all User for an admin");
-        if (!onlyContainsAllowedProperties(pageable)) {
+        if (!onlyContainsAllowedProperties(pageable.getSort())) {
             return ResponseEntity.badRequest().build();
         }
+        if (cursor != null) {
+            CursorPage<AdminUserDTO> page;
+            try {
+                Sort.Order order = CursorPaginationUtil.getKeysetOrder(pageable);
+                page = userService.getAllManagedUsers(order, CursorPaginationUtil.getCursor(cursor), pageable.getPageSize());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException(e.getMessage(), "userManagement", "invalidcursor");
+            }
+            HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page,
+                count ? userService.countManagedUsers() : null
+            );
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
 
         final Page<AdminUserDTO> page = userService.getAllManagedUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
-    private boolean onlyContainsAllowedProperties(Pageable pageable) {
-        return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
+    /**
+     * {@code GET /admin/users?stream=true} : get all users with all the details, in a single response - calling this are
+     * only allowed for the administrators.
+     * <p>
+     * The users are read from the database and written out as they come, so that exporting all of them takes the same
+     * memory however many there are, within {@code application.streaming.request-timeout}.
+     *
+     * @param sort the order of the users, by id if not set.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users, or with status
+     * {@code 400 (Bad Request)} if the sort is not allowed.
+     */
+    @GetMapping(path = "/users", params = "stream=true")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(Sort sort) {
+        log.debug("REST request to stream all User for an admin");
+        if (!onlyContainsAllowedProperties(sort)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return JsonStreamingUtil.streamJsonArray(
+            objectMapper,
+            AdminUserDTO.class,
+            action -> userService.streamAllManagedUsers(sort, action),
+            streamingTimeout
+        );
+    }
+
+    private boolean onlyContainsAllowedProperties(Sort sort) {
+        return sort.stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
 
     /**
@@ -0,0 +1,73 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.ZoneOccupancyService;
+import com.isoft.rfid.service.dto.TagPresenceDTO;
+import com.isoft.rfid.service.dto.ZoneOccupancyDTO;
+import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for the zone occupancy and the presence of tags, aggregated from the read stream.
+ */
+@RestController
+@RequestMapping("/api")
+public class ZoneOccupancyResource {
+
+    private final Logger log = LoggerFactory.getLogger(ZoneOccupancyResource.class);
+
+    private static final String ENTITY_NAME = "tagPresence";
+
+    private final ZoneOccupancyService zoneOccupancyService;
+
+    public ZoneOccupancyResource(ZoneOccupancyService zoneOccupancyService) {
+        this.zoneOccupancyService = zoneOccupancyService;
+    }
+
+    /**
+     * {@code GET  /zones/occupancy} : get the number of tags present in each zone.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of occupancies in body.
+     */
+    @GetMapping("/zones/occupancy")
+    public List<ZoneOccupancyDTO> getOccupancies() {
+        log.debug("REST request to get the occupancy of all zones");
+        return zoneOccupancyService.getOccupancies();
+    }
+
+    /**
+     * {@code GET  /zones/:zone/occupancy} : get the number of tags present in a zone.
+     *
+     * @param zone the zone.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the occupancy in body, 0 for an unknown zone.
+     */
+    @GetMapping("/zones/{zone}/occupancy")
+    public ZoneOccupancyDTO getOccupancy(@PathVariable String zone) {
+        log.debug("REST request to get the occupancy of zone : {}", zone);
+        return zoneOccupancyService.getOccupancy(zone);
+    }
+
+    /**
+     * {@code GET  /tags/:epc/presence} : get the zone a tag is in, and its dwell time there.
+     *
+     * @param epc the EPC of the tag, in hex.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the presence in body, or with status {@code 404 (Not Found)}
+     * if the tag is not in any zone, or with status {@code 400 (Bad Request)} if the EPC is invalid.
+     */
+    @GetMapping("/tags/{epc}/presence")
+    public ResponseEntity<TagPresenceDTO> getPresence(@PathVariable String epc) {
+        log.debug("REST request to get the presence of tag : {}", epc);
+        Epc parsed;
+        try {
+            parsed = Epc.parse(epc);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidepc");
+        }
+        return ResponseUtil.wrapOrNotFound(zoneOccupancyService.findPresence(parsed));
+    }
+}
@@ -12,6 +12,8 @@ public final class ErrorConstants {
     public static final URI INVALID_PASSWORD_TYPE = URI.create(PROBLEM_BASE_URL + "/invalid-password");
     public static final URI EMAIL_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/email-already-used");
     public static final URI LOGIN_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/login-already-used");
+    public static final URI INGESTION_OVERLOADED_TYPE = URI.create(PROBLEM_BASE_URL + "/ingestion-overloaded");
+    public static final URI PASSWORD_HASHING_REJECTED_TYPE = URI.create(PROBLEM_BASE_URL + "/password-hashing-rejected");
 
     private ErrorConstants() {}
 }
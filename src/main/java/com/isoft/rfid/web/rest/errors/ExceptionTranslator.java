@@ -1,5 +1,6 @@
 package com.isoft.rfid.web.rest.errors;
 
+import com.isoft.rfid.service.ingest.IngestionOverloadedException;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
@@ -14,6 +15,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -149,6 +151,37 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleIngestionOverloadedException(IngestionOverloadedException ex, NativeWebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfter().getSeconds()));
+        Problem problem = Problem
+            .builder()
+            .withType(ErrorConstants.INGESTION_OVERLOADED_TYPE)
+            .withTitle("Ingestion overloaded")
+            .withStatus(ex.getReason().isUnavailable() ? Status.SERVICE_UNAVAILABLE : Status.TOO_MANY_REQUESTS)
+            .withDetail(ex.getMessage())
+            .build();
+        return create(ex, problem, request, headers);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePasswordHashingRejectedException(
+        com.isoft.rfid.security.PasswordHashingRejectedException ex,
+        NativeWebRequest request
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfter().getSeconds()));
+        Problem problem = Problem
+            .builder()
+            .withType(ErrorConstants.PASSWORD_HASHING_REJECTED_TYPE)
+            .withTitle("Password hashing overloaded")
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withDetail(ex.getMessage())
+            .build();
+        return create(ex, problem, request, headers);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(
@@ -0,0 +1,84 @@
+package com.isoft.rfid.web.rest.util;
+
+import com.isoft.rfid.repository.CursorPage;
+import java.util.Iterator;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for keyset pagination, the counterpart of {@link tech.jhipster.web.util.PaginationUtil} for pages
+ * requested with a {@code cursor} parameter, empty for the first page.
+ * <p>
+ * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">GitHub API</a>, with
+ * {@code next} and {@code first} links. The cursor of the next page is also returned in the {@code X-Next-Cursor}
+ * header, and the total number of elements in the {@code X-Total-Count} header, only if requested.
+ */
+public final class CursorPaginationUtil {
+
+    /**
+     * Header of the cursor of the next page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private CursorPaginationUtil() {}
+
+    /**
+     * @param pageable the pagination information, sorted by at most one property.
+     * @return the sort of the keyset pages, or {@code null} to sort by id.
+     * @throws IllegalArgumentException if sorted by several properties.
+     */
+    public static Sort.Order getKeysetOrder(Pageable pageable) {
+        Iterator<Sort.Order> orders = pageable.getSort().iterator();
+        if (!orders.hasNext()) {
+            return null;
+        }
+        Sort.Order order = orders.next();
+        if (orders.hasNext()) {
+            throw new IllegalArgumentException("Pages requested with a cursor can only be sorted by one property");
+        }
+        return order;
+    }
+
+    /**
+     * @param cursor the {@code cursor} parameter.
+     * @return the cursor of the page, or {@code null} for the first page.
+     */
+    public static String getCursor(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : cursor;
+    }
+
+    /**
+     * Generate pagination headers for a keyset page.
+     *
+     * @param uriBuilder the URI of the current page.
+     * @param page the page.
+     * @param totalCount the total number of elements, or {@code null} if not requested.
+     * @return the headers.
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(UriComponentsBuilder uriBuilder, CursorPage<?> page, Long totalCount) {
+        HttpHeaders headers = new HttpHeaders();
+        if (totalCount != null) {
+            headers.add(TOTAL_COUNT_HEADER, Long.toString(totalCount));
+        }
+        StringBuilder link = new StringBuilder();
+        page
+            .getNextCursor()
+            .ifPresent(next -> {
+                headers.add(NEXT_CURSOR_HEADER, next);
+                link.append(prepareLink(uriBuilder, next, "next")).append(',');
+            });
+        link.append(prepareLink(uriBuilder, "", "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, String cursor, String relType) {
+        return "<" + uriBuilder.replaceQueryParam(CURSOR_PARAMETER, cursor).toUriString() + ">; rel=\"" + relType + "\"";
+    }
+}
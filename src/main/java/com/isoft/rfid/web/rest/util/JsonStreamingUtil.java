@@ -0,0 +1,113 @@
+package com.isoft.rfid.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import javax.servlet.ServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Utility class for responses with a JSON array too large to be held in memory, such as exports.
+ * <p>
+ * The elements are written one at a time as the source produces them, through the buffers of Jackson and of the servlet
+ * container, on a Spring MVC async thread. If the source fails after the response is committed, the array is left
+ * unterminated, so that clients see an invalid document rather than a truncated but valid one.
+ */
+public final class JsonStreamingUtil {
+
+    private JsonStreamingUtil() {}
+
+    /**
+     * Produces the elements of a streamed array.
+     *
+     * @param <T> the type of the elements.
+     */
+    @FunctionalInterface
+    public interface ElementSource<T> {
+        /**
+         * @param action receives each element, in order.
+         */
+        void forEach(Consumer<? super T> action);
+    }
+
+    /**
+     * Stream an array within the async request timeout of the current request, rather than that of the container.
+     *
+     * @param objectMapper the object mapper of the application.
+     * @param type the type of the elements.
+     * @param source produces the elements, called on the async thread.
+     * @param timeout how long the response may take to be written.
+     * @param <T> the type of the elements.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the streamed array.
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> streamJsonArray(
+        ObjectMapper objectMapper,
+        Class<T> type,
+        ElementSource<T> source,
+        Duration timeout
+    ) {
+        ServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        WebAsyncUtils
+            .getAsyncManager(request)
+            .registerCallableInterceptor(
+                JsonStreamingUtil.class.getName(),
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <C> void beforeConcurrentHandling(NativeWebRequest asyncRequest, Callable<C> task) {
+                        // Called with the async request, before it is started
+                        ((AsyncWebRequest) asyncRequest).setTimeout(timeout.toMillis());
+                    }
+                }
+            );
+        return streamJsonArray(objectMapper, type, source);
+    }
+
+    /**
+     * @param objectMapper the object mapper of the application.
+     * @param type the type of the elements.
+     * @param source produces the elements, called on the async thread.
+     * @param <T> the type of the elements.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the streamed array.
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> streamJsonArray(
+        ObjectMapper objectMapper,
+        Class<T> type,
+        ElementSource<T> source
+    ) {
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.writeStartArray();
+                try {
+                    source.forEach(element -> {
+                        try {
+                            writer.writeValue(generator, element);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Utilities of the Spring MVC REST controllers.
+ */
+package com.isoft.rfid.web.rest.util;
@@ -0,0 +1,155 @@
+package com.isoft.rfid.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.isoft.rfid.domain.Authority;
+import com.isoft.rfid.domain.User;
+import com.isoft.rfid.repository.UserRepository;
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.util.unit.DataSize;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Unit tests for the {@link CacheConfiguration} class.
+ */
+class CacheConfigurationTest {
+
+    private JHipsterProperties jHipsterProperties;
+
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    public void setup() {
+        jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getCache().getEhcache().setMaxEntries(100);
+        applicationProperties = new ApplicationProperties();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Caching.getCachingProvider(EhcacheCachingProvider.class.getName()).close();
+    }
+
+    @Test
+    void testCachesAreOnHeapByDefault() {
+        CacheManager cacheManager = createCacheManager();
+
+        ResourcePools resourcePools = resourcePools(cacheManager, UserRepository.USERS_BY_LOGIN_CACHE);
+        assertThat(resourcePools.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(100);
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getUnit()).isEqualTo(EntryUnit.ENTRIES);
+    }
+
+    @Test
+    void testCachesHaveTheirOwnTiers() {
+        ApplicationProperties.Cache.Tiers users = new ApplicationProperties.Cache.Tiers();
+        users.setHeapEntries(10L);
+        users.setOffHeapSize(DataSize.ofMegabytes(1));
+        users.setTimeToIdle(Duration.ofMinutes(5));
+        applicationProperties.getCache().getCaches().put(UserRepository.USERS_BY_LOGIN_CACHE, users);
+        ApplicationProperties.Cache.Tiers authorities = new ApplicationProperties.Cache.Tiers();
+        authorities.setHeapEntries(20L);
+        applicationProperties.getCache().getCaches().put(Authority.class.getName(), authorities);
+        CacheManager cacheManager = createCacheManager();
+
+        ResourcePools userPools = resourcePools(cacheManager, UserRepository.USERS_BY_LOGIN_CACHE);
+        assertThat(userPools.getResourceTypeSet()).containsExactlyInAnyOrder(ResourceType.Core.HEAP, ResourceType.Core.OFFHEAP);
+        assertThat(userPools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(10);
+        assertThat(resourcePools(cacheManager, Authority.class.getName()).getPoolForResource(ResourceType.Core.HEAP).getSize())
+            .isEqualTo(20);
+
+        // Entries beyond the heap are serialized
+        Cache<Object, Object> cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        for (long id = 1; id <= 50; id++) {
+            cache.put("user-" + id, createUser(id));
+        }
+        assertThat(cache.get("user-1")).isInstanceOf(User.class).hasFieldOrPropertyWithValue("login", "user-1");
+    }
+
+    @Test
+    void testTimeToIdleReplacesTheTimeToLive() {
+        ApplicationProperties.Cache.Tiers tiers = new ApplicationProperties.Cache.Tiers();
+        tiers.setTimeToLive(Duration.ofHours(1));
+        tiers.setTimeToIdle(Duration.ofMinutes(15));
+        applicationProperties.getCache().getCaches().put(User.class.getName(), tiers);
+        CacheManager cacheManager = createCacheManager();
+
+        ExpiryPolicy<? super Object, ? super Object> expiry = runtimeConfiguration(cacheManager, User.class.getName()).getExpiryPolicy();
+        User user = createUser(1L);
+        assertThat(expiry.getExpiryForCreation(1L, user)).isEqualTo(Duration.ofHours(1));
+        assertThat(expiry.getExpiryForAccess(1L, () -> user)).isEqualTo(Duration.ofMinutes(15));
+        assertThat(expiry.getExpiryForUpdate(1L, () -> user, user)).isEqualTo(Duration.ofHours(1));
+        // Without a time to idle, reads do not change the expiry
+        assertThat(runtimeConfiguration(cacheManager, Authority.class.getName()).getExpiryPolicy().getExpiryForAccess(1L, () -> user))
+            .isNull();
+    }
+
+    @Test
+    void testDiskTier(@TempDir Path directory) {
+        applicationProperties.getCache().setDiskDirectory(directory.toString());
+        ApplicationProperties.Cache.Tiers tiers = new ApplicationProperties.Cache.Tiers();
+        tiers.setOffHeapSize(DataSize.ofMegabytes(1));
+        tiers.setDiskSize(DataSize.ofMegabytes(8));
+        applicationProperties.getCache().getCaches().put(User.class.getName(), tiers);
+        CacheManager cacheManager = createCacheManager();
+
+        assertThat(resourcePools(cacheManager, User.class.getName()).getResourceTypeSet()).contains(ResourceType.Core.DISK);
+        Cache<Object, Object> cache = cacheManager.getCache(User.class.getName());
+        cache.put(1L, createUser(1L));
+        assertThat(cache.get(1L)).hasFieldOrPropertyWithValue("login", "user-1");
+    }
+
+    @Test
+    void testDiskTierRequiresADirectory() {
+        ApplicationProperties.Cache.Tiers tiers = new ApplicationProperties.Cache.Tiers();
+        tiers.setOffHeapSize(DataSize.ofMegabytes(1));
+        tiers.setDiskSize(DataSize.ofMegabytes(8));
+        applicationProperties.getCache().getCaches().put(User.class.getName(), tiers);
+
+        assertThatThrownBy(this::createCacheManager).isInstanceOf(IllegalStateException.class).hasMessageContaining("disk-directory");
+    }
+
+    private CacheManager createCacheManager() {
+        CacheConfiguration cacheConfiguration = new CacheConfiguration(jHipsterProperties, applicationProperties);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("cacheManagerCustomizer", cacheConfiguration.cacheManagerCustomizer());
+        return cacheConfiguration.jCacheCacheManager(beanFactory.getBeanProvider(JCacheManagerCustomizer.class));
+    }
+
+    private static ResourcePools resourcePools(CacheManager cacheManager, String cacheName) {
+        return runtimeConfiguration(cacheManager, cacheName).getResourcePools();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CacheRuntimeConfiguration<Object, Object> runtimeConfiguration(CacheManager cacheManager, String cacheName) {
+        Eh107Configuration<Object, Object> configuration = cacheManager.getCache(cacheName).getConfiguration(Eh107Configuration.class);
+        return configuration.unwrap(CacheRuntimeConfiguration.class);
+    }
+
+    private static User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin("user-" + id);
+        user.setEmail("user-" + id + "@localhost");
+        user.setActivated(true);
+        return user;
+    }
+}
@@ -0,0 +1,108 @@
+package com.isoft.rfid.config;
+
+import com.isoft.rfid.domain.Epc;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A blocking client speaking the {@link ReaderProtocol}, standing in for a fixed reader in tests.
+ */
+public class FakeReader implements Closeable {
+
+    private final SocketChannel channel;
+
+    private final ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+
+    private final ByteBuffer in = ByteBuffer.allocate(ReaderProtocol.ACK_FRAME_SIZE);
+
+    private int pendingReads;
+
+    public FakeReader(int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+    }
+
+    public FakeReader hello(String readerId, String zone) throws IOException {
+        byte[] id = readerId.getBytes(StandardCharsets.US_ASCII);
+        byte[] zoneBytes = zone == null ? new byte[0] : zone.getBytes(StandardCharsets.US_ASCII);
+        out.clear();
+        out.putInt(1 + 1 + id.length + 1 + zoneBytes.length).put(ReaderProtocol.HELLO);
+        out.put((byte) id.length).put(id).put((byte) zoneBytes.length).put(zoneBytes);
+        send();
+        return this;
+    }
+
+    /**
+     * Send a {@code READS} frame.
+     *
+     * @param epcs the EPCs read.
+     * @param antenna the antenna, or {@code null}.
+     * @param rssi the RSSI, or {@code null}.
+     * @param readTime the read time in epoch milliseconds.
+     */
+    public FakeReader reads(Epc[] epcs, Integer antenna, Integer rssi, long readTime) throws IOException {
+        out.clear();
+        out.putInt(0).put(ReaderProtocol.READS).putShort((short) epcs.length);
+        for (Epc epc : epcs) {
+            out.put((byte) epc.getLength()).put(epc.toBytes());
+            out.put((byte) (antenna == null ? ReaderProtocol.NO_ANTENNA : antenna));
+            out.putShort(rssi == null ? ReaderProtocol.NO_RSSI : rssi.shortValue());
+            out.putLong(readTime);
+        }
+        out.putInt(0, out.position() - ReaderProtocol.LENGTH_FIELD_SIZE);
+        send();
+        pendingReads += epcs.length;
+        return this;
+    }
+
+    /**
+     * Send raw bytes, for malformed frames.
+     */
+    public FakeReader raw(byte[] bytes) throws IOException {
+        out.clear();
+        out.put(bytes);
+        send();
+        return this;
+    }
+
+    /**
+     * Wait for the acknowledgement of a {@code READS} frame.
+     *
+     * @return the number of acknowledged reads, or {@code -1} if the server closed the connection.
+     */
+    public int awaitAck() throws IOException {
+        in.clear();
+        while (in.hasRemaining()) {
+            if (channel.read(in) < 0) {
+                return -1;
+            }
+        }
+        in.flip();
+        in.getInt();
+        if (in.get() != ReaderProtocol.ACK) {
+            throw new IOException("Unexpected frame");
+        }
+        int count = in.getInt();
+        pendingReads -= count;
+        return count;
+    }
+
+    public int getPendingReads() {
+        return pendingReads;
+    }
+
+    private void send() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
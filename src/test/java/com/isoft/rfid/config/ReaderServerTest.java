@@ -0,0 +1,176 @@
+package com.isoft.rfid.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.ingest.ReadEvent;
+import com.isoft.rfid.service.ingest.ReadPipeline;
+import com.isoft.rfid.service.ingest.ReadSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ReaderServer}, using a {@link FakeReader}.
+ */
+class ReaderServerTest {
+
+    private static final Epc EPC = Epc.parse("E28011606000020D6842A8B1");
+
+    private static final Epc EPC_128 = Epc.parse("300833B2DDD9014000000000000000FF");
+
+    private ReadPipeline readPipeline;
+
+    private MeterRegistry meterRegistry;
+
+    private ReaderServer readerServer;
+
+    private final List<ReadEvent> published = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger rejectedPublications = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong(-1);
+
+    private final AtomicLong durableSequence = new AtomicLong(Long.MAX_VALUE);
+
+    @BeforeEach
+    public void setup() {
+        readPipeline = mock(ReadPipeline.class);
+        when(readPipeline.tryPublish(anyInt(), any()))
+            .thenAnswer(invocation -> {
+                if (rejectedPublications.getAndDecrement() > 0) {
+                    return -1L;
+                }
+                int count = invocation.getArgument(0);
+                ReadSource source = invocation.getArgument(1);
+                for (int i = 0; i < count; i++) {
+                    ReadEvent event = ReadEvent.FACTORY.newInstance();
+                    source.next(event);
+                    published.add(event);
+                }
+                return sequence.addAndGet(count);
+            });
+        when(readPipeline.getDurableSequence()).thenAnswer(invocation -> durableSequence.get());
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getReaderServer().setHost("localhost");
+        applicationProperties.getReaderServer().setPort(0);
+        applicationProperties.getReaderServer().setBufferSize(4096);
+        readerServer = new ReaderServer(readPipeline, applicationProperties, meterRegistry);
+        readerServer.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        readerServer.stop();
+    }
+
+    @Test
+    void shouldDecodeReadsAndAcknowledgeThem() throws Exception {
+        try (FakeReader reader = new FakeReader(readerServer.getPort())) {
+            reader.hello("DOCK-01", "inbound");
+            reader.reads(new Epc[] { EPC, EPC_128 }, 2, -61, 1_000L);
+            reader.reads(new Epc[] { EPC }, null, null, 2_000L);
+
+            assertThat(reader.awaitAck()).isEqualTo(2);
+            assertThat(reader.awaitAck()).isEqualTo(1);
+        }
+
+        assertThat(published).hasSize(3);
+        ReadEvent first = published.get(0);
+        assertThat(first.getEpcHi()).isEqualTo(EPC.getHi());
+        assertThat(first.getEpcLo()).isEqualTo(EPC.getLo());
+        assertThat(first.getEpcLength()).isEqualTo(12);
+        assertThat(first.getReaderId()).isEqualTo("DOCK-01");
+        assertThat(first.getZone()).isEqualTo("inbound");
+        assertThat(first.getAntenna()).isEqualTo(2);
+        assertThat(first.getRssi()).isEqualTo(-61);
+        assertThat(first.getReadTime()).isEqualTo(1_000L);
+        assertThat(new Epc(published.get(1).getEpcHi(), published.get(1).getEpcLo(), published.get(1).getEpcLength())).isEqualTo(EPC_128);
+        assertThat(published.get(2).getAntenna()).isEqualTo(ReadEvent.NO_VALUE);
+        assertThat(published.get(2).getRssi()).isEqualTo(ReadEvent.NO_VALUE);
+    }
+
+    @Test
+    void shouldPauseWhileThePipelineIsFull() throws Exception {
+        rejectedPublications.set(20);
+
+        try (FakeReader reader = new FakeReader(readerServer.getPort())) {
+            reader.hello("DOCK-01", null);
+            for (int i = 0; i < 50; i++) {
+                reader.reads(new Epc[] { EPC, EPC, EPC }, 1, -50, 1_000L + i);
+            }
+            for (int i = 0; i < 50; i++) {
+                assertThat(reader.awaitAck()).isEqualTo(3);
+            }
+        }
+
+        assertThat(published).hasSize(150);
+        assertThat(published.get(149).getReadTime()).isEqualTo(1_049L);
+        assertThat(published.get(0).getZone()).isNull();
+    }
+
+    @Test
+    void shouldAcknowledgeOnceTheReadsAreDurable() throws Exception {
+        durableSequence.set(-1);
+
+        try (FakeReader reader = new FakeReader(readerServer.getPort())) {
+            reader.hello("DOCK-01", null);
+            reader.reads(new Epc[] { EPC, EPC }, 1, -50, 1_000L);
+            CompletableFuture<Integer> ack = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return reader.awaitAck();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(published).hasSize(2));
+            Thread.sleep(50);
+            assertThat(ack).isNotDone();
+
+            durableSequence.set(1);
+
+            assertThat(ack.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldCloseConnectionsSendingMalformedFrames() throws Exception {
+        try (FakeReader reader = new FakeReader(readerServer.getPort())) {
+            // READS before HELLO
+            reader.reads(new Epc[] { EPC }, 1, -50, 1_000L);
+
+            assertThat(reader.awaitAck()).isEqualTo(-1);
+        }
+        try (FakeReader reader = new FakeReader(readerServer.getPort())) {
+            reader.hello("DOCK-01", null);
+            // Frame longer than the receive buffer
+            reader.raw(new byte[] { 0x7F, 0, 0, 0, ReaderProtocol.READS });
+
+            assertThat(reader.awaitAck()).isEqualTo(-1);
+        }
+
+        assertThat(published).isEmpty();
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> assertThat(meterRegistry.get("ingestion.reader.connections").gauge().value()).isZero());
+    }
+}
@@ -0,0 +1,61 @@
+package com.isoft.rfid.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link Epc}.
+ */
+class EpcTest {
+
+    private static final String EPC_96 = "E28011606000020D6842A8B1";
+
+    private static final String EPC_128 = "300833B2DDD9014000000000000000FF";
+
+    @Test
+    void testParseAndFormat() {
+        Epc epc = Epc.parse(EPC_96.toLowerCase());
+
+        assertThat(epc.getLength()).isEqualTo(12);
+        assertThat(epc.getHi()).isEqualTo(0xE2801160L);
+        assertThat(epc.getLo()).isEqualTo(0x6000020D6842A8B1L);
+        assertThat(epc).hasToString(EPC_96);
+        assertThat(Epc.parse(EPC_128)).hasToString(EPC_128);
+    }
+
+    @Test
+    void testBytesRoundTrip() {
+        Epc epc = Epc.parse(EPC_128);
+
+        byte[] bytes = epc.toBytes();
+
+        assertThat(bytes).hasSize(16);
+        assertThat(bytes[0]).isEqualTo((byte) 0x30);
+        assertThat(bytes[15]).isEqualTo((byte) 0xFF);
+        assertThat(Epc.fromBytes(bytes)).isEqualTo(epc);
+        assertThat(Epc.fromBytes(Epc.parse(EPC_96).toBytes())).isEqualTo(Epc.parse(EPC_96));
+    }
+
+    @Test
+    void testLengthIsPartOfTheValue() {
+        Epc epc96 = Epc.parse(EPC_96);
+        Epc padded = Epc.parse("00000000" + EPC_96);
+
+        assertThat(padded.getHi()).isEqualTo(epc96.getHi());
+        assertThat(padded.getLo()).isEqualTo(epc96.getLo());
+        assertThat(padded).isNotEqualTo(epc96);
+    }
+
+    @Test
+    void testInvalidEpcs() {
+        assertThatThrownBy(() -> Epc.parse("not-an-epc")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Epc.parse(EPC_96 + "0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Epc.parse(EPC_96.replace('E', 'G'))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Epc.parse(EPC_96.replace('E', '\uFF21'))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Epc.parse(EPC_96.replace('0', '\u0663'))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Epc.fromBytes(new byte[8])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Epc(1L << 32, 0, 12)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
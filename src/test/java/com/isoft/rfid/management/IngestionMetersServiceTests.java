@@ -0,0 +1,73 @@
+package com.isoft.rfid.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IngestionMetersServiceTests {
+
+    private static final String DEDUPLICATION_METER_EXPECTED_NAME = "ingestion.deduplication";
+
+    private MeterRegistry meterRegistry;
+
+    private IngestionMetersService ingestionMetersService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        ingestionMetersService = new IngestionMetersService(meterRegistry);
+    }
+
+    @Test
+    void testDeduplicationCountersByResultAreCreated() {
+        meterRegistry.get(DEDUPLICATION_METER_EXPECTED_NAME).tag("result", "hit").counter();
+
+        meterRegistry.get(DEDUPLICATION_METER_EXPECTED_NAME).tag("result", "miss").counter();
+
+        Collection<Counter> counters = meterRegistry.find(DEDUPLICATION_METER_EXPECTED_NAME).counters();
+
+        assertThat(counters).hasSize(2);
+    }
+
+    @Test
+    void testCountMethodsShouldBeBoundToCorrectCounters() {
+        assertThat(meterRegistry.get(DEDUPLICATION_METER_EXPECTED_NAME).tag("result", "hit").counter().count()).isZero();
+
+        ingestionMetersService.trackDuplicateHit();
+
+        assertThat(meterRegistry.get(DEDUPLICATION_METER_EXPECTED_NAME).tag("result", "hit").counter().count()).isEqualTo(1);
+
+        assertThat(meterRegistry.get(DEDUPLICATION_METER_EXPECTED_NAME).tag("result", "miss").counter().count()).isZero();
+
+        ingestionMetersService.trackDuplicateMiss();
+
+        assertThat(meterRegistry.get(DEDUPLICATION_METER_EXPECTED_NAME).tag("result", "miss").counter().count()).isEqualTo(1);
+
+        ingestionMetersService.trackReadsPublished(3);
+
+        assertThat(meterRegistry.get("ingestion.reads.published").counter().count()).isEqualTo(3);
+
+        ingestionMetersService.trackReadRejected();
+
+        assertThat(meterRegistry.get("ingestion.reads.rejected").counter().count()).isEqualTo(1);
+
+        ingestionMetersService.trackReadLate();
+
+        assertThat(meterRegistry.get("ingestion.reads.late").counter().count()).isEqualTo(1);
+
+        ingestionMetersService.trackRequestAdmitted();
+
+        assertThat(meterRegistry.get("ingestion.admission").tag("result", "admitted").counter().count()).isEqualTo(1);
+
+        ingestionMetersService.trackRequestShed("queue");
+        ingestionMetersService.trackRequestShed("queue");
+
+        assertThat(meterRegistry.get("ingestion.admission").tags("result", "shed", "reason", "queue").counter().count()).isEqualTo(2);
+    }
+}
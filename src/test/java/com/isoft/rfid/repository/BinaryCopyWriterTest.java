@@ -0,0 +1,89 @@
+package com.isoft.rfid.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Unit tests for {@link BinaryCopyWriter}.
+ */
+class BinaryCopyWriterTest {
+
+    private CopyIn copyIn;
+
+    private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        copyIn = mock(CopyIn.class);
+        doAnswer(invocation -> {
+                sent.write(invocation.<byte[]>getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+                return null;
+            })
+            .when(copyIn)
+            .writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenReturn(1L);
+    }
+
+    @Test
+    void shouldEncodeRowsInTheBinaryCopyFormat() throws Exception {
+        BinaryCopyWriter writer = new BinaryCopyWriter(copyIn, 32);
+        writer.startRow(5);
+        writer.writeLong(42L);
+        writer.writeInteger(null);
+        writer.writeText("DOCK-01");
+        writer.writeBytes(new byte[] { 1, 2, 3 });
+        writer.writeTimestamp(Instant.parse("2000-01-01T00:00:01.000002Z"));
+
+        assertThat(writer.finish()).isEqualTo(1L);
+
+        ByteBuffer buffer = ByteBuffer.wrap(sent.toByteArray());
+        byte[] signature = new byte[11];
+        buffer.get(signature);
+        assertThat(signature).containsExactly('P', 'G', 'C', 'O', 'P', 'Y', '\n', 0xFF, '\r', '\n', 0);
+        assertThat(buffer.getInt()).as("flags").isZero();
+        assertThat(buffer.getInt()).as("header extension").isZero();
+        assertThat(buffer.getShort()).isEqualTo((short) 5);
+        assertThat(buffer.getInt()).isEqualTo(8);
+        assertThat(buffer.getLong()).isEqualTo(42L);
+        assertThat(buffer.getInt()).as("null").isEqualTo(-1);
+        assertThat(buffer.getInt()).isEqualTo(7);
+        byte[] text = new byte[7];
+        buffer.get(text);
+        assertThat(new String(text, StandardCharsets.UTF_8)).isEqualTo("DOCK-01");
+        assertThat(buffer.getInt()).isEqualTo(3);
+        assertThat(new byte[] { buffer.get(), buffer.get(), buffer.get() }).containsExactly(1, 2, 3);
+        assertThat(buffer.getInt()).isEqualTo(8);
+        assertThat(buffer.getLong()).as("microseconds since 2000-01-01").isEqualTo(1_000_002L);
+        assertThat(buffer.getShort()).as("trailer").isEqualTo((short) -1);
+        assertThat(buffer.hasRemaining()).isFalse();
+        verify(copyIn).endCopy();
+    }
+
+    @Test
+    void shouldSendValuesLargerThanTheBuffer() throws Exception {
+        BinaryCopyWriter writer = new BinaryCopyWriter(copyIn, 32);
+        byte[] value = new byte[100];
+        value[99] = 7;
+        writer.startRow(1);
+        writer.writeBytes(value);
+        writer.finish();
+
+        ByteBuffer buffer = ByteBuffer.wrap(sent.toByteArray());
+        buffer.position(19);
+        assertThat(buffer.getShort()).isEqualTo((short) 1);
+        assertThat(buffer.getInt()).isEqualTo(100);
+        buffer.position(buffer.position() + 99);
+        assertThat(buffer.get()).isEqualTo((byte) 7);
+        assertThat(buffer.getShort()).isEqualTo((short) -1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.isoft.rfid.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link KeysetCursor}.
+ */
+class KeysetCursorTest {
+
+    @Test
+    void shouldRoundTripCursors() {
+        Instant lastModifiedDate = Instant.parse("2022-11-12T10:15:30.123456Z");
+        String cursor = KeysetCursor.encode("lastModifiedDate", true, lastModifiedDate, 4294967296L);
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+        KeysetCursor decoded = KeysetCursor.decode(cursor);
+        assertThat(decoded.isFor("lastModifiedDate", true)).isTrue();
+        assertThat(decoded.isFor("lastModifiedDate", false)).isFalse();
+        assertThat(decoded.isFor("login", true)).isFalse();
+        assertThat(decoded.getValue(Instant.class)).isEqualTo(lastModifiedDate);
+        assertThat(decoded.getId()).isEqualTo(4294967296L);
+    }
+
+    @Test
+    void shouldRoundTripNullValues() {
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.encode("langKey", false, null, 3L));
+
+        assertThat(decoded.getValue(String.class)).isNull();
+        assertThat(decoded.getId()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldRejectInvalidCursors() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("e30")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectValuesOfAnotherType() {
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.encode("login", false, "johndoe", 1L));
+
+        assertThat(decoded.getValue(String.class)).isEqualTo("johndoe");
+        assertThatThrownBy(() -> decoded.getValue(Long.class)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decoded.getValue(Instant.class)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
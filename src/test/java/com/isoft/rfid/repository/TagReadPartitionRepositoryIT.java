@@ -0,0 +1,58 @@
+package com.isoft.rfid.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.TagReadPartition;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link TagReadPartitionRepository}.
+ */
+@IntegrationTest
+@Transactional
+class TagReadPartitionRepositoryIT {
+
+    private static final Instant DAY = Instant.parse("2000-01-01T00:00:00Z");
+
+    @Autowired
+    private TagReadPartitionRepository tagReadPartitionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldListThePartitionsOfTheMigratedTable() {
+        assertThat(tagReadPartitionRepository.findAll())
+            .contains(new TagReadPartition(TagReadPartitionRepository.DEFAULT_PARTITION, null, null, true))
+            .anyMatch(partition -> partition.getName().equals("tag_read_legacy") && partition.getFrom() == null)
+            .anyMatch(partition -> partition.overlaps(Instant.now(), Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void shouldMoveReadsOutOfTheDefaultPartition() {
+        // Older than the legacy partition, which starts at MINVALUE: detach it first
+        tagReadPartitionRepository.detach("tag_read_legacy");
+        jdbcTemplate.update(
+            "insert into tag_read (id, epc, reader_id, read_time, created_by) values (-1, '\\x00'::bytea, 'DOCK-01', ?, 'system')",
+            LocalDateTime.of(2000, 1, 1, 12, 0)
+        );
+
+        int moved = tagReadPartitionRepository.create("tag_read_20000101", DAY, DAY.plus(1, ChronoUnit.DAYS));
+
+        assertThat(moved).isEqualTo(1);
+        assertThat(tagReadPartitionRepository.findAll())
+            .contains(new TagReadPartition("tag_read_20000101", DAY, DAY.plus(1, ChronoUnit.DAYS), false));
+        assertThat(tagReadPartitionRepository.deleteFromDefault(Instant.now())).isZero();
+
+        tagReadPartitionRepository.drop("tag_read_20000101");
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tag_read where id = -1", Long.class)).isZero();
+    }
+}
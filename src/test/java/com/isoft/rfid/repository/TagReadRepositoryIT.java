@@ -0,0 +1,68 @@
+package com.isoft.rfid.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagRead;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the bulk inserts of {@link TagReadRepository}.
+ */
+@IntegrationTest
+@Transactional
+@WithMockUser("copy-user")
+class TagReadRepositoryIT {
+
+    private static final Instant READ_TIME = Instant.parse("2022-11-10T10:00:00.123Z");
+
+    @Autowired
+    private TagReadRepository tagReadRepository;
+
+    @Test
+    void shouldCopyReadsLikeBatchInserts() {
+        List<TagRead> copied = createReads("E28011606000020D", 3);
+        List<TagRead> inserted = createReads("E28011606000020E", 3);
+        copied.get(1).setAntenna(null);
+        copied.get(1).setZone(null);
+
+        assertThat(tagReadRepository.copyAll(copied)).isEqualTo(3);
+        assertThat(tagReadRepository.insertAll(inserted)).isEqualTo(3);
+
+        for (TagRead read : copied) {
+            TagRead found = tagReadRepository.findById(read.getId()).orElseThrow();
+            assertThat(found.getEpc()).isEqualTo(read.getEpc());
+            assertThat(found.getReaderId()).isEqualTo("DOCK-01");
+            assertThat(found.getAntenna()).isEqualTo(read.getAntenna());
+            assertThat(found.getRssi()).isEqualTo(-61);
+            assertThat(found.getZone()).isEqualTo(read.getZone());
+            assertThat(found.getReadTime()).isEqualTo(READ_TIME);
+            assertThat(found.getCreatedBy()).isEqualTo("copy-user");
+            assertThat(found.getCreatedDate()).isEqualTo(read.getCreatedDate().truncatedTo(ChronoUnit.MICROS));
+        }
+        assertThat(inserted.get(0).getId()).isGreaterThan(copied.get(2).getId());
+    }
+
+    private static List<TagRead> createReads(String prefix, int count) {
+        List<TagRead> reads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TagRead read = new TagRead();
+            read.setEpc(Epc.parse(String.format("%s%08X", prefix, i)));
+            read.setReaderId("DOCK-01");
+            read.setAntenna(1);
+            read.setRssi(-61);
+            read.setZone("inbound");
+            read.setReadTime(READ_TIME);
+            reads.add(read);
+        }
+        return reads;
+    }
+}
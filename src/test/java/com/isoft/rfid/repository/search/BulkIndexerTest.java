@@ -0,0 +1,180 @@
+package com.isoft.rfid.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+/**
+ * Unit tests for {@link BulkIndexer}.
+ */
+class BulkIndexerTest {
+
+    private ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private final List<DocWriteRequest<?>> sent = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private BulkIndexer bulkIndexer;
+
+    @BeforeEach
+    public void setup() {
+        MappingElasticsearchConverter converter = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+        converter.afterPropertiesSet();
+        elasticsearchTemplate = mock(ElasticsearchRestTemplate.class);
+        when(elasticsearchTemplate.getElasticsearchConverter()).thenReturn(converter);
+        when(elasticsearchTemplate.getIndexCoordinatesFor(User.class)).thenReturn(IndexCoordinates.of("user"));
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getBulkIndexer().setBulkActions(10);
+        applicationProperties.getBulkIndexer().setFlushInterval(Duration.ofMillis(100));
+        applicationProperties.getBulkIndexer().setInitialBackoff(Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bulkIndexer.stop();
+    }
+
+    @Test
+    void testFlushesByCountAndTime() {
+        startIndexer(request -> success(request));
+
+        for (long id = 1; id <= 25; id++) {
+            bulkIndexer.index(createUser(id));
+        }
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(sent).hasSize(25));
+        // Two full batches, then the remaining 5 documents once the flush interval has elapsed
+        assertThat(requests.get()).isGreaterThanOrEqualTo(3);
+        assertThat(meterRegistry.get("search.bulk.documents").tag("result", "indexed").counter().count()).isEqualTo(25);
+        assertThat(meterRegistry.get("search.bulk.queue.depth").gauge().value()).isZero();
+        assertThat(meterRegistry.get("search.bulk.flush").timer().count()).isEqualTo(requests.get());
+    }
+
+    @Test
+    void testCoalescesWritesOfTheSameDocument() {
+        applicationProperties.getBulkIndexer().setFlushInterval(Duration.ofSeconds(1));
+        startIndexer(request -> success(request));
+
+        User user = createUser(1L);
+        bulkIndexer.index(user);
+        user.setLogin("updated");
+        bulkIndexer.index(user);
+        bulkIndexer.delete(User.class, 1L);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(sent).hasSize(1));
+        assertThat(sent.get(0).opType()).isEqualTo(DocWriteRequest.OpType.DELETE);
+        assertThat(sent.get(0).id()).isEqualTo("1");
+    }
+
+    @Test
+    void testRetriesRejectedDocuments() {
+        AtomicInteger attempts = new AtomicInteger();
+        startIndexer(request -> attempts.incrementAndGet() < 3 ? rejected(request) : success(request));
+
+        bulkIndexer.index(createUser(1L));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(sent).hasSize(1));
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("search.bulk.documents").tag("result", "retried").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testDropsDocumentsAfterMaxRetries() {
+        applicationProperties.getBulkIndexer().setMaxRetries(2);
+        startIndexer(this::rejected);
+
+        bulkIndexer.index(createUser(1L));
+
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> assertThat(meterRegistry.get("search.bulk.documents").tag("result", "failed").counter().count()).isEqualTo(1)
+            );
+        assertThat(requests.get()).isEqualTo(3);
+        assertThat(sent).isEmpty();
+    }
+
+    private void startIndexer(Function<BulkRequest, BulkResponse> responses) {
+        bulkIndexer =
+            new BulkIndexer(elasticsearchTemplate, applicationProperties, meterRegistry) {
+                @Override
+                BulkResponse bulk(BulkRequest request) {
+                    requests.incrementAndGet();
+                    return responses.apply(request);
+                }
+            };
+        bulkIndexer.start();
+    }
+
+    private BulkResponse success(BulkRequest request) {
+        sent.addAll(request.requests());
+        BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> item = request.requests().get(i);
+            items[i] =
+                BulkItemResponse.success(i, item.opType(), new IndexResponse(new ShardId(item.index(), "_na_", 0), "_doc", item.id(), 1, 1, 1, true));
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private BulkResponse rejected(BulkRequest request) {
+        BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> item = request.requests().get(i);
+            items[i] =
+                BulkItemResponse.failure(
+                    i,
+                    item.opType(),
+                    new BulkItemResponse.Failure(
+                        item.index(),
+                        "_doc",
+                        item.id(),
+                        new EsRejectedExecutionException("queue is full"),
+                        RestStatus.TOO_MANY_REQUESTS
+                    )
+                );
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin("user-" + id);
+        user.setEmail("user-" + id + "@localhost");
+        user.setActivated(true);
+        return user;
+    }
+}
@@ -0,0 +1,29 @@
+package com.isoft.rfid.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the cursors of {@link PointInTimeSearch}.
+ */
+class PointInTimeSearchTest {
+
+    @Test
+    void shouldRoundTripCursors() {
+        String cursor = PointInTimeSearch.encode("46ToAwMDaWR5BXV1aWQy", new Object[] { 1.5f, 4294967296L, "johndoe" });
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+        JsonNode decoded = PointInTimeSearch.decode(cursor);
+        assertThat(decoded.get("pit").asText()).isEqualTo("46ToAwMDaWR5BXV1aWQy");
+        assertThat(PointInTimeSearch.toSortValues(decoded.get("after"))).containsExactly(1.5d, 4294967296L, "johndoe");
+    }
+
+    @Test
+    void shouldRejectInvalidCursors() {
+        assertThatThrownBy(() -> PointInTimeSearch.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PointInTimeSearch.decode("e30")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,221 @@
+package com.isoft.rfid.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.SearchOutboxEntry;
+import com.isoft.rfid.repository.SearchOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+
+/**
+ * Unit tests for {@link SearchOutboxRelay}.
+ */
+class SearchOutboxRelayTest {
+
+    private static final Instant NOW = Instant.parse("2022-11-12T10:00:00Z");
+
+    private final List<SearchOutboxEntry> outbox = new ArrayList<>();
+
+    private final List<List<DocWriteRequest<?>>> requests = new ArrayList<>();
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private long nextId;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearchOutbox().setBatchSize(3);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldRelayWritesInOrderAndRemoveThem() {
+        append("1", "{\"login\":\"a\"}", NOW.minusSeconds(5));
+        append("1", null, NOW.minusSeconds(4));
+        SearchOutboxRelay relay = createRelay(request -> respond(request, RestStatus.OK));
+
+        relay.tick();
+
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0))
+            .extracting(DocWriteRequest::opType)
+            .containsExactly(DocWriteRequest.OpType.INDEX, DocWriteRequest.OpType.DELETE);
+        assertThat(outbox).isEmpty();
+        assertThat(meterRegistry.get("search.outbox.documents").tag("result", "relayed").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("search.outbox.size").gauge().value()).isZero();
+        assertThat(meterRegistry.get("search.outbox.lag").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldStopAtTheFirstRejectedWriteAndRetryIt() {
+        append("1", "{}", NOW.minusSeconds(10));
+        append("2", "{}", NOW.minusSeconds(9));
+        append("3", "{}", NOW.minusSeconds(8));
+        SearchOutboxRelay relay = createRelay(request ->
+            requests.size() == 1
+                ? respond(request, RestStatus.OK, RestStatus.TOO_MANY_REQUESTS, RestStatus.OK)
+                : respond(request, RestStatus.OK)
+        );
+
+        relay.tick();
+
+        assertThat(outbox).extracting(SearchOutboxEntry::getDocumentId).containsExactly("2", "3");
+        assertThat(meterRegistry.get("search.outbox.size").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("search.outbox.lag").gauge().value()).isEqualTo(9);
+
+        relay.tick();
+
+        assertThat(requests.get(1)).extracting(DocWriteRequest::id).containsExactly("2", "3");
+        assertThat(outbox).isEmpty();
+    }
+
+    @Test
+    void shouldOnlyRemoveTheRelayedWrites() {
+        nextId = 1;
+        append("2", "{}", NOW);
+        append("3", "{}", NOW);
+        SearchOutboxRelay relay = createRelay(request -> {
+            if (requests.size() == 1) {
+                // Committed while the first batch was sent, with an id allocated before it
+                outbox.add(0, new SearchOutboxEntry(1, "user", "1", "{}", NOW));
+            }
+            return respond(request, RestStatus.OK);
+        });
+
+        relay.tick();
+
+        assertThat(outbox).extracting(SearchOutboxEntry::getDocumentId).containsExactly("1");
+
+        relay.tick();
+
+        assertThat(requests.get(1)).extracting(DocWriteRequest::id).containsExactly("1");
+        assertThat(outbox).isEmpty();
+    }
+
+    @Test
+    void shouldDropWritesWhichCanNeverBeApplied() {
+        append("1", "{}", NOW);
+        append("2", null, NOW);
+        SearchOutboxRelay relay = createRelay(request -> respond(request, RestStatus.BAD_REQUEST, RestStatus.NOT_FOUND));
+
+        relay.tick();
+
+        assertThat(outbox).isEmpty();
+        assertThat(meterRegistry.get("search.outbox.documents").tag("result", "failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.outbox.documents").tag("result", "relayed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDrainFullBatchesInASingleTick() {
+        for (int i = 1; i <= 7; i++) {
+            append(String.valueOf(i), "{}", NOW);
+        }
+        SearchOutboxRelay relay = createRelay(request -> respond(request, RestStatus.OK));
+
+        relay.tick();
+
+        assertThat(requests).extracting(List::size).containsExactly(3, 3, 1);
+        assertThat(outbox).isEmpty();
+    }
+
+    @Test
+    void shouldKeepTheOutboxWhenTheClusterIsUnavailable() {
+        append("1", "{}", NOW);
+        SearchOutboxRelay relay = createRelay(request -> {
+            throw new ElasticsearchException("connection refused");
+        });
+
+        relay.tick();
+
+        assertThat(outbox).hasSize(1);
+    }
+
+    private void append(String documentId, String source, Instant createdDate) {
+        outbox.add(new SearchOutboxEntry(++nextId, "user", documentId, source, createdDate));
+    }
+
+    private SearchOutboxRelay createRelay(Function<BulkRequest, BulkResponse> responses) {
+        SearchOutboxRepository repository = new SearchOutboxRepository(null) {
+            @Override
+            public List<SearchOutboxEntry> claim(int limit, Duration timeout) {
+                return new ArrayList<>(outbox.subList(0, Math.min(limit, outbox.size())));
+            }
+
+            @Override
+            public void complete(List<SearchOutboxEntry> claimed, int relayed) {
+                outbox.removeAll(claimed.subList(0, relayed));
+            }
+
+            @Override
+            public long count() {
+                return outbox.size();
+            }
+
+            @Override
+            public Optional<Instant> findOldestCreatedDate() {
+                return outbox.stream().findFirst().map(SearchOutboxEntry::getCreatedDate);
+            }
+        };
+        return new SearchOutboxRelay(
+            mock(ElasticsearchRestTemplate.class),
+            repository,
+            applicationProperties,
+            meterRegistry,
+            Clock.fixed(NOW, ZoneOffset.UTC)
+        ) {
+            @Override
+            BulkResponse bulk(BulkRequest request) {
+                requests.add(new ArrayList<>(request.requests()));
+                return responses.apply(request);
+            }
+        };
+    }
+
+    private static BulkResponse respond(BulkRequest request, RestStatus... statuses) {
+        BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> item = request.requests().get(i);
+            RestStatus status = statuses[Math.min(i, statuses.length - 1)];
+            if (status == RestStatus.OK) {
+                items[i] =
+                    BulkItemResponse.success(
+                        i,
+                        item.opType(),
+                        new IndexResponse(new ShardId(item.index(), "_na_", 0), "_doc", item.id(), 1, 1, 1, true)
+                    );
+            } else {
+                items[i] =
+                    BulkItemResponse.failure(
+                        i,
+                        item.opType(),
+                        new BulkItemResponse.Failure(item.index(), "_doc", item.id(), new ElasticsearchException("failed"), status)
+                    );
+            }
+        }
+        return new BulkResponse(items, 1);
+    }
+}
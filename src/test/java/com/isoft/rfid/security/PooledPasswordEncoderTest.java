@@ -0,0 +1,104 @@
+package com.isoft.rfid.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Unit tests for {@link PooledPasswordEncoder}.
+ */
+class PooledPasswordEncoderTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private PooledPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getPasswordHashing().setStrength(4);
+        applicationProperties.getPasswordHashing().setThreads(1);
+        applicationProperties.getPasswordHashing().setQueueCapacity(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    void shouldHashAndCheckPasswords() {
+        passwordEncoder = new PooledPasswordEncoder(applicationProperties, meterRegistry);
+
+        String encoded = passwordEncoder.encode("password");
+
+        assertThat(encoded).startsWith("$2a$04$");
+        assertThat(passwordEncoder.matches("password", encoded)).isTrue();
+        assertThat(passwordEncoder.matches("other", encoded)).isFalse();
+        assertThat(meterRegistry.get("security.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.password.hash").tag("operation", "matches").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("security.password.queue-wait").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldUpgradeHashesOfAnotherCost() {
+        passwordEncoder = new PooledPasswordEncoder(applicationProperties, meterRegistry);
+
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password"))).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding("$2b$10$" + "a".repeat(53))).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding("not a hash")).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(null)).isFalse();
+    }
+
+    @Test
+    void shouldRejectHashesWhenTheQueueIsFull() {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        applicationProperties.getPasswordHashing().setRetryAfter(Duration.ofSeconds(3));
+        passwordEncoder = new PooledPasswordEncoder(applicationProperties, meterRegistry, blocking);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("running"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.getCount() == 0);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("queued"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> meterRegistry.get("security.password.queue").gauge().value() == 1);
+
+        assertThatThrownBy(() -> passwordEncoder.encode("rejected"))
+            .isInstanceOfSatisfying(
+                PasswordHashingRejectedException.class,
+                e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(3))
+            );
+        assertThat(meterRegistry.get("security.password.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.join()).isNotEmpty();
+        assertThat(queued.join()).isNotEmpty();
+    }
+}
@@ -2,6 +2,7 @@ package com.isoft.rfid.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.isoft.rfid.config.ApplicationProperties;
 import com.isoft.rfid.management.SecurityMetersService;
 import com.isoft.rfid.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
@@ -43,7 +44,7 @@ class TokenProviderSecurityMetersTests {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(meterRegistry);
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), securityMetersService);
         Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
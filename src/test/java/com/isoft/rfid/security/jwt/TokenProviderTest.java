@@ -1,7 +1,10 @@
 package com.isoft.rfid.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import com.isoft.rfid.config.ApplicationProperties;
 import com.isoft.rfid.management.SecurityMetersService;
 import com.isoft.rfid.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
@@ -11,7 +14,9 @@ import io.jsonwebtoken.security.Keys;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,16 +32,26 @@ class TokenProviderTest {
 
     private Key key;
     private TokenProvider tokenProvider;
+    private JHipsterProperties jHipsterProperties;
+    private ApplicationProperties applicationProperties;
+    private SecurityMetersService securityMetersService;
+    private SimpleMeterRegistry meterRegistry;
+    private Clock clock;
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
 
     @BeforeEach
     public void setup() {
-        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties = new JHipsterProperties();
         String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
 
-        SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        securityMetersService = new SecurityMetersService(meterRegistry);
+        clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        applicationProperties = new ApplicationProperties();
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider = new TokenProvider(jHipsterProperties, applicationProperties, securityMetersService, clock);
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -96,7 +111,7 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), securityMetersService);
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -110,12 +125,67 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), securityMetersService);
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
     }
 
+    @Test
+    void testAuthenticateReturnsTheAuthenticationOfAValidToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Optional<Authentication> authentication = tokenProvider.authenticate(token);
+
+        assertThat(authentication).isPresent();
+        assertThat(authentication.get().getName()).isEqualTo("anonymous");
+        assertThat(authentication.get().getCredentials()).isEqualTo(token);
+        assertThat(authentication.get().getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    @Test
+    void testAuthenticateVerifiesATokenOnce() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        Authentication first = tokenProvider.authenticate(token).orElseThrow();
+        Authentication second = tokenProvider.authenticate(token).orElseThrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getPrincipal()).isSameAs(first.getPrincipal());
+    }
+
+    @Test
+    void testAuthenticateReturnsEmptyOnceACachedTokenExpired() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.authenticate(token)).isPresent();
+
+        now.addAndGet(ONE_MINUTE + 1000);
+
+        assertThat(tokenProvider.authenticate(token)).isEmpty();
+        assertThat(meterRegistry.get("security.authentication.invalid-tokens").tag("cause", "expired").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testAuthenticateReturnsEmptyWhenSignatureIsDifferent() {
+        String token = createTokenWithDifferentSignature();
+
+        assertThat(tokenProvider.authenticate(token)).isEmpty();
+        assertThat(tokenProvider.authenticate(token)).isEmpty();
+    }
+
+    @Test
+    void testAuthenticateStillVerifiesTokensWhenTheCacheIsFull() {
+        applicationProperties.getTokenCache().setMaxEntries(1);
+        tokenProvider = new TokenProvider(jHipsterProperties, applicationProperties, securityMetersService, clock);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = tokenProvider.createToken(createAuthentication(), true);
+
+        assertThat(tokenProvider.authenticate(token)).isPresent();
+        assertThat(tokenProvider.authenticate(otherToken)).isPresent();
+        assertThat(tokenProvider.authenticate(token)).isPresent();
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -0,0 +1,140 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.repository.NotificationRepository;
+import com.isoft.rfid.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Unit tests for {@link CacheInvalidationService}.
+ */
+class CacheInvalidationServiceTest {
+
+    private CacheManager cacheManager;
+
+    private NotificationRepository notificationRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private CacheInvalidationService cacheInvalidationService;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager = new ConcurrentMapCacheManager(UserRepository.USERS_BY_LOGIN_CACHE, UserRepository.USERS_BY_EMAIL_CACHE);
+        notificationRepository = mock(NotificationRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cacheInvalidationService =
+            new CacheInvalidationService(
+                cacheManager,
+                notificationRepository,
+                new DataSourceProperties(),
+                new ApplicationProperties(),
+                meterRegistry
+            );
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testEvictsLocallyAndPublishesOutsideOfTransactions() {
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).put("admin", "cached");
+
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, "admin");
+
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get("admin")).isNull();
+        String payload = sentPayloads().get(0);
+        assertThat(payload).contains("\"usersByLogin\":[\"admin\"]");
+    }
+
+    @Test
+    void testBatchesAndDeduplicatesTheEvictionsOfATransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, "admin");
+        cacheInvalidationService.evict(UserRepository.USERS_BY_EMAIL_CACHE, "admin@localhost");
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, "admin");
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, "user");
+
+        verify(notificationRepository, never()).send(anyString(), anyString());
+        // A concurrent transaction caches the entry again before the commit
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).put("admin", "stale");
+        commit();
+
+        assertThat(sentPayloads())
+            .singleElement()
+            .asString()
+            .contains("\"usersByLogin\":[\"admin\",\"user\"]", "\"usersByEmail\":[\"admin@localhost\"]");
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get("admin")).isNull();
+        assertThat(TransactionSynchronizationManager.getResource(cacheInvalidationService)).isNull();
+        assertThat(meterRegistry.get("cache.invalidations").tag("direction", "sent").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void testSplitsEvictionsWhichDoNotFitInANotification() {
+        TransactionSynchronizationManager.initSynchronization();
+        for (int i = 0; i < 500; i++) {
+            cacheInvalidationService.evict(UserRepository.USERS_BY_EMAIL_CACHE, "someone.with.a.long.address." + i + "@localhost");
+        }
+
+        commit();
+
+        List<String> payloads = sentPayloads();
+        assertThat(payloads).hasSizeGreaterThan(1);
+        assertThat(payloads)
+            .allMatch(payload -> payload.getBytes(StandardCharsets.UTF_8).length <= NotificationRepository.MAX_PAYLOAD_BYTES);
+        assertThat(String.join("", payloads)).contains("long.address.0@", "long.address.499@");
+    }
+
+    @Test
+    void testAppliesTheEvictionsOfOtherInstancesOnly() {
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, "admin");
+        String ownPayload = sentPayloads().get(0);
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).put("admin", "cached");
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).put("user", "cached");
+
+        cacheInvalidationService.handle(ownPayload);
+        cacheInvalidationService.handle("{\"node\":\"other\",\"evictions\":{\"usersByLogin\":[\"user\"],\"unknown\":[\"x\"]}}");
+        cacheInvalidationService.handle("not json");
+
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get("admin")).isNotNull();
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get("user")).isNull();
+        assertThat(meterRegistry.get("cache.invalidations").tag("direction", "received").counter().count()).isEqualTo(1);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private List<String> sentPayloads() {
+        ArgumentCaptor<String> payloads = ArgumentCaptor.forClass(String.class);
+        verify(notificationRepository, atLeastOnce()).send(eq("cache_invalidation"), payloads.capture());
+        return payloads.getAllValues();
+    }
+}
@@ -0,0 +1,136 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+/**
+ * Unit tests for {@link RollingIndexService}.
+ */
+class RollingIndexServiceTest {
+
+    private static final Instant NOW = Instant.parse("2022-11-08T10:15:30Z");
+
+    private ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private ApplicationProperties applicationProperties;
+
+    private final Map<String, IndexOperations> indexOperations = new HashMap<>();
+
+    @BeforeEach
+    public void setup() {
+        elasticsearchTemplate = mock(ElasticsearchRestTemplate.class);
+        when(elasticsearchTemplate.getIndexCoordinatesFor(TagRead.class)).thenReturn(IndexCoordinates.of("tagread"));
+        when(elasticsearchTemplate.indexOps(any(IndexCoordinates.class)))
+            .thenAnswer(invocation ->
+                indexOperations.computeIfAbsent(invocation.<IndexCoordinates>getArgument(0).getIndexName(), name -> mock(IndexOperations.class))
+            );
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getRollingIndices().setRetention(Duration.ofDays(7));
+    }
+
+    @Test
+    void testIndexNames() {
+        RollingIndexService rollingIndexService = createService(ChronoUnit.DAYS);
+
+        assertThat(rollingIndexService.indexName("tagread", NOW)).isEqualTo("tagread-2022.11.08");
+        assertThat(rollingIndexService.periodStart("tagread", "tagread-2022.11.08")).contains(Instant.parse("2022-11-08T00:00:00Z"));
+        assertThat(rollingIndexService.periodStart("tagread", "tagread-reindexed")).isEmpty();
+
+        RollingIndexService hourly = createService(ChronoUnit.HOURS);
+
+        assertThat(hourly.indexName("tagread", NOW)).isEqualTo("tagread-2022.11.08.10");
+        assertThat(hourly.periodStart("tagread", "tagread-2022.11.08.10")).contains(Instant.parse("2022-11-08T10:00:00Z"));
+    }
+
+    @Test
+    void testMaintainRollsTheWriteAlias() {
+        IndexOperations pattern = indexOps("tagread-*");
+        when(pattern.getAliases("tagread-read"))
+            .thenReturn(Map.of("tagread-2022.10.01", Set.of(), "tagread-2022.11.06", Set.of(), "tagread-2022.11.07", Set.of()));
+        when(pattern.getAliases("tagread")).thenReturn(Map.of("tagread-2022.11.07", Set.<AliasData>of()));
+        RollingIndexService rollingIndexService = createService(ChronoUnit.DAYS);
+
+        rollingIndexService.maintain();
+
+        verify(indexOps("tagread-2022.11.08")).create();
+        verify(indexOps("tagread-2022.11.09")).create();
+        verify(indexOps("tagread-2022.10.01")).delete();
+        verify(indexOps("tagread-2022.11.06"), never()).delete();
+        ArgumentCaptor<AliasActions> actions = ArgumentCaptor.forClass(AliasActions.class);
+        verify(pattern).alias(actions.capture());
+        assertThat(actions.getValue().getActions()).hasSize(2);
+        AliasAction add = actions.getValue().getActions().get(0);
+        assertThat(add).isInstanceOf(AliasAction.Add.class);
+        assertThat(add.getParameters().getIndices()).containsExactly("tagread-2022.11.08");
+        assertThat(add.getParameters().getWriteIndex()).isTrue();
+        assertThat(actions.getValue().getActions().get(1)).isInstanceOf(AliasAction.Remove.class);
+        assertThat(actions.getValue().getActions().get(1).getParameters().getIndices()).containsExactly("tagread-2022.11.07");
+
+        // Nothing to do until the next period
+        rollingIndexService.maintain();
+
+        verify(pattern, times(1)).alias(any());
+    }
+
+    @Test
+    void testSearchCoordinatesOnlyIncludeExistingIndices() {
+        IndexOperations pattern = indexOps("tagread-*");
+        when(pattern.getAliases("tagread-read")).thenReturn(Map.of("tagread-2022.11.06", Set.of(), "tagread-2022.11.07", Set.of()));
+        RollingIndexService rollingIndexService = createService(ChronoUnit.DAYS);
+        rollingIndexService.maintain();
+
+        assertThat(rollingIndexService.searchCoordinates(TagRead.class, Instant.parse("2022-11-07T12:00:00Z"), NOW))
+            .hasValueSatisfying(coordinates ->
+                assertThat(coordinates.getIndexNames()).containsExactly("tagread-2022.11.07", "tagread-2022.11.08", "tagread-2022.11.09")
+            );
+        assertThat(rollingIndexService.searchCoordinates(TagRead.class, Instant.parse("2022-01-01T00:00:00Z"), Instant.parse("2022-01-02T00:00:00Z")))
+            .isEmpty();
+    }
+
+    @Test
+    void testSearchCoordinatesRejectUnboundedRanges() {
+        RollingIndexService rollingIndexService = createService(ChronoUnit.HOURS);
+        rollingIndexService.maintain();
+
+        Instant past = Instant.parse("0001-01-01T00:00:00Z");
+        Instant future = Instant.parse("9999-12-31T00:00:00Z");
+        assertThatThrownBy(() -> rollingIndexService.searchCoordinates(TagRead.class, past, future))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("retention");
+        assertThatThrownBy(() -> rollingIndexService.searchCoordinates(TagRead.class, Instant.MAX.minusSeconds(60), Instant.MAX))
+            .isInstanceOf(IllegalArgumentException.class);
+        Instant retained = NOW.minus(applicationProperties.getRollingIndices().getRetention());
+        assertThat(rollingIndexService.searchCoordinates(TagRead.class, retained, NOW)).isPresent();
+    }
+
+    private IndexOperations indexOps(String name) {
+        return indexOperations.computeIfAbsent(name, key -> mock(IndexOperations.class));
+    }
+
+    private RollingIndexService createService(ChronoUnit period) {
+        applicationProperties.getRollingIndices().setPeriod(period);
+        return new RollingIndexService(elasticsearchTemplate, applicationProperties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+}
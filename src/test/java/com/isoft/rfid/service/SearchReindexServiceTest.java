@@ -0,0 +1,219 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.User;
+import com.isoft.rfid.repository.EntityKeysetRepository;
+import com.isoft.rfid.service.dto.ReindexStatusDTO;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+/**
+ * Unit tests for {@link SearchReindexService}.
+ */
+class SearchReindexServiceTest {
+
+    private static final Instant NOW = Instant.parse("2022-11-12T10:00:00Z");
+
+    private static final String TARGET_INDEX = "user-20221112100000";
+
+    private ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private EntityKeysetRepository entityKeysetRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    private final Map<String, IndexOperations> indexOperations = new HashMap<>();
+
+    private final List<DocWriteRequest<?>> sent = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        MappingElasticsearchConverter converter = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+        converter.afterPropertiesSet();
+        elasticsearchTemplate = mock(ElasticsearchRestTemplate.class);
+        when(elasticsearchTemplate.getElasticsearchConverter()).thenReturn(converter);
+        when(elasticsearchTemplate.getIndexCoordinatesFor(User.class)).thenReturn(IndexCoordinates.of("user"));
+        when(elasticsearchTemplate.indexOps(any(IndexCoordinates.class)))
+            .thenAnswer(invocation -> indexOps(invocation.<IndexCoordinates>getArgument(0).getIndexName()));
+        IndexOperations userOperations = mock(IndexOperations.class);
+        when(userOperations.createMapping(User.class)).thenReturn(Document.create());
+        when(elasticsearchTemplate.indexOps(User.class)).thenReturn(userOperations);
+
+        entityKeysetRepository = mock(EntityKeysetRepository.class);
+        when(entityKeysetRepository.findMinId(User.class))
+            .thenAnswer(invocation -> users.isEmpty() ? OptionalLong.empty() : OptionalLong.of(users.get(0).getId()));
+        when(entityKeysetRepository.findMaxId(User.class))
+            .thenAnswer(invocation -> users.isEmpty() ? OptionalLong.empty() : OptionalLong.of(users.get(users.size() - 1).getId()));
+        when(entityKeysetRepository.findBatch(eq(User.class), anyLong(), anyLong(), anyInt(), any()))
+            .thenAnswer(invocation -> {
+                long after = invocation.getArgument(1);
+                long to = invocation.getArgument(2);
+                int limit = invocation.getArgument(3);
+                Function<User, Object> mapper = invocation.getArgument(4);
+                return users
+                    .stream()
+                    .filter(user -> user.getId() > after && user.getId() <= to)
+                    .limit(limit)
+                    .map(mapper)
+                    .collect(Collectors.toList());
+            });
+        when(entityKeysetRepository.findModifiedBatch(eq(User.class), any(), anyLong(), anyInt(), any())).thenReturn(List.of());
+
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getReindex().setParallelism(4);
+        applicationProperties.getReindex().setBatchSize(100);
+    }
+
+    @Test
+    void testRebuildsIntoANewIndexAndReplacesTheOriginalIndex() {
+        for (long id = 1; id <= 2500; id++) {
+            users.add(createUser(id * 3));
+        }
+        when(indexOps("user").exists()).thenReturn(true);
+        SearchReindexService service = createService(this::success);
+
+        ReindexStatusDTO status = service.reindex("user");
+
+        assertThat(status.getTargetIndex()).isEqualTo(TARGET_INDEX);
+        awaitState(service, ReindexStatusDTO.State.COMPLETED);
+        assertThat(service.getStatus("user").orElseThrow().getDocuments()).isEqualTo(2500);
+        assertThat(sent).extracting(DocWriteRequest::index).containsOnly(TARGET_INDEX);
+        assertThat(sent.stream().map(DocWriteRequest::id).collect(Collectors.toSet())).hasSize(2500);
+
+        ArgumentCaptor<Map<String, Object>> settings = ArgumentCaptor.forClass(Map.class);
+        verify(indexOps(TARGET_INDEX)).create(settings.capture(), any(Document.class));
+        assertThat(settings.getValue()).containsEntry("index.number_of_replicas", 0).containsEntry("index.refresh_interval", "-1");
+        verify(indexOps(TARGET_INDEX)).refresh();
+        assertThat(aliasActions()).extracting(Object::getClass).containsExactly(AliasAction.Add.class, AliasAction.RemoveIndex.class);
+    }
+
+    @Test
+    void testMovesTheAliasAndDeletesThePreviousIndex() {
+        users.add(createUser(1L));
+        when(indexOps("user-*").getAliases("user")).thenReturn(Map.of("user-20221101000000", Set.<AliasData>of()));
+        SearchReindexService service = createService(this::success);
+
+        service.reindex("user");
+
+        awaitState(service, ReindexStatusDTO.State.COMPLETED);
+        assertThat(aliasActions()).extracting(Object::getClass).containsExactly(AliasAction.Add.class, AliasAction.Remove.class);
+        verify(indexOps("user-20221101000000")).delete();
+        verify(indexOps("user"), never()).exists();
+    }
+
+    @Test
+    void testFailedRebuildKeepsTheAlias() {
+        users.add(createUser(1L));
+        when(indexOps(TARGET_INDEX).exists()).thenReturn(true);
+        when(indexOps(TARGET_INDEX).getAliases("user")).thenReturn(Map.of());
+        SearchReindexService service = createService(request -> {
+            throw new ElasticsearchException("mapper_parsing_exception");
+        });
+
+        service.reindex("user");
+
+        awaitState(service, ReindexStatusDTO.State.FAILED);
+        assertThat(service.getStatus("user").orElseThrow().getError()).contains("mapper_parsing_exception");
+        verify(indexOps("user-*"), never()).alias(any());
+        verify(indexOps(TARGET_INDEX)).delete();
+    }
+
+    @Test
+    void testRejectsUnknownIndices() {
+        SearchReindexService service = createService(this::success);
+
+        assertThat(service.getIndexNames()).containsExactly("user");
+        assertThatThrownBy(() -> service.reindex("tagread")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.getStatus("user")).isEmpty();
+    }
+
+    private SearchReindexService createService(Function<BulkRequest, BulkResponse> responses) {
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        return new SearchReindexService(elasticsearchTemplate, entityKeysetRepository, applicationProperties, clock) {
+            @Override
+            BulkResponse bulk(BulkRequest request) {
+                return responses.apply(request);
+            }
+        };
+    }
+
+    private void awaitState(SearchReindexService service, ReindexStatusDTO.State state) {
+        await().atMost(Duration.ofSeconds(10)).until(() -> service.getStatus("user").orElseThrow().getState() == state);
+    }
+
+    private List<AliasAction> aliasActions() {
+        ArgumentCaptor<AliasActions> actions = ArgumentCaptor.forClass(AliasActions.class);
+        verify(indexOps("user-*")).alias(actions.capture());
+        return actions.getValue().getActions();
+    }
+
+    private synchronized IndexOperations indexOps(String name) {
+        return indexOperations.computeIfAbsent(name, key -> mock(IndexOperations.class));
+    }
+
+    private BulkResponse success(BulkRequest request) {
+        sent.addAll(request.requests());
+        BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> item = request.requests().get(i);
+            items[i] =
+                BulkItemResponse.success(
+                    i,
+                    item.opType(),
+                    new IndexResponse(new ShardId(item.index(), "_na_", 0), "_doc", item.id(), 1, 1, 1, true)
+                );
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin("user-" + id);
+        user.setEmail("user-" + id + "@localhost");
+        user.setActivated(true);
+        return user;
+    }
+}
@@ -0,0 +1,201 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.locks.StampedLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Unit tests for {@link TagLocationService} and its {@link LastSeenIndex}.
+ */
+class TagLocationServiceTest {
+
+    private static final Epc EPC = Epc.parse("E28011606000020D6842A8B1");
+
+    private static final Epc EPC_128 = Epc.parse("300833B2DDD9014000000000000000FF");
+
+    private static final long READ_TIME = Instant.parse("2022-11-10T10:00:00Z").toEpochMilli();
+
+    @TempDir
+    Path directory;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private TagLocationService tagLocationService;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getLastSeen().setMaxTags(100);
+        applicationProperties.getLastSeen().setSnapshotFile(directory.resolve("last-seen.idx").toString());
+        tagLocationService = createService();
+    }
+
+    private TagLocationService createService() {
+        meterRegistry = new SimpleMeterRegistry();
+        TagLocationService service = new TagLocationService(applicationProperties, meterRegistry);
+        service.start();
+        return service;
+    }
+
+    @Test
+    void shouldKeepTheLastReadOfEachTag() {
+        record(EPC, "DOCK-01", 1, -60, "inbound", READ_TIME);
+        record(EPC, "DOCK-02", 2, -55, null, READ_TIME + 1_000);
+        record(EPC, "DOCK-03", 3, -50, "outbound", READ_TIME + 500);
+        record(EPC_128, "DOCK-01", Integer.MIN_VALUE, Integer.MIN_VALUE, "inbound", READ_TIME);
+
+        TagLocationDTO location = tagLocationService.findLocation(EPC).orElseThrow();
+        assertThat(location.getEpc()).isEqualTo(EPC);
+        assertThat(location.getReaderId()).isEqualTo("DOCK-02");
+        assertThat(location.getAntenna()).isEqualTo(2);
+        assertThat(location.getRssi()).isEqualTo(-55);
+        assertThat(location.getZone()).isNull();
+        assertThat(location.getLastSeen()).isEqualTo(Instant.ofEpochMilli(READ_TIME + 1_000));
+        TagLocationDTO other = tagLocationService.findLocation(EPC_128).orElseThrow();
+        assertThat(other.getZone()).isEqualTo("inbound");
+        assertThat(other.getAntenna()).isNull();
+        assertThat(other.getRssi()).isNull();
+        assertThat(tagLocationService.findLocation(Epc.parse("E28011606000020D00000000"))).isEmpty();
+        assertThat(meterRegistry.get("ingestion.locations.tags").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStopIndexingNewTagsWhenFull() {
+        for (int i = 0; i < 150; i++) {
+            record(Epc.parse(String.format("E28011606000020D%08X", i)), "DOCK-01", 1, -60, null, READ_TIME);
+        }
+
+        assertThat(meterRegistry.get("ingestion.locations.tags").gauge().value()).isEqualTo(100);
+        assertThat(tagLocationService.findLocation(Epc.parse("E28011606000020D00000063"))).isPresent();
+        assertThat(tagLocationService.findLocation(Epc.parse("E28011606000020D00000064"))).isEmpty();
+    }
+
+    @Test
+    void shouldLoadTheSnapshotOnRestart() {
+        for (int i = 0; i < 50; i++) {
+            String zone = i % 2 == 0 ? null : "zone-" + i;
+            record(Epc.parse(String.format("E28011606000020D%08X", i)), "DOCK-" + (i % 3), i, -60, zone, READ_TIME + i);
+        }
+        tagLocationService.stop();
+
+        tagLocationService = createService();
+
+        assertThat(meterRegistry.get("ingestion.locations.tags").gauge().value()).isEqualTo(50);
+        TagLocationDTO location = tagLocationService.findLocation(Epc.parse("E28011606000020D0000001F")).orElseThrow();
+        assertThat(location.getReaderId()).isEqualTo("DOCK-1");
+        assertThat(location.getAntenna()).isEqualTo(31);
+        assertThat(location.getZone()).isEqualTo("zone-31");
+        assertThat(location.getLastSeen()).isEqualTo(Instant.ofEpochMilli(READ_TIME + 31));
+
+        // Into a table of another capacity
+        tagLocationService.stop();
+        applicationProperties.getLastSeen().setMaxTags(1000);
+        tagLocationService = createService();
+
+        assertThat(meterRegistry.get("ingestion.locations.tags").gauge().value()).isEqualTo(50);
+        assertThat(tagLocationService.findLocation(Epc.parse("E28011606000020D0000001F"))).contains(location);
+        assertThat(tagLocationService.findLocation(Epc.parse("E28011606000020D00000000")).orElseThrow().getZone()).isNull();
+    }
+
+    @Test
+    void shouldSnapshotTheTableSliceBySlice() {
+        tagLocationService.stop();
+        applicationProperties.getLastSeen().setMaxTags(LastSeenIndex.SLICE_SLOTS * 3);
+        tagLocationService = createService();
+        for (int i = 0; i < 5000; i++) {
+            record(Epc.parse(String.format("E28011606000020D%08X", i)), "DOCK-01", 1, -60, null, READ_TIME + i);
+        }
+        tagLocationService.snapshot();
+        // Not in the snapshot
+        record(EPC, "DOCK-02", 1, -60, null, READ_TIME);
+
+        tagLocationService = createService();
+
+        assertThat(meterRegistry.get("ingestion.locations.tags").gauge().value()).isEqualTo(5000);
+        assertThat(tagLocationService.findLocation(Epc.parse("E28011606000020D00001000")).orElseThrow().getLastSeen())
+            .isEqualTo(Instant.ofEpochMilli(READ_TIME + 4096));
+        assertThat(tagLocationService.findLocation(EPC)).isEmpty();
+    }
+
+    @Test
+    void shouldOnlyCopyTheSlicesWrittenToSinceTheLastSnapshot() throws Exception {
+        LastSeenIndex index = new LastSeenIndex(LastSeenIndex.SLICE_SLOTS * 3);
+        StampedLock lock = new StampedLock();
+        for (int i = 0; i < 5000; i++) {
+            Epc epc = Epc.parse(String.format("E28011606000020D%08X", i));
+            index.record(epc.getHi(), epc.getLo(), epc.getLength(), "DOCK-01", 1, -60, null, READ_TIME);
+        }
+        Path file = directory.resolve("incremental.idx");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertThat(index.writeTo(channel, lock, false)).isEqualTo(index.getCapacity() / LastSeenIndex.SLICE_SLOTS);
+
+            index.record(EPC.getHi(), EPC.getLo(), EPC.getLength(), "DOCK-02", 2, -50, "outbound", READ_TIME + 1_000);
+
+            assertThat(index.writeTo(channel, lock, true)).isEqualTo(1);
+            assertThat(index.writeTo(channel, lock, true)).isZero();
+        }
+
+        LastSeenIndex loaded = new LastSeenIndex(LastSeenIndex.SLICE_SLOTS * 3);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            loaded.readFrom(channel);
+        }
+        assertThat(loaded.size()).isEqualTo(5001);
+        assertThat(loaded.get(EPC).getZone()).isEqualTo("outbound");
+        assertThat(loaded.get(Epc.parse("E28011606000020D00000001")).getReaderId()).isEqualTo("DOCK-01");
+    }
+
+    @Test
+    void shouldNotLoadAnInterruptedSnapshot() throws Exception {
+        record(EPC, "DOCK-01", 1, -60, null, READ_TIME);
+        tagLocationService.snapshot();
+        record(EPC, "DOCK-02", 1, -60, null, READ_TIME + 1_000);
+        tagLocationService.snapshot();
+        // As left by an incremental snapshot which did not complete
+        try (FileChannel channel = FileChannel.open(directory.resolve("last-seen.idx"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), 0);
+        }
+
+        tagLocationService = createService();
+
+        assertThat(tagLocationService.findLocation(EPC)).isEmpty();
+    }
+
+    @Test
+    void shouldFitTheProductionIndexInTheDirectMemoryOfTheContainer() {
+        // The shipped configuration, rather than that of the tests
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(
+            new FileSystemResource("src/main/resources/config/application.yml"),
+            new FileSystemResource("src/main/resources/config/application-prod.yml")
+        );
+        int maxTags = Integer.parseInt(yaml.getObject().getProperty("application.last-seen.max-tags"));
+
+        LastSeenIndex index = new LastSeenIndex(maxTags);
+        assertThat(index.record(EPC.getHi(), EPC.getLo(), EPC.getLength(), "DOCK-01", 1, -60, null, READ_TIME)).isTrue();
+
+        // Once all its buffers are allocated, within the -XX:MaxDirectMemorySize=512m of src/main/docker/app.yml
+        assertThat((long) index.getCapacity() * LastSeenIndex.STRIDE).isLessThanOrEqualTo(DataSize.ofMegabytes(256).toBytes());
+    }
+
+    private void record(Epc epc, String readerId, int antenna, int rssi, String zone, long readTime) {
+        tagLocationService.record(epc.getHi(), epc.getLo(), epc.getLength(), readerId, antenna, rssi, zone, readTime);
+    }
+}
@@ -0,0 +1,213 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Unit tests for {@link TagMovementFeedService}.
+ */
+class TagMovementFeedServiceTest {
+
+    private static final Epc EPC = Epc.parse("E28011606000020D6842A8B1");
+
+    private static final Epc OTHER_EPC = Epc.parse("300833B2DDD9014000000000000000FF");
+
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Tasks of the feed executor, run manually to simulate slow clients.
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private MeterRegistry meterRegistry;
+
+    private TagMovementFeedService tagMovementFeedService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getLiveFeed().setMaxPendingTags(2);
+        applicationProperties.getLiveFeed().setHeartbeatInterval(Duration.ofSeconds(15));
+        tagMovementFeedService = new TagMovementFeedService(applicationProperties, meterRegistry, tasks::add, clock);
+        tagMovementFeedService.start();
+    }
+
+    @Test
+    void shouldCoalesceTheMovementsOfATagWhileAClientIsBehind() {
+        RecordingEmitter emitter = subscribe(null);
+
+        publish(EPC, "inbound", 1);
+        publish(EPC, "outbound", 2);
+        publish(OTHER_EPC, "inbound", 3);
+
+        assertThat(tasks).hasSize(1);
+        runTasks();
+
+        assertThat(emitter.movements()).extracting(TagLocationDTO::getZone).containsExactly("outbound", "inbound");
+        assertThat(meterRegistry.get("feed.updates.coalesced").counter().count()).isEqualTo(1);
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    void shouldDropTheOldestTagsBeyondTheBuffer() {
+        RecordingEmitter emitter = subscribe(null);
+
+        publish(EPC, "inbound", 1);
+        publish(OTHER_EPC, "inbound", 2);
+        publish(Epc.parse("E28011606000020D6842A8B2"), "inbound", 3);
+        runTasks();
+
+        assertThat(emitter.movements()).extracting(TagLocationDTO::getEpc).doesNotContain(EPC).hasSize(2);
+        assertThat(meterRegistry.get("feed.updates.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFilterMovementsByZone() {
+        RecordingEmitter inbound = subscribe("inbound");
+        RecordingEmitter all = subscribe(null);
+
+        publish(EPC, "inbound", 1);
+        publish(OTHER_EPC, "outbound", 2);
+        runTasks();
+
+        assertThat(inbound.movements()).extracting(TagLocationDTO::getEpc).containsExactly(EPC);
+        assertThat(all.movements()).extracting(TagLocationDTO::getEpc).containsExactly(EPC, OTHER_EPC);
+    }
+
+    @Test
+    void shouldSendHeartbeatsAndUnsubscribeClosedClients() {
+        RecordingEmitter emitter = subscribe(null);
+        now.addAndGet(Duration.ofSeconds(15).toMillis());
+
+        tagMovementFeedService.tick();
+        runTasks();
+
+        assertThat(emitter.events).hasSize(1);
+        assertThat(tagMovementFeedService.hasSubscribers()).isTrue();
+
+        emitter.failing = true;
+        publish(EPC, "inbound", 1);
+        runTasks();
+
+        assertThat(tagMovementFeedService.hasSubscribers()).isFalse();
+        assertThat(meterRegistry.get("feed.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldUnsubscribeClientsStalledInAWrite() throws Exception {
+        RecordingEmitter emitter = subscribe(null);
+        emitter.blocking = true;
+        RecordingEmitter other = subscribe(null);
+
+        publish(EPC, "inbound", 1);
+        Thread sender = new Thread(tasks.poll());
+        sender.start();
+        assertThat(emitter.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        runTasks();
+        assertThat(other.movements()).hasSize(1);
+
+        now.addAndGet(Duration.ofSeconds(14).toMillis());
+        tagMovementFeedService.tick();
+        assertThat(sender.isAlive()).isTrue();
+
+        now.addAndGet(Duration.ofSeconds(1).toMillis());
+        tagMovementFeedService.tick();
+        sender.join(5000);
+
+        assertThat(sender.isAlive()).isFalse();
+        assertThat(emitter.interrupted).isTrue();
+        assertThat(tagMovementFeedService.hasSubscribers()).isTrue();
+        assertThat(meterRegistry.get("feed.subscribers").gauge().value()).isEqualTo(1);
+
+        publish(OTHER_EPC, "inbound", 2);
+        assertThat(tasks).hasSize(1);
+    }
+
+    private RecordingEmitter subscribe(String zone) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        tagMovementFeedService.subscribe(zone, emitter);
+        return emitter;
+    }
+
+    private void publish(Epc epc, String zone, long readTime) {
+        tagMovementFeedService.publish(epc.getHi(), epc.getLo(), epc.getLength(), "DOCK-01", 1, -60, zone, readTime);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Emitter which is not bound to a response, and records what it is sent.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<List<ResponseBodyEmitter.DataWithMediaType>> events = new ArrayList<>();
+
+        private boolean failing;
+
+        /**
+         * Whether the writes block until interrupted, like for a client which stopped reading.
+         */
+        private volatile boolean blocking;
+
+        private final CountDownLatch blocked = new CountDownLatch(1);
+
+        private volatile boolean interrupted;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            if (blocking) {
+                blocked.countDown();
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    throw new InterruptedIOException("Write interrupted");
+                }
+            }
+            events.add(new ArrayList<>(builder.build()));
+        }
+
+        private List<TagLocationDTO> movements() {
+            return events
+                .stream()
+                .flatMap(List::stream)
+                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                .filter(TagLocationDTO.class::isInstance)
+                .map(TagLocationDTO.class::cast)
+                .collect(Collectors.toList());
+        }
+    }
+}
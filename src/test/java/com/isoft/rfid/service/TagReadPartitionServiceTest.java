@@ -0,0 +1,108 @@
+package com.isoft.rfid.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagReadPartition;
+import com.isoft.rfid.repository.TagReadPartitionRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TagReadPartitionService}.
+ */
+class TagReadPartitionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2022-11-11T10:15:30Z");
+
+    private TagReadPartitionRepository tagReadPartitionRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    public void setup() {
+        tagReadPartitionRepository = mock(TagReadPartitionRepository.class);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getReadPartitions().setPrecreatedDays(2);
+        applicationProperties.getReadPartitions().setRetention(Duration.ofDays(7));
+    }
+
+    @Test
+    void shouldCreateTheMissingPartitionsAhead() {
+        when(tagReadPartitionRepository.findAll())
+            .thenReturn(
+                List.of(
+                    partition("tag_read_legacy", null, "2022-11-12T00:00:00Z"),
+                    new TagReadPartition("tag_read_default", null, null, true)
+                )
+            );
+
+        createService().maintain();
+
+        verify(tagReadPartitionRepository)
+            .create("tag_read_20221112", Instant.parse("2022-11-12T00:00:00Z"), Instant.parse("2022-11-13T00:00:00Z"));
+        verify(tagReadPartitionRepository)
+            .create("tag_read_20221113", Instant.parse("2022-11-13T00:00:00Z"), Instant.parse("2022-11-14T00:00:00Z"));
+        verify(tagReadPartitionRepository, times(2)).create(anyString(), any(), any());
+        verify(tagReadPartitionRepository, never()).drop(anyString());
+        verify(tagReadPartitionRepository).deleteFromDefault(NOW.minus(Duration.ofDays(7)));
+    }
+
+    @Test
+    void shouldDropExpiredPartitions() {
+        when(tagReadPartitionRepository.findAll())
+            .thenReturn(
+                List.of(
+                    partition("tag_read_legacy", null, "2022-11-03T00:00:00Z"),
+                    partition("tag_read_20221103", "2022-11-03T00:00:00Z", "2022-11-04T00:00:00Z"),
+                    partition("tag_read_20221104", "2022-11-04T00:00:00Z", "2022-11-05T00:00:00Z"),
+                    partition("tag_read_20221111", "2022-11-11T00:00:00Z", "2022-11-12T00:00:00Z"),
+                    partition("tag_read_20221112", "2022-11-12T00:00:00Z", "2022-11-13T00:00:00Z"),
+                    partition("tag_read_20221113", "2022-11-13T00:00:00Z", "2022-11-14T00:00:00Z")
+                )
+            );
+
+        createService().maintain();
+
+        verify(tagReadPartitionRepository).drop("tag_read_legacy");
+        verify(tagReadPartitionRepository).drop("tag_read_20221103");
+        verify(tagReadPartitionRepository, times(2)).drop(anyString());
+        verify(tagReadPartitionRepository, never()).create(anyString(), any(), any());
+    }
+
+    @Test
+    void shouldDetachExpiredPartitionsToArchiveThem() {
+        applicationProperties.getReadPartitions().setDetachExpired(true);
+        when(tagReadPartitionRepository.findAll())
+            .thenReturn(List.of(partition("tag_read_20221101", "2022-11-01T00:00:00Z", "2022-11-02T00:00:00Z")));
+
+        createService().maintain();
+
+        verify(tagReadPartitionRepository).detach("tag_read_20221101");
+        verify(tagReadPartitionRepository, never()).drop(anyString());
+    }
+
+    @Test
+    void shouldNotFailWhenTheDatabaseIsDown() {
+        when(tagReadPartitionRepository.findAll()).thenThrow(new IllegalStateException("database is down"));
+
+        createService().start();
+
+        verify(tagReadPartitionRepository, never()).create(anyString(), any(), any());
+    }
+
+    private TagReadPartitionService createService() {
+        return new TagReadPartitionService(tagReadPartitionRepository, applicationProperties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static TagReadPartition partition(String name, String from, String to) {
+        return new TagReadPartition(name, from == null ? null : Instant.parse(from), to == null ? null : Instant.parse(to), false);
+    }
+}
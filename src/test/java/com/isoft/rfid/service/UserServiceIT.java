@@ -10,7 +10,7 @@ import com.isoft.rfid.IntegrationTest;
 import com.isoft.rfid.config.Constants;
 import com.isoft.rfid.domain.User;
 import com.isoft.rfid.repository.UserRepository;
-import com.isoft.rfid.repository.search.UserSearchRepository;
+import com.isoft.rfid.repository.search.SearchOutbox;
 import com.isoft.rfid.service.dto.AdminUserDTO;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -55,13 +55,8 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
-    /**
-     * This repository is mocked in the com.isoft.rfid.repository.search test package.
-     *
-     * @see com.isoft.rfid.repository.search.UserSearchRepositoryMockConfiguration
-     */
     @SpyBean
-    private UserSearchRepository spiedUserSearchRepository;
+    private SearchOutbox spiedSearchOutbox;
 
     @Autowired
     private AuditingHandler auditingHandler;
@@ -179,7 +174,7 @@ class UserServiceIT {
         assertThat(users).isEmpty();
 
         // Verify Elasticsearch mock
-        verify(spiedUserSearchRepository, times(1)).delete(user);
+        verify(spiedSearchOutbox, times(1)).delete(User.class, user.getId());
     }
 
     @Test
@@ -199,6 +194,6 @@ class UserServiceIT {
         assertThat(maybeDbUser).contains(dbUser);
 
         // Verify Elasticsearch mock
-        verify(spiedUserSearchRepository, never()).delete(user);
+        verify(spiedSearchOutbox, never()).delete(User.class, user.getId());
     }
 }
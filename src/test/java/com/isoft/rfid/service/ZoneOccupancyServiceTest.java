@@ -0,0 +1,194 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagPresence;
+import com.isoft.rfid.management.IngestionMetersService;
+import com.isoft.rfid.repository.TagPresenceRepository;
+import com.isoft.rfid.service.dto.TagPresenceDTO;
+import com.isoft.rfid.service.dto.ZoneOccupancyDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests for {@link ZoneOccupancyService}.
+ */
+class ZoneOccupancyServiceTest {
+
+    private static final Epc EPC = Epc.parse("E28011606000020D6842A8B1");
+
+    private static final Epc OTHER_EPC = Epc.parse("300833B2DDD9014000000000000000FF");
+
+    private static final long START = Instant.parse("2022-11-10T10:00:00Z").toEpochMilli();
+
+    private final AtomicLong now = new AtomicLong(START);
+
+    private TagPresenceRepository tagPresenceRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private ZoneOccupancyService zoneOccupancyService;
+
+    @BeforeEach
+    public void setup() {
+        tagPresenceRepository = mock(TagPresenceRepository.class);
+        zoneOccupancyService = createService();
+        zoneOccupancyService.start();
+    }
+
+    private ZoneOccupancyService createService() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getOccupancy().setExitTimeout(Duration.ofMinutes(5));
+        applicationProperties.getOccupancy().setAllowedLateness(Duration.ofMinutes(1));
+        applicationProperties.getOccupancy().setSnapshotInterval(Duration.ofMinutes(1));
+        applicationProperties.getOccupancy().setExpectedTags(4);
+        return new ZoneOccupancyService(
+            tagPresenceRepository,
+            new IngestionMetersService(meterRegistry),
+            applicationProperties,
+            meterRegistry,
+            clock
+        );
+    }
+
+    @Test
+    void shouldTrackDwellAndOccupancy() {
+        record(EPC, "inbound", START - 30_000);
+        record(EPC, "inbound", START - 10_000);
+        record(OTHER_EPC, "inbound", START - 5_000);
+
+        TagPresenceDTO presence = zoneOccupancyService.findPresence(EPC).orElseThrow();
+        assertThat(presence.getZone()).isEqualTo("inbound");
+        assertThat(presence.getEnteredAt()).isEqualTo(Instant.ofEpochMilli(START - 30_000));
+        assertThat(presence.getLastSeen()).isEqualTo(Instant.ofEpochMilli(START - 10_000));
+        assertThat(presence.getDwellSeconds()).isEqualTo(20);
+        assertThat(zoneOccupancyService.getOccupancy("inbound").getCount()).isEqualTo(2);
+
+        record(EPC, "outbound", START);
+
+        assertThat(zoneOccupancyService.findPresence(EPC).orElseThrow().getEnteredAt()).isEqualTo(Instant.ofEpochMilli(START));
+        assertThat(zoneOccupancyService.getOccupancies())
+            .containsExactly(new ZoneOccupancyDTO("inbound", 1), new ZoneOccupancyDTO("outbound", 1));
+        assertThat(zoneOccupancyService.getOccupancy("unknown").getCount()).isZero();
+        assertThat(meterRegistry.get("ingestion.occupancy.tags").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIgnoreOutOfOrderAndLateReads() {
+        record(EPC, "inbound", START);
+        record(EPC, "outbound", START - 10_000);
+
+        assertThat(zoneOccupancyService.findPresence(EPC).orElseThrow().getZone()).isEqualTo("inbound");
+
+        record(OTHER_EPC, "inbound", START - Duration.ofMinutes(2).toMillis());
+
+        assertThat(zoneOccupancyService.findPresence(OTHER_EPC)).isEmpty();
+        assertThat(meterRegistry.get("ingestion.reads.late").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExpireTagsAfterTheExitTimeout() {
+        record(EPC, "inbound", START);
+        record(OTHER_EPC, "inbound", START);
+        now.addAndGet(Duration.ofMinutes(4).toMillis());
+        record(OTHER_EPC, "inbound", now.get());
+
+        zoneOccupancyService.tick();
+
+        assertThat(zoneOccupancyService.getOccupancy("inbound").getCount()).isEqualTo(2);
+
+        // No more reads: the watermark advances with the clock
+        now.addAndGet(Duration.ofMinutes(3).toMillis());
+        zoneOccupancyService.tick();
+
+        assertThat(zoneOccupancyService.findPresence(EPC)).isEmpty();
+        assertThat(zoneOccupancyService.findPresence(OTHER_EPC)).isPresent();
+        assertThat(zoneOccupancyService.getOccupancy("inbound").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSnapshotChangesOnly() {
+        record(EPC, "inbound", START);
+        record(OTHER_EPC, "inbound", START);
+
+        zoneOccupancyService.snapshot();
+
+        ArgumentCaptor<Collection<TagPresence>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(tagPresenceRepository).update(anyCollection(), saved.capture());
+        assertThat(saved.getValue()).extracting(TagPresence::getEpc).containsExactlyInAnyOrder(EPC, OTHER_EPC);
+
+        now.addAndGet(Duration.ofMinutes(4).toMillis());
+        record(OTHER_EPC, "inbound", now.get());
+        now.addAndGet(Duration.ofMinutes(3).toMillis());
+        reset(tagPresenceRepository);
+
+        zoneOccupancyService.tick();
+
+        ArgumentCaptor<Collection<Epc>> removed = ArgumentCaptor.forClass(Collection.class);
+        verify(tagPresenceRepository).update(removed.capture(), saved.capture());
+        assertThat(removed.getValue()).containsExactly(EPC);
+        assertThat(saved.getValue()).extracting(TagPresence::getEpc).containsExactly(OTHER_EPC);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRetryFailedSnapshots() {
+        record(EPC, "inbound", START);
+        doThrow(new IllegalStateException("database is down")).when(tagPresenceRepository).update(anyCollection(), anyCollection());
+
+        zoneOccupancyService.snapshot();
+
+        reset(tagPresenceRepository);
+        zoneOccupancyService.snapshot();
+
+        ArgumentCaptor<Collection<TagPresence>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(tagPresenceRepository).update(anyCollection(), saved.capture());
+        assertThat(saved.getValue()).extracting(TagPresence::getEpc).containsExactly(EPC);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldLoadTheLastSnapshotOnStart() {
+        zoneOccupancyService.stop();
+        Instant enteredAt = Instant.ofEpochMilli(START - 60_000);
+        Instant lastSeen = Instant.ofEpochMilli(START - 1_000);
+        doAnswer(invocation -> {
+                invocation.<Consumer<TagPresence>>getArgument(0).accept(new TagPresence(EPC, "inbound", enteredAt, lastSeen));
+                return null;
+            })
+            .when(tagPresenceRepository)
+            .findAll(any());
+        zoneOccupancyService = createService();
+
+        zoneOccupancyService.start();
+        zoneOccupancyService.snapshot();
+
+        TagPresenceDTO presence = zoneOccupancyService.findPresence(EPC).orElseThrow();
+        assertThat(presence.getEnteredAt()).isEqualTo(enteredAt);
+        assertThat(presence.getLastSeen()).isEqualTo(lastSeen);
+        assertThat(zoneOccupancyService.getOccupancy("inbound").getCount()).isEqualTo(1);
+        verify(tagPresenceRepository, never()).update(anyCollection(), anyCollection());
+    }
+
+    private void record(Epc epc, String zone, long readTime) {
+        zoneOccupancyService.record(epc.getHi(), epc.getLo(), epc.getLength(), zone, readTime);
+    }
+}
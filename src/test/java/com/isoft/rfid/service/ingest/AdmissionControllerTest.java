@@ -0,0 +1,136 @@
+package com.isoft.rfid.service.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.management.IngestionMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link AdmissionController}.
+ */
+class AdmissionControllerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private ReadPipeline readPipeline;
+
+    private MeterRegistry meterRegistry;
+
+    private AdmissionController admissionController;
+
+    @BeforeEach
+    public void setup() {
+        readPipeline = mock(ReadPipeline.class);
+        when(readPipeline.getBufferSize()).thenReturn(1000);
+        when(readPipeline.isRunning()).thenReturn(true);
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now.get());
+        meterRegistry = new SimpleMeterRegistry();
+        admissionController =
+            new AdmissionController(
+                readPipeline,
+                new ApplicationProperties(),
+                new IngestionMetersService(meterRegistry),
+                meterRegistry,
+                clock
+            );
+    }
+
+    @Test
+    void shouldAdmitWhileThePipelineKeepsUp() {
+        when(readPipeline.getBacklog()).thenReturn(100L);
+
+        admissionController.admit(500);
+
+        assertThat(meterRegistry.get("ingestion.admission").tag("result", "admitted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldThrottleWhenTheQueueIsFull() {
+        admissionController.admit(10);
+        now.addAndGet(1000);
+        when(readPipeline.getProcessedSequence()).thenReturn(99L);
+        when(readPipeline.getBacklog()).thenReturn(790L);
+
+        assertThatThrownBy(() -> admissionController.admit(20))
+            .asInstanceOf(InstanceOfAssertFactories.type(IngestionOverloadedException.class))
+            .satisfies(e -> {
+                assertThat(e.getReason()).isEqualTo(AdmissionController.Reason.QUEUE);
+                assertThat(e.getReason().isUnavailable()).isFalse();
+                // 790 reads at 100 reads per second
+                assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(8));
+            });
+        assertThat(meterRegistry.get("ingestion.admission").tags("result", "shed", "reason", "queue").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ingestion.admission.retry-after").gauge().value()).isEqualTo(8);
+    }
+
+    @Test
+    void shouldThrottleWhenTheWriterIsBehindTheJournal() {
+        when(readPipeline.getJournalLag()).thenReturn(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> admissionController.admit(1))
+            .asInstanceOf(InstanceOfAssertFactories.type(IngestionOverloadedException.class))
+            .satisfies(e -> {
+                assertThat(e.getReason()).isEqualTo(AdmissionController.Reason.JOURNAL);
+                // The writer does not move
+                assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(60));
+            });
+    }
+
+    @Test
+    void shouldAdmitAgainOnceTheWriterCatchesUpWithTheJournal() {
+        when(readPipeline.getJournalLag()).thenReturn(Long.MAX_VALUE);
+        assertThatThrownBy(() -> admissionController.admit(1)).isInstanceOf(IngestionOverloadedException.class);
+
+        // The writer recovered, and committed its offset since
+        now.addAndGet(AdmissionController.SAMPLE_INTERVAL_MILLIS);
+        when(readPipeline.getJournalWriterOffset()).thenReturn(4096L);
+        when(readPipeline.getJournalLag()).thenReturn(0L);
+
+        admissionController.admit(1);
+
+        assertThat(meterRegistry.get("ingestion.admission").tag("result", "admitted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldShedWhenTheDatabaseIsSaturated() {
+        Timer acquire = Timer.builder("hikaricp.connections.acquire").tag("pool", "Hikari").register(meterRegistry);
+        acquire.record(Duration.ofMillis(900));
+        acquire.record(Duration.ofMillis(700));
+
+        assertThatThrownBy(() -> admissionController.admit(1))
+            .asInstanceOf(InstanceOfAssertFactories.type(IngestionOverloadedException.class))
+            .satisfies(e -> assertThat(e.getReason()).isEqualTo(AdmissionController.Reason.DATABASE))
+            .satisfies(e -> assertThat(e.getReason().isUnavailable()).isTrue());
+
+        // Only the waits since the last sample count
+        now.addAndGet(AdmissionController.SAMPLE_INTERVAL_MILLIS);
+        acquire.record(Duration.ofMillis(2));
+
+        admissionController.admit(1);
+    }
+
+    @Test
+    void shouldShedWhileThePipelineIsStopped() {
+        when(readPipeline.isRunning()).thenReturn(false);
+
+        assertThatThrownBy(() -> admissionController.admit(1))
+            .asInstanceOf(InstanceOfAssertFactories.type(IngestionOverloadedException.class))
+            .satisfies(e -> {
+                assertThat(e.getReason()).isEqualTo(AdmissionController.Reason.STOPPED);
+                assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(1));
+            });
+    }
+}
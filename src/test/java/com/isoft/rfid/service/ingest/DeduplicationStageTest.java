@@ -0,0 +1,70 @@
+package com.isoft.rfid.service.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.management.IngestionMetersService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link DeduplicationStage}.
+ */
+class DeduplicationStageTest {
+
+    private static final Epc EPC = Epc.parse("E28011606000020D6842A8B1");
+
+    private DeduplicationStage deduplicationStage;
+
+    @BeforeEach
+    public void setup() {
+        deduplicationStage = new DeduplicationStage(new IngestionMetersService(new SimpleMeterRegistry()), Duration.ofSeconds(5), 16);
+    }
+
+    @Test
+    void testRepeatsWithinWindowAreDuplicates() {
+        long key = key(EPC, "DOCK-01", 1);
+
+        assertThat(deduplicationStage.isDuplicate(key, 1_000)).isFalse();
+        assertThat(deduplicationStage.isDuplicate(key, 2_000)).isTrue();
+        assertThat(deduplicationStage.isDuplicate(key, 5_999)).isTrue();
+        assertThat(deduplicationStage.isDuplicate(key, 6_000)).isFalse();
+        assertThat(deduplicationStage.isDuplicate(key, 7_000)).isTrue();
+    }
+
+    @Test
+    void testOutOfOrderReadsAreDuplicates() {
+        long key = key(EPC, "DOCK-01", 1);
+
+        assertThat(deduplicationStage.isDuplicate(key, 10_000)).isFalse();
+        assertThat(deduplicationStage.isDuplicate(key, 9_000)).isTrue();
+    }
+
+    @Test
+    void testKeyIncludesReaderAndAntenna() {
+        long key = key(EPC, "DOCK-01", 1);
+
+        assertThat(key(Epc.parse("e28011606000020d6842a8b1"), "DOCK-01", 1)).isEqualTo(key);
+        assertThat(key(Epc.parse("E28011606000020D6842A8B2"), "DOCK-01", 1)).isNotEqualTo(key);
+        assertThat(key(Epc.parse("00000000E28011606000020D6842A8B1"), "DOCK-01", 1)).isNotEqualTo(key);
+        assertThat(key(EPC, "DOCK-02", 1)).isNotEqualTo(key);
+        assertThat(key(EPC, "DOCK-01", 2)).isNotEqualTo(key);
+        assertThat(key(EPC, "DOCK-01", ReadEvent.NO_VALUE)).isNotEqualTo(key);
+    }
+
+    @Test
+    void testPurgeRemovesExpiredKeys() {
+        deduplicationStage.isDuplicate(key(EPC, "DOCK-01", 1), 1_000);
+        deduplicationStage.isDuplicate(key(EPC, "DOCK-01", 2), 8_000);
+
+        deduplicationStage.purge(10_000);
+
+        assertThat(deduplicationStage.size()).isEqualTo(1);
+    }
+
+    private static long key(Epc epc, String readerId, int antenna) {
+        return DeduplicationStage.key(epc.getHi(), epc.getLo(), epc.getLength(), readerId, antenna);
+    }
+}
@@ -0,0 +1,130 @@
+package com.isoft.rfid.service.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.domain.Epc;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link ReadJournal}.
+ */
+class ReadJournalTest {
+
+    private static final Epc EPC = Epc.parse("E28011606000020D6842A8B1");
+
+    private static final Epc EPC_128 = Epc.parse("300833B2DDD9014000000000000000FF");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayRecordsAfterAnOffset() throws IOException {
+        ReadJournal journal = open(1024 * 1024);
+        long first = journal.append(createEvent(EPC, "DOCK-01", 1, "inbound", 1_000L));
+        journal.append(createEvent(EPC_128, "DOCK-02", ReadEvent.NO_VALUE, null, 2_000L));
+        long last = journal.append(createEvent(EPC, "DOCK-03", 3, "outbound", 3_000L));
+        journal.commit();
+        journal.commitOffset(ReadJournal.WRITER, first);
+        journal.close();
+
+        ReadJournal reopened = open(1024 * 1024);
+        assertThat(reopened.getOffset()).isEqualTo(last);
+        assertThat(reopened.getCommittedOffset(ReadJournal.WRITER)).isEqualTo(first);
+        assertThat(reopened.getCommittedOffset(ReadJournal.INDEXER)).isZero();
+
+        ReadJournal.Cursor cursor = reopened.cursor(first);
+        ReadEvent event = ReadEvent.FACTORY.newInstance();
+        assertThat(cursor.hasNext()).isTrue();
+        cursor.next(event);
+        assertThat(new Epc(event.getEpcHi(), event.getEpcLo(), event.getEpcLength())).isEqualTo(EPC_128);
+        assertThat(event.getReaderId()).isEqualTo("DOCK-02");
+        assertThat(event.getAntenna()).isEqualTo(ReadEvent.NO_VALUE);
+        assertThat(event.getZone()).isNull();
+        assertThat(event.getReadTime()).isEqualTo(2_000L);
+        assertThat(event.isReplayed()).isTrue();
+        assertThat(cursor.hasNext()).isTrue();
+        assertThat(cursor.next(event)).isEqualTo(last);
+        assertThat(event.getZone()).isEqualTo("outbound");
+        assertThat(cursor.hasNext()).isFalse();
+    }
+
+    @Test
+    void shouldDiscardTornRecords() throws IOException {
+        ReadJournal journal = open(1024 * 1024);
+        long first = journal.append(createEvent(EPC, "DOCK-01", 1, null, 1_000L));
+        journal.append(createEvent(EPC, "DOCK-01", 2, null, 2_000L));
+        journal.commit();
+        journal.close();
+        try (FileChannel channel = FileChannel.open(segments()[0], StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x42 }), first + 20);
+        }
+
+        ReadJournal reopened = open(1024 * 1024);
+        assertThat(reopened.getOffset()).isEqualTo(first);
+        ReadJournal.Cursor cursor = reopened.cursor(0);
+        assertThat(cursor.hasNext()).isTrue();
+        cursor.next(ReadEvent.FACTORY.newInstance());
+        assertThat(cursor.hasNext()).isFalse();
+
+        long next = reopened.append(createEvent(EPC, "DOCK-01", 3, null, 3_000L));
+        ReadEvent event = ReadEvent.FACTORY.newInstance();
+        cursor = reopened.cursor(first);
+        assertThat(cursor.hasNext()).isTrue();
+        assertThat(cursor.next(event)).isEqualTo(next);
+        assertThat(event.getAntenna()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRollSegmentsAndDeleteConsumedOnes() throws IOException {
+        ReadJournal journal = open(2 * ReadJournal.MAX_RECORD_SIZE);
+        long offset = 0;
+        for (int i = 0; i < 100; i++) {
+            offset = journal.append(createEvent(EPC, "DOCK-01", i, "inbound", 1_000L + i));
+        }
+        journal.commit();
+        int segments = segments().length;
+        assertThat(segments).isGreaterThan(2);
+
+        ReadJournal.Cursor cursor = journal.cursor(0);
+        ReadEvent event = ReadEvent.FACTORY.newInstance();
+        int count = 0;
+        while (cursor.hasNext()) {
+            cursor.next(event);
+            assertThat(event.getAntenna()).isEqualTo(count++);
+        }
+        assertThat(count).isEqualTo(100);
+
+        journal.commitOffset(ReadJournal.WRITER, offset);
+        journal.commitOffset(ReadJournal.INDEXER, offset);
+        for (int i = 0; i < 20; i++) {
+            journal.append(createEvent(EPC, "DOCK-01", i, "inbound", 2_000L + i));
+        }
+        assertThat(segments()).hasSizeLessThan(segments);
+    }
+
+    private ReadJournal open(long segmentSize) throws IOException {
+        ReadJournal journal = new ReadJournal(directory, segmentSize);
+        journal.open();
+        return journal;
+    }
+
+    private Path[] segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).sorted().toArray(Path[]::new);
+        }
+    }
+
+    private static ReadEvent createEvent(Epc epc, String readerId, int antenna, String zone, long readTime) {
+        ReadEvent event = ReadEvent.FACTORY.newInstance();
+        event.set(epc, readerId, antenna, -60, zone, readTime);
+        return event;
+    }
+}
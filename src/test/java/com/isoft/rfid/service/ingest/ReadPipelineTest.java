@@ -0,0 +1,377 @@
+package com.isoft.rfid.service.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.management.IngestionMetersService;
+import com.isoft.rfid.repository.search.BulkIndexer;
+import com.isoft.rfid.service.TagLocationService;
+import com.isoft.rfid.service.TagMovementFeedService;
+import com.isoft.rfid.service.TagReadService;
+import com.isoft.rfid.service.ZoneOccupancyService;
+import com.isoft.rfid.service.dto.TagReadDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link ReadPipeline}.
+ */
+class ReadPipelineTest {
+
+    private TagReadService tagReadService;
+
+    private BulkIndexer bulkIndexer;
+
+    private ZoneOccupancyService zoneOccupancyService;
+
+    private TagLocationService tagLocationService;
+
+    private TagMovementFeedService tagMovementFeedService;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private ReadPipeline readPipeline;
+
+    private final List<TagRead> saved = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<TagRead> indexed = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        AtomicLong ids = new AtomicLong();
+        tagReadService = mock(TagReadService.class);
+        when(tagReadService.saveAll(anyList()))
+            .thenAnswer(invocation -> {
+                List<TagRead> tagReads = invocation.getArgument(0);
+                tagReads.forEach(tagRead -> tagRead.setId(ids.incrementAndGet()));
+                saved.addAll(tagReads);
+                return tagReads.size();
+            });
+        bulkIndexer = mock(BulkIndexer.class);
+        doAnswer(invocation -> indexed.addAll(invocation.getArgument(0))).when(bulkIndexer).indexAll(anyList());
+        zoneOccupancyService = mock(ZoneOccupancyService.class);
+        tagLocationService = mock(TagLocationService.class);
+        tagMovementFeedService = mock(TagMovementFeedService.class);
+
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngestion().setRingBufferSize(64);
+        applicationProperties.getIngestion().setWriterBatchSize(10);
+        applicationProperties.getIngestion().setIndexerBatchSize(7);
+        applicationProperties.getIngestion().setWriterInitialBackoff(Duration.ofMillis(10));
+        applicationProperties.getIngestion().setWriterMaxBackoff(Duration.ofMillis(50));
+        readPipeline = createPipeline();
+    }
+
+    private ReadPipeline createPipeline() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReadPipeline pipeline = new ReadPipeline(
+            applicationProperties,
+            tagReadService,
+            bulkIndexer,
+            zoneOccupancyService,
+            tagLocationService,
+            tagMovementFeedService,
+            new IngestionMetersService(meterRegistry),
+            meterRegistry
+        );
+        pipeline.start();
+        return pipeline;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        readPipeline.stop();
+    }
+
+    @Test
+    void shouldPersistThenIndexValidReads() {
+        List<TagReadDTO> reads = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            reads.add(createRead(String.format("E28011606000020D%08X", i), 1));
+        }
+
+        readPipeline.publish(reads);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(indexed).hasSize(150));
+        assertThat(saved).hasSize(150);
+        assertThat(indexed).allMatch(tagRead -> tagRead.getId() != null);
+        assertThat(meterRegistry.get("ingestion.reads.published").counter().count()).isEqualTo(150);
+        assertThat(meterRegistry.get("ingestion.pipeline.lag").tag("stage", "indexer").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldDropDuplicateReads() {
+        List<TagReadDTO> reads = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            reads.add(createRead("E28011606000020D6842A8B1", i % 4));
+        }
+
+        readPipeline.publish(reads);
+
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> assertThat(meterRegistry.get("ingestion.pipeline.lag").tag("stage", "indexer").gauge().value()).isZero());
+        assertThat(saved).hasSize(4);
+        assertThat(meterRegistry.get("ingestion.deduplication").tag("result", "hit").counter().count()).isEqualTo(96);
+        assertThat(meterRegistry.get("ingestion.deduplication").tag("result", "miss").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldRejectInvalidReads() {
+        List<TagReadDTO> reads = new ArrayList<>();
+        reads.add(createRead("E28011606000020D6842A8B1", 1));
+        TagReadDTO missingEpc = createRead("E28011606000020D6842A8B3", 1);
+        missingEpc.setEpc(null);
+        reads.add(missingEpc);
+        TagReadDTO future = createRead("E28011606000020D6842A8B2", 1);
+        future.setReadTime(Instant.now().plus(Duration.ofDays(1)));
+        reads.add(future);
+
+        readPipeline.publish(reads);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(indexed).hasSize(1));
+        assertThat(saved).hasSize(1);
+        assertThat(meterRegistry.get("ingestion.reads.rejected").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectSlotsLeftUnfilledByAFailedPublish() {
+        List<TagReadDTO> reads = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            reads.add(createRead(String.format("E28011606000020D%08X", i), 1));
+        }
+        readPipeline.publish(reads);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(indexed).hasSize(64));
+
+        // The second slot of the next lap still holds a valid read, which must not be processed again
+        List<TagReadDTO> failing = new ArrayList<>();
+        failing.add(createRead("E28011606000020D6842A8B1", 1));
+        failing.add(null);
+        assertThatThrownBy(() -> readPipeline.publish(failing)).isInstanceOf(NullPointerException.class);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(indexed).hasSize(65));
+        assertThat(meterRegistry.get("ingestion.reads.rejected").counter().count()).isEqualTo(1);
+        assertThat(saved).hasSize(65);
+    }
+
+    @Test
+    void shouldRecordTheOccupancyOfZonedReads() {
+        TagReadDTO zoned = createRead("E28011606000020D6842A8B1", 1);
+        zoned.setZone("inbound");
+        TagReadDTO duplicate = createRead("E28011606000020D6842A8B1", 1);
+        duplicate.setZone("inbound");
+
+        readPipeline.publish(List.of(zoned, duplicate, createRead("E28011606000020D6842A8B2", 1)));
+
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> assertThat(meterRegistry.get("ingestion.pipeline.lag").tag("stage", "occupancy").gauge().value()).isZero());
+        Epc epc = zoned.getEpc();
+        verify(zoneOccupancyService)
+            .record(epc.getHi(), epc.getLo(), epc.getLength(), "inbound", zoned.getReadTime().toEpochMilli());
+        verify(zoneOccupancyService, times(1)).record(anyLong(), anyLong(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void shouldRecordTheLocationOfDuplicateReads() {
+        List<TagReadDTO> reads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            reads.add(createRead("E28011606000020D6842A8B1", 1));
+        }
+
+        readPipeline.publish(reads);
+
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> assertThat(meterRegistry.get("ingestion.pipeline.lag").tag("stage", "location").gauge().value()).isZero());
+        Epc epc = reads.get(0).getEpc();
+        verify(tagLocationService, times(5))
+            .record(eq(epc.getHi()), eq(epc.getLo()), eq(epc.getLength()), eq("DOCK-01"), eq(1), eq(-60), isNull(), anyLong());
+    }
+
+    @Test
+    void shouldFeedAcceptedReadsOnlyWhenSubscribed() {
+        readPipeline.publish(List.of(createRead("E28011606000020D6842A8B1", 1)));
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> assertThat(meterRegistry.get("ingestion.pipeline.lag").tag("stage", "feed").gauge().value()).isZero());
+        when(tagMovementFeedService.hasSubscribers()).thenReturn(true);
+
+        List<TagReadDTO> reads = List.of(createRead("E28011606000020D6842A8B2", 1), createRead("E28011606000020D6842A8B2", 1));
+        readPipeline.publish(reads);
+
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> assertThat(meterRegistry.get("ingestion.pipeline.lag").tag("stage", "feed").gauge().value()).isZero());
+        Epc epc = reads.get(0).getEpc();
+        verify(tagMovementFeedService)
+            .publish(eq(epc.getHi()), eq(epc.getLo()), eq(epc.getLength()), eq("DOCK-01"), eq(1), eq(-60), isNull(), anyLong());
+        verify(tagMovementFeedService).publish(anyLong(), anyLong(), anyInt(), any(), anyInt(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void shouldPublishFromReadSources() {
+        Epc epc = Epc.parse("E28011606000020D6842A8B1");
+        AtomicLong antennas = new AtomicLong();
+        long now = System.currentTimeMillis();
+
+        long sequence = readPipeline.tryPublish(
+            10,
+            event -> event.set(epc.getHi(), epc.getLo(), epc.getLength(), "DOCK-01", (int) antennas.incrementAndGet(), -60, null, now)
+        );
+
+        assertThat(sequence).isEqualTo(9);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(indexed).hasSize(10));
+        assertThat(saved).allMatch(tagRead -> tagRead.getEpc().equals(epc));
+        assertThat(readPipeline.getDurableSequence()).isEqualTo(9);
+        // Larger than the ring buffer
+        assertThat(readPipeline.tryPublish(65, event -> {})).isNegative();
+    }
+
+    @Test
+    void shouldWriteFailedBatchesAgain() {
+        when(tagReadService.saveAll(anyList())).thenThrow(new IllegalStateException("database is down"));
+
+        readPipeline.publish(Collections.singletonList(createRead("E28011606000020D6842A8B1", 1)));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> verify(tagReadService, atLeast(3)).saveAll(anyList()));
+        verify(bulkIndexer, never()).indexAll(anyList());
+        assertThat(meterRegistry.get("ingestion.pipeline.lag").tag("stage", "writer").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCommitTheJournalOffsetOnceAFailedBatchIsWritten(@TempDir Path directory) {
+        readPipeline.stop();
+        applicationProperties.getWal().setEnabled(true);
+        applicationProperties.getWal().setDirectory(directory.toString());
+        readPipeline = createPipeline();
+        List<TagReadDTO> reads = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            reads.add(createRead(String.format("E28011606000020D%08X", i), 1));
+        }
+        List<TagRead> written = Collections.synchronizedList(new ArrayList<>());
+        doThrow(new IllegalStateException("database is down"))
+            .doAnswer(invocation -> {
+                List<TagRead> tagReads = invocation.getArgument(0);
+                written.addAll(tagReads);
+                return tagReads.size();
+            })
+            .when(tagReadService)
+            .saveAll(anyList());
+
+        readPipeline.publish(reads);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(written).hasSize(25));
+        assertThat(written)
+            .extracting(TagRead::getEpc)
+            .containsExactlyElementsOf(reads.stream().map(TagReadDTO::getEpc).collect(Collectors.toList()));
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(readPipeline.getJournalLag()).isZero());
+        assertThat(readPipeline.getJournalWriterOffset()).isPositive();
+        // Nothing is replayed once written
+        readPipeline.stop();
+        written.clear();
+        readPipeline = createPipeline();
+
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void shouldReplayUnwrittenReadsFromTheJournal(@TempDir Path directory) {
+        readPipeline.stop();
+        applicationProperties.getWal().setEnabled(true);
+        applicationProperties.getWal().setDirectory(directory.toString());
+        doThrow(new IllegalStateException("database is down")).when(tagReadService).saveAll(anyList());
+        readPipeline = createPipeline();
+        List<TagReadDTO> reads = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            reads.add(createRead(String.format("E28011606000020D%08X", i), 1));
+        }
+
+        readPipeline.publish(reads);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(readPipeline.getDurableSequence()).isEqualTo(24));
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> verify(tagReadService, atLeast(2)).saveAll(anyList()));
+        // The failing batch is given up on when stopping, and left in the journal
+        readPipeline.stop();
+        assertThat(saved).isEmpty();
+
+        reset(tagReadService);
+        when(tagReadService.saveAll(anyList()))
+            .thenAnswer(invocation -> {
+                List<TagRead> tagReads = invocation.getArgument(0);
+                saved.addAll(tagReads);
+                return tagReads.size();
+            });
+        readPipeline = createPipeline();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(indexed).hasSize(25));
+        assertThat(saved)
+            .extracting(TagRead::getEpc)
+            .containsExactlyElementsOf(reads.stream().map(TagReadDTO::getEpc).collect(Collectors.toList()));
+        // Nothing is replayed once written
+        readPipeline.stop();
+        saved.clear();
+        readPipeline = createPipeline();
+
+        verify(tagReadService, never()).findPersisted(any());
+        assertThat(saved).isEmpty();
+    }
+
+    @Test
+    void shouldIndexWrittenReadsAgainFromTheDatabase(@TempDir Path directory) {
+        readPipeline.stop();
+        applicationProperties.getWal().setEnabled(true);
+        applicationProperties.getWal().setDirectory(directory.toString());
+        doThrow(new IllegalStateException("bulk indexer is stopped")).when(bulkIndexer).indexAll(anyList());
+        readPipeline = createPipeline();
+
+        readPipeline.publish(Collections.singletonList(createRead("E28011606000020D6842A8B1", 1)));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(saved).hasSize(1));
+        readPipeline.stop();
+
+        doAnswer(invocation -> indexed.addAll(invocation.getArgument(0))).when(bulkIndexer).indexAll(anyList());
+        when(tagReadService.findPersisted(any())).thenReturn(Optional.of(saved.get(0)));
+        readPipeline = createPipeline();
+
+        assertThat(indexed).containsExactly(saved.get(0));
+        assertThat(saved).hasSize(1);
+    }
+
+    private static TagReadDTO createRead(String epc, int antenna) {
+        TagReadDTO read = new TagReadDTO();
+        read.setEpc(Epc.parse(epc));
+        read.setReaderId("DOCK-01");
+        read.setAntenna(antenna);
+        read.setRssi(-60);
+        read.setReadTime(Instant.now());
+        return read;
+    }
+}
@@ -10,6 +10,7 @@ import com.isoft.rfid.domain.User;
 import com.isoft.rfid.repository.UserRepository;
 import com.isoft.rfid.repository.search.UserSearchRepository;
 import com.isoft.rfid.security.AuthoritiesConstants;
+import com.isoft.rfid.web.rest.util.CursorPaginationUtil;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,7 @@ import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -81,6 +83,40 @@ class PublicUserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").doesNotExist());
     }
 
+    @Test
+    @Transactional
+    void getAllPublicUsersPageByPage() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        User other = UserResourceIT.createEntity(em);
+        other.setLogin("janedoe");
+        other.setEmail("janedoe@localhost");
+        userRepository.saveAndFlush(other);
+
+        MvcResult firstPage = restUserMockMvc
+            .perform(get("/api/users?cursor=&size=1&sort=login,asc&count=true").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].login").value("janedoe"))
+            .andExpect(header().string(CursorPaginationUtil.TOTAL_COUNT_HEADER, "2"))
+            .andExpect(header().exists(PublicUserResource.NEXT_CURSOR_HEADER))
+            .andReturn();
+        String cursor = firstPage.getResponse().getHeader(PublicUserResource.NEXT_CURSOR_HEADER);
+
+        restUserMockMvc
+            .perform(get("/api/users?size=1&sort=login,asc").param("cursor", cursor).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].login").value(DEFAULT_LOGIN))
+            .andExpect(header().doesNotExist(CursorPaginationUtil.TOTAL_COUNT_HEADER))
+            .andExpect(header().doesNotExist(PublicUserResource.NEXT_CURSOR_HEADER));
+
+        restUserMockMvc
+            .perform(get("/api/users?size=1&sort=login,desc").param("cursor", cursor).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        restUserMockMvc.perform(get("/api/users?cursor=invalid").accept(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getAllAuthorities() throws Exception {
@@ -92,6 +128,39 @@ class PublicUserResourceIT {
             .andExpect(jsonPath("$").value(hasItems(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)));
     }
 
+    @Test
+    @Transactional
+    void searchUsersPageByPage() throws Exception {
+        userRepository.saveAndFlush(user);
+        User other = UserResourceIT.createEntity(em);
+        other.setLogin("janedoe");
+        other.setEmail("janedoe@localhost");
+        userRepository.saveAndFlush(other);
+        mockUserSearchRepository.save(user);
+        mockUserSearchRepository.save(other);
+
+        MvcResult firstPage = restUserMockMvc
+            .perform(get("/api/_search/users/{query}", "login:*doe").param("size", "1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().exists(PublicUserResource.NEXT_CURSOR_HEADER))
+            .andReturn();
+        String cursor = firstPage.getResponse().getHeader(PublicUserResource.NEXT_CURSOR_HEADER);
+
+        restUserMockMvc
+            .perform(get("/api/_search/users/{query}", "login:*doe").param("size", "1").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().doesNotExist(PublicUserResource.NEXT_CURSOR_HEADER));
+
+        restUserMockMvc
+            .perform(get("/api/_search/users/{query}", "login:*doe").param("cursor", "invalid"))
+            .andExpect(status().isBadRequest());
+
+        mockUserSearchRepository.delete(user);
+        mockUserSearchRepository.delete(other);
+    }
+
     @Test
     @Transactional
     void getAllUsersSortedByParameters() throws Exception {
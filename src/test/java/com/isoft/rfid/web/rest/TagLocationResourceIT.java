@@ -0,0 +1,71 @@
+package com.isoft.rfid.web.rest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.TagLocationService;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link TagLocationResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TagLocationResourceIT {
+
+    private static final Epc DEFAULT_EPC = Epc.parse("E28011606000020D6842A8BA");
+    private static final String DEFAULT_READER_ID = "DOCK-01";
+    private static final int DEFAULT_ANTENNA = 2;
+    private static final int DEFAULT_RSSI = -58;
+    private static final String DEFAULT_ZONE = "inbound";
+    private static final Instant DEFAULT_READ_TIME = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @Autowired
+    private TagLocationService tagLocationService;
+
+    @Autowired
+    private MockMvc restTagLocationMockMvc;
+
+    @Test
+    void getLocation() throws Exception {
+        tagLocationService.record(
+            DEFAULT_EPC.getHi(),
+            DEFAULT_EPC.getLo(),
+            DEFAULT_EPC.getLength(),
+            DEFAULT_READER_ID,
+            DEFAULT_ANTENNA,
+            DEFAULT_RSSI,
+            DEFAULT_ZONE,
+            DEFAULT_READ_TIME.toEpochMilli()
+        );
+
+        restTagLocationMockMvc
+            .perform(get("/api/tags/{epc}/location", DEFAULT_EPC.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.epc").value(DEFAULT_EPC.toString()))
+            .andExpect(jsonPath("$.readerId").value(DEFAULT_READER_ID))
+            .andExpect(jsonPath("$.antenna").value(DEFAULT_ANTENNA))
+            .andExpect(jsonPath("$.rssi").value(DEFAULT_RSSI))
+            .andExpect(jsonPath("$.zone").value(DEFAULT_ZONE))
+            .andExpect(jsonPath("$.lastSeen").value(DEFAULT_READ_TIME.toString()));
+    }
+
+    @Test
+    void getLocationOfUnknownTag() throws Exception {
+        restTagLocationMockMvc.perform(get("/api/tags/{epc}/location", "E28011606000020D00000001")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getLocationWithInvalidEpc() throws Exception {
+        restTagLocationMockMvc.perform(get("/api/tags/{epc}/location", "E2801160")).andExpect(status().isBadRequest());
+    }
+}
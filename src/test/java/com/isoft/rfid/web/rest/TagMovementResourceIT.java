@@ -0,0 +1,71 @@
+package com.isoft.rfid.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.TagMovementFeedService;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Integration tests for the {@link TagMovementResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TagMovementResourceIT {
+
+    private static final Epc DEFAULT_EPC = Epc.parse("E28011606000020D6842A8BC");
+    private static final String DEFAULT_ZONE = "inbound";
+
+    @Autowired
+    private TagMovementFeedService tagMovementFeedService;
+
+    @Autowired
+    private MockMvc restTagMovementMockMvc;
+
+    @Test
+    void streamMovements() throws Exception {
+        MvcResult result = restTagMovementMockMvc
+            .perform(get("/api/tags/movements").param("zone", DEFAULT_ZONE).accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        publish("outbound");
+        publish(DEFAULT_ZONE);
+
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() ->
+                assertThat(result.getResponse().getContentAsString())
+                    .contains("event:movement")
+                    .contains(DEFAULT_EPC.toString())
+                    .contains("\"zone\":\"" + DEFAULT_ZONE + "\"")
+                    .doesNotContain("outbound")
+            );
+    }
+
+    private void publish(String zone) {
+        tagMovementFeedService.publish(
+            DEFAULT_EPC.getHi(),
+            DEFAULT_EPC.getLo(),
+            DEFAULT_EPC.getLength(),
+            "DOCK-01",
+            1,
+            -60,
+            zone,
+            Instant.now().toEpochMilli()
+        );
+    }
+}
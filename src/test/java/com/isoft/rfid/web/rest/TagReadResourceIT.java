@@ -0,0 +1,189 @@
+package com.isoft.rfid.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.TagReadRepository;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import com.isoft.rfid.service.dto.TagReadDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link TagReadResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TagReadResourceIT {
+
+    private static final String DEFAULT_EPC = "E28011606000020D6842A8B1";
+    private static final String DEFAULT_READER_ID = "DOCK-01";
+    private static final Integer DEFAULT_ANTENNA = 1;
+    private static final Integer DEFAULT_RSSI = -61;
+    private static final String DEFAULT_ZONE = "inbound";
+    private static final Instant DEFAULT_READ_TIME = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private static final String ENTITY_API_URL = "/api/reads/batch";
+
+    @Autowired
+    private TagReadRepository tagReadRepository;
+
+    @Autowired
+    private TagReadSearchRepository tagReadSearchRepository;
+
+    @Autowired
+    private MockMvc restTagReadMockMvc;
+
+    public static TagReadDTO createDTO(String epc) {
+        TagReadDTO tagReadDTO = new TagReadDTO();
+        tagReadDTO.setEpc(Epc.parse(epc));
+        tagReadDTO.setReaderId(DEFAULT_READER_ID);
+        tagReadDTO.setAntenna(DEFAULT_ANTENNA);
+        tagReadDTO.setRssi(DEFAULT_RSSI);
+        tagReadDTO.setZone(DEFAULT_ZONE);
+        tagReadDTO.setReadTime(DEFAULT_READ_TIME);
+        return tagReadDTO;
+    }
+
+    @Test
+    void createTagReadBatch() throws Exception {
+        int databaseSizeBeforeCreate = tagReadRepository.findAll().size();
+        List<TagReadDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            batch.add(createDTO(String.format("E28011606000020D%08X", i)));
+        }
+
+        restTagReadMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(batch)))
+            .andExpect(status().isAccepted());
+
+        // Reads are persisted asynchronously by the ingestion pipeline
+        await()
+            .atMost(Duration.ofSeconds(10))
+            .untilAsserted(() -> {
+                List<TagRead> tagReadList = tagReadRepository.findAll();
+                assertThat(tagReadList).hasSize(databaseSizeBeforeCreate + 120);
+                TagRead testTagRead = tagReadList.get(tagReadList.size() - 1);
+                assertThat(testTagRead.getEpc().toString()).startsWith("E28011606000020D");
+                assertThat(testTagRead.getReaderId()).isEqualTo(DEFAULT_READER_ID);
+                assertThat(testTagRead.getRssi()).isEqualTo(DEFAULT_RSSI);
+                assertThat(testTagRead.getZone()).isEqualTo(DEFAULT_ZONE);
+                assertThat(testTagRead.getReadTime()).isEqualTo(DEFAULT_READ_TIME);
+                assertThat(testTagRead.getCreatedBy()).isNotNull();
+            });
+
+        tagReadRepository.deleteAll();
+    }
+
+    @Test
+    void createTagReadBatchWithDuplicates() throws Exception {
+        int databaseSizeBeforeCreate = tagReadRepository.findAll().size();
+        List<TagReadDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(createDTO(DEFAULT_EPC));
+        }
+
+        restTagReadMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(batch)))
+            .andExpect(status().isAccepted());
+
+        // Repeated reads within the deduplication window are dropped
+        await()
+            .atMost(Duration.ofSeconds(10))
+            .untilAsserted(() -> assertThat(tagReadRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1));
+
+        tagReadRepository.deleteAll();
+    }
+
+    @Test
+    @Transactional
+    void createTagReadBatchWithInvalidEpc() throws Exception {
+        int databaseSizeBeforeCreate = tagReadRepository.findAll().size();
+        String content = new String(TestUtil.convertObjectToJsonBytes(Collections.singletonList(createDTO(DEFAULT_EPC))))
+            .replace(DEFAULT_EPC, "not-an-epc");
+
+        restTagReadMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(content))
+            .andExpect(status().isBadRequest());
+
+        assertThat(tagReadRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createTagReadBatchWithExistingId() throws Exception {
+        TagReadDTO tagReadDTO = createDTO(DEFAULT_EPC);
+        tagReadDTO.setId(1L);
+
+        restTagReadMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(Collections.singletonList(tagReadDTO)))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchTagReads() throws Exception {
+        TagRead tagRead = new TagRead();
+        tagRead.setId(Long.MAX_VALUE);
+        tagRead.setEpc(Epc.parse(DEFAULT_EPC));
+        tagRead.setReaderId(DEFAULT_READER_ID);
+        tagRead.setZone(DEFAULT_ZONE);
+        tagRead.setReadTime(DEFAULT_READ_TIME);
+        tagReadSearchRepository.save(tagRead);
+
+        restTagReadMockMvc
+            .perform(
+                get("/api/_search/reads")
+                    .param("query", DEFAULT_ZONE)
+                    .param("from", DEFAULT_READ_TIME.minus(1, ChronoUnit.HOURS).toString())
+                    .param("to", DEFAULT_READ_TIME.plus(1, ChronoUnit.HOURS).toString())
+            )
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].epc").value(hasItem(DEFAULT_EPC)));
+
+        // Outside of the range
+        restTagReadMockMvc
+            .perform(
+                get("/api/_search/reads")
+                    .param("query", DEFAULT_ZONE)
+                    .param("from", DEFAULT_READ_TIME.plus(1, ChronoUnit.MINUTES).toString())
+                    .param("to", DEFAULT_READ_TIME.plus(1, ChronoUnit.HOURS).toString())
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].epc").value(not(hasItem(DEFAULT_EPC))));
+
+        restTagReadMockMvc
+            .perform(
+                get("/api/_search/reads")
+                    .param("query", DEFAULT_ZONE)
+                    .param("from", DEFAULT_READ_TIME.toString())
+                    .param("to", DEFAULT_READ_TIME.minus(1, ChronoUnit.HOURS).toString())
+            )
+            .andExpect(status().isBadRequest());
+
+        tagReadSearchRepository.deleteById(Long.MAX_VALUE);
+    }
+}
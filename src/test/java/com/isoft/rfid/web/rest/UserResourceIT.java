@@ -1,6 +1,8 @@
 package com.isoft.rfid.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -8,6 +10,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.isoft.rfid.IntegrationTest;
 import com.isoft.rfid.domain.Authority;
 import com.isoft.rfid.domain.User;
+import com.isoft.rfid.repository.AuthorityRepository;
 import com.isoft.rfid.repository.UserRepository;
 import com.isoft.rfid.repository.search.UserSearchRepository;
 import com.isoft.rfid.security.AuthoritiesConstants;
@@ -27,6 +30,7 @@ import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -63,6 +67,9 @@ class UserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
     @Autowired
     private UserSearchRepository userSearchRepository;
 
@@ -274,6 +281,64 @@ class UserResourceIT {
         userSearchRepository.deleteAll();
     }
 
+    @Test
+    @Transactional
+    void getAllUsersPageByPage() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        User inactive = createEntity(em);
+        inactive.setActivated(false);
+        userRepository.saveAndFlush(inactive);
+
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=&size=1&sort=id,desc&count=true").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(inactive.getId()))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(header().exists("X-Next-Cursor"));
+
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=&sort=login,asc&sort=id,desc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAllUsers() throws Exception {
+        // Initialize the database, outside of a transaction as the users are read on the async thread
+        Authority admin = authorityRepository.findById(AuthoritiesConstants.ADMIN).orElseThrow();
+        Authority userAuthority = authorityRepository.findById(AuthoritiesConstants.USER).orElseThrow();
+        user.setAuthorities(Set.of(admin, userAuthority));
+        userRepository.saveAndFlush(user);
+        User other = createEntity(em);
+        other.setLogin("a" + other.getLogin());
+        other.setAuthorities(Set.of(userAuthority));
+        userRepository.saveAndFlush(other);
+
+        try {
+            MvcResult result = restUserMockMvc
+                .perform(get("/api/admin/users?stream=true&sort=login,desc").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            restUserMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.[*].login").value(contains(DEFAULT_LOGIN, other.getLogin())))
+                .andExpect(
+                    jsonPath("$.[0].authorities").value(containsInAnyOrder(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER))
+                )
+                .andExpect(jsonPath("$.[1].authorities").value(contains(AuthoritiesConstants.USER)));
+
+            restUserMockMvc
+                .perform(get("/api/admin/users?stream=true&sort=password,asc").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        } finally {
+            userRepository.deleteAll(List.of(user, other));
+        }
+    }
+
     @Test
     @Transactional
     void getUser() throws Exception {
@@ -0,0 +1,71 @@
+package com.isoft.rfid.web.rest;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.Epc;
+import com.isoft.rfid.service.ZoneOccupancyService;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link ZoneOccupancyResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class ZoneOccupancyResourceIT {
+
+    private static final Epc DEFAULT_EPC = Epc.parse("E28011606000020D6842A8B9");
+    private static final String DEFAULT_ZONE = "occupancy-it";
+    private static final Instant DEFAULT_READ_TIME = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @Autowired
+    private ZoneOccupancyService zoneOccupancyService;
+
+    @Autowired
+    private MockMvc restZoneOccupancyMockMvc;
+
+    @Test
+    void getPresenceAndOccupancy() throws Exception {
+        zoneOccupancyService.record(
+            DEFAULT_EPC.getHi(),
+            DEFAULT_EPC.getLo(),
+            DEFAULT_EPC.getLength(),
+            DEFAULT_ZONE,
+            DEFAULT_READ_TIME.toEpochMilli()
+        );
+
+        restZoneOccupancyMockMvc
+            .perform(get("/api/tags/{epc}/presence", DEFAULT_EPC.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.epc").value(DEFAULT_EPC.toString()))
+            .andExpect(jsonPath("$.zone").value(DEFAULT_ZONE))
+            .andExpect(jsonPath("$.dwellSeconds").value(0));
+        restZoneOccupancyMockMvc
+            .perform(get("/api/zones/{zone}/occupancy", DEFAULT_ZONE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(1));
+        restZoneOccupancyMockMvc
+            .perform(get("/api/zones/occupancy"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].zone").value(hasItem(DEFAULT_ZONE)));
+    }
+
+    @Test
+    void getPresenceOfAbsentTag() throws Exception {
+        restZoneOccupancyMockMvc.perform(get("/api/tags/{epc}/presence", "E28011606000020D00000000")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getPresenceWithInvalidEpc() throws Exception {
+        restZoneOccupancyMockMvc.perform(get("/api/tags/{epc}/presence", "not-an-epc")).andExpect(status().isBadRequest());
+    }
+}
@@ -1,5 +1,8 @@
 package com.isoft.rfid.web.rest.errors;
 
+import com.isoft.rfid.service.ingest.AdmissionController;
+import com.isoft.rfid.service.ingest.IngestionOverloadedException;
+import java.time.Duration;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.dao.ConcurrencyFailureException;
@@ -41,6 +44,11 @@ public class ExceptionTranslatorTestController {
         throw new TestResponseStatusException();
     }
 
+    @GetMapping("/ingestion-overloaded")
+    public void ingestionOverloaded() {
+        throw new IngestionOverloadedException(AdmissionController.Reason.QUEUE, Duration.ofSeconds(7));
+    }
+
     @GetMapping("/internal-server-error")
     public void internalServerError() {
         throw new RuntimeException();
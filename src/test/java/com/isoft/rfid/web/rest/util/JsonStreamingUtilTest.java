@@ -0,0 +1,105 @@
+package com.isoft.rfid.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoft.rfid.service.dto.UserDTO;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Unit tests for {@link JsonStreamingUtil}.
+ */
+class JsonStreamingUtilTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldStreamElementsAsJsonArray() throws Exception {
+        List<UserDTO> users = List.of(userDTO(1L, "johndoe"), userDTO(2L, "janedoe"));
+
+        ResponseEntity<StreamingResponseBody> response = JsonStreamingUtil.streamJsonArray(
+            objectMapper,
+            UserDTO.class,
+            action -> users.forEach(action)
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8))
+            .isEqualTo("[{\"id\":1,\"login\":\"johndoe\"},{\"id\":2,\"login\":\"janedoe\"}]");
+    }
+
+    @Test
+    void shouldStreamEmptyArray() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = JsonStreamingUtil.streamJsonArray(objectMapper, UserDTO.class, action -> {});
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+
+    @Test
+    void shouldLeaveArrayUnterminatedWhenSourceFails() {
+        ResponseEntity<StreamingResponseBody> response = JsonStreamingUtil.streamJsonArray(
+            objectMapper,
+            UserDTO.class,
+            action -> {
+                action.accept(userDTO(1L, "johndoe"));
+                throw new IllegalStateException("Connection lost");
+            }
+        );
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> response.getBody().writeTo(outputStream)).isInstanceOf(IllegalStateException.class);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("[{\"id\":1,\"login\":\"johndoe\"}");
+    }
+
+    @Test
+    void shouldSetTheAsyncTimeoutBeforeStartingTheAsyncRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            JsonStreamingUtil.streamJsonArray(objectMapper, UserDTO.class, action -> {}, Duration.ofMinutes(10));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        AsyncWebRequest asyncWebRequest = mock(AsyncWebRequest.class);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(asyncWebRequest);
+        asyncManager.setTaskExecutor(new ConcurrentTaskExecutor(Runnable::run));
+        asyncManager.startCallableProcessing(() -> null);
+
+        InOrder inOrder = inOrder(asyncWebRequest);
+        inOrder.verify(asyncWebRequest).setTimeout(600_000L);
+        inOrder.verify(asyncWebRequest).startAsync();
+    }
+
+    private static UserDTO userDTO(Long id, String login) {
+        UserDTO userDTO = new UserDTO();
+        userDTO.setId(id);
+        userDTO.setLogin(login);
+        return userDTO;
+    }
+}